@@ -0,0 +1,62 @@
+package com.mitchtalmadge.uofu_cs_bot.domain.cs;
+
+/**
+ * Packs a class from a nickname (a Course and its CSSuffix) into a single int, so that the classes
+ * of many members can be stored in primitive arrays. The course number is stored in the upper 30
+ * bits and the ordinal of the suffix in the lower 2 bits, so codes sort by course number first.
+ */
+public final class CSClassCode {
+
+  /** An array of no class codes, for members without classes. */
+  public static final int[] NO_CLASS_CODES = new int[0];
+
+  /** The largest course number that can be packed. No real course is anywhere near this. */
+  public static final int MAX_COURSE_NUMBER = Integer.MAX_VALUE >>> 2;
+
+  private static final int SUFFIX_BITS = 2;
+  private static final int SUFFIX_MASK = (1 << SUFFIX_BITS) - 1;
+
+  private static final CSSuffix[] SUFFIXES = CSSuffix.values();
+
+  static {
+    if (SUFFIXES.length > 1 << SUFFIX_BITS)
+      throw new IllegalStateException("Too many CSSuffix values to pack into a class code.");
+  }
+
+  private CSClassCode() {}
+
+  /**
+   * Packs a class.
+   *
+   * @param course The course. Its number must not be above {@link #MAX_COURSE_NUMBER}.
+   * @param suffix The suffix of the course.
+   * @return The class code.
+   */
+  public static int of(Course course, CSSuffix suffix) {
+    return (course.getNumber() << SUFFIX_BITS) | suffix.ordinal();
+  }
+
+  /**
+   * @param classCode A class code.
+   * @return The number of the course of the class.
+   */
+  public static int getCourseNumber(int classCode) {
+    return classCode >>> SUFFIX_BITS;
+  }
+
+  /**
+   * @param classCode A class code.
+   * @return The course of the class.
+   */
+  public static Course getCourse(int classCode) {
+    return Course.of(getCourseNumber(classCode));
+  }
+
+  /**
+   * @param classCode A class code.
+   * @return The suffix of the class.
+   */
+  public static CSSuffix getSuffix(int classCode) {
+    return SUFFIXES[classCode & SUFFIX_MASK];
+  }
+}
@@ -2,28 +2,15 @@ package com.mitchtalmadge.uofu_cs_bot.domain.cs;
 
 import com.mitchtalmadge.uofu_cs_bot.util.CSNamingConventions;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /** Represents the CS courses within a single guild member's nickname. */
 public class CSNickname {
 
-  /**
-   * Pattern used for parsing the group of courses in a nickname: "John Doe [3500, CS-2420-TA]" ->
-   * "[3500, CS-2420-TA]".
-   */
-  private static final Pattern CLASS_GROUP_PARSE_PATTERN =
-      Pattern.compile(
-          "[\\[\\(]\\s*(((cs-?\\s*)?\\d+\\s*(-?[a-z]+)?(,\\s*)*)+)\\s*[\\]\\)]",
-          Pattern.CASE_INSENSITIVE);
-
-  /** Pattern used for splitting the group of courses into individual class strings. */
-  private static final Pattern CLASS_SPLIT_PATTERN = Pattern.compile("(,\\s*)+");
-
   /** An immutable, empty CS Nickname. */
   public static final CSNickname EMPTY = new CSNickname();
 
@@ -43,30 +30,9 @@ public class CSNickname {
       return;
     }
 
-    // Search for class number group in nickname.
-    Matcher groupMatcher = CLASS_GROUP_PARSE_PATTERN.matcher(nickname);
-    boolean matchFound = groupMatcher.find();
-
-    // No class number group found.
-    if (!matchFound) return;
-
-    // Parse each individual class number.
-    String classNumberGroup = groupMatcher.group(1);
-    String[] classNumbers = CLASS_SPLIT_PATTERN.split(classNumberGroup);
-    for (String classNumber : classNumbers) {
-      try {
-        // Determine class.
-        Course course = new Course(classNumber);
-
-        // Determine suffix.
-        CSSuffix csSuffix = CSSuffix.fromCourseName(classNumber);
-
-        // Save.
-        classMap.put(course, csSuffix);
-      } catch (Course.InvalidCourseNameException ignored) {
-        // Could not parse the class. Invalid format.
-      }
-    }
+    // Search for the class group in the nickname ("John Doe [3500, CS-2420-TA]" ->
+    // "[3500, CS-2420-TA]") and parse each individual class.
+    CSNicknameParser.parse(nickname, classMap);
   }
 
   /** @return An unmodifiable set of courses parsed from this nickname. */
@@ -74,6 +40,25 @@ public class CSNickname {
     return Collections.unmodifiableSet(classMap.keySet());
   }
 
+  /**
+   * Packs the classes of this nickname into class codes. Courses with numbers too large to pack are
+   * left out.
+   *
+   * @return The {@link CSClassCode}s of the classes, sorted by course number.
+   */
+  public int[] getClassCodes() {
+    if (classMap.isEmpty()) return CSClassCode.NO_CLASS_CODES;
+
+    int[] classCodes = new int[classMap.size()];
+    int size = 0;
+    for (Map.Entry<Course, CSSuffix> entry : classMap.entrySet()) {
+      if (entry.getKey().getNumber() > CSClassCode.MAX_COURSE_NUMBER) continue;
+      classCodes[size++] = CSClassCode.of(entry.getKey(), entry.getValue());
+    }
+
+    return size == classCodes.length ? classCodes : Arrays.copyOf(classCodes, size);
+  }
+
   /**
    * Gets the suffix associated with the given class.
    *
@@ -96,8 +81,23 @@ public class CSNickname {
   public String updateNicknameClassGroup(String nickname) {
     if (nickname == null) return null;
 
-    return CLASS_GROUP_PARSE_PATTERN
-        .matcher(nickname)
-        .replaceAll(CSNamingConventions.toNicknameClassGroup(classMap));
+    return CSNicknameParser.replaceClassGroups(
+        nickname, CSNamingConventions.toNicknameClassGroup(classMap));
+  }
+
+  /**
+   * Given a nickname, replaces the nickname class group with the properly formatted group composed
+   * of the given classes. Equivalent to {@link #updateNicknameClassGroup(String)} on a CSNickname
+   * with the same classes.
+   *
+   * @param nickname The nickname to replace the group of.
+   * @param classCodes The {@link CSClassCode}s of the classes, sorted by course number.
+   * @return The modified nickname with the new class group.
+   */
+  public static String updateNicknameClassGroup(String nickname, int[] classCodes) {
+    if (nickname == null) return null;
+
+    return CSNicknameParser.replaceClassGroups(
+        nickname, CSNamingConventions.toNicknameClassGroup(classCodes));
   }
 }
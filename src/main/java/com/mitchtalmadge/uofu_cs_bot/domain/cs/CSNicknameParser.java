@@ -0,0 +1,321 @@
+package com.mitchtalmadge.uofu_cs_bot.domain.cs;
+
+import java.util.Map;
+
+/**
+ * A single-pass scanner for the class group of a nickname, like "[3500, CS-2420-TA]".
+ *
+ * <p>It accepts exactly the groups matched by the original pattern
+ * <code>[\[\(]\s*(((cs-?\s*)?\d+\s*(-?[a-z]+)?(,\s*)*)+)\s*[\]\)]</code> (case insensitive), and
+ * parses each comma separated class the same way as {@link Course#Course(String)} and {@link
+ * CSSuffix#fromCourseName(String)}, but works on character indices instead of creating Strings.
+ */
+final class CSNicknameParser {
+
+  // States of the group automaton. Several may be active at once.
+
+  /** Whitespace after the opening bracket. */
+  private static final int LEAD = 1;
+  /** The "c" of a "cs" prefix. */
+  private static final int PREFIX_C = 1 << 1;
+  /** A complete "cs" prefix. */
+  private static final int PREFIX = 1 << 2;
+  /** The optional "-" after a prefix. */
+  private static final int PREFIX_DASH = 1 << 3;
+  /** Whitespace after a prefix. */
+  private static final int PREFIX_WHITESPACE = 1 << 4;
+  /** The digits of a class, and the whitespace after them. */
+  private static final int DIGITS = 1 << 5;
+  /** The optional "-" before a suffix. */
+  private static final int SUFFIX_DASH = 1 << 6;
+  /** The letters of a suffix. */
+  private static final int SUFFIX = 1 << 7;
+  /** Commas between classes, and the whitespace after them. */
+  private static final int COMMA = 1 << 8;
+  /** Whitespace before the closing bracket. */
+  private static final int TRAIL = 1 << 9;
+
+  /** The states in which the group may be closed. */
+  private static final int ACCEPTING = DIGITS | SUFFIX | COMMA | TRAIL;
+
+  private CSNicknameParser() {}
+
+  /**
+   * Finds the first class group in a nickname.
+   *
+   * @param nickname The nickname to search.
+   * @param from The index to start searching from.
+   * @return The index of the opening bracket in the upper 32 bits and the index of the closing
+   *     bracket in the lower 32 bits, or -1 if there is no class group.
+   */
+  static long findClassGroup(String nickname, int from) {
+    int length = nickname.length();
+
+    for (int open = from; open < length; open++) {
+      char openChar = nickname.charAt(open);
+      if (openChar != '[' && openChar != '(') continue;
+
+      int states = LEAD;
+      for (int i = open + 1; i < length && states != 0; i++) {
+        char c = nickname.charAt(i);
+
+        if (c == ']' || c == ')') {
+          if ((states & ACCEPTING) != 0) return ((long) open << 32) | i;
+          break;
+        }
+
+        states = step(states, c);
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * Parses the classes of the first class group in a nickname.
+   *
+   * @param nickname The nickname to parse.
+   * @param classMap The map to put each parsed class and its suffix into.
+   */
+  static void parse(String nickname, Map<Course, CSSuffix> classMap) {
+    long group = findClassGroup(nickname, 0);
+    if (group == -1) return;
+
+    int end = (int) group;
+    int pieceStart = (int) (group >>> 32) + 1;
+    while (pieceStart < end && isWhitespace(nickname.charAt(pieceStart))) pieceStart++;
+
+    // Split on runs of commas, each followed by optional whitespace.
+    while (pieceStart < end) {
+      int pieceEnd = pieceStart;
+      while (pieceEnd < end && nickname.charAt(pieceEnd) != ',') pieceEnd++;
+
+      int courseNumber = parseCourseNumber(nickname, pieceStart, pieceEnd);
+      if (courseNumber >= 0)
+        classMap.put(Course.of(courseNumber), parseSuffix(nickname, pieceStart, pieceEnd));
+
+      pieceStart = pieceEnd;
+      while (pieceStart < end
+          && (nickname.charAt(pieceStart) == ',' || isWhitespace(nickname.charAt(pieceStart))))
+        pieceStart++;
+    }
+  }
+
+  /**
+   * Replaces every class group in a nickname.
+   *
+   * @param nickname The nickname.
+   * @param replacement The text to put in place of each group, including its brackets.
+   * @return The nickname with its groups replaced. The same instance if there were none.
+   */
+  static String replaceClassGroups(String nickname, String replacement) {
+    long group = findClassGroup(nickname, 0);
+    if (group == -1) return nickname;
+
+    StringBuilder output = new StringBuilder(nickname.length() + replacement.length());
+    int copied = 0;
+    do {
+      int open = (int) (group >>> 32);
+      int close = (int) group;
+
+      output.append(nickname, copied, open).append(replacement);
+      copied = close + 1;
+
+      group = findClassGroup(nickname, copied);
+    } while (group != -1);
+
+    return output.append(nickname, copied, nickname.length()).toString();
+  }
+
+  /**
+   * Advances the group automaton by one character.
+   *
+   * @param states The active states.
+   * @param c The next character.
+   * @return The states active after the character, or 0 if none.
+   */
+  private static int step(int states, char c) {
+    boolean whitespace = isWhitespace(c);
+    boolean digit = c >= '0' && c <= '9';
+    boolean letter = isLetter(c);
+    boolean prefixC = c == 'c' || c == 'C';
+
+    int next = 0;
+
+    if ((states & LEAD) != 0) {
+      if (whitespace) next |= LEAD;
+      if (prefixC) next |= PREFIX_C;
+      if (digit) next |= DIGITS;
+    }
+    if ((states & PREFIX_C) != 0) {
+      if (c == 's' || c == 'S') next |= PREFIX;
+    }
+    if ((states & PREFIX) != 0) {
+      if (c == '-') next |= PREFIX_DASH;
+      if (whitespace) next |= PREFIX_WHITESPACE;
+      if (digit) next |= DIGITS;
+    }
+    if ((states & (PREFIX_DASH | PREFIX_WHITESPACE)) != 0) {
+      if (whitespace) next |= PREFIX_WHITESPACE;
+      if (digit) next |= DIGITS;
+    }
+    if ((states & DIGITS) != 0) {
+      if (digit || whitespace) next |= DIGITS;
+      if (c == '-') next |= SUFFIX_DASH;
+      if (letter) next |= SUFFIX;
+      if (prefixC) next |= PREFIX_C;
+      if (c == ',') next |= COMMA;
+    }
+    if ((states & SUFFIX_DASH) != 0) {
+      if (letter) next |= SUFFIX;
+    }
+    if ((states & SUFFIX) != 0) {
+      if (letter) next |= SUFFIX;
+      if (prefixC) next |= PREFIX_C;
+      if (digit) next |= DIGITS;
+      if (c == ',') next |= COMMA;
+      if (whitespace) next |= TRAIL;
+    }
+    if ((states & COMMA) != 0) {
+      if (c == ',' || whitespace) next |= COMMA;
+      if (prefixC) next |= PREFIX_C;
+      if (digit) next |= DIGITS;
+    }
+    if ((states & TRAIL) != 0) {
+      if (whitespace) next |= TRAIL;
+    }
+
+    return next;
+  }
+
+  /**
+   * Parses the number of a single class, like "CS-3500 TA". Equivalent to {@link
+   * Course#Course(String)}: delimiters and whitespace are ignored, then the prefix and each suffix
+   * are removed, and what is left must be a number.
+   *
+   * @param s The string containing the class.
+   * @param start The index of the first character of the class.
+   * @param end The index after the last character of the class.
+   * @return The course number, or -1 if it cannot be parsed.
+   */
+  private static int parseCourseNumber(String s, int start, int end) {
+    // Narrow to the first and last characters which are not ignored.
+    start = nextKept(s, start, end);
+    end = previousKept(s, start, end) + 1;
+    if (start >= end) return -1;
+
+    // Remove the prefix.
+    int second = nextKept(s, start + 1, end);
+    if (second < end
+        && equalsIgnoreCase(s.charAt(start), CSConstants.CS_PREFIX.charAt(0))
+        && equalsIgnoreCase(s.charAt(second), CSConstants.CS_PREFIX.charAt(1)))
+      start = nextKept(s, second + 1, end);
+
+    // Remove the suffixes, in the same order as the Course constructor.
+    for (CSSuffix suffix : CSSuffix.values()) {
+      if (suffix == CSSuffix.NONE) continue;
+      end = removeSuffix(s, start, end, suffix.getSuffix());
+    }
+    if (start >= end) return -1;
+
+    long number = 0;
+    for (int i = start; i < end; i++) {
+      char c = s.charAt(i);
+      if (isIgnored(c)) continue;
+      if (c < '0' || c > '9') return -1;
+
+      number = number * 10 + (c - '0');
+      if (number > Integer.MAX_VALUE) return -1;
+    }
+
+    return (int) number;
+  }
+
+  /**
+   * Removes a suffix from the characters which are not ignored in a range.
+   *
+   * @param s The string.
+   * @param start The start of the range.
+   * @param end The end of the range. Must be after a character which is not ignored, or at start.
+   * @param suffix The uppercase suffix to remove.
+   * @return The new end of the range, which is unchanged if the suffix is not present.
+   */
+  private static int removeSuffix(String s, int start, int end, String suffix) {
+    int position = end;
+    for (int i = suffix.length() - 1; i >= 0; i--) {
+      position = previousKept(s, start, position);
+      if (position < start || !equalsIgnoreCase(s.charAt(position), suffix.charAt(i))) return end;
+    }
+
+    // Keep the end directly after the last remaining character.
+    return previousKept(s, start, position) + 1;
+  }
+
+  /**
+   * Determines the suffix of a single class. Equivalent to {@link CSSuffix#fromCourseName(String)}.
+   *
+   * @param s The string containing the class.
+   * @param start The index of the first character of the class.
+   * @param end The index after the last character of the class.
+   * @return The suffix. NONE is default.
+   */
+  private static CSSuffix parseSuffix(String s, int start, int end) {
+    // Trim, like String.trim().
+    while (start < end && s.charAt(start) <= ' ') start++;
+    while (end > start && s.charAt(end - 1) <= ' ') end--;
+
+    for (CSSuffix suffix : CSSuffix.values()) {
+      if (suffix == CSSuffix.NONE) continue;
+      if (endsWithIgnoreCase(s, start, end, suffix.getSuffix())) return suffix;
+    }
+
+    return CSSuffix.NONE;
+  }
+
+  private static boolean endsWithIgnoreCase(String s, int start, int end, String suffix) {
+    int offset = end - suffix.length();
+    if (offset < start) return false;
+
+    for (int i = 0; i < suffix.length(); i++) {
+      if (!equalsIgnoreCase(s.charAt(offset + i), suffix.charAt(i))) return false;
+    }
+    return true;
+  }
+
+  /** @return The index of the first character at or after start which is not ignored, or end. */
+  private static int nextKept(String s, int start, int end) {
+    while (start < end && isIgnored(s.charAt(start))) start++;
+    return start;
+  }
+
+  /** @return The index of the last character before end which is not ignored, or start - 1. */
+  private static int previousKept(String s, int start, int end) {
+    int i = end - 1;
+    while (i >= start && isIgnored(s.charAt(i))) i--;
+    return i;
+  }
+
+  /** @return True for characters removed before parsing a course number: delimiters and whitespace. */
+  private static boolean isIgnored(char c) {
+    return c == CSConstants.COURSE_NUMBER_DELIMITER.charAt(0) || isWhitespace(c);
+  }
+
+  /** @return True for the characters matched by the regex <code>\s</code>. */
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+  }
+
+  /** @return True for the characters matched by the case insensitive regex <code>[a-z]</code>. */
+  private static boolean isLetter(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+  /**
+   * @param c A character.
+   * @param upper An uppercase ASCII letter.
+   * @return True if the character is the letter, in either case.
+   */
+  private static boolean equalsIgnoreCase(char c, char upper) {
+    return c == upper || c == upper + ('a' - 'A');
+  }
+}
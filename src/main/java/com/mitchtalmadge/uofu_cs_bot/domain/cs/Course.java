@@ -7,6 +7,15 @@ import java.util.Objects;
 /** Represents a Computer Science course, like CS-3500. */
 public class Course implements Comparable<Course> {
 
+  /** Course numbers below this are interned by {@link #of(int)}. Covers all four digit numbers. */
+  private static final int CACHE_SIZE = 10_000;
+
+  /**
+   * The shared instances for course numbers below {@link #CACHE_SIZE}, created on first use. Races
+   * are harmless: Course is immutable, so at worst an equal instance is created and dropped.
+   */
+  private static final Course[] CACHE = new Course[CACHE_SIZE];
+
   /** The number associated with this course (e.g. 3500 for CS-3500). */
   private final int number;
 
@@ -28,6 +37,47 @@ public class Course implements Comparable<Course> {
    * @throws InvalidCourseNameException If the provided course name cannot be parsed.
    */
   public Course(String courseName) throws InvalidCourseNameException {
+    this.number = parseNumber(courseName);
+  }
+
+  /**
+   * Gets the shared Course instance for a course number. Prefer this over the constructor, as
+   * instances for known course numbers are reused instead of allocated.
+   *
+   * @param number The number associated with the course (e.g. 3500 for CS-3500).
+   * @return The Course.
+   */
+  public static Course of(int number) {
+    if (number < 0 || number >= CACHE_SIZE) return new Course(number);
+
+    Course course = CACHE[number];
+    if (course == null) {
+      course = new Course(number);
+      CACHE[number] = course;
+    }
+    return course;
+  }
+
+  /**
+   * Gets the shared Course instance for a course name. Prefer this over the constructor.
+   *
+   * @param courseName May be formatted like: "CS-3500" "cs-3500-ta" "CS3500" "3500" "3500-TA" ...
+   *     etc
+   * @return The Course.
+   * @throws InvalidCourseNameException If the provided course name cannot be parsed.
+   */
+  public static Course of(String courseName) throws InvalidCourseNameException {
+    return of(parseNumber(courseName));
+  }
+
+  /**
+   * Parses the number of a course name.
+   *
+   * @param courseName The course name, as described in {@link #Course(String)}.
+   * @return The course number.
+   * @throws InvalidCourseNameException If the provided course name cannot be parsed.
+   */
+  private static int parseNumber(String courseName) throws InvalidCourseNameException {
 
     // New course name that will be formatted for parsing while leaving the original intact.
     String formattedCourseName = courseName;
@@ -56,7 +106,7 @@ public class Course implements Comparable<Course> {
 
     // Try to parse the formattedCourseName as an int.
     try {
-      this.number = Integer.parseInt(formattedCourseName.trim());
+      return Integer.parseInt(formattedCourseName.trim());
     } catch (NumberFormatException ignored) {
       throw new InvalidCourseNameException(courseName);
     }
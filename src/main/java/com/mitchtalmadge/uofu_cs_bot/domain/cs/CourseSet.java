@@ -0,0 +1,160 @@
+package com.mitchtalmadge.uofu_cs_bot.domain.cs;
+
+import java.util.*;
+
+/**
+ * An immutable set of courses, stored as a sorted array of course numbers. Each course has an index
+ * in the set, so that callers can track per-course state in a {@link BitSet} or plain array instead
+ * of a map.
+ */
+public final class CourseSet extends AbstractSet<Course> {
+
+  /** A set without any courses. */
+  public static final CourseSet EMPTY = new CourseSet(new int[0]);
+
+  /** The course numbers, sorted ascending, without duplicates. */
+  private final int[] numbers;
+
+  private CourseSet(int[] numbers) {
+    this.numbers = numbers;
+  }
+
+  /**
+   * Creates a set from a collection of courses.
+   *
+   * @param courses The courses. Duplicates are ignored.
+   * @return The set.
+   */
+  public static CourseSet of(Collection<Course> courses) {
+    if (courses instanceof CourseSet) return (CourseSet) courses;
+    if (courses.isEmpty()) return EMPTY;
+
+    int[] numbers = new int[courses.size()];
+    int size = 0;
+    for (Course course : courses) {
+      numbers[size++] = course.getNumber();
+    }
+
+    return fromNumbers(numbers);
+  }
+
+  /**
+   * Creates a set from course numbers.
+   *
+   * @param numbers The course numbers, in any order. Duplicates are ignored. The array is sorted in
+   *     place and may be kept by the set, so it must not be modified afterwards.
+   * @return The set.
+   */
+  public static CourseSet fromNumbers(int[] numbers) {
+    if (numbers.length == 0) return EMPTY;
+
+    Arrays.sort(numbers);
+
+    // Remove duplicates.
+    int size = 1;
+    for (int i = 1; i < numbers.length; i++) {
+      if (numbers[i] != numbers[size - 1]) numbers[size++] = numbers[i];
+    }
+
+    return new CourseSet(size == numbers.length ? numbers : Arrays.copyOf(numbers, size));
+  }
+
+  /**
+   * Finds the index of a course in this set.
+   *
+   * @param number The course number.
+   * @return The index of the course, or a negative value if it is not in the set.
+   */
+  public int indexOf(int number) {
+    return Arrays.binarySearch(numbers, number);
+  }
+
+  /**
+   * Finds the index of a course in this set.
+   *
+   * @param course The course.
+   * @return The index of the course, or a negative value if it is not in the set.
+   */
+  public int indexOf(Course course) {
+    return indexOf(course.getNumber());
+  }
+
+  /**
+   * @param number A course number.
+   * @return True if the set contains the course.
+   */
+  public boolean contains(int number) {
+    return indexOf(number) >= 0;
+  }
+
+  /**
+   * @param index The index of a course, between 0 and {@link #size()}.
+   * @return The course at the index.
+   */
+  public Course get(int index) {
+    return Course.of(numbers[index]);
+  }
+
+  /**
+   * Creates a new set without the given courses.
+   *
+   * @param other The courses to remove.
+   * @return The courses in this set which are not in the other set.
+   */
+  public CourseSet without(CourseSet other) {
+    if (other.isEmpty()) return this;
+
+    int[] remaining = new int[numbers.length];
+    int size = 0;
+    for (int number : numbers) {
+      if (!other.contains(number)) remaining[size++] = number;
+    }
+
+    if (size == numbers.length) return this;
+    return size == 0 ? EMPTY : new CourseSet(Arrays.copyOf(remaining, size));
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return o instanceof Course && contains(((Course) o).getNumber());
+  }
+
+  @Override
+  public int size() {
+    return numbers.length;
+  }
+
+  @Override
+  public Iterator<Course> iterator() {
+    return new Iterator<Course>() {
+      private int index = 0;
+
+      @Override
+      public boolean hasNext() {
+        return index < numbers.length;
+      }
+
+      @Override
+      public Course next() {
+        if (index >= numbers.length) throw new NoSuchElementException();
+        return Course.of(numbers[index++]);
+      }
+    };
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof CourseSet) return Arrays.equals(numbers, ((CourseSet) o).numbers);
+    return super.equals(o);
+  }
+
+  @Override
+  public int hashCode() {
+    // Must match AbstractSet, which sums the hash codes of the elements (see Course#hashCode).
+    int hashCode = 0;
+    for (int number : numbers) {
+      hashCode += 31 + number;
+    }
+    return hashCode;
+  }
+}
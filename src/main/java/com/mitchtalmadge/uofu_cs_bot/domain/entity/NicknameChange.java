@@ -0,0 +1,50 @@
+package com.mitchtalmadge.uofu_cs_bot.domain.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.Instant;
+import java.util.Objects;
+
+/** The time of the latest nickname change of a member. */
+@Entity
+@Table(name = "nickname_changes")
+public class NicknameChange {
+
+  @Id
+  @Column(name = "discord_user_id", nullable = false)
+  private Long discordUserId;
+
+  @Column(name = "changed_at", nullable = false)
+  private Instant changedAt;
+
+  private NicknameChange() {}
+
+  public NicknameChange(Long discordUserId, Instant changedAt) {
+    this.discordUserId = discordUserId;
+    this.changedAt = changedAt;
+  }
+
+  public Long getDiscordUserId() {
+    return discordUserId;
+  }
+
+  public Instant getChangedAt() {
+    return changedAt;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    NicknameChange that = (NicknameChange) o;
+    return Objects.equals(discordUserId, that.discordUserId)
+        && Objects.equals(changedAt, that.changedAt);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(discordUserId, changedAt);
+  }
+}
@@ -0,0 +1,109 @@
+package com.mitchtalmadge.uofu_cs_bot.domain.entity;
+
+import javax.persistence.*;
+import java.time.Instant;
+import java.util.Objects;
+
+/** An email waiting in the outbox to be sent. */
+@Entity
+@Table(name = "email_outbox")
+public class OutboxEmail {
+
+  @Id @GeneratedValue private Long id;
+
+  @Column(name = "recipient", nullable = false)
+  private String recipient;
+
+  @Column(name = "subject", nullable = false)
+  private String subject;
+
+  @Column(name = "body", nullable = false)
+  private String body;
+
+  @Column(name = "created_at", nullable = false)
+  private Instant createdAt;
+
+  @Column(name = "next_attempt_at", nullable = false)
+  private Instant nextAttemptAt;
+
+  @Column(name = "attempts", nullable = false)
+  private int attempts;
+
+  @Column(name = "last_error")
+  private String lastError;
+
+  private OutboxEmail() {}
+
+  public OutboxEmail(String recipient, String subject, String body) {
+    this.recipient = recipient;
+    this.subject = subject;
+    this.body = body;
+    this.createdAt = Instant.now();
+    this.nextAttemptAt = this.createdAt;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public String getRecipient() {
+    return recipient;
+  }
+
+  public String getSubject() {
+    return subject;
+  }
+
+  public String getBody() {
+    return body;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public Instant getNextAttemptAt() {
+    return nextAttemptAt;
+  }
+
+  public int getAttempts() {
+    return attempts;
+  }
+
+  public String getLastError() {
+    return lastError;
+  }
+
+  /**
+   * Records a failed attempt to send this email.
+   *
+   * @param error A description of the failure.
+   * @param nextAttemptAt When to try again.
+   */
+  public void markFailed(String error, Instant nextAttemptAt) {
+    this.attempts++;
+    this.lastError = error == null || error.length() <= 1024 ? error : error.substring(0, 1024);
+    this.nextAttemptAt = nextAttemptAt;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    OutboxEmail that = (OutboxEmail) o;
+    return attempts == that.attempts
+        && Objects.equals(id, that.id)
+        && Objects.equals(recipient, that.recipient)
+        && Objects.equals(subject, that.subject)
+        && Objects.equals(body, that.body)
+        && Objects.equals(createdAt, that.createdAt)
+        && Objects.equals(nextAttemptAt, that.nextAttemptAt)
+        && Objects.equals(lastError, that.lastError);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(
+        id, recipient, subject, body, createdAt, nextAttemptAt, attempts, lastError);
+  }
+}
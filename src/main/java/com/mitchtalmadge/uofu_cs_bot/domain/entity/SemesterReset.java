@@ -0,0 +1,90 @@
+package com.mitchtalmadge.uofu_cs_bot.domain.entity;
+
+import javax.persistence.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/** A semester reset, and the next of its steps to run. */
+@Entity
+@Table(name = "semester_resets")
+public class SemesterReset {
+
+  /** The steps of a semester reset, in the order they run. */
+  public enum Step {
+    CLEAR_NICKNAMES,
+    ARCHIVE_CHANNELS,
+    DELETE_CHANNELS,
+    SYNCHRONIZE,
+    ANNOUNCE,
+    FINISHED
+  }
+
+  @Id @GeneratedValue private Long id;
+
+  @Column(name = "reset_date", nullable = false)
+  private LocalDate resetDate;
+
+  @Column(name = "step", nullable = false)
+  @Enumerated(EnumType.STRING)
+  private Step step;
+
+  @Column(name = "started_at", nullable = false)
+  private Instant startedAt;
+
+  @Column(name = "updated_at", nullable = false)
+  private Instant updatedAt;
+
+  private SemesterReset() {}
+
+  public SemesterReset(LocalDate resetDate) {
+    this.resetDate = resetDate;
+    this.step = Step.values()[0];
+    this.startedAt = Instant.now();
+    this.updatedAt = this.startedAt;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public LocalDate getResetDate() {
+    return resetDate;
+  }
+
+  public Step getStep() {
+    return step;
+  }
+
+  public Instant getStartedAt() {
+    return startedAt;
+  }
+
+  public Instant getUpdatedAt() {
+    return updatedAt;
+  }
+
+  /** Records that the current step has finished, moving on to the next one. */
+  public void advance() {
+    if (step == Step.FINISHED) return;
+    this.step = Step.values()[step.ordinal() + 1];
+    this.updatedAt = Instant.now();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    SemesterReset that = (SemesterReset) o;
+    return Objects.equals(id, that.id)
+        && Objects.equals(resetDate, that.resetDate)
+        && step == that.step
+        && Objects.equals(startedAt, that.startedAt)
+        && Objects.equals(updatedAt, that.updatedAt);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(id, resetDate, step, startedAt, updatedAt);
+  }
+}
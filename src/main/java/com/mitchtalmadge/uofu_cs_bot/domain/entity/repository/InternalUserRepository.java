@@ -1,9 +1,11 @@
 package com.mitchtalmadge.uofu_cs_bot.domain.entity.repository;
 
 import com.mitchtalmadge.uofu_cs_bot.domain.entity.InternalUser;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.features.verification.VerificationStatus;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,5 +13,43 @@ public interface InternalUserRepository extends CrudRepository<InternalUser, Lon
 
   Optional<InternalUser> findDistinctByDiscordUserId(Long discordUserId);
 
-  Iterable<InternalUser> findAllByUnid(String unid);
+  /**
+   * @param unid The uNID.
+   * @param verificationStatus The verification status.
+   * @return The users with the uNID and status.
+   */
+  List<InternalUser> findByUnidAndVerificationStatus(
+      String unid, VerificationStatus verificationStatus);
+
+  /**
+   * Finds the verification details of a user without loading the whole entity.
+   *
+   * @param discordUserId The Discord user ID.
+   * @return The details, if the user exists.
+   */
+  Optional<VerificationSummary> findSummaryByDiscordUserId(Long discordUserId);
+
+  /**
+   * Finds the verification details of the users with a uNID without loading the whole entities.
+   *
+   * @param unid The uNID.
+   * @return The details.
+   */
+  Iterable<VerificationSummary> findSummariesByUnid(String unid);
+
+  /** @return The verification details of every user, without loading the whole entities. */
+  Iterable<VerificationSummary> findSummariesBy();
+
+  /**
+   * The columns of an {@link InternalUser} needed to look up verifications. Queries returning this
+   * projection select only these columns.
+   */
+  interface VerificationSummary {
+
+    Long getDiscordUserId();
+
+    String getUnid();
+
+    VerificationStatus getVerificationStatus();
+  }
 }
@@ -0,0 +1,21 @@
+package com.mitchtalmadge.uofu_cs_bot.domain.entity.repository;
+
+import com.mitchtalmadge.uofu_cs_bot.domain.entity.NicknameChange;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface NicknameChangeRepository extends CrudRepository<NicknameChange, Long> {
+
+  /**
+   * @param cutoff The earliest time of interest.
+   * @return The members whose latest nickname change was after the cutoff.
+   */
+  Iterable<NicknameChange> findAllByChangedAtAfter(Instant cutoff);
+
+  /** @return The latest nickname change recorded, if any. */
+  Optional<NicknameChange> findTopByOrderByChangedAtDesc();
+}
@@ -0,0 +1,23 @@
+package com.mitchtalmadge.uofu_cs_bot.domain.entity.repository;
+
+import com.mitchtalmadge.uofu_cs_bot.domain.entity.OutboxEmail;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface OutboxEmailRepository extends CrudRepository<OutboxEmail, Long> {
+
+  /**
+   * Finds the emails which are due to be sent, oldest first.
+   *
+   * @param now The current time.
+   * @param pageable The maximum number of emails to find.
+   * @return The emails.
+   */
+  List<OutboxEmail> findByNextAttemptAtLessThanEqualOrderByNextAttemptAt(
+      Instant now, Pageable pageable);
+}
@@ -0,0 +1,24 @@
+package com.mitchtalmadge.uofu_cs_bot.domain.entity.repository;
+
+import com.mitchtalmadge.uofu_cs_bot.domain.entity.SemesterReset;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface SemesterResetRepository extends CrudRepository<SemesterReset, Long> {
+
+  /**
+   * @param resetDate The day of the reset.
+   * @return True if a reset was started on that day.
+   */
+  boolean existsByResetDate(LocalDate resetDate);
+
+  /**
+   * @param step The step of finished resets.
+   * @return The earliest reset which has not finished, if any.
+   */
+  Optional<SemesterReset> findFirstByStepNotOrderByStartedAt(SemesterReset.Step step);
+}
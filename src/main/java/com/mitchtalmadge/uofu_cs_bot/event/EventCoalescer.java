@@ -0,0 +1,141 @@
+package com.mitchtalmadge.uofu_cs_bot.event;
+
+import com.mitchtalmadge.uofu_cs_bot.service.LogService;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collapses bursts of work for the same key into a single run.
+ *
+ * <p>The first submission for a key starts a window. Submissions for the same key during that
+ * window replace the pending work, and when the window closes only the latest work is run, on the
+ * key's lane of the {@link EventExecutor}.
+ */
+@Component
+public class EventCoalescer implements DisposableBean {
+
+  private final LogService logService;
+  private final EventExecutor eventExecutor;
+
+  /** How long to wait for further submissions before running the pending work. */
+  private final long windowMillis;
+
+  /** The latest pending work for each key with an open window. */
+  private final ConcurrentMap<Long, Runnable> pendingWork = new ConcurrentHashMap<>();
+
+  /** The number of flushed works for each key which have not finished running. */
+  private final ConcurrentMap<Long, Integer> runningWork = new ConcurrentHashMap<>();
+
+  private final ScheduledExecutorService scheduler =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "event-coalescer");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  /** The number of submissions received. */
+  private final LongAdder receivedCount = new LongAdder();
+
+  /** The number of submissions replaced by a later one before they ran. */
+  private final LongAdder mergedCount = new LongAdder();
+
+  @Autowired
+  public EventCoalescer(
+      LogService logService,
+      EventExecutor eventExecutor,
+      @Value("${discord.events.coalesce-window-ms}") long windowMillis) {
+    this.logService = logService;
+    this.eventExecutor = eventExecutor;
+    this.windowMillis = windowMillis;
+  }
+
+  @Override
+  public void destroy() {
+    scheduler.shutdownNow();
+  }
+
+  /**
+   * Submits work for a key. If work for the key is already pending, it is replaced by this work.
+   *
+   * @param key The key, such as a member's Discord user ID.
+   * @param work The work to run once the window for the key closes.
+   */
+  public void coalesce(long key, Runnable work) {
+    receivedCount.increment();
+
+    if (pendingWork.put(key, work) == null)
+      scheduler.schedule(() -> flush(key), windowMillis, TimeUnit.MILLISECONDS);
+    else mergedCount.increment();
+  }
+
+  /**
+   * Closes the window for a key and runs its latest work.
+   *
+   * @param key The key.
+   */
+  private void flush(long key) {
+    // Counted as running before it stops being pending, so that isPending never misses it.
+    runningWork.merge(key, 1, Integer::sum);
+    Runnable work = pendingWork.remove(key);
+
+    boolean submitted =
+        work != null
+            && eventExecutor.execute(
+                key,
+                () -> {
+                  try {
+                    work.run();
+                  } finally {
+                    finishRunning(key);
+                  }
+                });
+    if (!submitted) finishRunning(key);
+  }
+
+  /**
+   * Stops counting one work for a key as running.
+   *
+   * @param key The key.
+   */
+  private void finishRunning(long key) {
+    runningWork.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+  }
+
+  /**
+   * @param key The key.
+   * @return True if work for the key has been submitted but has not finished running.
+   */
+  public boolean isPending(long key) {
+    return pendingWork.containsKey(key) || runningWork.containsKey(key);
+  }
+
+  /** @return The number of submissions received. */
+  public long getReceivedCount() {
+    return receivedCount.sum();
+  }
+
+  /** @return The number of submissions which were replaced by a later one. */
+  public long getMergedCount() {
+    return mergedCount.sum();
+  }
+
+  /** Logs the number of merged submissions every minute. */
+  @Scheduled(fixedRate = 60_000, initialDelay = 60_000)
+  protected void reportMetrics() {
+    logService.logDebug(
+        getClass(),
+        "Received: "
+            + receivedCount.sum()
+            + " | Merged: "
+            + mergedCount.sum()
+            + " | Pending: "
+            + pendingWork.size());
+  }
+}
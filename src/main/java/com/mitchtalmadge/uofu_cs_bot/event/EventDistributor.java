@@ -2,42 +2,61 @@ package com.mitchtalmadge.uofu_cs_bot.event;
 
 import com.mitchtalmadge.uofu_cs_bot.event.listeners.EventListenerAbstract;
 import com.mitchtalmadge.uofu_cs_bot.service.discord.DiscordService;
-import net.dv8tion.jda.api.events.Event;
 import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.channel.category.GenericCategoryEvent;
+import net.dv8tion.jda.api.events.channel.text.GenericTextChannelEvent;
+import net.dv8tion.jda.api.events.guild.member.GenericGuildMemberEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.events.role.GenericRoleEvent;
+import net.dv8tion.jda.api.events.user.GenericUserEvent;
 import net.dv8tion.jda.api.hooks.EventListener;
+import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.GenericTypeResolver;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 @Component
 public class EventDistributor implements InitializingBean {
 
+  /** Shared result for event classes that no listener is interested in. */
+  private static final EventListenerAbstract[] NO_LISTENERS = new EventListenerAbstract[0];
+
   private final DiscordService discordService;
+  private final EventExecutor eventExecutor;
+
+  /** Pairs each Event Listener with its parametrized Event type. Several listeners may share one. */
+  private final List<Pair<Class<?>, EventListenerAbstract>> eventListeners = new ArrayList<>();
 
-  /** Maps Event Listeners to their parametrized Event types. */
-  private final Map<Class<? extends Event>, EventListenerAbstract> eventListenerMap =
-      new HashMap<>();
+  /**
+   * Maps each concrete Event class that has been received to the listeners which accept it. Entries
+   * are computed lazily the first time an Event class is seen, and never change afterwards.
+   */
+  private final ConcurrentMap<Class<?>, EventListenerAbstract[]> dispatchTable =
+      new ConcurrentHashMap<>();
 
   @Autowired
   public EventDistributor(
-      DiscordService discordService, Set<EventListenerAbstract> eventListeners) {
+      DiscordService discordService,
+      EventExecutor eventExecutor,
+      Set<EventListenerAbstract> eventListeners) {
     this.discordService = discordService;
+    this.eventExecutor = eventExecutor;
 
-    // Get the generic types and map them to the listeners.
+    // Get the generic types and pair them with the listeners.
     eventListeners.forEach(
-        eventListener -> {
-          //noinspection unchecked
-          eventListenerMap.put(
-              (Class<? extends Event>)
-                  GenericTypeResolver.resolveTypeArgument(
-                      eventListener.getClass(), EventListenerAbstract.class),
-              eventListener);
-        });
+        eventListener ->
+            this.eventListeners.add(
+                Pair.of(
+                    GenericTypeResolver.resolveTypeArgument(
+                        eventListener.getClass(), EventListenerAbstract.class),
+                    eventListener)));
   }
 
   @Override
@@ -46,17 +65,81 @@ public class EventDistributor implements InitializingBean {
   }
 
   /**
-   * Called when a Discord event takes place.
+   * Called on the JDA gateway thread when a Discord event takes place. The listeners are run by the
+   * {@link EventExecutor}, so that events for one member are handled in order.
    *
    * @param event The event that took place.
    */
   public void onEvent(GenericEvent event) {
-    // Check for a specific listener for the event.
-    eventListenerMap.forEach(
-        (aClass, listener) -> {
-          if (aClass.isAssignableFrom(event.getClass()))
-            //noinspection unchecked
-            listener.onEvent(event);
+    EventListenerAbstract[] listeners = getListenersForEventClass(event.getClass());
+
+    // Most gateway events (presence updates, typing, etc.) have no listener at all.
+    if (listeners.length == 0) return;
+
+    eventExecutor.execute(getOrderingKey(event), () -> dispatch(event, listeners));
+  }
+
+  /**
+   * Passes an event to its listeners on the calling thread.
+   *
+   * @param event The event to dispatch.
+   */
+  void dispatch(GenericEvent event) {
+    dispatch(event, getListenersForEventClass(event.getClass()));
+  }
+
+  private static void dispatch(GenericEvent event, EventListenerAbstract[] listeners) {
+    for (EventListenerAbstract listener : listeners) {
+      //noinspection unchecked
+      listener.onEvent(event);
+    }
+  }
+
+  /**
+   * Determines the key used to order an event with respect to other events.
+   *
+   * @param event The event.
+   * @return The ID of the user, role, text channel or category the event is about, or 0 if it is
+   *     not about a single one.
+   */
+  static long getOrderingKey(GenericEvent event) {
+    if (event instanceof GenericGuildMemberEvent)
+      return ((GenericGuildMemberEvent) event).getUser().getIdLong();
+    if (event instanceof MessageReceivedEvent)
+      return ((MessageReceivedEvent) event).getAuthor().getIdLong();
+    if (event instanceof GenericUserEvent) return ((GenericUserEvent) event).getUser().getIdLong();
+    if (event instanceof GenericRoleEvent) return ((GenericRoleEvent) event).getRole().getIdLong();
+    if (event instanceof GenericTextChannelEvent)
+      return ((GenericTextChannelEvent) event).getChannel().getIdLong();
+    if (event instanceof GenericCategoryEvent)
+      return ((GenericCategoryEvent) event).getCategory().getIdLong();
+
+    return 0;
+  }
+
+  /**
+   * Finds the listeners for a concrete Event class, computing and caching them on first use.
+   *
+   * @param eventClass The concrete class of a received Event.
+   * @return The listeners whose Event type is assignable from the given class. Never null.
+   */
+  EventListenerAbstract[] getListenersForEventClass(Class<?> eventClass) {
+    EventListenerAbstract[] listeners = dispatchTable.get(eventClass);
+    if (listeners != null) return listeners;
+
+    // Not seen before. Racing threads compute identical results, so the first one stored wins.
+    List<EventListenerAbstract> matchingListeners = new ArrayList<>();
+    eventListeners.forEach(
+        pair -> {
+          if (pair.getLeft().isAssignableFrom(eventClass)) matchingListeners.add(pair.getRight());
         });
+
+    listeners =
+        matchingListeners.isEmpty()
+            ? NO_LISTENERS
+            : matchingListeners.toArray(new EventListenerAbstract[0]);
+
+    EventListenerAbstract[] existing = dispatchTable.putIfAbsent(eventClass, listeners);
+    return existing != null ? existing : listeners;
   }
 }
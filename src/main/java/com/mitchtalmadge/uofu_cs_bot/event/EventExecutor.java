@@ -0,0 +1,215 @@
+package com.mitchtalmadge.uofu_cs_bot.event;
+
+import com.mitchtalmadge.uofu_cs_bot.service.LogService;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs event listeners off of the JDA gateway thread.
+ *
+ * <p>Work is spread over a fixed number of single-threaded lanes, chosen by a key (usually the ID
+ * of the member, role or channel the event is about). Work for one key always runs on the same lane
+ * in the order it was submitted, while work for different keys may run in parallel. Each lane has a
+ * bounded queue; when it is full, the configured {@link BackpressurePolicy} decides what happens.
+ *
+ * <p>Work is submitted from the JDA gateway thread, so blocking on a full lane applies backpressure
+ * to the whole gateway: no other event is read until the lane has room. To keep one slow lane from
+ * stalling every other event for long, blocking is bounded by a timeout, after which the work is
+ * dropped like under {@link BackpressurePolicy#DROP}.
+ */
+@Component
+public class EventExecutor implements DisposableBean {
+
+  /** What to do with new work when a lane's queue is full. */
+  public enum BackpressurePolicy {
+    /**
+     * Block the submitting (gateway) thread until the lane has room, or drop the new work if it
+     * has none by the end of the block timeout. This holds up every event while it waits.
+     */
+    BLOCK,
+    /** Drop the new work and count it. */
+    DROP
+  }
+
+  private final LogService logService;
+
+  /** The lanes. Each one is a single thread with a bounded queue. */
+  private final ThreadPoolExecutor[] lanes;
+
+  private final BackpressurePolicy backpressurePolicy;
+
+  /** How long to block the gateway thread for room in a full lane, in milliseconds. */
+  private final long blockTimeoutMillis;
+
+  /** The number of tasks which have started running. */
+  private final LongAdder startedTasks = new LongAdder();
+
+  /** The number of tasks dropped due to backpressure. */
+  private final LongAdder droppedTasks = new LongAdder();
+
+  /** The sum of all lags (from submission until a task starts running), in nanoseconds. */
+  private final LongAdder totalLagNanos = new LongAdder();
+
+  /** The largest lag seen since metrics were last reported, in nanoseconds. */
+  private final AtomicLong maxLagNanos = new AtomicLong();
+
+  @Autowired
+  public EventExecutor(
+      LogService logService,
+      @Value("${discord.events.worker-threads}") int workerThreads,
+      @Value("${discord.events.queue-capacity}") int queueCapacity,
+      @Value("${discord.events.backpressure}") String backpressurePolicy,
+      @Value("${discord.events.block-timeout-ms}") long blockTimeoutMillis) {
+    this.logService = logService;
+    this.backpressurePolicy = BackpressurePolicy.valueOf(backpressurePolicy.trim().toUpperCase());
+    this.blockTimeoutMillis = blockTimeoutMillis;
+
+    // The capacity is shared evenly between the lanes.
+    int laneCapacity = Math.max(1, queueCapacity / workerThreads);
+
+    this.lanes = new ThreadPoolExecutor[workerThreads];
+    for (int i = 0; i < workerThreads; i++) {
+      String threadName = "event-lane-" + i;
+      lanes[i] =
+          new ThreadPoolExecutor(
+              1,
+              1,
+              0L,
+              TimeUnit.MILLISECONDS,
+              new ArrayBlockingQueue<>(laneCapacity),
+              runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+              },
+              this::onLaneFull);
+    }
+  }
+
+  @Override
+  public void destroy() {
+    for (ThreadPoolExecutor lane : lanes) {
+      lane.shutdown();
+    }
+  }
+
+  /**
+   * Submits work to the lane belonging to the given key.
+   *
+   * @param key The ordering key, such as the ID of the member, role or channel the work is about.
+   *     Work with equal keys runs in submission order. Use 0 for work which belongs to none.
+   * @param task The work to run.
+   * @return False if the work was dropped, because the lane was full or shut down.
+   */
+  public boolean execute(long key, Runnable task) {
+    long submittedAt = System.nanoTime();
+
+    try {
+      getLane(key)
+          .execute(
+              () -> {
+                recordLag(System.nanoTime() - submittedAt);
+                try {
+                  task.run();
+                } catch (RuntimeException e) {
+                  // Not every task is a bean method seen by the GlobalExceptionHandler, such as the
+                  // coalescer's flushes, so report it here. Keep the lane alive.
+                  logService.logException(getClass(), e, "An event task failed.");
+                }
+              });
+      return true;
+    } catch (RejectedExecutionException e) {
+      return false;
+    }
+  }
+
+  /** @return The number of tasks currently waiting in all lanes. */
+  public int getQueueDepth() {
+    int depth = 0;
+    for (ThreadPoolExecutor lane : lanes) {
+      depth += lane.getQueue().size();
+    }
+    return depth;
+  }
+
+  /** @return The average time between submission and the start of a task, in milliseconds. */
+  public double getAverageLagMillis() {
+    long started = startedTasks.sum();
+    if (started == 0) return 0;
+
+    return totalLagNanos.sum() / (double) started / 1_000_000d;
+  }
+
+  /** @return The number of tasks dropped because a lane was full, or stayed full too long. */
+  public long getDroppedTaskCount() {
+    return droppedTasks.sum();
+  }
+
+  /** Logs the queue depth and lag of the lanes every minute. */
+  @Scheduled(fixedRate = 60_000, initialDelay = 60_000)
+  protected void reportMetrics() {
+    logService.logDebug(
+        getClass(),
+        "Queue Depth: "
+            + getQueueDepth()
+            + " | Average Lag: "
+            + String.format("%.2f", getAverageLagMillis())
+            + "ms | Max Lag (last minute): "
+            + TimeUnit.NANOSECONDS.toMillis(maxLagNanos.getAndSet(0))
+            + "ms | Started: "
+            + startedTasks.sum()
+            + " | Dropped: "
+            + droppedTasks.sum());
+  }
+
+  /**
+   * Finds the lane for a key.
+   *
+   * @param key The ordering key.
+   * @return The lane which runs all work for the key.
+   */
+  private ThreadPoolExecutor getLane(long key) {
+    return lanes[Math.floorMod(Long.hashCode(key), lanes.length)];
+  }
+
+  private void recordLag(long lagNanos) {
+    startedTasks.increment();
+    totalLagNanos.add(lagNanos);
+    maxLagNanos.accumulateAndGet(lagNanos, Math::max);
+  }
+
+  /**
+   * Applies the backpressure policy when a lane's queue is full. Throws a {@link
+   * RejectedExecutionException} if the task is dropped.
+   *
+   * @param task The task which could not be queued.
+   * @param lane The full lane.
+   */
+  private void onLaneFull(Runnable task, ThreadPoolExecutor lane) {
+    if (lane.isShutdown()) throw new RejectedExecutionException("The event lanes are shut down.");
+
+    if (backpressurePolicy == BackpressurePolicy.BLOCK) {
+      try {
+        if (lane.getQueue().offer(task, blockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+          // The lane may have been shut down while waiting, leaving nothing to run the task.
+          if (lane.isShutdown() && lane.remove(task))
+            throw new RejectedExecutionException("The event lanes are shut down.");
+          return;
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    droppedTasks.increment();
+    logService.logError(getClass(), "An event lane is full. Dropped an event.");
+    throw new RejectedExecutionException("The event lane is full.");
+  }
+}
@@ -1,6 +1,7 @@
 package com.mitchtalmadge.uofu_cs_bot.event.listeners;
 
 import com.mitchtalmadge.uofu_cs_bot.service.discord.DiscordSynchronizationRequestSurrogate;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.SynchronizationScope;
 import net.dv8tion.jda.api.events.channel.category.GenericCategoryEvent;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -17,6 +18,7 @@ public class ChannelCategoryEventListener extends EventListenerAbstract<GenericC
 
   @Override
   public void onEvent(GenericCategoryEvent event) {
-    discordSynchronizationService.requestSynchronization();
+    discordSynchronizationService.requestSynchronization(
+        SynchronizationScope.of(SynchronizationScope.Phase.CHANNELS));
   }
 }
@@ -0,0 +1,20 @@
+package com.mitchtalmadge.uofu_cs_bot.event.listeners;
+
+import com.mitchtalmadge.uofu_cs_bot.service.discord.features.course.CourseService;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberLeaveEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+
+public class MemberLeaveEventListener extends EventListenerAbstract<GuildMemberLeaveEvent> {
+
+  private CourseService courseService;
+
+  @Autowired
+  public MemberLeaveEventListener(CourseService courseService) {
+    this.courseService = courseService;
+  }
+
+  @Override
+  public void onEvent(GuildMemberLeaveEvent event) {
+    courseService.removeMember(event.getUser().getIdLong());
+  }
+}
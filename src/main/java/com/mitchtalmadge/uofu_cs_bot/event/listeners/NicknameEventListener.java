@@ -1,15 +1,19 @@
 package com.mitchtalmadge.uofu_cs_bot.event.listeners;
 
+import com.mitchtalmadge.uofu_cs_bot.event.EventCoalescer;
 import com.mitchtalmadge.uofu_cs_bot.service.LogService;
 import com.mitchtalmadge.uofu_cs_bot.service.discord.features.course.CourseService;
 import com.mitchtalmadge.uofu_cs_bot.service.discord.nickname.NicknameService;
 import com.mitchtalmadge.uofu_cs_bot.service.discord.role.RoleAssignmentService;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.events.guild.member.update.GuildMemberUpdateNicknameEvent;
 import org.springframework.beans.factory.annotation.Autowired;
 
 public class NicknameEventListener extends EventListenerAbstract<GuildMemberUpdateNicknameEvent> {
 
   private final LogService logService;
+  private final EventCoalescer eventCoalescer;
   private CourseService courseService;
   private NicknameService nicknameService;
   private RoleAssignmentService roleAssignmentService;
@@ -17,10 +21,12 @@ public class NicknameEventListener extends EventListenerAbstract<GuildMemberUpda
   @Autowired
   public NicknameEventListener(
       LogService logService,
+      EventCoalescer eventCoalescer,
       CourseService courseService,
       NicknameService nicknameService,
       RoleAssignmentService roleAssignmentService) {
     this.logService = logService;
+    this.eventCoalescer = eventCoalescer;
     this.courseService = courseService;
     this.nicknameService = nicknameService;
     this.roleAssignmentService = roleAssignmentService;
@@ -37,8 +43,27 @@ public class NicknameEventListener extends EventListenerAbstract<GuildMemberUpda
             + " - New: "
             + event.getNewNickname());
 
-    nicknameService.validateNickname(event.getMember());
-    courseService.computeEnabledCourses();
-    roleAssignmentService.assignRoles(event.getMember());
+    // Members often change their nickname several times in a row; only reconcile the latest one.
+    // Until then, the member is dirty, so a synchronization in the meantime will reconcile them.
+    Guild guild = event.getGuild();
+    long userId = event.getUser().getIdLong();
+    nicknameService.recordNicknameChange(userId);
+    roleAssignmentService.markDirty(userId);
+    eventCoalescer.coalesce(userId, () -> reconcileMember(guild, userId));
+  }
+
+  /**
+   * Validates the current nickname of a member and updates their roles to match, in one request.
+   *
+   * @param guild The guild of the member.
+   * @param userId The ID of the member.
+   */
+  private void reconcileMember(Guild guild, long userId) {
+    // Look the member up again, in case they left during the coalescing window.
+    Member member = guild.getMemberById(userId);
+    if (member == null) return;
+
+    courseService.updateMember(member);
+    roleAssignmentService.reconcileMember(member);
   }
 }
@@ -15,6 +15,8 @@ public class RoleAddEventListener extends EventListenerAbstract<GuildMemberRoleA
 
   @Override
   public void onEvent(GuildMemberRoleAddEvent event) {
+    // The member stays dirty if their roles cannot be assigned now.
+    roleAssignmentService.markDirty(event.getMember().getIdLong());
     roleAssignmentService.assignRoles(event.getMember());
   }
 }
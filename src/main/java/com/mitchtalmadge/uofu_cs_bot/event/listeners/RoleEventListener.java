@@ -1,22 +1,54 @@
 package com.mitchtalmadge.uofu_cs_bot.event.listeners;
 
 import com.mitchtalmadge.uofu_cs_bot.service.discord.DiscordSynchronizationRequestSurrogate;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.GuildNameIndexService;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.SynchronizationScope;
+import net.dv8tion.jda.api.entities.Role;
 import net.dv8tion.jda.api.events.role.GenericRoleEvent;
+import net.dv8tion.jda.api.events.role.RoleCreateEvent;
+import net.dv8tion.jda.api.events.role.RoleDeleteEvent;
+import net.dv8tion.jda.api.events.role.update.RoleUpdateNameEvent;
 import org.springframework.beans.factory.annotation.Autowired;
 
 /** Receives all Role-based events. */
 public class RoleEventListener extends EventListenerAbstract<GenericRoleEvent> {
 
   private final DiscordSynchronizationRequestSurrogate discordSynchronizationService;
+  private final GuildNameIndexService guildNameIndexService;
 
   @Autowired
   public RoleEventListener(
-      DiscordSynchronizationRequestSurrogate discordSynchronizationRequestSurrogate) {
+      DiscordSynchronizationRequestSurrogate discordSynchronizationRequestSurrogate,
+      GuildNameIndexService guildNameIndexService) {
     this.discordSynchronizationService = discordSynchronizationRequestSurrogate;
+    this.guildNameIndexService = guildNameIndexService;
   }
 
   @Override
   public void onEvent(GenericRoleEvent event) {
-    discordSynchronizationService.requestSynchronization();
+    // Keep the role name index up to date.
+    Role role = event.getRole();
+    if (event instanceof RoleCreateEvent) guildNameIndexService.getRoleIndex().add(role);
+    else if (event instanceof RoleDeleteEvent) guildNameIndexService.getRoleIndex().remove(role);
+    else if (event instanceof RoleUpdateNameEvent)
+      guildNameIndexService
+          .getRoleIndex()
+          .rename(role, ((RoleUpdateNameEvent) event).getOldName());
+
+    // Synchronize the Course or Club of the role. Channel overrides and assignments refer to roles,
+    // so they are synchronized too.
+    discordSynchronizationService.requestSynchronization(
+        SynchronizationScope.ofEntity(
+            role.getName(),
+            SynchronizationScope.Phase.ROLES,
+            SynchronizationScope.Phase.CHANNELS,
+            SynchronizationScope.Phase.ROLE_ASSIGNMENT));
+    if (event instanceof RoleUpdateNameEvent)
+      discordSynchronizationService.requestSynchronization(
+          SynchronizationScope.ofEntity(
+              ((RoleUpdateNameEvent) event).getOldName(),
+              SynchronizationScope.Phase.ROLES,
+              SynchronizationScope.Phase.CHANNELS,
+              SynchronizationScope.Phase.ROLE_ASSIGNMENT));
   }
 }
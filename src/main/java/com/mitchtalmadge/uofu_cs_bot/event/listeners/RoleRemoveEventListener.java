@@ -15,6 +15,8 @@ public class RoleRemoveEventListener extends EventListenerAbstract<GuildMemberRo
 
   @Override
   public void onEvent(GuildMemberRoleRemoveEvent event) {
+    // The member stays dirty if their roles cannot be assigned now.
+    roleAssignmentService.markDirty(event.getMember().getIdLong());
     roleAssignmentService.assignRoles(event.getMember());
   }
 }
@@ -1,22 +1,49 @@
 package com.mitchtalmadge.uofu_cs_bot.event.listeners;
 
 import com.mitchtalmadge.uofu_cs_bot.service.discord.DiscordSynchronizationRequestSurrogate;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.GuildNameIndexService;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.SynchronizationScope;
+import net.dv8tion.jda.api.entities.TextChannel;
 import net.dv8tion.jda.api.events.channel.text.GenericTextChannelEvent;
+import net.dv8tion.jda.api.events.channel.text.TextChannelCreateEvent;
+import net.dv8tion.jda.api.events.channel.text.TextChannelDeleteEvent;
+import net.dv8tion.jda.api.events.channel.text.update.TextChannelUpdateNameEvent;
 import org.springframework.beans.factory.annotation.Autowired;
 
 /** Receives all text-channel-based events. */
 public class TextChannelEventListener extends EventListenerAbstract<GenericTextChannelEvent> {
 
   private final DiscordSynchronizationRequestSurrogate discordSynchronizationService;
+  private final GuildNameIndexService guildNameIndexService;
 
   @Autowired
   public TextChannelEventListener(
-      DiscordSynchronizationRequestSurrogate discordSynchronizationRequestSurrogate) {
+      DiscordSynchronizationRequestSurrogate discordSynchronizationRequestSurrogate,
+      GuildNameIndexService guildNameIndexService) {
     this.discordSynchronizationService = discordSynchronizationRequestSurrogate;
+    this.guildNameIndexService = guildNameIndexService;
   }
 
   @Override
   public void onEvent(GenericTextChannelEvent event) {
-    discordSynchronizationService.requestSynchronization();
+    // Keep the text channel name index up to date.
+    TextChannel channel = event.getChannel();
+    if (event instanceof TextChannelCreateEvent)
+      guildNameIndexService.getTextChannelIndex().add(channel);
+    else if (event instanceof TextChannelDeleteEvent)
+      guildNameIndexService.getTextChannelIndex().remove(channel);
+    else if (event instanceof TextChannelUpdateNameEvent)
+      guildNameIndexService
+          .getTextChannelIndex()
+          .rename(channel, ((TextChannelUpdateNameEvent) event).getOldName());
+
+    // Synchronize the Course or Club of the channel.
+    discordSynchronizationService.requestSynchronization(
+        SynchronizationScope.ofEntity(channel.getName(), SynchronizationScope.Phase.CHANNELS));
+    if (event instanceof TextChannelUpdateNameEvent)
+      discordSynchronizationService.requestSynchronization(
+          SynchronizationScope.ofEntity(
+              ((TextChannelUpdateNameEvent) event).getOldName(),
+              SynchronizationScope.Phase.CHANNELS));
   }
 }
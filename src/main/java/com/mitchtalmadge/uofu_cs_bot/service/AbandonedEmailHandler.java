@@ -0,0 +1,17 @@
+package com.mitchtalmadge.uofu_cs_bot.service;
+
+import com.mitchtalmadge.uofu_cs_bot.domain.entity.OutboxEmail;
+
+/**
+ * Is told when the {@link EmailOutboxDispatcher} gives up on an email, so that whatever was waiting
+ * for the email to arrive can be undone.
+ */
+public interface AbandonedEmailHandler {
+
+  /**
+   * Called once an email has been given up on and removed from the outbox.
+   *
+   * @param email The email.
+   */
+  void onEmailAbandoned(OutboxEmail email);
+}
@@ -0,0 +1,218 @@
+package com.mitchtalmadge.uofu_cs_bot.service;
+
+import com.mitchtalmadge.uofu_cs_bot.domain.entity.OutboxEmail;
+import com.mitchtalmadge.uofu_cs_bot.domain.entity.repository.OutboxEmailRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends the emails in the outbox in the background, so that nothing waits for the SMTP server.
+ *
+ * <p>Due emails are sent in batches, each over a single SMTP connection. Emails which fail are
+ * tried again later with exponential backoff, and given up on after a configured number of
+ * attempts. Emails are only removed from the outbox once sent (or given up on), so none are lost if
+ * the bot stops. The {@link AbandonedEmailHandler}s are told about each email given up on.
+ */
+@Component
+public class EmailOutboxDispatcher {
+
+  private final LogService logService;
+  private final OutboxEmailRepository outboxEmailRepository;
+  private final JavaMailSender javaMailSender;
+  private final Set<AbandonedEmailHandler> abandonedEmailHandlers;
+
+  /** The maximum number of emails sent over one connection. */
+  private final int batchSize;
+
+  /** The delay before the first retry of a failed email. Each later retry waits twice as long. */
+  private final Duration initialBackoff;
+
+  /** The longest delay between retries. */
+  private final Duration maxBackoff;
+
+  /** The number of attempts after which an email is given up on. */
+  private final int maxAttempts;
+
+  /** The number of emails which have been sent. */
+  private final LongAdder sentEmails = new LongAdder();
+
+  /** The number of attempts to send an email which failed. */
+  private final LongAdder failedAttempts = new LongAdder();
+
+  /** The number of emails which were given up on. */
+  private final LongAdder abandonedEmails = new LongAdder();
+
+  @Autowired
+  public EmailOutboxDispatcher(
+      LogService logService,
+      OutboxEmailRepository outboxEmailRepository,
+      JavaMailSender javaMailSender,
+      Set<AbandonedEmailHandler> abandonedEmailHandlers,
+      @Value("${email.outbox.batch-size}") int batchSize,
+      @Value("${email.outbox.initial-backoff-ms}") long initialBackoffMillis,
+      @Value("${email.outbox.max-backoff-ms}") long maxBackoffMillis,
+      @Value("${email.outbox.max-attempts}") int maxAttempts) {
+    this.logService = logService;
+    this.outboxEmailRepository = outboxEmailRepository;
+    this.javaMailSender = javaMailSender;
+    this.abandonedEmailHandlers = abandonedEmailHandlers;
+    this.batchSize = Math.max(1, batchSize);
+    this.initialBackoff = Duration.ofMillis(initialBackoffMillis);
+    this.maxBackoff = Duration.ofMillis(maxBackoffMillis);
+    this.maxAttempts = maxAttempts;
+  }
+
+  /** Sends the due emails, one batch after another, until none are due. */
+  @Scheduled(
+      fixedDelayString = "${email.outbox.poll-interval-ms}",
+      initialDelayString = "${email.outbox.poll-interval-ms}")
+  public void dispatch() {
+    // A full batch suggests that more emails are due.
+    int dispatched;
+    do {
+      dispatched = dispatchBatch();
+    } while (dispatched == batchSize);
+  }
+
+  /**
+   * Sends one batch of due emails over a single connection.
+   *
+   * @return The number of emails attempted.
+   */
+  public int dispatchBatch() {
+    Instant now = Instant.now();
+    List<OutboxEmail> emails =
+        outboxEmailRepository.findByNextAttemptAtLessThanEqualOrderByNextAttemptAt(
+            now, PageRequest.of(0, batchSize));
+    if (emails.isEmpty()) return 0;
+
+    Map<SimpleMailMessage, OutboxEmail> messages = new IdentityHashMap<>();
+    for (OutboxEmail email : emails) {
+      messages.put(
+          EmailService.createMessage(email.getRecipient(), email.getSubject(), email.getBody()),
+          email);
+    }
+
+    // The failures of individual messages, by message.
+    Map<Object, Exception> failures = Collections.emptyMap();
+    try {
+      javaMailSender.send(messages.keySet().toArray(new SimpleMailMessage[0]));
+    } catch (MailSendException e) {
+      failures = e.getFailedMessages();
+    } catch (MailException e) {
+      // Nothing was sent.
+      failures = new IdentityHashMap<>();
+      for (SimpleMailMessage message : messages.keySet()) failures.put(message, e);
+    }
+
+    List<OutboxEmail> finishedEmails = new ArrayList<>();
+    List<OutboxEmail> givenUpEmails = new ArrayList<>();
+    List<OutboxEmail> retriedEmails = new ArrayList<>();
+    for (Map.Entry<SimpleMailMessage, OutboxEmail> entry : messages.entrySet()) {
+      OutboxEmail email = entry.getValue();
+      Exception failure = failures.get(entry.getKey());
+      if (failure == null) {
+        sentEmails.increment();
+        finishedEmails.add(email);
+        continue;
+      }
+
+      failedAttempts.increment();
+      email.markFailed(failure.getMessage(), now.plus(getBackoff(email.getAttempts() + 1)));
+      if (email.getAttempts() >= maxAttempts) {
+        abandonedEmails.increment();
+        finishedEmails.add(email);
+        givenUpEmails.add(email);
+        logService.logException(
+            getClass(),
+            failure,
+            "Giving up on email to "
+                + email.getRecipient()
+                + " after "
+                + email.getAttempts()
+                + " attempts.");
+      } else {
+        retriedEmails.add(email);
+        logService.logInfo(
+            getClass(),
+            "Could not send email to "
+                + email.getRecipient()
+                + " (attempt "
+                + email.getAttempts()
+                + "). Retrying at "
+                + email.getNextAttemptAt()
+                + ": "
+                + failure.getMessage());
+      }
+    }
+
+    outboxEmailRepository.deleteAll(finishedEmails);
+    outboxEmailRepository.saveAll(retriedEmails);
+    givenUpEmails.forEach(this::notifyAbandoned);
+
+    logService.logInfo(
+        getClass(),
+        "Dispatched "
+            + emails.size()
+            + " emails | Sent: "
+            + (emails.size() - failures.size())
+            + " | Failed: "
+            + failures.size());
+    return emails.size();
+  }
+
+  /**
+   * Tells the {@link AbandonedEmailHandler}s about an email which was given up on.
+   *
+   * @param email The email.
+   */
+  private void notifyAbandoned(OutboxEmail email) {
+    for (AbandonedEmailHandler handler : abandonedEmailHandlers) {
+      try {
+        handler.onEmailAbandoned(email);
+      } catch (RuntimeException e) {
+        logService.logException(
+            getClass(), e, "Could not handle the abandoned email to " + email.getRecipient() + ".");
+      }
+    }
+  }
+
+  /**
+   * @param attempt The number of the attempt which failed, starting at 1.
+   * @return How long to wait before the next attempt.
+   */
+  Duration getBackoff(int attempt) {
+    Duration backoff = initialBackoff;
+    for (int i = 1; i < attempt && backoff.compareTo(maxBackoff) < 0; i++) {
+      backoff = backoff.multipliedBy(2);
+    }
+    return backoff.compareTo(maxBackoff) < 0 ? backoff : maxBackoff;
+  }
+
+  /** @return The number of emails which have been sent. */
+  public long getSentEmailCount() {
+    return sentEmails.sum();
+  }
+
+  /** @return The number of attempts to send an email which failed. */
+  public long getFailedAttemptCount() {
+    return failedAttempts.sum();
+  }
+
+  /** @return The number of emails which were given up on. */
+  public long getAbandonedEmailCount() {
+    return abandonedEmails.sum();
+  }
+}
@@ -1,5 +1,7 @@
 package com.mitchtalmadge.uofu_cs_bot.service;
 
+import com.mitchtalmadge.uofu_cs_bot.domain.entity.OutboxEmail;
+import com.mitchtalmadge.uofu_cs_bot.domain.entity.repository.OutboxEmailRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.mail.MailException;
 import org.springframework.mail.SimpleMailMessage;
@@ -10,16 +12,21 @@ import org.springframework.stereotype.Service;
 public class EmailService {
 
   private JavaMailSender javaMailSender;
+  private OutboxEmailRepository outboxEmailRepository;
   private LogService logService;
 
   @Autowired
-  public EmailService(JavaMailSender javaMailSender, LogService logService) {
+  public EmailService(
+      JavaMailSender javaMailSender,
+      OutboxEmailRepository outboxEmailRepository,
+      LogService logService) {
     this.javaMailSender = javaMailSender;
+    this.outboxEmailRepository = outboxEmailRepository;
     this.logService = logService;
   }
 
   /**
-   * Sends an email to a recipient with a custom subject and body.
+   * Sends an email to a recipient with a custom subject and body, waiting for the SMTP server.
    *
    * @param recipient The email address of the recipient.
    * @param subject The subject of the email.
@@ -29,13 +36,40 @@ public class EmailService {
   public void sendEmail(String recipient, String subject, String body) throws MailException {
     this.logService.logInfo(
         getClass(), "Sending email to " + recipient + " w/ Subject: " + subject);
+
+    this.javaMailSender.send(createMessage(recipient, subject, body));
+    this.logService.logInfo(getClass(), "Email sent!");
+  }
+
+  /**
+   * Adds an email to the outbox, to be sent in the background by the {@link EmailOutboxDispatcher}.
+   * When called within a transaction, the email is only sent if the transaction commits.
+   *
+   * @param recipient The email address of the recipient.
+   * @param subject The subject of the email.
+   * @param body The body of the email.
+   */
+  public void enqueueEmail(String recipient, String subject, String body) {
+    this.logService.logInfo(
+        getClass(), "Queueing email to " + recipient + " w/ Subject: " + subject);
+
+    this.outboxEmailRepository.save(new OutboxEmail(recipient, subject, body));
+  }
+
+  /**
+   * Creates a message from the bot's address.
+   *
+   * @param recipient The email address of the recipient.
+   * @param subject The subject of the email.
+   * @param body The body of the email.
+   * @return The message.
+   */
+  static SimpleMailMessage createMessage(String recipient, String subject, String body) {
     SimpleMailMessage message = new SimpleMailMessage();
     message.setTo(recipient);
     message.setFrom(System.getenv("SMTP_USER"));
     message.setSubject(subject);
     message.setText(body);
-
-    this.javaMailSender.send(message);
-    this.logService.logInfo(getClass(), "Email sent!");
+    return message;
   }
 }
@@ -2,26 +2,157 @@ package com.mitchtalmadge.uofu_cs_bot.service.discord;
 
 import org.springframework.stereotype.Service;
 
-/** Accepts requests for server synchronization and relays them to the synchronizer when needed. */
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Accepts requests for server synchronization and relays them to the synchronizer when needed.
+ *
+ * <p>Requests are coalesced without locking: the scope of each request is merged into the pending
+ * scope with a compare-and-set, which also increments the generation stored with it. The worker
+ * takes the scope and its generation together in the same way, so a request is either included in
+ * the scope taken and counted in its generation, or neither. The synchronization worker
+ * waits for requests, then waits until no new request has arrived for the debounce period, so that
+ * a burst of requests (such as the events caused by the bot's own changes) is handled by one
+ * synchronization.
+ *
+ * <p>A request may also be tracked, to find out when it has been carried out. Every request up to
+ * the generation taken with the pending scope is included in that synchronization, so once it
+ * finishes, the tracked requests up to that generation are completed.
+ */
 @Service
 public class DiscordSynchronizationRequestSurrogate {
 
+  /** The requests not yet taken by the worker, along with the number of requests made so far. */
+  private final AtomicReference<PendingRequests> pendingRequests =
+      new AtomicReference<>(new PendingRequests(null, 0));
+
+  /** The thread waiting for requests, if any. */
+  private volatile Thread worker;
+
+  /** The latest generation included in the synchronization taken by the worker. */
+  private long takenGeneration;
+
+  /** The latest synchronization which has finished, or null if none have. */
+  private final AtomicReference<FinishedSynchronization> lastFinished = new AtomicReference<>();
+
+  /** The completions of the tracked requests which have not finished, by generation. */
+  private final ConcurrentNavigableMap<Long, CompletableFuture<Void>> trackedRequests =
+      new ConcurrentSkipListMap<>();
+
+  /** Requests that the whole server be synchronized when convenient. */
+  public void requestSynchronization() {
+    requestSynchronization(SynchronizationScope.EVERYTHING);
+  }
+
   /**
-   * Whenever synchronization is requested, this field will be set to true. <br>
-   * On the next scheduled synchronization, this field is checked to determine if synchronization
-   * should take place. <br>
-   * Once finished, this field is set to false again.
+   * Requests that part of the server be synchronized when convenient.
+   *
+   * @param scope What to synchronize.
    */
-  private boolean synchronizationRequested = false;
+  public void requestSynchronization(SynchronizationScope scope) {
+    request(scope);
+  }
 
-  /** Requests that the server be synchronized when convenient. */
-  public void requestSynchronization() {
-    synchronizationRequested = true;
+  /**
+   * Requests that part of the server be synchronized when convenient, and tracks when it has been.
+   *
+   * @param scope What to synchronize.
+   * @return Completes once a synchronization including this request has finished, or exceptionally
+   *     if that synchronization failed.
+   */
+  public CompletableFuture<Void> requestTrackedSynchronization(SynchronizationScope scope) {
+    CompletableFuture<Void> completion = new CompletableFuture<>();
+    long requestGeneration = request(scope);
+    trackedRequests.put(requestGeneration, completion);
+
+    // The synchronization may have finished before the request was tracked.
+    FinishedSynchronization finished = lastFinished.get();
+    if (finished != null
+        && finished.generation >= requestGeneration
+        && trackedRequests.remove(requestGeneration, completion)) finished.complete(completion);
+
+    return completion;
+  }
+
+  /**
+   * Merges a request into the pending scope and wakes the worker.
+   *
+   * @param scope What to synchronize.
+   * @return The generation of the request.
+   */
+  private long request(SynchronizationScope scope) {
+    long requestGeneration =
+        pendingRequests.updateAndGet(
+                pending -> new PendingRequests(scope.merge(pending.scope), pending.generation + 1))
+            .generation;
+
+    Thread worker = this.worker;
+    if (worker != null) LockSupport.unpark(worker);
+    return requestGeneration;
+  }
+
+  /**
+   * Waits for synchronization to be requested, and then for the requests to settle. Must only be
+   * called by a single worker thread.
+   *
+   * @param debounceMillis How long to wait after the latest request before returning.
+   * @param maxDelayMillis The most time to wait after the first request, even if more arrive.
+   * @return The merged scope of every request since the last call.
+   * @throws InterruptedException If the worker is interrupted while waiting.
+   */
+  public SynchronizationScope awaitSynchronizationRequest(long debounceMillis, long maxDelayMillis)
+      throws InterruptedException {
+    worker = Thread.currentThread();
+
+    // Wait for a request. Requests unpark this thread, so none are missed between the check and
+    // parking.
+    while (pendingRequests.get().scope == null) {
+      LockSupport.park(this);
+      if (Thread.interrupted()) throw new InterruptedException();
+    }
+
+    // Wait until no request has arrived for the debounce period.
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+    long seenGeneration;
+    do {
+      seenGeneration = getGeneration();
+      long quietUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+      long remaining;
+      while ((remaining = Math.min(quietUntil, deadline) - System.nanoTime()) > 0) {
+        LockSupport.parkNanos(this, remaining);
+        if (Thread.interrupted()) throw new InterruptedException();
+      }
+    } while (getGeneration() != seenGeneration && System.nanoTime() - deadline < 0);
+
+    // The scope taken includes every request up to the generation taken with it.
+    PendingRequests taken =
+        pendingRequests.getAndUpdate(pending -> new PendingRequests(null, pending.generation));
+    takenGeneration = taken.generation;
+    return taken.scope;
   }
 
-  /** Clears any request to synchronize the server. */
-  public void clearSynchronizationRequests() {
-    this.synchronizationRequested = false;
+  /**
+   * Records that the synchronization of the scope last returned by {@link
+   * #awaitSynchronizationRequest(long, long)} has finished, and completes the requests it included.
+   * Must only be called by the worker thread.
+   *
+   * @param failure The cause of the failure of the synchronization, or null if it succeeded.
+   */
+  public void finishSynchronization(Throwable failure) {
+    FinishedSynchronization finished = new FinishedSynchronization(takenGeneration, failure);
+    lastFinished.set(finished);
+
+    Map<Long, CompletableFuture<Void>> included = trackedRequests.headMap(takenGeneration, true);
+    for (Map.Entry<Long, CompletableFuture<Void>> entry : included.entrySet()) {
+      if (trackedRequests.remove(entry.getKey(), entry.getValue()))
+        finished.complete(entry.getValue());
+    }
   }
 
   /**
@@ -30,6 +161,47 @@ public class DiscordSynchronizationRequestSurrogate {
    * @return True if synchronization is requested.
    */
   public boolean isSynchronizationRequested() {
-    return synchronizationRequested;
+    return pendingRequests.get().scope != null;
+  }
+
+  /** @return The number of requests made so far. */
+  public long getGeneration() {
+    return pendingRequests.get().generation;
+  }
+
+  /** The merged scope of the requests not yet taken, and the generation of the latest request. */
+  private static class PendingRequests {
+
+    /** The merged scope of every request not yet taken by the worker, or null if there are none. */
+    private final SynchronizationScope scope;
+
+    /** The number of requests made so far, including those already taken. */
+    private final long generation;
+
+    private PendingRequests(SynchronizationScope scope, long generation) {
+      this.scope = scope;
+      this.generation = generation;
+    }
+  }
+
+  /** The outcome of a synchronization. */
+  private static class FinishedSynchronization {
+
+    /** The latest generation included in the synchronization. */
+    private final long generation;
+
+    /** The cause of the failure of the synchronization, or null if it succeeded. */
+    private final Throwable failure;
+
+    private FinishedSynchronization(long generation, Throwable failure) {
+      this.generation = generation;
+      this.failure = failure;
+    }
+
+    /** @param completion The completion of a request included in the synchronization. */
+    private void complete(CompletableFuture<Void> completion) {
+      if (failure == null) completion.complete(null);
+      else completion.completeExceptionally(failure);
+    }
   }
 }
@@ -5,15 +5,15 @@ import com.mitchtalmadge.uofu_cs_bot.service.discord.channel.ChannelSynchronizat
 import com.mitchtalmadge.uofu_cs_bot.service.discord.nickname.NicknameService;
 import com.mitchtalmadge.uofu_cs_bot.service.discord.role.RoleAssignmentService;
 import com.mitchtalmadge.uofu_cs_bot.service.discord.role.RoleSynchronizationService;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
 
 @Service
-public class DiscordSynchronizationService {
+public class DiscordSynchronizationService implements DisposableBean {
 
   private LogService logService;
   private DiscordSynchronizationRequestSurrogate requestSurrogate;
@@ -21,6 +21,16 @@ public class DiscordSynchronizationService {
   private RoleAssignmentService roleAssignmentService;
   private final ChannelSynchronizationService channelSynchronizationService;
   private NicknameService nicknameService;
+  private final RestActionPipeline restActionPipeline;
+
+  /** How long to wait after the latest request before synchronizing, in milliseconds. */
+  private final long debounceMillis;
+
+  /** The most time to wait after the first request before synchronizing, in milliseconds. */
+  private final long maxDelayMillis;
+
+  /** The thread which waits for synchronization requests and carries them out. */
+  private final Thread worker;
 
   @Autowired
   public DiscordSynchronizationService(
@@ -29,60 +39,106 @@ public class DiscordSynchronizationService {
       RoleSynchronizationService roleSynchronizationService,
       RoleAssignmentService roleAssignmentService,
       ChannelSynchronizationService channelSynchronizationService,
-      NicknameService nicknameService) {
+      NicknameService nicknameService,
+      RestActionPipeline restActionPipeline,
+      @Value("${discord.sync.debounce-ms}") long debounceMillis,
+      @Value("${discord.sync.max-delay-ms}") long maxDelayMillis) {
     this.logService = logService;
     this.requestSurrogate = requestSurrogate;
     this.roleSynchronizationService = roleSynchronizationService;
     this.roleAssignmentService = roleAssignmentService;
     this.channelSynchronizationService = channelSynchronizationService;
     this.nicknameService = nicknameService;
+    this.restActionPipeline = restActionPipeline;
+    this.debounceMillis = debounceMillis;
+    this.maxDelayMillis = maxDelayMillis;
+
+    this.worker = new Thread(this::handleSynchronizationRequests, "discord-sync");
+    this.worker.setDaemon(true);
   }
 
   @PostConstruct
   public void init() {
-    this.synchronizeServer();
+    this.synchronizeServer(SynchronizationScope.EVERYTHING);
+    this.worker.start();
   }
 
-  /** Forces server synchronization. */
-  private void synchronizeServer() {
-    logService.logInfo(getClass(), "Beginning Synchronization as Requested.");
+  @Override
+  public void destroy() {
+    worker.interrupt();
+  }
+
+  /**
+   * Forces server synchronization.
+   *
+   * @param scope The phases to run, and the Courses and Clubs they are limited to.
+   */
+  private void synchronizeServer(SynchronizationScope scope) {
+    logService.logInfo(getClass(), "Beginning Synchronization as Requested: " + scope);
+    long start = System.currentTimeMillis();
 
     // Synchronize roles.
-    logService.logInfo(getClass(), "Synchronizing Roles...");
-    roleSynchronizationService.synchronize();
+    if (scope.includes(SynchronizationScope.Phase.ROLES)) {
+      logService.logInfo(getClass(), "Synchronizing Roles...");
+      restActionPipeline.runPhase("Roles", () -> roleSynchronizationService.synchronize(scope));
+    }
 
     // Synchronize channels, after roles.
-    logService.logInfo(getClass(), "Synchronizing Channels...");
-    channelSynchronizationService.synchronize();
+    if (scope.includes(SynchronizationScope.Phase.CHANNELS)) {
+      logService.logInfo(getClass(), "Synchronizing Channels...");
+      restActionPipeline.runPhase(
+          "Channels", () -> channelSynchronizationService.synchronize(scope));
+    }
+
+    boolean nicknames = scope.includes(SynchronizationScope.Phase.NICKNAMES);
+    boolean roleAssignment = scope.includes(SynchronizationScope.Phase.ROLE_ASSIGNMENT);
 
-    // Validate nicknames.
-    logService.logInfo(getClass(), "Validating Nicknames...");
-    nicknameService.validateNicknames();
+    if (nicknames && roleAssignment && !scope.isLimited()) {
+      // Validate nicknames and assign Roles together, with one request per changed member.
+      logService.logInfo(getClass(), "Reconciling Members...");
+      restActionPipeline.runPhase("Members", roleAssignmentService::reconcileMembers);
+    } else {
+      // Validate nicknames.
+      if (nicknames) {
+        logService.logInfo(getClass(), "Validating Nicknames...");
+        restActionPipeline.runPhase("Nicknames", nicknameService::validateNicknames);
+      }
 
-    // Assign Roles.
-    logService.logInfo(getClass(), "Assigning Roles...");
-    roleAssignmentService.assignRoles();
+      // Assign Roles.
+      if (roleAssignment) {
+        logService.logInfo(getClass(), "Assigning Roles...");
+        restActionPipeline.runPhase(
+            "Role Assignment", () -> roleAssignmentService.assignRoles(scope));
+      }
+    }
 
-    logService.logInfo(getClass(), "Synchronization Finished.");
+    logService.logInfo(
+        getClass(),
+        "Synchronization Finished in " + (System.currentTimeMillis() - start) + "ms.");
   }
 
   /**
-   * Begins server synchronization. <br>
-   * This may involve creating, deleting, modifying, or moving Roles and Channels as needed, or
-   * more.
-   *
-   * <p>Synchronization only takes place if requested.
-   *
-   * <p>This method will fire every 15 seconds, with an initial delay of 15 seconds.
+   * Waits for synchronization requests and carries them out, until interrupted. <br>
+   * Requests made within the debounce period of each other are merged into one synchronization,
+   * which is limited to the scope of those requests.
    */
-  @Scheduled(fixedDelay = 15_000, initialDelay = 15_000)
-  @Async
-  protected void handleSynchronizationRequests() {
-    // Make sure we have a requested synchronization.
-    if (!this.requestSurrogate.isSynchronizationRequested()) return;
-
-    this.requestSurrogate.clearSynchronizationRequests();
+  private void handleSynchronizationRequests() {
+    while (!Thread.currentThread().isInterrupted()) {
+      SynchronizationScope scope;
+      try {
+        scope = requestSurrogate.awaitSynchronizationRequest(debounceMillis, maxDelayMillis);
+      } catch (InterruptedException e) {
+        return;
+      }
 
-    this.synchronizeServer();
+      RuntimeException failure = null;
+      try {
+        this.synchronizeServer(scope);
+      } catch (RuntimeException e) {
+        logService.logException(getClass(), e, "Synchronization failed.");
+        failure = e;
+      }
+      requestSurrogate.finishSynchronization(failure);
+    }
   }
 }
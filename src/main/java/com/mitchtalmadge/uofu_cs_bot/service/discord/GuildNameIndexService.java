@@ -0,0 +1,79 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord;
+
+import com.mitchtalmadge.uofu_cs_bot.util.NameIndex;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.entities.TextChannel;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Finds the Roles and TextChannels of the Guild by name, ignoring case, without scanning every Role
+ * or TextChannel as {@link Guild#getRolesByName} and {@link Guild#getTextChannelsByName} do. The
+ * indexes are kept up to date by the role and text channel event listeners. Names which are not
+ * indexed, such as those of entities still to be created, are confirmed with those methods before
+ * being reported missing, in case an entity was renamed without its event being processed yet.
+ */
+@Service
+public class GuildNameIndexService implements InitializingBean {
+
+  private final DiscordService discordService;
+
+  private final NameIndex<Role> roleIndex;
+  private final NameIndex<TextChannel> textChannelIndex;
+
+  @Autowired
+  public GuildNameIndexService(DiscordService discordService) {
+    this.discordService = discordService;
+
+    this.roleIndex =
+        new NameIndex<>(
+            Role::getIdLong,
+            Role::getName,
+            id -> discordService.getGuild().getRoleById(id),
+            name -> discordService.getGuild().getRolesByName(name, true),
+            () -> discordService.getGuild().getRoles(),
+            () -> discordService.getGuild().getRoleCache().size());
+    this.textChannelIndex =
+        new NameIndex<>(
+            TextChannel::getIdLong,
+            TextChannel::getName,
+            id -> discordService.getGuild().getTextChannelById(id),
+            name -> discordService.getGuild().getTextChannelsByName(name, true),
+            () -> discordService.getGuild().getTextChannels(),
+            () -> discordService.getGuild().getTextChannelCache().size());
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    roleIndex.rebuild();
+    textChannelIndex.rebuild();
+  }
+
+  /**
+   * @param name The name of the Role, in any case.
+   * @return The Role, or null if there is none with the name.
+   */
+  public Role getRole(String name) {
+    return roleIndex.get(name);
+  }
+
+  /**
+   * @param name The name of the TextChannel, in any case.
+   * @return The TextChannel, or null if there is none with the name.
+   */
+  public TextChannel getTextChannel(String name) {
+    return textChannelIndex.get(name);
+  }
+
+  /** @return The index of Roles, for updating from events. */
+  public NameIndex<Role> getRoleIndex() {
+    return roleIndex;
+  }
+
+  /** @return The index of TextChannels, for updating from events. */
+  public NameIndex<TextChannel> getTextChannelIndex() {
+    return textChannelIndex;
+  }
+}
@@ -0,0 +1,132 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord;
+
+import net.dv8tion.jda.api.entities.Category;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.entities.TextChannel;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * The Roles, Categories and TextChannels of the Guild at one moment, taken at the start of a
+ * synchronization phase so that every synchronizer in the phase sees the same Guild.
+ *
+ * <p>The Roles and TextChannels are also partitioned by the prefixes of the synchronizers, ignoring
+ * case, when the snapshot is taken. Each name is lowercased once, and each synchronizer is given
+ * its slice rather than filtering a fresh copy of the Guild's lists. Every list is unmodifiable.
+ */
+public final class GuildSnapshot {
+
+  private final List<Role> roles;
+  private final List<Category> categories;
+  private final List<TextChannel> textChannels;
+
+  /** The Roles whose names begin with each prefix, by lowercase prefix. */
+  private final Map<String, List<Role>> rolesByPrefix;
+
+  /** The TextChannels whose names begin with each prefix, by lowercase prefix. */
+  private final Map<String, List<TextChannel>> textChannelsByPrefix;
+
+  private GuildSnapshot(
+      List<Role> roles,
+      List<Category> categories,
+      List<TextChannel> textChannels,
+      Collection<String> rolePrefixes,
+      Collection<String> textChannelPrefixes) {
+    this.roles = Collections.unmodifiableList(roles);
+    this.categories = Collections.unmodifiableList(categories);
+    this.textChannels = Collections.unmodifiableList(textChannels);
+    this.rolesByPrefix = partition(roles, Role::getName, rolePrefixes);
+    this.textChannelsByPrefix = partition(textChannels, TextChannel::getName, textChannelPrefixes);
+  }
+
+  /**
+   * Takes a snapshot of a Guild.
+   *
+   * @param guild The Guild.
+   * @param rolePrefixes The prefixes by which to partition the Roles.
+   * @param textChannelPrefixes The prefixes by which to partition the TextChannels.
+   * @return The snapshot.
+   */
+  public static GuildSnapshot of(
+      Guild guild, Collection<String> rolePrefixes, Collection<String> textChannelPrefixes) {
+    return new GuildSnapshot(
+        guild.getRoles(),
+        guild.getCategories(),
+        guild.getTextChannels(),
+        rolePrefixes,
+        textChannelPrefixes);
+  }
+
+  /**
+   * Groups entities by the prefixes their names begin with. An entity whose name begins with
+   * several of the prefixes is in each of their groups.
+   *
+   * @param entities The entities.
+   * @param nameFunction Gets the name of an entity.
+   * @param prefixes The prefixes, in any case.
+   * @param <T> The type of entity.
+   * @return The unmodifiable group of each prefix, by lowercase prefix.
+   */
+  private static <T> Map<String, List<T>> partition(
+      List<T> entities, Function<T, String> nameFunction, Collection<String> prefixes) {
+    Map<String, List<T>> groups = new HashMap<>();
+    for (String prefix : prefixes) groups.put(toKey(prefix), new ArrayList<>());
+
+    for (T entity : entities) {
+      String name = toKey(nameFunction.apply(entity));
+      for (Map.Entry<String, List<T>> group : groups.entrySet()) {
+        if (name.startsWith(group.getKey())) group.getValue().add(entity);
+      }
+    }
+
+    groups.replaceAll((prefix, group) -> Collections.unmodifiableList(group));
+    return groups;
+  }
+
+  /** @return Every Role, in the order of the Guild. */
+  public List<Role> getRoles() {
+    return roles;
+  }
+
+  /** @return Every Category, in the order of the Guild. */
+  public List<Category> getCategories() {
+    return categories;
+  }
+
+  /** @return Every TextChannel, in the order of the Guild. */
+  public List<TextChannel> getTextChannels() {
+    return textChannels;
+  }
+
+  /**
+   * @param prefix One of the Role prefixes the snapshot was taken with, in any case.
+   * @return The Roles whose names begin with the prefix, ignoring case, in the order of the Guild.
+   * @throws IllegalArgumentException If the snapshot was not taken with the prefix.
+   */
+  public List<Role> getRolesWithPrefix(String prefix) {
+    return getGroup(rolesByPrefix, prefix);
+  }
+
+  /**
+   * @param prefix One of the TextChannel prefixes the snapshot was taken with, in any case.
+   * @return The TextChannels whose names begin with the prefix, ignoring case, in the order of the
+   *     Guild.
+   * @throws IllegalArgumentException If the snapshot was not taken with the prefix.
+   */
+  public List<TextChannel> getTextChannelsWithPrefix(String prefix) {
+    return getGroup(textChannelsByPrefix, prefix);
+  }
+
+  private static <T> List<T> getGroup(Map<String, List<T>> groups, String prefix) {
+    List<T> group = groups.get(toKey(prefix));
+    if (group == null)
+      throw new IllegalArgumentException("The snapshot was not partitioned by '" + prefix + "'.");
+    return group;
+  }
+
+  private static String toKey(String name) {
+    return name.toLowerCase(Locale.ROOT);
+  }
+}
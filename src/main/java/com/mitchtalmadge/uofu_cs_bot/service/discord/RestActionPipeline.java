@@ -0,0 +1,218 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord;
+
+import com.mitchtalmadge.uofu_cs_bot.service.LogService;
+import net.dv8tion.jda.api.requests.RestAction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Runs the independent requests of a synchronization phase together, instead of waiting for each
+ * one with {@link RestAction#complete()}.
+ *
+ * <p>Requests are handed to JDA with {@link RestAction#queue()}, which already waits out the rate
+ * limits of each route. At most a configured number of requests are in flight at once, across every
+ * caller, so that a large phase does not flood the requester. {@link #runPhase} is the barrier
+ * between phases: it returns once every request submitted by the phase has finished. A request
+ * belongs to the phase being run on the thread which submits it, so requests submitted by other
+ * callers (or outside of any phase) are neither waited for nor counted by it.
+ */
+@Component
+public class RestActionPipeline {
+
+  private final LogService logService;
+
+  /** One permit per request which may be in flight. */
+  private final Semaphore window;
+
+  /** The number of requests which have been submitted. */
+  private final LongAdder submittedRequests = new LongAdder();
+
+  /** The number of requests which have failed. */
+  private final LongAdder failedRequests = new LongAdder();
+
+  /** The duration of the last run of each phase, in milliseconds, by phase name. */
+  private final Map<String, Long> phaseMillis = new ConcurrentHashMap<>();
+
+  /** The innermost phase being run on each thread. */
+  private final ThreadLocal<Phase> currentPhase = new ThreadLocal<>();
+
+  @Autowired
+  public RestActionPipeline(
+      LogService logService, @Value("${discord.sync.max-in-flight}") int maxInFlight) {
+    this.logService = logService;
+    this.window = new Semaphore(Math.max(1, maxInFlight));
+  }
+
+  /**
+   * Submits a request, waiting first if the window is full. The request is not waited for.
+   *
+   * @param action The request.
+   */
+  public void submit(RestAction<?> action) {
+    submit(action, success -> {}, failure -> {});
+  }
+
+  /**
+   * Submits a request, waiting first if the window is full. The request is not waited for.
+   *
+   * @param action The request.
+   * @param success Called with the result if the request succeeds.
+   * @param failure Called with the cause if the request fails, after the failure is logged.
+   * @param <T> The type of the result.
+   */
+  public <T> void submit(
+      RestAction<T> action, Consumer<? super T> success, Consumer<? super Throwable> failure) {
+    Phase phase = currentPhase.get();
+    window.acquireUninterruptibly();
+    submittedRequests.increment();
+    if (phase != null) phase.submitted();
+
+    try {
+      action.queue(
+          result -> {
+            // The callbacks run before the request finishes, so that they finish before the
+            // barrier.
+            try {
+              success.accept(result);
+            } finally {
+              finished(phase, false);
+            }
+          },
+          cause -> {
+            logService.logException(getClass(), cause, "A synchronization request failed.");
+            try {
+              failure.accept(cause);
+            } finally {
+              finished(phase, true);
+            }
+          });
+    } catch (RuntimeException e) {
+      // The request was never queued, so none of its callbacks will run.
+      finished(phase, true);
+      throw e;
+    }
+  }
+
+  /**
+   * Releases the place of a request in the window, and counts it as finished in its phase.
+   *
+   * @param phase The phase of the request, or null if it was submitted outside of a phase.
+   * @param failed Whether the request failed.
+   */
+  private void finished(Phase phase, boolean failed) {
+    if (failed) failedRequests.increment();
+    window.release();
+    if (phase != null) phase.finished(failed);
+  }
+
+  /**
+   * Runs a synchronization phase, waits for all of the requests it submitted, and logs how long
+   * the phase took. Phases may be nested, in which case the requests of the inner phase are also
+   * counted in the outer one. Must not be called from a JDA callback, as those are what finish the
+   * requests.
+   *
+   * @param name The name of the phase, for logging.
+   * @param runnable The phase, which submits its requests to this pipeline from the calling thread.
+   */
+  public void runPhase(String name, Runnable runnable) {
+    Phase parent = currentPhase.get();
+    Phase phase = new Phase();
+    currentPhase.set(phase);
+    long start = System.nanoTime();
+
+    try {
+      runnable.run();
+    } finally {
+      phase.awaitCompletion();
+      if (parent == null) currentPhase.remove();
+      else currentPhase.set(parent);
+    }
+
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    phaseMillis.put(name, elapsedMillis);
+    if (parent != null) parent.include(phase);
+
+    logService.logInfo(
+        getClass(),
+        "Phase '"
+            + name
+            + "' finished in "
+            + elapsedMillis
+            + "ms | Requests: "
+            + phase.submittedCount
+            + " | Failed: "
+            + phase.failedCount);
+  }
+
+  /**
+   * @param name The name of a phase.
+   * @return How long the last run of the phase took, in milliseconds, or -1 if it has not run.
+   */
+  public long getPhaseMillis(String name) {
+    return phaseMillis.getOrDefault(name, -1L);
+  }
+
+  /** @return The number of requests which have been submitted. */
+  public long getSubmittedRequestCount() {
+    return submittedRequests.sum();
+  }
+
+  /** @return The number of requests which have failed. */
+  public long getFailedRequestCount() {
+    return failedRequests.sum();
+  }
+
+  /** The requests of one run of a phase. */
+  private static class Phase {
+
+    /** The number of requests of the phase which have not finished. Guarded by this instance. */
+    private int inFlight;
+
+    /** The number of requests submitted by the phase, including nested phases. */
+    private long submittedCount;
+
+    /** The number of requests of the phase which failed, including nested phases. */
+    private long failedCount;
+
+    synchronized void submitted() {
+      inFlight++;
+      submittedCount++;
+    }
+
+    synchronized void finished(boolean failed) {
+      if (failed) failedCount++;
+      if (--inFlight == 0) notifyAll();
+    }
+
+    /**
+     * Adds the counts of a nested phase, which has finished, to this one.
+     *
+     * @param nested The nested phase.
+     */
+    synchronized void include(Phase nested) {
+      submittedCount += nested.submittedCount;
+      failedCount += nested.failedCount;
+    }
+
+    /** Waits until every request of the phase has finished, preserving any interrupt. */
+    synchronized void awaitCompletion() {
+      boolean interrupted = false;
+      while (inFlight > 0) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -1,23 +1,47 @@
 package com.mitchtalmadge.uofu_cs_bot.service.discord;
 
 import com.mitchtalmadge.uofu_cs_bot.domain.cs.Course;
+import com.mitchtalmadge.uofu_cs_bot.domain.entity.SemesterReset;
+import com.mitchtalmadge.uofu_cs_bot.domain.entity.repository.SemesterResetRepository;
 import com.mitchtalmadge.uofu_cs_bot.service.LogService;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.channel.ChannelArchiveService;
 import com.mitchtalmadge.uofu_cs_bot.service.discord.nickname.NicknameService;
 import net.dv8tion.jda.api.entities.TextChannel;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
 import java.time.Month;
 import java.time.MonthDay;
 import java.time.ZoneId;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 
 /**
  * Resets all assigned CS roles and wipes all CS chat rooms at the end of each semester.
  *
+ * <p>Each reset is a job stored in the database, which records the next of its steps to run. The
+ * job is saved after each step, so a reset interrupted by a restart or a failure is resumed at the
+ * step it stopped on, rather than leaving the server half reset. A step interrupted part way is
+ * simply run again.
+ *
+ * <p>When archiving is enabled, the history of the course channels is archived before they are
+ * deleted, in a directory named after the day of the reset.
+ *
  * @author Mitch Talmadge
  */
 @Service
@@ -28,6 +52,9 @@ public class SemesterResetService {
     MonthDay.of(Month.AUGUST, 15), MonthDay.of(Month.JANUARY, 5)
   };
 
+  /** The time zone of the reset days. */
+  private static final ZoneId SEMESTER_RESET_ZONE = ZoneId.of("America/Denver");
+
   /** The announcement to send when the semester resets. */
   private static final String SEMESTER_RESET_ANNOUNCEMENT =
       "@everyone\n"
@@ -44,33 +71,61 @@ public class SemesterResetService {
   private final DiscordService discordService;
   private final DiscordSynchronizationRequestSurrogate discordSynchronizationRequestSurrogate;
   private NicknameService nicknameService;
+  private final RestActionPipeline restActionPipeline;
+  private final SemesterResetRepository semesterResetRepository;
+  private final ChannelArchiveService channelArchiveService;
+
+  /** The longest time to wait for the synchronization after the channels are deleted. */
+  private final long syncTimeoutMillis;
+
+  /** Whether to archive the course channels before deleting them. */
+  private final boolean archiveEnabled;
+
+  /** The directory holding the archives of each reset. */
+  private final Path archiveDirectory;
+
+  /** Held while the steps of a reset are being run, so that only one caller runs them. */
+  private final ReentrantLock resetLock = new ReentrantLock();
 
   @Autowired
   public SemesterResetService(
       LogService logService,
       DiscordService discordService,
       DiscordSynchronizationRequestSurrogate discordSynchronizationRequestSurrogate,
-      NicknameService nicknameService) {
+      NicknameService nicknameService,
+      RestActionPipeline restActionPipeline,
+      SemesterResetRepository semesterResetRepository,
+      ChannelArchiveService channelArchiveService,
+      @Value("${semester-reset.sync-timeout-ms}") long syncTimeoutMillis,
+      @Value("${semester-reset.archive.enabled}") boolean archiveEnabled,
+      @Value("${semester-reset.archive.directory}") String archiveDirectory) {
     this.logService = logService;
     this.discordService = discordService;
     this.discordSynchronizationRequestSurrogate = discordSynchronizationRequestSurrogate;
     this.nicknameService = nicknameService;
+    this.restActionPipeline = restActionPipeline;
+    this.semesterResetRepository = semesterResetRepository;
+    this.channelArchiveService = channelArchiveService;
+    this.syncTimeoutMillis = syncTimeoutMillis;
+    this.archiveEnabled = archiveEnabled;
+    this.archiveDirectory = Paths.get(archiveDirectory);
   }
 
   /**
    * Checks if it is the end of the semester each day at 12pm MST.
    *
-   * <p>If it is the end of the semester, deletes all CS class channels and removes all CS roles
-   * from users.
+   * <p>If it is the end of the semester, starts a reset which deletes all CS class channels and
+   * removes all CS roles from users.
    *
    * <p>Finally, puts out an announcement that it is the end of the semester.
    */
   @Scheduled(cron = "0 0 12 * * *", zone = "America/Denver")
   @Async
   protected void semesterReset() {
+    LocalDate today = LocalDate.now(SEMESTER_RESET_ZONE);
 
     boolean reset = false;
-    MonthDay currentDay = MonthDay.now(ZoneId.of("America/Denver"));
+    MonthDay currentDay = MonthDay.from(today);
 
     // Determine if today is a reset day.
     for (MonthDay day : SEMESTER_RESET_DAYS) {
@@ -83,33 +138,161 @@ public class SemesterResetService {
       return;
     }
 
-    logService.logInfo(getClass(), "!!!!!!!!!!!!!! Initiating Semester Reset !!!!!!!!!!!!!!");
+    // Today is a reset day, begin resetting, unless a reset was already started today.
+    synchronized (this) {
+      if (!semesterResetRepository.existsByResetDate(today))
+        semesterResetRepository.save(new SemesterReset(today));
+    }
+    resumeReset();
+  }
+
+  /**
+   * Runs the remaining steps of every reset which has not finished, such as one interrupted by a
+   * restart. Checked once the bot has started, and periodically to retry failed steps. If the steps
+   * are already being run, this returns at once, as that run will carry on through every reset.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(
+      fixedDelayString = "${semester-reset.resume-interval-ms}",
+      initialDelayString = "${semester-reset.resume-interval-ms}")
+  @Async
+  public void resumeReset() {
+    if (!resetLock.tryLock()) {
+      logService.logDebug(getClass(), "Semester reset is already running.");
+      return;
+    }
+
+    try {
+      while (true) {
+        Optional<SemesterReset> unfinished =
+            semesterResetRepository.findFirstByStepNotOrderByStartedAt(SemesterReset.Step.FINISHED);
+        if (!unfinished.isPresent() || !runRemainingSteps(unfinished.get())) return;
+      }
+    } finally {
+      resetLock.unlock();
+    }
+  }
+
+  /**
+   * Runs the remaining steps of a reset, saving it after each.
+   *
+   * @param reset The reset.
+   * @return True if the reset finished, or false if a step failed and the reset should be resumed
+   *     later.
+   */
+  private boolean runRemainingSteps(SemesterReset reset) {
+    if (reset.getStep() == SemesterReset.Step.values()[0])
+      logService.logInfo(getClass(), "!!!!!!!!!!!!!! Initiating Semester Reset !!!!!!!!!!!!!!");
+    else
+      logService.logInfo(
+          getClass(),
+          "Resuming semester reset of " + reset.getResetDate() + " at step " + reset.getStep());
+
+    while (reset.getStep() != SemesterReset.Step.FINISHED) {
+      try {
+        runStep(reset);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      } catch (Exception e) {
+        logService.logException(
+            getClass(),
+            e,
+            "Semester reset stopped at step " + reset.getStep() + ". It will be resumed later.");
+        return false;
+      }
 
-    // Today is a reset day, begin resetting.
-    nicknameService.clearNicknamesOlderThanDays(30);
-    deleteChannels();
-    discordSynchronizationRequestSurrogate.requestSynchronization();
-    announceReset();
+      // Checkpoint.
+      reset.advance();
+      reset = semesterResetRepository.save(reset);
+      logService.logInfo(getClass(), "Semester reset advanced to step " + reset.getStep());
+    }
+    return true;
   }
 
-  /** Deletes all CS channels, to be re-added later. */
-  private void deleteChannels() {
-    discordService
-        .getGuild()
-        .getTextChannels()
-        .forEach(
+  /**
+   * Runs the current step of a reset.
+   *
+   * @param reset The reset.
+   * @throws Exception If the step did not finish, and should be run again later.
+   */
+  void runStep(SemesterReset reset) throws Exception {
+    switch (reset.getStep()) {
+      case CLEAR_NICKNAMES:
+        nicknameService.clearNicknamesOlderThanDays(NicknameService.STALE_NICKNAME_DAYS);
+        break;
+      case ARCHIVE_CHANNELS:
+        if (archiveEnabled) archiveChannels(reset.getResetDate());
+        break;
+      case DELETE_CHANNELS:
+        deleteChannels();
+        break;
+      case SYNCHRONIZE:
+        synchronize();
+        break;
+      case ANNOUNCE:
+        announceReset();
+        break;
+      default:
+        break;
+    }
+  }
+
+  /** @return The course channels of the guild. */
+  private List<TextChannel> findCourseChannels() {
+    return discordService.getGuild().getTextChannels().stream()
+        .filter(
             channel -> {
               try {
                 // Parse the channel as a course to ensure it is actually a course channel.
-                new Course(channel.getName());
-
-                logService.logInfo(getClass(), "Deleting Text Channel: " + channel.getName());
-                channel.delete().complete();
-
+                Course.of(channel.getName());
+                return true;
               } catch (Course.InvalidCourseNameException ignored) {
                 // This channel is not a course channel.
+                return false;
               }
-            });
+            })
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Archives the history of all CS channels before they are deleted.
+   *
+   * @param resetDate The day of the reset, which names the directory of the archives.
+   */
+  private void archiveChannels(LocalDate resetDate) throws IOException, InterruptedException {
+    List<TextChannel> channels = findCourseChannels();
+    Path directory = archiveDirectory.resolve(resetDate.toString());
+
+    logService.logInfo(
+        getClass(), "Archiving " + channels.size() + " Text Channels to " + directory);
+    channelArchiveService.archive(channels, directory);
+  }
+
+  /** Deletes all CS channels, to be re-added later. The deletions are sent together. */
+  private void deleteChannels() {
+    LongAdder failures = new LongAdder();
+    restActionPipeline.runPhase(
+        "Semester Reset Channels",
+        () -> {
+          for (TextChannel channel : findCourseChannels()) {
+            logService.logInfo(getClass(), "Deleting Text Channel: " + channel.getName());
+            restActionPipeline.submit(
+                channel.delete(), success -> {}, failure -> failures.increment());
+          }
+        });
+
+    if (failures.sum() > 0)
+      throw new IllegalStateException(failures.sum() + " course channels could not be deleted.");
+  }
+
+  /**
+   * Requests a synchronization, which re-creates the deleted channels, and waits for it to finish.
+   */
+  private void synchronize() throws InterruptedException, ExecutionException, TimeoutException {
+    discordSynchronizationRequestSurrogate
+        .requestTrackedSynchronization(SynchronizationScope.EVERYTHING)
+        .get(syncTimeoutMillis, TimeUnit.MILLISECONDS);
   }
 
   /** Makes an announcement that the server was reset for the beginning of the new semester. */
@@ -132,8 +315,8 @@ public class SemesterResetService {
       return;
     }
 
-    // Delay 1 minute to allow for channel synchronization.
-    announcementChannel.sendMessage(SEMESTER_RESET_ANNOUNCEMENT).queueAfter(1, TimeUnit.MINUTES);
-    logService.logInfo(getClass(), "Announcement scheduled to post in 1 minute.");
+    // The channels have been synchronized, so announce straight away.
+    announcementChannel.sendMessage(SEMESTER_RESET_ANNOUNCEMENT).complete();
+    logService.logInfo(getClass(), "Announcement posted.");
   }
 }
@@ -0,0 +1,208 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord;
+
+import com.mitchtalmadge.uofu_cs_bot.domain.cs.Club;
+import com.mitchtalmadge.uofu_cs_bot.domain.cs.Course;
+import com.mitchtalmadge.uofu_cs_bot.domain.cs.CourseSet;
+
+import java.util.*;
+
+/**
+ * The part of the server which a synchronization request asks to synchronize: a set of phases, and
+ * optionally the particular Courses and Clubs those phases are limited to.
+ *
+ * <p>Scopes are immutable. Requests are coalesced by merging their scopes, which never loses any
+ * part of a request: the merged scope covers everything either scope covered, and possibly more.
+ */
+public final class SynchronizationScope {
+
+  /** The phases of synchronization, in the order they run. */
+  public enum Phase {
+    /** Creating, updating and ordering Roles. */
+    ROLES,
+    /** Creating, updating and ordering Channels and Categories. */
+    CHANNELS,
+    /** Validating the nicknames of all members. */
+    NICKNAMES,
+    /** Assigning Roles to all members. */
+    ROLE_ASSIGNMENT
+  }
+
+  /** The prefix of the names of Club Roles and Channels. */
+  private static final String CLUB_PREFIX = "club-";
+
+  /** The suffix of the names of Club admin Roles and Channels. */
+  private static final String CLUB_ADMIN_SUFFIX = "-admin";
+
+  /** Every phase, for the whole server. */
+  public static final SynchronizationScope EVERYTHING =
+      new SynchronizationScope(EnumSet.allOf(Phase.class), null, null);
+
+  private final Set<Phase> phases;
+
+  /** The Courses the phases are limited to, or null if they are not limited. */
+  private final CourseSet courses;
+
+  /** The lowercase names of the Clubs the phases are limited to, or null if not limited. */
+  private final Set<String> clubNames;
+
+  private SynchronizationScope(Set<Phase> phases, CourseSet courses, Set<String> clubNames) {
+    this.phases = Collections.unmodifiableSet(phases);
+    this.courses = courses;
+    this.clubNames = clubNames == null ? null : Collections.unmodifiableSet(clubNames);
+  }
+
+  /**
+   * Creates a scope containing some phases for the whole server.
+   *
+   * @param first A phase.
+   * @param rest Any other phases.
+   * @return The scope.
+   */
+  public static SynchronizationScope of(Phase first, Phase... rest) {
+    return new SynchronizationScope(EnumSet.of(first, rest), null, null);
+  }
+
+  /**
+   * Creates a scope for the Roles, Channels and Role assignments of some Courses, such as Courses
+   * which have just been enabled or disabled.
+   *
+   * @param courses The Courses.
+   * @return The scope.
+   */
+  public static SynchronizationScope ofCourses(Collection<Course> courses) {
+    return new SynchronizationScope(
+        EnumSet.of(Phase.ROLES, Phase.CHANNELS, Phase.ROLE_ASSIGNMENT),
+        CourseSet.of(courses),
+        Collections.emptySet());
+  }
+
+  /**
+   * Creates a scope for some phases, limited to the Course or Club that an entity belongs to
+   * according to its name, such as "cs-3500-ta" or "club-acm-admin". Entities which belong to
+   * neither give a scope which is not limited.
+   *
+   * @param name The name of the Role or Channel.
+   * @param first A phase.
+   * @param rest Any other phases.
+   * @return The scope.
+   */
+  public static SynchronizationScope ofEntity(String name, Phase first, Phase... rest) {
+    EnumSet<Phase> phases = EnumSet.of(first, rest);
+
+    String lowerName = name.toLowerCase(Locale.ROOT);
+    if (lowerName.startsWith(CLUB_PREFIX)) {
+      String clubName = lowerName.substring(CLUB_PREFIX.length());
+      if (clubName.endsWith(CLUB_ADMIN_SUFFIX))
+        clubName = clubName.substring(0, clubName.length() - CLUB_ADMIN_SUFFIX.length());
+
+      return new SynchronizationScope(phases, CourseSet.EMPTY, Collections.singleton(clubName));
+    }
+
+    try {
+      CourseSet courses = CourseSet.of(Collections.singleton(Course.of(name)));
+      return new SynchronizationScope(phases, courses, Collections.emptySet());
+    } catch (Course.InvalidCourseNameException e) {
+      return new SynchronizationScope(phases, null, null);
+    }
+  }
+
+  /**
+   * Merges two scopes.
+   *
+   * @param other The other scope, or null.
+   * @return A scope covering everything covered by either scope.
+   */
+  public SynchronizationScope merge(SynchronizationScope other) {
+    if (other == null || other == this) return this;
+
+    EnumSet<Phase> mergedPhases = EnumSet.noneOf(Phase.class);
+    mergedPhases.addAll(phases);
+    mergedPhases.addAll(other.phases);
+
+    // Limited only if both scopes are limited.
+    if (!isLimited() || !other.isLimited())
+      return new SynchronizationScope(mergedPhases, null, null);
+
+    int[] courseNumbers = new int[courses.size() + other.courses.size()];
+    int size = 0;
+    for (Course course : courses) courseNumbers[size++] = course.getNumber();
+    for (Course course : other.courses) courseNumbers[size++] = course.getNumber();
+
+    Set<String> mergedClubNames = new HashSet<>(clubNames);
+    mergedClubNames.addAll(other.clubNames);
+
+    return new SynchronizationScope(
+        mergedPhases, CourseSet.fromNumbers(courseNumbers), mergedClubNames);
+  }
+
+  /**
+   * @param phase A phase.
+   * @return True if the phase should run.
+   */
+  public boolean includes(Phase phase) {
+    return phases.contains(phase);
+  }
+
+  /** @return True if the phases are limited to particular Courses and Clubs. */
+  public boolean isLimited() {
+    return courses != null;
+  }
+
+  /** @return The Courses the phases are limited to, or null if they are not limited. */
+  public CourseSet getCourses() {
+    return courses;
+  }
+
+  /**
+   * @return True if the phases include any Course. Every Course is included when the scope is not
+   *     limited.
+   */
+  public boolean includesCourses() {
+    return !isLimited() || !courses.isEmpty();
+  }
+
+  /**
+   * @param course A Course.
+   * @return True if the phases include the Course.
+   */
+  public boolean includes(Course course) {
+    return !isLimited() || courses.contains(course);
+  }
+
+  /**
+   * @return True if the phases include any Club. Every Club is included when the scope is not
+   *     limited.
+   */
+  public boolean includesClubs() {
+    return !isLimited() || !clubNames.isEmpty();
+  }
+
+  /**
+   * @param club A Club.
+   * @return True if the phases include the Club.
+   */
+  public boolean includes(Club club) {
+    return !isLimited() || clubNames.contains(club.getName().toLowerCase(Locale.ROOT));
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    SynchronizationScope that = (SynchronizationScope) o;
+    return phases.equals(that.phases)
+        && Objects.equals(courses, that.courses)
+        && Objects.equals(clubNames, that.clubNames);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(phases, courses, clubNames);
+  }
+
+  @Override
+  public String toString() {
+    if (!isLimited()) return phases.toString();
+    return phases + " for Courses " + courses + " and Clubs " + clubNames;
+  }
+}
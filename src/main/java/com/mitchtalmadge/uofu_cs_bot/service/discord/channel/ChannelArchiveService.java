@@ -0,0 +1,236 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord.channel;
+
+import com.google.gson.stream.JsonWriter;
+import com.mitchtalmadge.uofu_cs_bot.service.LogService;
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.requests.restaction.pagination.MessagePaginationAction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archives the message history of text channels to gzip-compressed NDJSON files, one message per
+ * line, newest first.
+ *
+ * <p>Channels are archived in parallel by a bounded number of threads. The history of each channel
+ * is read one page at a time, without caching, and each page is streamed through gzip to a file
+ * channel before the next is read, so no more than one page per channel is held in memory. Each
+ * archive is written to a ".part" file and moved into place once complete, so an archive which
+ * exists is never partial.
+ *
+ * <p>A channel whose history the bot cannot read is skipped with a logged error rather than failing
+ * the whole archive, since trying again would not help.
+ */
+@Service
+public class ChannelArchiveService {
+
+  /** The extension of the archive of each channel. */
+  public static final String ARCHIVE_EXTENSION = ".ndjson.gz";
+
+  /** The size of the buffers between the messages and the file, in bytes. */
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final LogService logService;
+
+  /** The maximum number of channels archived at once. */
+  private final int parallelism;
+
+  /** The number of messages which have been archived. */
+  private final LongAdder archivedMessages = new LongAdder();
+
+  /** The number of history pages which have been fetched. */
+  private final LongAdder pagesFetched = new LongAdder();
+
+  /** The number of channels skipped because their history could not be read. */
+  private final LongAdder skippedChannels = new LongAdder();
+
+  @Autowired
+  public ChannelArchiveService(
+      LogService logService, @Value("${semester-reset.archive.parallelism}") int parallelism) {
+    this.logService = logService;
+    this.parallelism = Math.max(1, parallelism);
+  }
+
+  /**
+   * Archives the history of each channel to a file named after the channel in the directory, and
+   * waits for all of them to finish. Must not be called from a JDA callback, as the history is
+   * read with {@link MessagePaginationAction#complete()}.
+   *
+   * @param channels The channels to archive.
+   * @param directory The directory of the archives, which is created if needed.
+   * @throws IOException If any of the channels could not be archived. The others are still
+   *     archived.
+   * @throws InterruptedException If interrupted while waiting for the channels to be archived.
+   */
+  public void archive(List<TextChannel> channels, Path directory)
+      throws IOException, InterruptedException {
+    Files.createDirectories(directory);
+    if (channels.isEmpty()) return;
+
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, channels.size()));
+    try {
+      List<Future<Long>> results = new ArrayList<>();
+      for (TextChannel channel : channels) {
+        Path file = directory.resolve(channel.getName() + ARCHIVE_EXTENSION);
+        results.add(executor.submit(() -> archive(channel, file)));
+      }
+
+      IOException failure = null;
+      for (Future<Long> result : results) {
+        try {
+          result.get();
+        } catch (ExecutionException e) {
+          if (failure == null) failure = new IOException("Not every channel could be archived.");
+          failure.addSuppressed(e.getCause());
+        }
+      }
+      if (failure != null) throw failure;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Archives the history of one channel.
+   *
+   * @param channel The channel.
+   * @param file The archive, which is replaced if it exists. Not written if the channel is skipped.
+   * @return The number of messages archived.
+   * @throws IOException If the archive could not be written.
+   */
+  long archive(TextChannel channel, Path file) throws IOException {
+    if (!channel
+        .getGuild()
+        .getSelfMember()
+        .hasPermission(channel, Permission.VIEW_CHANNEL, Permission.MESSAGE_HISTORY)) {
+      skippedChannels.increment();
+      logService.logError(
+          getClass(),
+          "Skipped archiving #"
+              + channel.getName()
+              + ", as its message history cannot be read without the VIEW_CHANNEL and"
+              + " MESSAGE_HISTORY permissions.");
+      return 0;
+    }
+
+    long start = System.nanoTime();
+    Path partFile = file.resolveSibling(file.getFileName() + ".part");
+
+    long messages = 0;
+    try (FileChannel fileChannel =
+            FileChannel.open(
+                partFile,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        Writer writer =
+            new BufferedWriter(
+                new OutputStreamWriter(
+                    new GZIPOutputStream(Channels.newOutputStream(fileChannel), BUFFER_SIZE),
+                    StandardCharsets.UTF_8),
+                BUFFER_SIZE)) {
+
+      // Without caching, the pages already written can be collected.
+      MessagePaginationAction history = channel.getIterableHistory().cache(false);
+      int pageSize = history.getMaxLimit();
+      history = history.limit(pageSize);
+
+      List<Message> page;
+      do {
+        // Each completion retrieves the page after the last one retrieved.
+        page = history.complete();
+        pagesFetched.increment();
+
+        for (Message message : page) {
+          writeMessage(new JsonWriter(writer), message);
+          writer.write('\n');
+        }
+        messages += page.size();
+        archivedMessages.add(page.size());
+      } while (page.size() == pageSize);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(partFile);
+      throw e;
+    }
+
+    Files.move(
+        partFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+    long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    logService.logInfo(
+        getClass(),
+        "Archived "
+            + messages
+            + " messages from #"
+            + channel.getName()
+            + " in "
+            + elapsedMillis
+            + "ms ("
+            + messages * 1000 / elapsedMillis
+            + " messages/s, "
+            + Files.size(file)
+            + " bytes).");
+    return messages;
+  }
+
+  /**
+   * Writes a message as one JSON object. The writer is not flushed, so that the output stays
+   * buffered.
+   *
+   * @param json The writer.
+   * @param message The message.
+   */
+  private static void writeMessage(JsonWriter json, Message message) throws IOException {
+    json.beginObject();
+    json.name("id").value(message.getId());
+    json.name("time").value(message.getTimeCreated().toString());
+    json.name("author_id").value(message.getAuthor().getId());
+    json.name("author").value(message.getAuthor().getName());
+    json.name("content").value(message.getContentRaw());
+
+    json.name("attachments").beginArray();
+    for (Message.Attachment attachment : message.getAttachments())
+      json.value(attachment.getUrl());
+    json.endArray();
+
+    json.endObject();
+  }
+
+  /** @return The number of messages which have been archived. */
+  public long getArchivedMessageCount() {
+    return archivedMessages.sum();
+  }
+
+  /** @return The number of history pages which have been fetched. */
+  public long getPagesFetched() {
+    return pagesFetched.sum();
+  }
+
+  /** @return The number of channels skipped because their history could not be read. */
+  public long getSkippedChannelCount() {
+    return skippedChannels.sum();
+  }
+}
@@ -2,13 +2,16 @@ package com.mitchtalmadge.uofu_cs_bot.service.discord.channel;
 
 import com.mitchtalmadge.uofu_cs_bot.service.LogService;
 import com.mitchtalmadge.uofu_cs_bot.service.discord.DiscordService;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.GuildSnapshot;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.RestActionPipeline;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.SynchronizationScope;
 import com.mitchtalmadge.uofu_cs_bot.util.DiscordUtils;
 import net.dv8tion.jda.api.entities.Category;
 import net.dv8tion.jda.api.entities.PermissionOverride;
 import net.dv8tion.jda.api.entities.TextChannel;
 import net.dv8tion.jda.api.managers.ChannelManager;
-import net.dv8tion.jda.api.requests.RestAction;
 import net.dv8tion.jda.api.requests.restaction.PermissionOverrideAction;
+import net.dv8tion.jda.api.requests.restaction.order.ChannelOrderAction;
 import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -21,53 +24,99 @@ public class ChannelSynchronizationService {
 
   private final LogService logService;
   private final DiscordService discordService;
+  private final RestActionPipeline restActionPipeline;
   private Set<ChannelSynchronizer> channelSynchronizers;
 
+  /** The prefixes of the synchronizers, by which each snapshot partitions the Text Channels. */
+  private final Set<String> channelPrefixes;
+
   @Autowired
   public ChannelSynchronizationService(
       LogService logService,
       DiscordService discordService,
+      RestActionPipeline restActionPipeline,
       Set<ChannelSynchronizer> channelSynchronizers) {
     this.logService = logService;
     this.discordService = discordService;
+    this.restActionPipeline = restActionPipeline;
     this.channelSynchronizers = channelSynchronizers;
+    this.channelPrefixes =
+        channelSynchronizers.stream()
+            .map(ChannelSynchronizer::getChannelPrefix)
+            .collect(Collectors.toSet());
   }
 
   /**
    * Begins synchronization of Channel Categories & Text Channels. <br>
    * This may involve creating, deleting, modifying, or moving Categories and Channels as needed.
+   *
+   * @param scope The scope of the synchronization. Only synchronizers within the scope create,
+   *     delete or update Categories and Channels, and only Text Channels within the scope are
+   *     updated. Ordering always considers every Category and Channel.
    */
-  public void synchronize() {
+  public void synchronize(SynchronizationScope scope) {
 
     logService.logInfo(getClass(), "Beginning Synchronization as Requested.");
 
-    // Creation and Deletion
-    synchronizeChannelCategories();
-    synchronizeTextChannels();
+    // Each phase sees the Categories and Channels as the previous phase left them.
+
+    // Creation and Deletion. Categories are finished before Text Channels are considered.
+    restActionPipeline.runPhase(
+        "Channel Category Creation and Deletion",
+        () -> synchronizeChannelCategories(takeSnapshot(), scope));
+    restActionPipeline.runPhase(
+        "Text Channel Creation and Deletion",
+        () -> synchronizeTextChannels(takeSnapshot(), scope));
 
     // Settings
-    updateChannelCategorySettings();
-    updateTextChannelSettings();
+    restActionPipeline.runPhase(
+        "Channel Settings",
+        () -> {
+          GuildSnapshot snapshot = takeSnapshot();
+          updateChannelCategorySettings(snapshot, scope);
+          updateTextChannelSettings(snapshot, scope);
+        });
 
     // Permissions
-    updateChannelCategoryPermissions();
-    updateTextChannelPermissions();
+    restActionPipeline.runPhase(
+        "Channel Permissions",
+        () -> {
+          GuildSnapshot snapshot = takeSnapshot();
+          updateChannelCategoryPermissions(snapshot, scope);
+          updateTextChannelPermissions(snapshot, scope);
+        });
 
     // Order
-    updateChannelCategoryOrdering();
-    updateTextChannelOrdering();
+    restActionPipeline.runPhase(
+        "Channel Ordering",
+        () -> {
+          GuildSnapshot snapshot = takeSnapshot();
+          updateChannelCategoryOrdering(snapshot);
+          updateTextChannelOrdering(snapshot);
+        });
+  }
+
+  /** @return A snapshot of the Guild, with the Text Channels partitioned by synchronizer. */
+  private GuildSnapshot takeSnapshot() {
+    return GuildSnapshot.of(discordService.getGuild(), Collections.emptySet(), channelPrefixes);
   }
 
-  /** Creates and/or deletes Channel Categories as necessary. */
-  private void synchronizeChannelCategories() {
+  /**
+   * Creates and/or deletes Channel Categories as necessary.
+   *
+   * @param snapshot The Guild at the start of the phase.
+   * @param scope The scope of the synchronization.
+   */
+  private void synchronizeChannelCategories(GuildSnapshot snapshot, SynchronizationScope scope) {
     logService.logInfo(getClass(), "Synchronizing Channel Categories...");
 
     channelSynchronizers.forEach(
         channelSynchronizer -> {
+          if (!channelSynchronizer.isInScope(scope)) return;
+
           // Perform synchronization
           Pair<Collection<Category>, Collection<String>> synchronizationResult =
-              channelSynchronizer.synchronizeChannelCategories(
-                  discordService.getGuild().getCategories());
+              channelSynchronizer.synchronizeChannelCategories(snapshot.getCategories());
 
           if (synchronizationResult != null) {
 
@@ -79,7 +128,7 @@ public class ChannelSynchronizationService {
                       category -> {
                         logService.logInfo(
                             getClass(), "--> Deleting Category: " + category.getName());
-                        category.delete().complete();
+                        restActionPipeline.submit(category.delete());
                       });
             }
 
@@ -90,26 +139,31 @@ public class ChannelSynchronizationService {
                   .forEach(
                       categoryName -> {
                         logService.logInfo(getClass(), "--> Creating Category: " + categoryName);
-                        discordService
-                            .getGuild()
-                            .createCategory(categoryName)
-                            .complete();
+                        restActionPipeline.submit(
+                            discordService.getGuild().createCategory(categoryName));
                       });
             }
           }
         });
   }
 
-  /** Creates and/or deletes Text Channels as necessary. */
-  private void synchronizeTextChannels() {
+  /**
+   * Creates and/or deletes Text Channels as necessary.
+   *
+   * @param snapshot The Guild at the start of the phase.
+   * @param scope The scope of the synchronization.
+   */
+  private void synchronizeTextChannels(GuildSnapshot snapshot, SynchronizationScope scope) {
     logService.logInfo(getClass(), "Synchronizing Text Channels...");
 
     channelSynchronizers.forEach(
         channelSynchronizer -> {
+          if (!channelSynchronizer.isInScope(scope)) return;
+
           // Perform synchronization
-          Pair<Collection<TextChannel>, Collection<String>> synchronizationResult =
+          Pair<Collection<TextChannel>, Collection<TextChannelPlan>> synchronizationResult =
               channelSynchronizer.synchronizeTextChannels(
-                  getFilteredTextChannelsForSynchronizer(channelSynchronizer));
+                  snapshot.getTextChannelsWithPrefix(channelSynchronizer.getChannelPrefix()));
 
           if (synchronizationResult != null) {
 
@@ -121,7 +175,7 @@ public class ChannelSynchronizationService {
                       textChannel -> {
                         logService.logInfo(
                             getClass(), "--> Deleting Text Channel: " + textChannel.getName());
-                        textChannel.delete().complete();
+                        restActionPipeline.submit(textChannel.delete());
                       });
             }
 
@@ -130,68 +184,86 @@ public class ChannelSynchronizationService {
               synchronizationResult
                   .getRight()
                   .forEach(
-                      textChannelName -> {
+                      textChannelPlan -> {
                         logService.logInfo(
-                            getClass(), "--> Creating Text Channel: " + textChannelName);
-                        discordService
-                            .getGuild()
-                            .createTextChannel(textChannelName)
-                            .complete();
+                            getClass(), "--> Creating Text Channel: " + textChannelPlan.getName());
+                        restActionPipeline.submit(
+                            textChannelPlan.createAction(discordService.getGuild()));
                       });
             }
           }
         });
   }
 
-  /** Ensures that all Channel Categories have the correct settings. */
-  private void updateChannelCategorySettings() {
+  /**
+   * Ensures that all Channel Categories have the correct settings.
+   *
+   * @param snapshot The Guild at the start of the phase.
+   * @param scope The scope of the synchronization.
+   */
+  private void updateChannelCategorySettings(GuildSnapshot snapshot, SynchronizationScope scope) {
     logService.logInfo(getClass(), "Updating Channel Category Settings...");
 
     channelSynchronizers.forEach(
         channelSynchronizer -> {
+          if (!channelSynchronizer.isInScope(scope)) return;
+
           // Perform Update
           Collection<ChannelManager> updateResult =
-              channelSynchronizer.updateChannelCategorySettings(
-                  discordService.getGuild().getCategories());
+              channelSynchronizer.updateChannelCategorySettings(snapshot.getCategories());
 
           // Queue any requested Updatable instances.
           if (updateResult != null) {
-            updateResult.forEach(RestAction::queue);
+            updateResult.forEach(restActionPipeline::submit);
           }
         });
   }
 
-  /** Ensures that all Text Channels have the correct settings. */
-  private void updateTextChannelSettings() {
+  /**
+   * Ensures that all Text Channels have the correct settings.
+   *
+   * @param snapshot The Guild at the start of the phase.
+   * @param scope The scope of the synchronization.
+   */
+  private void updateTextChannelSettings(GuildSnapshot snapshot, SynchronizationScope scope) {
     logService.logInfo(getClass(), "Updating Text Channel Settings...");
 
     channelSynchronizers.forEach(
         channelSynchronizer -> {
+          if (!channelSynchronizer.isInScope(scope)) return;
+
           // Perform Update
           Collection<ChannelManager> updateResult =
               channelSynchronizer.updateTextChannelSettings(
-                  getFilteredTextChannelsForSynchronizer(channelSynchronizer));
+                  getTextChannelsInScope(snapshot, channelSynchronizer, scope));
 
           // Queue any requested managers.
           if (updateResult != null) {
-            updateResult.forEach(RestAction::queue);
+            updateResult.forEach(restActionPipeline::submit);
           }
         });
   }
 
-  /** Ensures that all Channel Categories have the correct permissions. */
-  private void updateChannelCategoryPermissions() {
+  /**
+   * Ensures that all Channel Categories have the correct permissions.
+   *
+   * @param snapshot The Guild at the start of the phase.
+   * @param scope The scope of the synchronization.
+   */
+  private void updateChannelCategoryPermissions(
+      GuildSnapshot snapshot, SynchronizationScope scope) {
     logService.logInfo(getClass(), "Updating Channel Category Permissions...");
 
     channelSynchronizers.forEach(
         channelSynchronizer -> {
+          if (!channelSynchronizer.isInScope(scope)) return;
+
           // Perform Update
           Pair<
                   Pair<Collection<PermissionOverride>, Collection<PermissionOverrideAction>>,
                   Collection<PermissionOverrideAction>>
               updateResult =
-                  channelSynchronizer.updateChannelCategoryPermissions(
-                      discordService.getGuild().getCategories());
+                  channelSynchronizer.updateChannelCategoryPermissions(snapshot.getCategories());
 
           if (updateResult != null) {
 
@@ -202,36 +274,45 @@ public class ChannelSynchronizationService {
                 updateResult
                     .getLeft()
                     .getLeft()
-                    .forEach(permissionOverride -> permissionOverride.delete().queue());
+                    .forEach(
+                        permissionOverride ->
+                            restActionPipeline.submit(permissionOverride.delete()));
               }
 
               // Create any requested Overrides.
               if (updateResult.getLeft().getRight() != null) {
-                updateResult.getLeft().getRight().forEach(RestAction::queue);
+                updateResult.getLeft().getRight().forEach(restActionPipeline::submit);
               }
             }
 
             // Queue any requested Override Updates.
             if (updateResult.getRight() != null) {
-              updateResult.getRight().forEach(RestAction::queue);
+              updateResult.getRight().forEach(restActionPipeline::submit);
             }
           }
         });
   }
 
-  /** Ensures that all Text Channels have the correct permissions. */
-  private void updateTextChannelPermissions() {
+  /**
+   * Ensures that all Text Channels have the correct permissions.
+   *
+   * @param snapshot The Guild at the start of the phase.
+   * @param scope The scope of the synchronization.
+   */
+  private void updateTextChannelPermissions(GuildSnapshot snapshot, SynchronizationScope scope) {
     logService.logInfo(getClass(), "Updating Text Channel Permissions...");
 
     channelSynchronizers.forEach(
         channelSynchronizer -> {
+          if (!channelSynchronizer.isInScope(scope)) return;
+
           // Perform Update
           Pair<
                   Pair<Collection<PermissionOverride>, Collection<PermissionOverrideAction>>,
                   Collection<PermissionOverrideAction>>
               updateResult =
                   channelSynchronizer.updateTextChannelPermissions(
-                      getFilteredTextChannelsForSynchronizer(channelSynchronizer));
+                      getTextChannelsInScope(snapshot, channelSynchronizer, scope));
 
           if (updateResult != null) {
 
@@ -242,44 +323,55 @@ public class ChannelSynchronizationService {
                 updateResult
                     .getLeft()
                     .getLeft()
-                    .forEach(permissionOverride -> permissionOverride.delete().queue());
+                    .forEach(
+                        permissionOverride ->
+                            restActionPipeline.submit(permissionOverride.delete()));
               }
 
               // Create any requested Overrides.
               if (updateResult.getLeft().getRight() != null) {
-                updateResult.getLeft().getRight().forEach(RestAction::queue);
+                updateResult.getLeft().getRight().forEach(restActionPipeline::submit);
               }
             }
 
             // Queue any requested Override Updates.
             if (updateResult.getRight() != null) {
-              updateResult.getRight().forEach(RestAction::queue);
+              updateResult.getRight().forEach(restActionPipeline::submit);
             }
           }
         });
   }
 
-  /** Updates the order of Channel Categories in the Guild. */
-  private void updateChannelCategoryOrdering() {
+  /**
+   * Updates the order of Channel Categories in the Guild.
+   *
+   * @param snapshot The Guild at the start of the phase.
+   */
+  private void updateChannelCategoryOrdering(GuildSnapshot snapshot) {
     logService.logInfo(getClass(), "Updating Channel Category Ordering...");
 
     channelSynchronizers.forEach(
         channelSynchronizer -> {
           // Perform Update
           List<Category> updateResult =
-              channelSynchronizer.updateChannelCategoryOrdering(
-                  discordService.getGuild().getCategories());
+              channelSynchronizer.updateChannelCategoryOrdering(snapshot.getCategories());
 
           // Queue any requested Updatable instances.
           if (updateResult != null) {
-            DiscordUtils.orderEntities(
-                discordService.getGuild().modifyCategoryPositions(), updateResult);
+            ChannelOrderAction orderAction = discordService.getGuild().modifyCategoryPositions();
+            if (DiscordUtils.orderEntities(orderAction, updateResult) > 0) {
+              restActionPipeline.submit(orderAction);
+            }
           }
         });
   }
 
-  /** Updates the order of Text Channels in the Guild. */
-  private void updateTextChannelOrdering() {
+  /**
+   * Updates the order of Text Channels in the Guild.
+   *
+   * @param snapshot The Guild at the start of the phase.
+   */
+  private void updateTextChannelOrdering(GuildSnapshot snapshot) {
     logService.logInfo(getClass(), "Updating Text Channel Ordering...");
 
     // Will contain all the roles in their sorted order.
@@ -295,7 +387,7 @@ public class ChannelSynchronizationService {
               // Perform Update
               List<TextChannel> updateResult =
                   channelSynchronizer.updateTextChannelOrdering(
-                      getFilteredTextChannelsForSynchronizer(channelSynchronizer));
+                      snapshot.getTextChannelsWithPrefix(channelSynchronizer.getChannelPrefix()));
 
               // Store results
               if (updateResult != null) {
@@ -304,33 +396,33 @@ public class ChannelSynchronizationService {
             });
 
     // Find any un-sorted roles and place them at the beginning of the sorted roles list.
+    Set<TextChannel> sortedChannelSet = new HashSet<>(sortedChannels);
     sortedChannels.addAll(
         0,
-        discordService.getGuild().getTextChannels().stream()
-            .filter(channel -> !sortedChannels.contains(channel))
+        snapshot.getTextChannels().stream()
+            .filter(channel -> !sortedChannelSet.contains(channel))
             .collect(Collectors.toList()));
 
     // Perform ordering.
-    DiscordUtils.orderEntities(
-        discordService.getGuild().modifyTextChannelPositions(), sortedChannels);
+    ChannelOrderAction orderAction = discordService.getGuild().modifyTextChannelPositions();
+    int movedChannels = DiscordUtils.orderEntities(orderAction, sortedChannels);
+    if (movedChannels > 0) restActionPipeline.submit(orderAction);
+    logService.logInfo(getClass(), "Moved " + movedChannels + " Text Channels.");
   }
 
   /**
-   * Filters and returns the text channels that are requested by the given synchronizer.
+   * Filters and returns the text channels that are requested by the given synchronizer and are
+   * within a scope.
    *
+   * @param snapshot The Guild at the start of the phase.
    * @param channelSynchronizer The synchronizer.
-   * @return The filtered text channels.
+   * @param scope The scope of the synchronization.
+   * @return The filtered channels.
    */
-  private List<TextChannel> getFilteredTextChannelsForSynchronizer(
-      ChannelSynchronizer channelSynchronizer) {
-    return discordService.getGuild().getTextChannels().stream()
-        // Ignore case when filtering.
-        .filter(
-            channel ->
-                channel
-                    .getName()
-                    .toLowerCase()
-                    .startsWith(channelSynchronizer.getChannelPrefix().toLowerCase()))
+  private List<TextChannel> getTextChannelsInScope(
+      GuildSnapshot snapshot, ChannelSynchronizer channelSynchronizer, SynchronizationScope scope) {
+    return snapshot.getTextChannelsWithPrefix(channelSynchronizer.getChannelPrefix()).stream()
+        .filter(channel -> channelSynchronizer.isInScope(scope, channel.getName()))
         .collect(Collectors.toList());
   }
 }
@@ -1,6 +1,9 @@
 package com.mitchtalmadge.uofu_cs_bot.service.discord.channel;
 
 import com.mitchtalmadge.uofu_cs_bot.service.discord.DiscordService;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.GuildNameIndexService;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.GuildSnapshot;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.SynchronizationScope;
 import com.mitchtalmadge.uofu_cs_bot.util.InheritedComponent;
 import net.dv8tion.jda.api.entities.Category;
 import net.dv8tion.jda.api.entities.PermissionOverride;
@@ -16,6 +19,9 @@ import java.util.List;
 /**
  * Channel Synchronizers listen for and act upon Channel synchronization lifecycle events. Channels
  * must be added, removed, and organized in a specific order to prevent collisions.
+ *
+ * <p>The lists given to each method are unmodifiable slices of a {@link GuildSnapshot} taken at the
+ * start of the phase, and are shared with the other synchronizers.
  */
 @SuppressWarnings("SpringJavaAutowiredFieldsWarningInspection")
 @InheritedComponent
@@ -35,6 +41,8 @@ public abstract class ChannelSynchronizer {
 
   @Autowired protected DiscordService discordService;
 
+  @Autowired protected GuildNameIndexService guildNameIndexService;
+
   /**
    * Constructs the Role Synchronizer.
    *
@@ -72,11 +80,12 @@ public abstract class ChannelSynchronizer {
    * @return A Pair containing
    *     <ol>
    *       <li>A Collection of Text Channels to delete.
-   *       <li>A Collection of names for which to create Text Channels.
+   *       <li>A Collection of plans for which to create Text Channels. Each channel is created with
+   *           its parent, settings and permission overrides in a single request.
    *     </ol>
    */
-  public abstract Pair<Collection<TextChannel>, Collection<String>> synchronizeTextChannels(
-      List<TextChannel> filteredChannels);
+  public abstract Pair<Collection<TextChannel>, Collection<TextChannelPlan>>
+      synchronizeTextChannels(List<TextChannel> filteredChannels);
 
   /**
    * Ensures that all Channel Categories have the correct settings.
@@ -155,6 +164,30 @@ public abstract class ChannelSynchronizer {
    */
   public abstract List<TextChannel> updateTextChannelOrdering(List<TextChannel> filteredChannels);
 
+  /**
+   * Determines if this synchronizer has any work within a scope. Synchronizers outside of the scope
+   * are skipped, except when ordering. By default, only scopes which are not limited to particular
+   * Courses and Clubs are included.
+   *
+   * @param scope The scope of the synchronization.
+   * @return True if this synchronizer should run.
+   */
+  public boolean isInScope(SynchronizationScope scope) {
+    return !scope.isLimited();
+  }
+
+  /**
+   * Determines if one of the Text Channels of this synchronizer is within a scope. Only Text
+   * Channels within the scope are given to the methods which update their settings and permissions.
+   *
+   * @param scope The scope of the synchronization.
+   * @param name The name of the entity.
+   * @return True if the entity should be synchronized.
+   */
+  public boolean isInScope(SynchronizationScope scope, String name) {
+    return isInScope(scope);
+  }
+
   public String getChannelPrefix() {
     return channelPrefix;
   }
@@ -0,0 +1,105 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord.channel;
+
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.GuildChannel;
+import net.dv8tion.jda.api.entities.IPermissionHolder;
+import net.dv8tion.jda.api.entities.PermissionOverride;
+import net.dv8tion.jda.api.requests.restaction.PermissionOverrideAction;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The desired permission override of a Role or Member on a channel, as raw allow and deny
+ * bitmasks. Comparing these with the cached overrides of a channel lets synchronization send
+ * requests only for overrides which are missing, differ, or should not exist.
+ */
+public final class PermissionOverrideSpec {
+
+  private final IPermissionHolder holder;
+  private final long allowed;
+  private final long denied;
+
+  /**
+   * @param holder The Role or Member the override is for.
+   * @param allowed The raw permissions to allow.
+   * @param denied The raw permissions to deny.
+   */
+  public PermissionOverrideSpec(IPermissionHolder holder, long allowed, long denied) {
+    this.holder = holder;
+    this.allowed = allowed;
+    this.denied = denied;
+  }
+
+  /**
+   * Creates a spec which allows the given permissions and denies none.
+   *
+   * @param holder The Role or Member the override is for.
+   * @param permissions The permissions to allow.
+   * @return The spec.
+   */
+  public static PermissionOverrideSpec allow(
+      IPermissionHolder holder, Permission... permissions) {
+    return new PermissionOverrideSpec(holder, Permission.getRaw(permissions), 0);
+  }
+
+  /**
+   * Creates a spec which denies the given permissions and allows none.
+   *
+   * @param holder The Role or Member the override is for.
+   * @param permissions The permissions to deny.
+   * @return The spec.
+   */
+  public static PermissionOverrideSpec deny(IPermissionHolder holder, Permission... permissions) {
+    return new PermissionOverrideSpec(holder, 0, Permission.getRaw(permissions));
+  }
+
+  /**
+   * Compares the desired overrides of a channel with its current overrides, and determines the
+   * requests needed to make them match. Overrides which already match produce no request.
+   *
+   * @param channel The channel.
+   * @param specs The desired overrides of the channel. Every other override will be deleted.
+   * @param overridesToDelete The overrides to delete are added to this Collection.
+   * @param overridesToCreate The actions creating missing overrides are added to this Collection.
+   * @param overridesToUpdate The actions updating differing overrides are added to this Collection.
+   */
+  public static void diff(
+      GuildChannel channel,
+      Collection<PermissionOverrideSpec> specs,
+      Collection<PermissionOverride> overridesToDelete,
+      Collection<PermissionOverrideAction> overridesToCreate,
+      Collection<PermissionOverrideAction> overridesToUpdate) {
+
+    // The desired overrides not yet found on the channel, by holder ID.
+    Map<Long, PermissionOverrideSpec> missingSpecs = new HashMap<>();
+    specs.forEach(spec -> missingSpecs.put(spec.holder.getIdLong(), spec));
+
+    for (PermissionOverride override : channel.getPermissionOverrides()) {
+      // The ID of an override is the ID of its holder.
+      PermissionOverrideSpec spec = missingSpecs.remove(override.getIdLong());
+
+      if (spec == null) overridesToDelete.add(override);
+      else if (override.getAllowedRaw() != spec.allowed || override.getDeniedRaw() != spec.denied)
+        overridesToUpdate.add(override.getManager().setPermissions(spec.allowed, spec.denied));
+    }
+
+    for (PermissionOverrideSpec spec : missingSpecs.values()) {
+      overridesToCreate.add(
+          channel.createPermissionOverride(spec.holder).setPermissions(spec.allowed, spec.denied));
+    }
+  }
+
+  public IPermissionHolder getHolder() {
+    return holder;
+  }
+
+  public long getAllowed() {
+    return allowed;
+  }
+
+  public long getDenied() {
+    return denied;
+  }
+}
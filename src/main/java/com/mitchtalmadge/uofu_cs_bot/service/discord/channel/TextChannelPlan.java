@@ -0,0 +1,108 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord.channel;
+
+import net.dv8tion.jda.api.entities.Category;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.managers.ChannelManager;
+import net.dv8tion.jda.api.requests.restaction.ChannelAction;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The desired state of a Text Channel: its name, parent Category, settings and permission
+ * overrides. A missing channel is created from its plan fully configured in a single request, and
+ * an existing channel is compared with its plan so that only the differences are sent.
+ */
+public final class TextChannelPlan {
+
+  private final String name;
+
+  /** The parent Category, or null for none. */
+  private final Category parent;
+
+  private final boolean nsfw;
+
+  private final List<PermissionOverrideSpec> overrides;
+
+  /**
+   * @param name The name of the channel.
+   * @param parent The parent Category, or null for none.
+   * @param nsfw True if the channel is NSFW.
+   * @param overrides The permission overrides of the channel. Every other override is deleted.
+   */
+  public TextChannelPlan(
+      String name, Category parent, boolean nsfw, Collection<PermissionOverrideSpec> overrides) {
+    this.name = name;
+    this.parent = parent;
+    this.nsfw = nsfw;
+    this.overrides = Collections.unmodifiableList(new ArrayList<>(overrides));
+  }
+
+  /**
+   * Creates the action which creates the channel, including its parent, settings and overrides.
+   *
+   * @param guild The Guild to create the channel in.
+   * @return The action, which will be queued later.
+   */
+  public ChannelAction<TextChannel> createAction(Guild guild) {
+    ChannelAction<TextChannel> action =
+        guild.createTextChannel(name).setParent(parent).setNSFW(nsfw);
+
+    for (PermissionOverrideSpec override : overrides) {
+      action =
+          action.addPermissionOverride(
+              override.getHolder(), override.getAllowed(), override.getDenied());
+    }
+
+    return action;
+  }
+
+  /**
+   * Compares the name, parent and settings of this plan with the cached state of a channel.
+   *
+   * @param channel The channel.
+   * @return A manager which changes only the differing fields, or null if the channel already
+   *     matches.
+   */
+  public ChannelManager createManager(TextChannel channel) {
+    boolean nameDiffers = !name.equals(channel.getName());
+    boolean parentDiffers = !isParent(channel.getParent());
+    boolean nsfwDiffers = nsfw != channel.isNSFW();
+    if (!nameDiffers && !parentDiffers && !nsfwDiffers) return null;
+
+    ChannelManager manager = channel.getManager();
+    if (nameDiffers) manager = manager.setName(name);
+    if (parentDiffers) manager = manager.setParent(parent);
+    if (nsfwDiffers) manager = manager.setNSFW(nsfw);
+
+    return manager;
+  }
+
+  /**
+   * @param category The current parent of a channel, or null for none.
+   * @return True if the Category is the parent in this plan.
+   */
+  private boolean isParent(Category category) {
+    if (parent == null || category == null) return parent == category;
+    return parent.getIdLong() == category.getIdLong();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public Category getParent() {
+    return parent;
+  }
+
+  public boolean isNsfw() {
+    return nsfw;
+  }
+
+  public List<PermissionOverrideSpec> getOverrides() {
+    return overrides;
+  }
+}
@@ -1,7 +1,10 @@
 package com.mitchtalmadge.uofu_cs_bot.service.discord.features.club;
 
 import com.mitchtalmadge.uofu_cs_bot.domain.cs.Club;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.SynchronizationScope;
 import com.mitchtalmadge.uofu_cs_bot.service.discord.channel.ChannelSynchronizer;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.channel.PermissionOverrideSpec;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.channel.TextChannelPlan;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.entities.*;
 import net.dv8tion.jda.api.managers.ChannelManager;
@@ -24,6 +27,17 @@ public class ClubChannelSynchronizer extends ChannelSynchronizer {
     this.clubService = clubService;
   }
 
+  @Override
+  public boolean isInScope(SynchronizationScope scope) {
+    return scope.includesClubs();
+  }
+
+  @Override
+  public boolean isInScope(SynchronizationScope scope, String name) {
+    Club club = getClubFromChannelName(name);
+    return club == null ? !scope.isLimited() : scope.includes(club);
+  }
+
   @Override
   public Pair<Collection<Category>, Collection<String>> synchronizeChannelCategories(
       List<Category> categories) {
@@ -43,32 +57,27 @@ public class ClubChannelSynchronizer extends ChannelSynchronizer {
   }
 
   @Override
-  public Pair<Collection<TextChannel>, Collection<String>> synchronizeTextChannels(
+  public Pair<Collection<TextChannel>, Collection<TextChannelPlan>> synchronizeTextChannels(
       List<TextChannel> filteredChannels) {
     // Create collections for returning.
     Collection<TextChannel> channelsToRemove = new HashSet<>();
-    Collection<String> channelsToCreate = new HashSet<>();
+    Collection<TextChannelPlan> channelsToCreate = new ArrayList<>();
 
     // Get all enabled Clubs.
     Set<Club> enabledClubs = clubService.getEnabledClubs();
+    Guild guild = discordService.getGuild();
 
     // For each club, determine what channels must be created.
     enabledClubs.forEach(
         club -> {
 
           // Find public club channel
-          if (discordService
-                  .getGuild()
-                  .getTextChannelsByName(getChannelNameFromClub(club, false), false)
-                  .size()
-              == 0) channelsToCreate.add(getChannelNameFromClub(club, false));
+          if (guildNameIndexService.getTextChannel(getChannelNameFromClub(club, false)) == null)
+            channelsToCreate.add(getChannelPlan(guild, club, false));
 
           // Find admin club channel
-          if (discordService
-                  .getGuild()
-                  .getTextChannelsByName(getChannelNameFromClub(club, true), false)
-                  .size()
-              == 0) channelsToCreate.add(getChannelNameFromClub(club, true));
+          if (guildNameIndexService.getTextChannel(getChannelNameFromClub(club, true)) == null)
+            channelsToCreate.add(getChannelPlan(guild, club, true));
         });
 
     // Make sure each the club associated with any given channel is enabled.
@@ -103,15 +112,14 @@ public class ClubChannelSynchronizer extends ChannelSynchronizer {
 
           // Get club from channel.
           Club club = getClubFromChannel(textChannel);
+          if (club == null) return;
 
+          // Only channels whose settings differ are updated.
           ChannelManager manager =
-              textChannel
-                  .getManager()
-                  .setName(getChannelNameFromClub(club, textChannel.getName().endsWith("admin")))
-                  .setParent(getClubsCategory(textChannel.getGuild()))
-                  .setNSFW(false);
-
-          channelManagers.add(manager);
+              getChannelPlan(
+                      textChannel.getGuild(), club, textChannel.getName().endsWith("admin"))
+                  .createManager(textChannel);
+          if (manager != null) channelManagers.add(manager);
         });
 
     // Return managers to be queued.
@@ -141,130 +149,16 @@ public class ClubChannelSynchronizer extends ChannelSynchronizer {
 
           // Get club
           Club club = getClubFromChannel(textChannel);
-
-          // Admin Permissions
-          if (textChannel.getName().endsWith("admin")) {
-            // Delete any overrides that don't belong.
-            textChannel
-                .getPermissionOverrides()
-                .forEach(
-                    permissionOverride -> {
-                      if (permissionOverride.getRole().isPublicRole()
-                          || (permissionOverride.getRole().getName().startsWith("club-")
-                              && permissionOverride.getRole().getName().endsWith("admin"))) return;
-
-                      permissionOverrides.add(permissionOverride);
-                    });
-
-            // Recreate overrides that do belong.
-
-            PermissionOverride override;
-
-            // @everyone
-            if ((override =
-                    textChannel.getPermissionOverride(textChannel.getGuild().getPublicRole()))
-                == null) {
-              // Create new Permissions
-              PermissionOverrideAction overrideAction =
-                  textChannel.createPermissionOverride(textChannel.getGuild().getPublicRole());
-              overrideAction = overrideAction.setDeny(Permission.VIEW_CHANNEL);
-              permissionOverrideActions.add(overrideAction);
-            } else {
-              // Update existing Permissions
-              permOverrideManagers.add(
-                  override
-                      .getManager()
-                      .clear(Permission.ALL_PERMISSIONS)
-                      .deny(Permission.VIEW_CHANNEL));
-            }
-
-            // Admin role
-            if ((override =
-                    textChannel.getPermissionOverride(
-                        textChannel
-                            .getGuild()
-                            .getRolesByName("club-" + club.getName().toLowerCase() + "-admin", true)
-                            .get(0)))
-                == null) {
-              // Create new Permissions
-              PermissionOverrideAction overrideAction =
-                  textChannel.createPermissionOverride(
-                      textChannel
-                          .getGuild()
-                          .getRolesByName("club-" + club.getName().toLowerCase() + "-admin", true)
-                          .get(0));
-              overrideAction = overrideAction.setAllow(Permission.VIEW_CHANNEL);
-              permissionOverrideActions.add(overrideAction);
-            } else {
-              // Update existing Permissions
-              permOverrideManagers.add(
-                  override
-                      .getManager()
-                      .clear(Permission.ALL_PERMISSIONS)
-                      .grant(Permission.VIEW_CHANNEL));
-            }
-          } else { // Public permissions
-
-            // Delete any overrides that don't belong.
-            textChannel
-                .getPermissionOverrides()
-                .forEach(
-                    permissionOverride -> {
-                      if (permissionOverride.getRole().isPublicRole()
-                          || (permissionOverride.getRole().getName().startsWith("club-")
-                              && !permissionOverride.getRole().getName().endsWith("admin"))) return;
-
-                      permissionOverrides.add(permissionOverride);
-                    });
-
-            // Recreate overrides that do belong.
-
-            PermissionOverride override;
-
-            // @everyone
-            if ((override =
-                    textChannel.getPermissionOverride(textChannel.getGuild().getPublicRole()))
-                == null) {
-              // Create new Permissions
-              PermissionOverrideAction overrideAction =
-                  textChannel.createPermissionOverride(textChannel.getGuild().getPublicRole());
-              overrideAction = overrideAction.setDeny(Permission.VIEW_CHANNEL);
-              permissionOverrideActions.add(overrideAction);
-            } else {
-              // Update existing Permissions
-              permOverrideManagers.add(
-                  override
-                      .getManager()
-                      .clear(Permission.ALL_PERMISSIONS)
-                      .deny(Permission.VIEW_CHANNEL));
-            }
-
-            // Public role
-            if ((override =
-                    textChannel.getPermissionOverride(
-                        textChannel
-                            .getGuild()
-                            .getRolesByName("club-" + club.getName().toLowerCase(), true)
-                            .get(0)))
-                == null) {
-              // Create new Permissions
-              PermissionOverrideAction overrideAction =
-                  textChannel.createPermissionOverride(
-                      textChannel
-                          .getGuild()
-                          .getRolesByName("club-" + club.getName().toLowerCase(), true)
-                          .get(0));
-              overrideAction = overrideAction.setAllow(Permission.VIEW_CHANNEL);
-              permissionOverrideActions.add(overrideAction);
-            } else {
-              // Update existing Permissions
-              permOverrideManagers.add(
-                  override
-                      .getManager()
-                      .clear(Permission.ALL_PERMISSIONS)
-                      .grant(Permission.VIEW_CHANNEL));
-            }
-          }
+          if (club == null) return;
+
+          // Any other overrides are deleted.
+          PermissionOverrideSpec.diff(
+              textChannel,
+              getOverrideSpecs(
+                  textChannel.getGuild(), club, textChannel.getName().endsWith("admin")),
+              permissionOverrides,
+              permissionOverrideActions,
+              permOverrideManagers);
         });
 
     // Return Collections.
@@ -279,9 +173,48 @@ public class ClubChannelSynchronizer extends ChannelSynchronizer {
   @Override
   public List<TextChannel> updateTextChannelOrdering(List<TextChannel> filteredChannels) {
     // Sort filtered channels by name.
-    filteredChannels.sort(Comparator.comparing(GuildChannel::getName));
+    List<TextChannel> sorted = new ArrayList<>(filteredChannels);
+    sorted.sort(Comparator.comparing(GuildChannel::getName));
+
+    return sorted;
+  }
+
+  /**
+   * Determines the desired state of a club channel.
+   *
+   * @param guild The Guild.
+   * @param club The club.
+   * @param adminChannel Whether the channel is for admins or not.
+   * @return The plan for the channel.
+   */
+  private TextChannelPlan getChannelPlan(Guild guild, Club club, boolean adminChannel) {
+    return new TextChannelPlan(
+        getChannelNameFromClub(club, adminChannel),
+        getClubsCategory(guild),
+        false,
+        getOverrideSpecs(guild, club, adminChannel));
+  }
 
-    return filteredChannels;
+  /**
+   * Determines the permission overrides of a club channel.
+   *
+   * @param guild The Guild.
+   * @param club The club.
+   * @param adminChannel Whether the channel is for admins or not.
+   * @return The overrides of the channel.
+   */
+  private List<PermissionOverrideSpec> getOverrideSpecs(
+      Guild guild, Club club, boolean adminChannel) {
+    // The channel is hidden from @everyone, and visible to the public or admin club role.
+    List<PermissionOverrideSpec> overrideSpecs = new ArrayList<>();
+    overrideSpecs.add(PermissionOverrideSpec.deny(guild.getPublicRole(), Permission.VIEW_CHANNEL));
+
+    // The club roles are named like the club channels.
+    Role clubRole = guildNameIndexService.getRole(getChannelNameFromClub(club, adminChannel));
+    if (clubRole != null)
+      overrideSpecs.add(PermissionOverrideSpec.allow(clubRole, Permission.VIEW_CHANNEL));
+
+    return overrideSpecs;
   }
 
   /**
@@ -291,11 +224,20 @@ public class ClubChannelSynchronizer extends ChannelSynchronizer {
    * @return The club associated with the channel, or null if one could not be associated.
    */
   private Club getClubFromChannel(GuildChannel channel) {
+    return getClubFromChannelName(channel.getName());
+  }
+
+  /**
+   * From the given channel name, returns the associated club.
+   *
+   * @param channelName The name of the channel.
+   * @return The club associated with the channel, or null if one could not be associated.
+   */
+  private Club getClubFromChannelName(String channelName) {
     // Iterate over all clubs and compare names.
     return clubService.getEnabledClubs().stream()
         .filter(
-            club ->
-                channel.getName().toLowerCase().startsWith("club-" + club.getName().toLowerCase()))
+            club -> channelName.toLowerCase().startsWith("club-" + club.getName().toLowerCase()))
         .findFirst()
         .orElse(null);
   }
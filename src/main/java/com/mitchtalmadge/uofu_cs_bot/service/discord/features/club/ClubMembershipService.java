@@ -1,16 +1,23 @@
 package com.mitchtalmadge.uofu_cs_bot.service.discord.features.club;
 
 import com.mitchtalmadge.uofu_cs_bot.domain.cs.Club;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.GuildNameIndexService;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.Role;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-
 /** This service allows Guild Members to join and leave clubs. */
 @Service
 public class ClubMembershipService {
 
+  private final GuildNameIndexService guildNameIndexService;
+
+  @Autowired
+  public ClubMembershipService(GuildNameIndexService guildNameIndexService) {
+    this.guildNameIndexService = guildNameIndexService;
+  }
+
   /**
    * Adds a Member to a Club, assigning roles as necessary. If the Club does not exist or the Member
    * is already in the Club, nothing will happen.
@@ -20,11 +27,11 @@ public class ClubMembershipService {
    */
   public void joinClub(Member member, Club club) {
     // Find Club Role from name.
-    List<Role> clubRoles = member.getGuild().getRolesByName("club-" + club.getName(), true);
-    if (clubRoles.size() == 0) return;
+    Role clubRole = guildNameIndexService.getRole("club-" + club.getName());
+    if (clubRole == null) return;
 
     // Add Role to Member. If they already have it, nothing will happen.
-    member.getGuild().addRoleToMember(member, clubRoles.get(0)).queue();
+    member.getGuild().addRoleToMember(member, clubRole).queue();
   }
 
   /**
@@ -36,10 +43,10 @@ public class ClubMembershipService {
    */
   public void leaveClub(Member member, Club club) {
     // Find Club Role from name.
-    List<Role> clubRoles = member.getGuild().getRolesByName("club-" + club.getName(), true);
-    if (clubRoles.size() == 0) return;
+    Role clubRole = guildNameIndexService.getRole("club-" + club.getName());
+    if (clubRole == null) return;
 
     // Remove Role from Member. If they don't have it, nothing will happen.
-    member.getGuild().removeRoleFromMember(member, clubRoles.get(0)).queue();
+    member.getGuild().removeRoleFromMember(member, clubRole).queue();
   }
 }
@@ -1,10 +1,11 @@
 package com.mitchtalmadge.uofu_cs_bot.service.discord.features.club;
 
 import com.mitchtalmadge.uofu_cs_bot.domain.cs.Club;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.SynchronizationScope;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.role.RoleSettings;
 import com.mitchtalmadge.uofu_cs_bot.service.discord.role.RoleSynchronizer;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.entities.Role;
-import net.dv8tion.jda.api.managers.RoleManager;
 import net.dv8tion.jda.api.requests.restaction.RoleAction;
 import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -44,6 +45,17 @@ public class ClubRoleSynchronizer extends RoleSynchronizer {
     this.clubService = clubService;
   }
 
+  @Override
+  public boolean isInScope(SynchronizationScope scope) {
+    return scope.includesClubs();
+  }
+
+  @Override
+  public boolean isInScope(SynchronizationScope scope, String name) {
+    Club club = getClubFromRoleName(name);
+    return club == null ? !scope.isLimited() : scope.includes(club);
+  }
+
   @Override
   public Pair<Collection<Role>, Collection<RoleAction>> synchronizeRoles(List<Role> filteredRoles) {
 
@@ -59,11 +71,7 @@ public class ClubRoleSynchronizer extends RoleSynchronizer {
         club -> {
 
           // Public club role
-          if (discordService
-                  .getGuild()
-                  .getTextChannelsByName(getRoleNameFromClub(club, false), false)
-                  .size()
-              == 0)
+          if (guildNameIndexService.getRole(getRoleNameFromClub(club, false)) == null)
             rolesToCreate.add(
                 discordService
                     .getGuild()
@@ -75,11 +83,7 @@ public class ClubRoleSynchronizer extends RoleSynchronizer {
                     .setPermissions(PUBLIC_ROLE_PERMISSIONS));
 
           // Admin club role
-          if (discordService
-                  .getGuild()
-                  .getTextChannelsByName(getRoleNameFromClub(club, true), false)
-                  .size()
-              == 0)
+          if (guildNameIndexService.getRole(getRoleNameFromClub(club, true)) == null)
             rolesToCreate.add(
                 discordService
                     .getGuild()
@@ -109,7 +113,7 @@ public class ClubRoleSynchronizer extends RoleSynchronizer {
   }
 
   @Override
-  public Collection<RoleManager> updateRoleSettings(List<Role> filteredRoles) {
+  public Map<Role, RoleSettings> updateRoleSettings(List<Role> filteredRoles) {
     // TODO: Update club default and admin role settings.
     return null;
   }
@@ -117,9 +121,10 @@ public class ClubRoleSynchronizer extends RoleSynchronizer {
   @Override
   public List<Role> updateRoleOrdering(List<Role> filteredRoles) {
     // Sort filtered roles by name.
-    filteredRoles.sort(Comparator.comparing(Role::getName));
+    List<Role> sorted = new ArrayList<>(filteredRoles);
+    sorted.sort(Comparator.comparing(Role::getName));
 
-    return filteredRoles;
+    return sorted;
   }
 
   /**
@@ -129,10 +134,20 @@ public class ClubRoleSynchronizer extends RoleSynchronizer {
    * @return The club associated with the role, or null if one could not be associated.
    */
   private Club getClubFromRole(Role role) {
+    return getClubFromRoleName(role.getName());
+  }
+
+  /**
+   * From the given role name, returns the associated club.
+   *
+   * @param roleName The name of the role.
+   * @return The club associated with the role, or null if one could not be associated.
+   */
+  private Club getClubFromRoleName(String roleName) {
     // Iterate over all clubs and compare names.
     return clubService.getEnabledClubs().stream()
         .filter(
-            club -> role.getName().toLowerCase().startsWith("club-" + club.getName().toLowerCase()))
+            club -> roleName.toLowerCase().startsWith("club-" + club.getName().toLowerCase()))
         .findFirst()
         .orElse(null);
   }
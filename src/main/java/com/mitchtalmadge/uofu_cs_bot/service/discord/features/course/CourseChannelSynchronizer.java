@@ -2,7 +2,11 @@ package com.mitchtalmadge.uofu_cs_bot.service.discord.features.course;
 
 import com.mitchtalmadge.uofu_cs_bot.domain.cs.CSSuffix;
 import com.mitchtalmadge.uofu_cs_bot.domain.cs.Course;
+import com.mitchtalmadge.uofu_cs_bot.domain.cs.CourseSet;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.SynchronizationScope;
 import com.mitchtalmadge.uofu_cs_bot.service.discord.channel.ChannelSynchronizer;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.channel.PermissionOverrideSpec;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.channel.TextChannelPlan;
 import com.mitchtalmadge.uofu_cs_bot.util.CSNamingConventions;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.entities.*;
@@ -26,6 +30,20 @@ public class CourseChannelSynchronizer extends ChannelSynchronizer {
     this.courseService = CourseService;
   }
 
+  @Override
+  public boolean isInScope(SynchronizationScope scope) {
+    return scope.includesCourses();
+  }
+
+  @Override
+  public boolean isInScope(SynchronizationScope scope, String name) {
+    try {
+      return scope.includes(Course.of(name));
+    } catch (Course.InvalidCourseNameException e) {
+      return !scope.isLimited();
+    }
+  }
+
   /**
    * @return The category that all text-based Course Channels belong to. May be null if the Category
    *     does not yet exist.
@@ -56,31 +74,32 @@ public class CourseChannelSynchronizer extends ChannelSynchronizer {
   }
 
   @Override
-  public Pair<Collection<TextChannel>, Collection<String>> synchronizeTextChannels(
+  public Pair<Collection<TextChannel>, Collection<TextChannelPlan>> synchronizeTextChannels(
       List<TextChannel> filteredChannels) {
 
     // Create collections for returning.
     Collection<TextChannel> channelsToRemove = new HashSet<>();
-    Collection<String> channelsToCreate = new HashSet<>();
+    Collection<TextChannelPlan> channelsToCreate = new ArrayList<>();
 
     // Get all enabled Courses.
-    Set<Course> enabledCourses = courseService.getEnabledCourses();
+    CourseSet enabledCourses = courseService.getEnabledCourses();
 
-    // This set starts by containing all enabled Courses. Courses are removed one-by-one as their
-    // channels are found.
-    // The remaining Courses which have not been removed must be created as new channels.
-    Set<Course> missingCourses = new HashSet<>(enabledCourses);
+    // This starts with a bit set for every enabled Course (by index in the set). Bits are cleared
+    // one-by-one as their channels are found.
+    // The remaining Courses which have not been cleared must be created as new channels.
+    BitSet missingCourses = new BitSet(enabledCourses.size());
+    missingCourses.set(0, enabledCourses.size());
 
     // Find the existing channels and delete invalid channels.
     filteredChannels.forEach(
         channel -> {
           try {
             // Parse the channel as a Course.
-            Course course = new Course(channel.getName());
+            int courseIndex = enabledCourses.indexOf(Course.of(channel.getName()));
 
             // Remove the Course if it exists.
-            if (missingCourses.contains(course)) {
-              missingCourses.remove(course);
+            if (courseIndex >= 0) {
+              missingCourses.clear(courseIndex);
             } else {
               // Since the Course for this channel is not enabled, the channel should be removed.
               channelsToRemove.add(channel);
@@ -90,9 +109,11 @@ public class CourseChannelSynchronizer extends ChannelSynchronizer {
           }
         });
 
-    // Convert the missing Courses into Channel names.
-    missingCourses.forEach(
-        course -> channelsToCreate.add(CSNamingConventions.toChannelName(course)));
+    // Plan a fully configured channel for each missing Course.
+    Guild guild = discordService.getGuild();
+    for (int i = missingCourses.nextSetBit(0); i >= 0; i = missingCourses.nextSetBit(i + 1)) {
+      channelsToCreate.add(getChannelPlan(guild, enabledCourses.get(i)));
+    }
 
     // Return collections.
     return Pair.of(channelsToRemove, channelsToCreate);
@@ -113,16 +134,12 @@ public class CourseChannelSynchronizer extends ChannelSynchronizer {
     filteredChannels.forEach(
         textChannel -> {
           try {
-            Course course = new Course(textChannel.getName());
+            Course course = Course.of(textChannel.getName());
 
+            // Only channels whose settings differ are updated.
             ChannelManager manager =
-                textChannel
-                    .getManager()
-                    .setName(CSNamingConventions.toChannelName(course))
-                    .setParent(getCourseTextCategory(textChannel.getGuild()))
-                    .setNSFW(false);
-
-            channelManagers.add(manager);
+                getChannelPlan(textChannel.getGuild(), course).createManager(textChannel);
+            if (manager != null) channelManagers.add(manager);
           } catch (Course.InvalidCourseNameException ignored) {
             // This is not a course channel.
           }
@@ -155,7 +172,7 @@ public class CourseChannelSynchronizer extends ChannelSynchronizer {
     filteredChannels.forEach(
         textChannel -> {
           try {
-            Course course = new Course(textChannel.getName());
+            Course course = Course.of(textChannel.getName());
 
             // Compute Permissions.
             Pair<
@@ -192,83 +209,51 @@ public class CourseChannelSynchronizer extends ChannelSynchronizer {
     Collection<PermissionOverrideAction> permissionOverrideActions = new HashSet<>();
     Collection<PermissionOverrideAction> permOverrideManagers = new HashSet<>();
 
-    // Keeps track of whether the channel has a permission override for each suffix, and for
-    // @everyone (null key).
-    Map<CSSuffix, Boolean> overrideDetectionMap = new HashMap<>();
-
-    // Check each permission override.
-    channel
-        .getPermissionOverrides()
-        .forEach(
-            override -> {
-              // Delete all member overrides.
-              if (override.isMemberOverride()) {
-                permissionOverrides.add(override);
-                return;
-              }
-
-              Role role = override.getRole();
-
-              if (role.isPublicRole()) { // @everyone role
-                overrideDetectionMap.put(null, true);
-
-                PermissionOverrideAction manager = override.getManager();
-
-                // Clear all permissions
-                manager = manager.clear(Permission.ALL_PERMISSIONS);
-
-                // Deny viewing
-                manager = manager.deny(Permission.VIEW_CHANNEL);
-
-                permOverrideManagers.add(manager);
-              } else {
-                try { // Class role
-                  Course course = new Course(role.getName());
-
-                  CSSuffix roleSuffix = CSSuffix.fromCourseName(role.getName());
+    // Any other overrides, including member overrides, are deleted.
+    PermissionOverrideSpec.diff(
+        channel,
+        getOverrideSpecs(channel.getGuild(), channelClass),
+        permissionOverrides,
+        permissionOverrideActions,
+        permOverrideManagers);
 
-                  overrideDetectionMap.put(roleSuffix, true);
-
-                  PermissionOverrideAction manager = override.getManager();
-
-                  // Clear all permissions
-                  manager = manager.clear(Permission.ALL_PERMISSIONS);
-
-                  // Allow viewing
-                  manager = manager.grant(Permission.VIEW_CHANNEL);
-
-                  permOverrideManagers.add(manager);
-                } catch (Course.InvalidCourseNameException ignored) {
-                  // This is not a course role. Delete its override.
-                  permissionOverrides.add(override);
-                }
-              }
-            });
+    // Return collections.
+    return Pair.of(Pair.of(permissionOverrides, permissionOverrideActions), permOverrideManagers);
+  }
 
-    // Create the channel's @everyone role permission override if it does not exist.
-    if (!overrideDetectionMap.getOrDefault(null, false)) {
-      PermissionOverrideAction override =
-          channel.createPermissionOverride(channel.getGuild().getPublicRole());
-      override = override.setDeny(Permission.VIEW_CHANNEL);
-      permissionOverrideActions.add(override);
-    }
+  /**
+   * Determines the desired state of the channel of a Course.
+   *
+   * @param guild The Guild.
+   * @param course The Course.
+   * @return The plan for the Course's channel.
+   */
+  private TextChannelPlan getChannelPlan(Guild guild, Course course) {
+    return new TextChannelPlan(
+        CSNamingConventions.toChannelName(course),
+        getCourseTextCategory(guild),
+        false,
+        getOverrideSpecs(guild, course));
+  }
 
-    // Create the channel's suffix role permission overrides if they do not exist.
+  /**
+   * Determines the permission overrides of the channel of a Course.
+   *
+   * @param guild The Guild.
+   * @param course The Course.
+   * @return The overrides of the Course's channel.
+   */
+  private List<PermissionOverrideSpec> getOverrideSpecs(Guild guild, Course course) {
+    // The channel is hidden from @everyone, and visible to each suffix role of its course.
+    List<PermissionOverrideSpec> overrideSpecs = new ArrayList<>();
+    overrideSpecs.add(PermissionOverrideSpec.deny(guild.getPublicRole(), Permission.VIEW_CHANNEL));
     for (CSSuffix suffix : CSSuffix.values()) {
-      if (!overrideDetectionMap.getOrDefault(suffix, false)) {
-        PermissionOverrideAction override =
-            channel.createPermissionOverride(
-                channel
-                    .getGuild()
-                    .getRolesByName(CSNamingConventions.toRoleName(channelClass, suffix), true)
-                    .get(0));
-        override = override.setAllow(Permission.VIEW_CHANNEL);
-        permissionOverrideActions.add(override);
-      }
+      Role role = guildNameIndexService.getRole(CSNamingConventions.toRoleName(course, suffix));
+      if (role != null)
+        overrideSpecs.add(PermissionOverrideSpec.allow(role, Permission.VIEW_CHANNEL));
     }
 
-    // Return collections.
-    return Pair.of(Pair.of(permissionOverrides, permissionOverrideActions), permOverrideManagers);
+    return overrideSpecs;
   }
 
   @Override
@@ -279,8 +264,9 @@ public class CourseChannelSynchronizer extends ChannelSynchronizer {
   @Override
   public List<TextChannel> updateTextChannelOrdering(List<TextChannel> filteredChannels) {
     // Sort filtered channels by name.
-    filteredChannels.sort(Comparator.comparing(GuildChannel::getName));
+    List<TextChannel> sorted = new ArrayList<>(filteredChannels);
+    sorted.sort(Comparator.comparing(GuildChannel::getName));
 
-    return filteredChannels;
+    return sorted;
   }
 }
@@ -0,0 +1,171 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord.features.course;
+
+import com.mitchtalmadge.uofu_cs_bot.domain.cs.CSClassCode;
+import com.mitchtalmadge.uofu_cs_bot.domain.cs.CSNickname;
+import com.mitchtalmadge.uofu_cs_bot.domain.cs.Course;
+import com.mitchtalmadge.uofu_cs_bot.domain.cs.CourseSet;
+import org.apache.commons.lang3.mutable.MutableInt;
+
+import java.util.*;
+
+/**
+ * Keeps the classes of each member and counts how many members have each course in their nickname,
+ * so that the set of courses in use can be updated one member at a time instead of re-parsing every
+ * nickname. Not thread-safe.
+ */
+public class CourseMemberIndex {
+
+  /** The classes last indexed for each member, along with the nickname they were parsed from. */
+  private final MemberCourseTable memberCourseTable = new MemberCourseTable();
+
+  /** The number of members with each course. Courses with no members are not stored. */
+  private final Map<Course, MutableInt> memberCounts = new HashMap<>();
+
+  /**
+   * Parses the nickname of a member and replaces their indexed classes, applying only the
+   * difference to the counts.
+   *
+   * @param memberId The ID of the member.
+   * @param nickname The current nickname of the member. May be null.
+   * @return True if a course gained its first member or lost its last one.
+   */
+  public boolean setMemberNickname(long memberId, String nickname) {
+    int[] classCodes = new CSNickname(nickname).getClassCodes();
+    return applyDifference(memberCourseTable.put(memberId, nickname, classCodes), classCodes);
+  }
+
+  /**
+   * Removes a member from the index.
+   *
+   * @param memberId The ID of the member.
+   * @return True if a course lost its last member.
+   */
+  public boolean removeMember(long memberId) {
+    return applyDifference(memberCourseTable.remove(memberId), CSClassCode.NO_CLASS_CODES);
+  }
+
+  /**
+   * @param memberId The ID of the member.
+   * @return The indexed {@link CSClassCode}s of the member, sorted by course number.
+   */
+  public int[] getClassCodes(long memberId) {
+    return memberCourseTable.get(memberId);
+  }
+
+  /**
+   * @param memberId The ID of the member.
+   * @param nickname The current nickname of the member.
+   * @return The indexed {@link CSClassCode}s of the member, or null if they were not indexed from
+   *     the given nickname.
+   */
+  public int[] getCurrentClassCodes(long memberId, String nickname) {
+    return memberCourseTable.getIfCurrent(memberId, nickname);
+  }
+
+  /**
+   * @param courses The courses.
+   * @return The IDs of the members with any of the courses in their nickname.
+   */
+  public long[] getMemberIds(CourseSet courses) {
+    if (courses.isEmpty()) return new long[0];
+    return memberCourseTable.findMembers(courses);
+  }
+
+  /**
+   * @param other Another index, such as one rebuilt from the current nicknames.
+   * @return The IDs of the members whose indexed classes differ between the indexes.
+   */
+  public long[] findDifferingMembers(CourseMemberIndex other) {
+    return memberCourseTable.findDifferingMembers(other.memberCourseTable);
+  }
+
+  /** @return An unmodifiable view of the courses which at least one member has. */
+  public Set<Course> getCourses() {
+    return Collections.unmodifiableSet(memberCounts.keySet());
+  }
+
+  /**
+   * @param course The course.
+   * @return The number of members with the course in their nickname.
+   */
+  public int getMemberCount(Course course) {
+    MutableInt count = memberCounts.get(course);
+    return count == null ? 0 : count.intValue();
+  }
+
+  /**
+   * Walks the previous and new classes of a member together, updating the counts of the courses
+   * which are in only one of them.
+   *
+   * @param previousCodes The previous class codes, sorted by course number.
+   * @param codes The new class codes, sorted by course number.
+   * @return True if a course gained its first member or lost its last one.
+   */
+  private boolean applyDifference(int[] previousCodes, int[] codes) {
+    boolean crossedZero = false;
+
+    int i = 0;
+    int j = 0;
+    while (i < previousCodes.length || j < codes.length) {
+      int previousNumber =
+          i < previousCodes.length
+              ? CSClassCode.getCourseNumber(previousCodes[i])
+              : Integer.MAX_VALUE;
+      int number = j < codes.length ? CSClassCode.getCourseNumber(codes[j]) : Integer.MAX_VALUE;
+
+      if (previousNumber == number) {
+        i++;
+        j++;
+      } else if (previousNumber < number) {
+        crossedZero |= decrement(Course.of(previousNumber));
+        i++;
+      } else {
+        crossedZero |= increment(Course.of(number));
+        j++;
+      }
+    }
+
+    return crossedZero;
+  }
+
+  /**
+   * @param course The course to increment.
+   * @return True if this was the first member of the course.
+   */
+  private boolean increment(Course course) {
+    MutableInt count = memberCounts.get(course);
+    if (count == null) {
+      memberCounts.put(course, new MutableInt(1));
+      return true;
+    }
+
+    count.increment();
+    return false;
+  }
+
+  /**
+   * @param course The course to decrement.
+   * @return True if this was the last member of the course.
+   */
+  private boolean decrement(Course course) {
+    MutableInt count = memberCounts.get(course);
+    if (count.decrementAndGet() > 0) return false;
+
+    memberCounts.remove(course);
+    return true;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    CourseMemberIndex that = (CourseMemberIndex) o;
+    return memberCourseTable.equals(that.memberCourseTable)
+        && memberCounts.equals(that.memberCounts);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(memberCourseTable, memberCounts);
+  }
+}
@@ -3,13 +3,21 @@ package com.mitchtalmadge.uofu_cs_bot.service.discord.features.course;
 import com.mitchtalmadge.uofu_cs_bot.domain.cs.CSNickname;
 import com.mitchtalmadge.uofu_cs_bot.service.discord.nickname.NicknameValidator;
 import net.dv8tion.jda.api.entities.Member;
+import org.springframework.beans.factory.annotation.Autowired;
 
 /** Validates the nicknames of members based on their courses. */
 public class CourseNicknameValidator extends NicknameValidator {
 
+  private final CourseService courseService;
+
+  @Autowired
+  public CourseNicknameValidator(CourseService courseService) {
+    this.courseService = courseService;
+  }
+
   @Override
   public String assignNickname(Member member) {
-    CSNickname csNickname = new CSNickname(member.getNickname());
-    return csNickname.updateNicknameClassGroup(member.getNickname());
+    return CSNickname.updateNicknameClassGroup(
+        member.getNickname(), courseService.getMemberClassCodes(member));
   }
 }
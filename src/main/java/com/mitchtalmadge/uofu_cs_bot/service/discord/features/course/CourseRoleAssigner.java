@@ -1,9 +1,11 @@
 package com.mitchtalmadge.uofu_cs_bot.service.discord.features.course;
 
-import com.mitchtalmadge.uofu_cs_bot.domain.cs.CSNickname;
+import com.mitchtalmadge.uofu_cs_bot.domain.cs.CSClassCode;
 import com.mitchtalmadge.uofu_cs_bot.domain.cs.CSSuffix;
 import com.mitchtalmadge.uofu_cs_bot.domain.cs.Course;
-import com.mitchtalmadge.uofu_cs_bot.service.discord.DiscordService;
+import com.mitchtalmadge.uofu_cs_bot.domain.cs.CourseSet;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.GuildNameIndexService;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.SynchronizationScope;
 import com.mitchtalmadge.uofu_cs_bot.service.discord.role.RoleAssigner;
 import com.mitchtalmadge.uofu_cs_bot.util.CSNamingConventions;
 import net.dv8tion.jda.api.entities.Member;
@@ -11,43 +13,62 @@ import net.dv8tion.jda.api.entities.Role;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.*;
+import java.util.function.LongConsumer;
 
 /** Assigns course roles to members where needed. */
 public class CourseRoleAssigner extends RoleAssigner {
 
-  private final DiscordService discordService;
+  private final GuildNameIndexService guildNameIndexService;
   private final CourseService courseService;
 
   @Autowired
-  public CourseRoleAssigner(DiscordService discordService, CourseService courseService) {
-    this.discordService = discordService;
+  public CourseRoleAssigner(
+      GuildNameIndexService guildNameIndexService, CourseService courseService) {
+    this.guildNameIndexService = guildNameIndexService;
     this.courseService = courseService;
   }
 
+  @Override
+  public void findMembersInScope(SynchronizationScope scope, LongConsumer memberIds) {
+    if (scope.getCourses() == null) return;
+
+    // The members with the Courses in their nickname may need their course roles changed.
+    for (long memberId : courseService.getMemberIds(scope.getCourses())) {
+      memberIds.accept(memberId);
+    }
+  }
+
   @Override
   public void updateRoleAssignments(Member member, Set<Role> rolesToAdd, Set<Role> rolesToRemove) {
-    // Get nickname of member.
-    CSNickname csNickname = new CSNickname(member.getNickname());
-
-    // This map will initially contain all expected combinations of Course instances and CSSuffix
-    // instances that the member should be assigned to. Once found, the suffixes will be removed
-    // one-by-one. The remaining suffixes determine which roles are missing from the member.
-    Map<Course, Set<CSSuffix>> missingRolesMap = new HashMap<>();
-    // Populate the missing roles map.
-    csNickname
-        .getClasses()
-        .forEach(
-            csClass -> {
-              // Don't allow courses which are not enabled.
-              if (!courseService.getEnabledCourses().contains(csClass)) return;
-
-              // The suffixes that a member will be added to always includes NONE, as well as any
-              // specific suffix they may have.
-              Set<CSSuffix> allowedSuffixes = new HashSet<>();
-              allowedSuffixes.add(CSSuffix.NONE);
-              allowedSuffixes.add(csNickname.getSuffixForClass(csClass));
-              missingRolesMap.put(csClass, allowedSuffixes);
-            });
+    // Get the classes in the nickname of the member, sorted by course number.
+    int[] classCodes = courseService.getMemberClassCodes(member);
+
+    int[] courseNumbers = new int[classCodes.length];
+    for (int i = 0; i < classCodes.length; i++) {
+      courseNumbers[i] = CSClassCode.getCourseNumber(classCodes[i]);
+    }
+
+    // The courses are already sorted and distinct, so the index of each course in the set matches
+    // the index of its class code.
+    CourseSet nicknameCourses = CourseSet.fromNumbers(courseNumbers);
+    CourseSet enabledCourses = courseService.getEnabledCourses();
+
+    // For each course in the nickname (by index in the set), this will initially contain a bit for
+    // each CSSuffix ordinal that the member should be assigned to. Once found, the bits will be
+    // cleared one-by-one. The remaining bits determine which roles are missing from the member.
+    int[] missingSuffixes = new int[nicknameCourses.size()];
+    // Populate the missing suffixes.
+    for (int i = 0; i < nicknameCourses.size(); i++) {
+      Course csClass = nicknameCourses.get(i);
+
+      // Don't allow courses which are not enabled.
+      if (!enabledCourses.contains(csClass)) continue;
+
+      // The suffixes that a member will be added to always includes NONE, as well as any
+      // specific suffix they may have.
+      missingSuffixes[i] =
+          (1 << CSSuffix.NONE.ordinal()) | (1 << CSClassCode.getSuffix(classCodes[i]).ordinal());
+    }
 
     // Check each role of the member.
     member
@@ -55,42 +76,45 @@ public class CourseRoleAssigner extends RoleAssigner {
         .forEach(
             role -> {
               try {
-                Course roleClass = new Course(role.getName());
+                Course roleClass = Course.of(role.getName());
                 CSSuffix roleSuffix = CSSuffix.fromCourseName(role.getName());
 
                 // Check that this class role is allowed.
-                if (!csNickname.getClasses().contains(roleClass)) {
+                int courseIndex = nicknameCourses.indexOf(roleClass);
+                if (courseIndex < 0) {
                   rolesToRemove.add(role);
                   return;
                 }
 
                 // Check that the current role's suffix is either the default or matches the
                 // nickname's role suffix.
-                CSSuffix nicknameRoleSuffix = csNickname.getSuffixForClass(roleClass);
+                CSSuffix nicknameRoleSuffix = CSClassCode.getSuffix(classCodes[courseIndex]);
                 if (nicknameRoleSuffix != roleSuffix && roleSuffix != CSSuffix.NONE) {
                   // This role suffix is not allowed for the current class.
                   rolesToRemove.add(role);
                   return;
                 }
 
-                // Remove this role from the missing map as it is present.
-                missingRolesMap.get(roleClass).remove(roleSuffix);
+                // Remove this role from the missing suffixes as it is present.
+                missingSuffixes[courseIndex] &= ~(1 << roleSuffix.ordinal());
               } catch (Course.InvalidCourseNameException ignored) {
                 // Not a class role.
               }
             });
 
     // Determine the roles to be added to the member.
-    missingRolesMap.forEach(
-        (csClass, suffixes) ->
-            suffixes.forEach(
-                suffix -> {
-                  List<Role> roles =
-                      discordService
-                          .getGuild()
-                          .getRolesByName(CSNamingConventions.toRoleName(csClass, suffix), false);
-
-                  if (!roles.isEmpty()) rolesToAdd.add(roles.get(0));
-                }));
+    for (int i = 0; i < nicknameCourses.size(); i++) {
+      if (missingSuffixes[i] == 0) continue;
+
+      for (CSSuffix suffix : CSSuffix.values()) {
+        if ((missingSuffixes[i] & (1 << suffix.ordinal())) == 0) continue;
+
+        Role role =
+            guildNameIndexService.getRole(
+                CSNamingConventions.toRoleName(nicknameCourses.get(i), suffix));
+
+        if (role != null) rolesToAdd.add(role);
+      }
+    }
   }
 }
@@ -2,10 +2,12 @@ package com.mitchtalmadge.uofu_cs_bot.service.discord.features.course;
 
 import com.mitchtalmadge.uofu_cs_bot.domain.cs.CSSuffix;
 import com.mitchtalmadge.uofu_cs_bot.domain.cs.Course;
+import com.mitchtalmadge.uofu_cs_bot.domain.cs.CourseSet;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.SynchronizationScope;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.role.RoleSettings;
 import com.mitchtalmadge.uofu_cs_bot.service.discord.role.RoleSynchronizer;
 import com.mitchtalmadge.uofu_cs_bot.util.CSNamingConventions;
 import net.dv8tion.jda.api.entities.Role;
-import net.dv8tion.jda.api.managers.RoleManager;
 import net.dv8tion.jda.api.requests.restaction.RoleAction;
 import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,6 +25,20 @@ public class CourseRoleSynchronizer extends RoleSynchronizer {
     this.courseService = courseService;
   }
 
+  @Override
+  public boolean isInScope(SynchronizationScope scope) {
+    return scope.includesCourses();
+  }
+
+  @Override
+  public boolean isInScope(SynchronizationScope scope, String name) {
+    try {
+      return scope.includes(Course.of(name));
+    } catch (Course.InvalidCourseNameException e) {
+      return !scope.isLimited();
+    }
+  }
+
   @Override
   public Pair<Collection<Role>, Collection<RoleAction>> synchronizeRoles(List<Role> filteredRoles) {
 
@@ -31,30 +47,31 @@ public class CourseRoleSynchronizer extends RoleSynchronizer {
     Collection<RoleAction> rolesToCreate = new HashSet<>();
 
     // Get all enabled courses.
-    Set<Course> enabledCourses = courseService.getEnabledCourses();
-
-    // This map starts by containing all enabled courses mapped to all suffixes. Suffixes are
-    // removed one-by-one as their roles are found.
-    // The remaining suffixes which have not been removed must be created as new roles for the
-    // mapped courses.
-    Map<Course, Set<CSSuffix>> missingRoles = new HashMap<>();
-
-    // Pre-fill the missingRoles map.
-    for (Course course : enabledCourses) {
-      Set<CSSuffix> missingSuffixes = new HashSet<>(Arrays.asList(CSSuffix.values()));
-      missingRoles.put(course, missingSuffixes);
+    CourseSet enabledCourses = courseService.getEnabledCourses();
+
+    // For each suffix, this starts with a bit set for every enabled course (by index in the set).
+    // Bits are cleared one-by-one as their roles are found.
+    // The remaining bits must be created as new roles for the course and suffix.
+    CSSuffix[] suffixes = CSSuffix.values();
+    BitSet[] missingRoles = new BitSet[suffixes.length];
+
+    // Pre-fill the missingRoles bit sets.
+    for (CSSuffix suffix : suffixes) {
+      missingRoles[suffix.ordinal()] = new BitSet(enabledCourses.size());
+      missingRoles[suffix.ordinal()].set(0, enabledCourses.size());
     }
 
     // Find the existing roles and delete invalid roles.
     for (Role role : filteredRoles) {
       try {
         // Parse the role as a course.
-        Course course = new Course(role.getName());
+        Course course = Course.of(role.getName());
         CSSuffix roleSuffix = CSSuffix.fromCourseName(role.getName());
 
         // Remove the course if it exists.
-        if (missingRoles.containsKey(course)) {
-          missingRoles.get(course).remove(roleSuffix);
+        int courseIndex = enabledCourses.indexOf(course);
+        if (courseIndex >= 0) {
+          missingRoles[roleSuffix.ordinal()].clear(courseIndex);
         } else {
           // Delete the role as it should not exist.
           rolesToRemove.add(role);
@@ -65,63 +82,62 @@ public class CourseRoleSynchronizer extends RoleSynchronizer {
     }
 
     // Create missing roles.
-    missingRoles.forEach(
-        (course, suffixes) ->
-            suffixes.forEach(
-                suffix -> {
-                  String roleName = CSNamingConventions.toRoleName(course, suffix);
-
-                  RoleAction roleAction =
-                      discordService
-                          .getGuild()
-                          .createRole()
-                          .setName(roleName)
-                          .setColor(suffix.getRoleColor())
-                          .setHoisted(suffix.isRoleHoisted())
-                          .setMentionable(suffix.isRoleMentionable())
-                          .setPermissions(suffix.getPermissions());
-
-                  rolesToCreate.add(roleAction);
-                }));
+    for (CSSuffix suffix : suffixes) {
+      BitSet missingCourses = missingRoles[suffix.ordinal()];
+      for (int i = missingCourses.nextSetBit(0); i >= 0; i = missingCourses.nextSetBit(i + 1)) {
+        String roleName = CSNamingConventions.toRoleName(enabledCourses.get(i), suffix);
+
+        RoleAction roleAction =
+            discordService
+                .getGuild()
+                .createRole()
+                .setName(roleName)
+                .setColor(suffix.getRoleColor())
+                .setHoisted(suffix.isRoleHoisted())
+                .setMentionable(suffix.isRoleMentionable())
+                .setPermissions(suffix.getPermissions());
+
+        rolesToCreate.add(roleAction);
+      }
+    }
 
     // Return collections.
     return Pair.of(rolesToRemove, rolesToCreate);
   }
 
   @Override
-  public Collection<RoleManager> updateRoleSettings(List<Role> filteredRoles) {
+  public Map<Role, RoleSettings> updateRoleSettings(List<Role> filteredRoles) {
 
-    // Create collection to return.
-    Collection<RoleManager> roleManagers = new HashSet<>();
+    // Create map to return.
+    Map<Role, RoleSettings> roleSettings = new HashMap<>();
 
     filteredRoles.forEach(
         role -> {
           try {
-            Course course = new Course(role.getName());
+            Course course = Course.of(role.getName());
             CSSuffix roleSuffix = CSSuffix.fromCourseName(role.getName());
 
-            RoleManager manager =
-                role.getManager()
-                    .setName(CSNamingConventions.toRoleName(course, roleSuffix))
-                    .setColor(roleSuffix.getRoleColor())
-                    .setHoisted(roleSuffix.isRoleHoisted())
-                    .setMentionable(roleSuffix.isRoleMentionable())
-                    .setPermissions(roleSuffix.getPermissions());
-
-            // Add for queue later.
-            roleManagers.add(manager);
+            roleSettings.put(
+                role,
+                new RoleSettings(
+                    CSNamingConventions.toRoleName(course, roleSuffix),
+                    roleSuffix.getRoleColor(),
+                    roleSuffix.isRoleHoisted(),
+                    roleSuffix.isRoleMentionable(),
+                    roleSuffix.getPermissions()));
           } catch (Course.InvalidCourseNameException ignored) {
             // This is not a Course Role.
           }
         });
 
-    return roleManagers;
+    return roleSettings;
   }
 
   @Override
   public List<Role> updateRoleOrdering(List<Role> filteredRoles) {
     // Sort filtered roles by suffix, then by name.
-    filteredRoles.sort(
+    List<Role> sorted = new ArrayList<>(filteredRoles);
+    sorted.sort(
         Comparator.comparing(
                 obj -> CSSuffix.fromCourseName(((Role) obj).getName())) // Order by suffix
             .thenComparing(
@@ -131,6 +147,6 @@ public class CourseRoleSynchronizer extends RoleSynchronizer {
                         .toUpperCase()) // Order by name; ignore case by forcing all to uppercase.
             .reversed()); // Reverse order so suffixes are at top of roles.
 
-    return filteredRoles;
+    return sorted;
   }
 }
@@ -1,16 +1,20 @@
 package com.mitchtalmadge.uofu_cs_bot.service.discord.features.course;
 
-import com.mitchtalmadge.uofu_cs_bot.domain.cs.CSNickname;
 import com.mitchtalmadge.uofu_cs_bot.domain.cs.Course;
+import com.mitchtalmadge.uofu_cs_bot.domain.cs.CourseSet;
+import com.mitchtalmadge.uofu_cs_bot.event.EventCoalescer;
 import com.mitchtalmadge.uofu_cs_bot.service.LogService;
 import com.mitchtalmadge.uofu_cs_bot.service.discord.DiscordService;
 import com.mitchtalmadge.uofu_cs_bot.service.discord.DiscordSynchronizationRequestSurrogate;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.SynchronizationScope;
 import net.dv8tion.jda.api.entities.Member;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -27,21 +31,27 @@ public class CourseService implements InitializingBean {
   private static final Pattern COURSE_LIST_SPLIT_PATTERN = Pattern.compile("(,\\s*)+");
 
   private final LogService logService;
+  private final EventCoalescer eventCoalescer;
   private DiscordService discordService;
   private DiscordSynchronizationRequestSurrogate discordSynchronizationRequestSurrogate;
 
-  /** The enabled CS courses for the server. */
-  private Set<Course> enabledCourses = new HashSet<>();
+  /** Counts the members in each course. Guarded by this instance. */
+  private CourseMemberIndex courseMemberIndex;
+
+  /** The enabled CS courses for the server. Replaced, never modified, when the courses change. */
+  private volatile CourseSet enabledCourses = CourseSet.EMPTY;
 
   /** The blacklisted CS courses for the server. */
-  private Set<Course> blacklistedCourses = new HashSet<>();
+  private CourseSet blacklistedCourses = CourseSet.EMPTY;
 
   @Autowired
   public CourseService(
       LogService logService,
+      EventCoalescer eventCoalescer,
       DiscordService discordService,
       DiscordSynchronizationRequestSurrogate discordSynchronizationRequestSurrogate) {
     this.logService = logService;
+    this.eventCoalescer = eventCoalescer;
     this.discordService = discordService;
     this.discordSynchronizationRequestSurrogate = discordSynchronizationRequestSurrogate;
   }
@@ -56,12 +66,14 @@ public class CourseService implements InitializingBean {
   }
 
   private void loadBlacklistedCourses() {
-    this.blacklistedCourses = new HashSet<>();
+    this.blacklistedCourses = CourseSet.EMPTY;
 
     // Get the list.
     String courseNumberList = System.getenv(COURSE_BLACKLIST_ENV_VAR);
     if (courseNumberList == null) return; // No list.
 
+    Set<Course> blacklistedCourses = new HashSet<>();
+
     // Split the list into individual course numbers.
     String[] courseNumbers = COURSE_LIST_SPLIT_PATTERN.split(courseNumberList);
 
@@ -71,41 +83,115 @@ public class CourseService implements InitializingBean {
       if (courseNumber.isEmpty()) continue; // Empty string.
 
       try {
-        blacklistedCourses.add(new Course(courseNumber));
+        blacklistedCourses.add(Course.of(courseNumber));
       } catch (Course.InvalidCourseNameException e) {
         logService.logException(getClass(), e, "A blacklisted course could not be parsed.");
       }
     }
+
+    this.blacklistedCourses = CourseSet.of(blacklistedCourses);
   }
 
-  /** From the nicknames of each member in the server, determines the enabled courses. */
-  public void computeEnabledCourses() {
-    List<Member> members = this.discordService.getGuild().getMembers();
-    Set<Course> enabledCourses = new HashSet<>();
+  /**
+   * From the nicknames of each member in the server, rebuilds the course index and determines the
+   * enabled courses. Runs every hour to verify that the incrementally updated index has not drifted.
+   * Members whose nickname change is still being coalesced are not yet in the index, so they are
+   * not counted as drift.
+   */
+  @Scheduled(fixedRate = 3_600_000, initialDelay = 3_600_000)
+  public synchronized void computeEnabledCourses() {
+    CourseMemberIndex courseMemberIndex = new CourseMemberIndex();
 
     // Add courses found in nicknames.
-    members.forEach(
-        member -> {
-          CSNickname nickname = new CSNickname(member.getNickname());
-          enabledCourses.addAll(nickname.getClasses());
-        });
-
-    // Exclude blacklisted courses.
-    enabledCourses.removeAll(this.blacklistedCourses);
+    for (Member member : this.discordService.getGuild().getMembers()) {
+      courseMemberIndex.setMemberNickname(member.getIdLong(), member.getNickname());
+    }
 
-    // Request synchronization if the enabled courses have changed.
-    if (!this.enabledCourses.equals(enabledCourses)) {
-      this.discordSynchronizationRequestSurrogate.requestSynchronization();
+    if (this.courseMemberIndex != null) {
+      long drifted =
+          Arrays.stream(this.courseMemberIndex.findDifferingMembers(courseMemberIndex))
+              .filter(memberId -> !eventCoalescer.isPending(memberId))
+              .count();
+      if (drifted > 0)
+        logService.logError(
+            getClass(),
+            "The course index had drifted from the nicknames of "
+                + drifted
+                + " members. It was rebuilt.");
     }
 
+    this.courseMemberIndex = courseMemberIndex;
+    updateEnabledCourses();
+  }
+
+  /**
+   * Updates the course index with the current nickname of one member. The enabled courses are only
+   * recomputed when a course gains its first member or loses its last one.
+   *
+   * @param member The member whose nickname may have changed.
+   */
+  public synchronized void updateMember(Member member) {
+    if (courseMemberIndex.setMemberNickname(member.getIdLong(), member.getNickname()))
+      updateEnabledCourses();
+  }
+
+  /**
+   * Gets the classes in the nickname of a member from the course index. The nickname is only parsed
+   * (and the index updated) if it has changed since the member was last indexed.
+   *
+   * @param member The member.
+   * @return The {@link com.mitchtalmadge.uofu_cs_bot.domain.cs.CSClassCode}s of the member, sorted
+   *     by course number.
+   */
+  public synchronized int[] getMemberClassCodes(Member member) {
+    int[] classCodes =
+        courseMemberIndex.getCurrentClassCodes(member.getIdLong(), member.getNickname());
+    if (classCodes != null) return classCodes;
+
+    updateMember(member);
+    return courseMemberIndex.getClassCodes(member.getIdLong());
+  }
+
+  /**
+   * @param courses The courses.
+   * @return The IDs of the members with any of the courses in their nickname, as last indexed.
+   */
+  public synchronized long[] getMemberIds(CourseSet courses) {
+    return courseMemberIndex.getMemberIds(courses);
+  }
+
+  /**
+   * Removes a member who has left the server from the course index.
+   *
+   * @param memberId The ID of the member.
+   */
+  public synchronized void removeMember(long memberId) {
+    if (courseMemberIndex.removeMember(memberId)) updateEnabledCourses();
+  }
+
+  /** Recomputes the enabled courses from the course index, requesting synchronization if needed. */
+  private void updateEnabledCourses() {
+    // Exclude blacklisted courses.
+    CourseSet enabledCourses =
+        CourseSet.of(courseMemberIndex.getCourses()).without(this.blacklistedCourses);
+
+    CourseSet previousCourses = this.enabledCourses;
     this.enabledCourses = enabledCourses;
+
+    // Request synchronization of the courses which were enabled or disabled.
+    if (!previousCourses.equals(enabledCourses)) {
+      List<Course> changedCourses = new ArrayList<>(enabledCourses.without(previousCourses));
+      changedCourses.addAll(previousCourses.without(enabledCourses));
+      this.discordSynchronizationRequestSurrogate.requestSynchronization(
+          SynchronizationScope.ofCourses(changedCourses));
+    }
   }
 
-  public Set<Course> getEnabledCourses() {
-    return Collections.unmodifiableSet(enabledCourses);
+  public CourseSet getEnabledCourses() {
+    return enabledCourses;
   }
 
-  public Set<Course> getBlacklistedCourses() {
-    return Collections.unmodifiableSet(blacklistedCourses);
+  public CourseSet getBlacklistedCourses() {
+    return blacklistedCourses;
   }
 }
@@ -0,0 +1,267 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord.features.course;
+
+import com.mitchtalmadge.uofu_cs_bot.domain.cs.CSClassCode;
+import com.mitchtalmadge.uofu_cs_bot.domain.cs.CourseSet;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The classes in the nickname of every indexed member, stored as {@link CSClassCode}s in an open
+ * addressing hash table keyed by user ID. Compared to a map of CSNicknames, this avoids a
+ * boxed key, a map entry, a TreeMap, and a Course and CSSuffix reference per class for each member.
+ *
+ * <p>Along with the classes, the nickname they were parsed from is stored, so that callers can tell
+ * whether the stored classes are still current without parsing the nickname again. Members without
+ * classes are stored too, so that their nicknames are not parsed again either. The nickname is the
+ * String held by JDA, so storing it only costs a reference. Not thread-safe.
+ */
+public class MemberCourseTable {
+
+  /** The user ID which marks an empty slot. Discord snowflakes are never 0. */
+  private static final long EMPTY = 0;
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  /** The user IDs of each slot. The length is always a power of two. */
+  private long[] userIds;
+
+  /** The class codes of each slot, sorted by course number. Empty for a member without classes. */
+  private int[][] classCodes;
+
+  /** The nickname each slot was parsed from. Null for a member without a nickname. */
+  private String[] nicknames;
+
+  /** The number of occupied slots. */
+  private int size;
+
+  public MemberCourseTable() {
+    allocate(INITIAL_CAPACITY);
+  }
+
+  /**
+   * @param userId The user ID of a member.
+   * @return The class codes of the member, or an empty array if the member has no classes or is not
+   *     stored.
+   */
+  public int[] get(long userId) {
+    int slot = find(userId);
+    return slot < 0 ? CSClassCode.NO_CLASS_CODES : classCodes[slot];
+  }
+
+  /**
+   * Gets the class codes of a member, but only if they were stored for the given nickname.
+   *
+   * @param userId The user ID of a member.
+   * @param nickname The current nickname of the member.
+   * @return The class codes of the member, or null if the member is not stored or was stored with a
+   *     different nickname.
+   */
+  public int[] getIfCurrent(long userId, String nickname) {
+    int slot = find(userId);
+    if (slot < 0 || !Objects.equals(nicknames[slot], nickname)) return null;
+    return classCodes[slot];
+  }
+
+  /**
+   * Stores the class codes of a member.
+   *
+   * @param userId The user ID of the member.
+   * @param nickname The nickname the codes were parsed from.
+   * @param codes The class codes, sorted by course number. May be empty. The array is kept, so it
+   *     must not be modified afterwards.
+   * @return The previous class codes of the member, or an empty array if there were none.
+   */
+  public int[] put(long userId, String nickname, int[] codes) {
+    int slot = find(userId);
+    if (slot >= 0) {
+      int[] previousCodes = classCodes[slot];
+      classCodes[slot] = codes;
+      nicknames[slot] = nickname;
+      return previousCodes;
+    }
+
+    // Keep the load factor at or below 1/2.
+    if ((size + 1) * 2 > userIds.length) grow();
+
+    slot = ~find(userId);
+    userIds[slot] = userId;
+    classCodes[slot] = codes;
+    nicknames[slot] = nickname;
+    size++;
+
+    return CSClassCode.NO_CLASS_CODES;
+  }
+
+  /**
+   * Removes a member.
+   *
+   * @param userId The user ID of the member.
+   * @return The previous class codes of the member, or an empty array if there were none.
+   */
+  public int[] remove(long userId) {
+    int slot = find(userId);
+    if (slot < 0) return CSClassCode.NO_CLASS_CODES;
+
+    int[] previousCodes = classCodes[slot];
+    size--;
+
+    // Shift later members of the probe sequence back, so that no tombstones are needed.
+    int mask = userIds.length - 1;
+    int hole = slot;
+    for (int i = (hole + 1) & mask; userIds[i] != EMPTY; i = (i + 1) & mask) {
+      int home = hashUserId(userIds[i]) & mask;
+
+      // Move the member into the hole if its home slot is not between the hole and its slot.
+      if (((i - home) & mask) >= ((i - hole) & mask)) {
+        userIds[hole] = userIds[i];
+        classCodes[hole] = classCodes[i];
+        nicknames[hole] = nicknames[i];
+        hole = i;
+      }
+    }
+
+    userIds[hole] = EMPTY;
+    classCodes[hole] = null;
+    nicknames[hole] = null;
+
+    return previousCodes;
+  }
+
+  /**
+   * Finds the members with any of the given courses, by scanning every slot.
+   *
+   * @param courses The courses.
+   * @return The user IDs of the members, in no particular order.
+   */
+  public long[] findMembers(CourseSet courses) {
+    long[] members = new long[Math.min(size, 16)];
+    int count = 0;
+
+    for (int slot = 0; slot < userIds.length; slot++) {
+      if (userIds[slot] == EMPTY) continue;
+
+      for (int code : classCodes[slot]) {
+        if (!courses.contains(CSClassCode.getCourseNumber(code))) continue;
+
+        if (count == members.length) members = Arrays.copyOf(members, count * 2);
+        members[count++] = userIds[slot];
+        break;
+      }
+    }
+
+    return Arrays.copyOf(members, count);
+  }
+
+  /**
+   * Finds the members whose stored classes or nickname differ between this table and another,
+   * including members stored in only one of them.
+   *
+   * @param other The other table.
+   * @return The user IDs of the members, in no particular order.
+   */
+  public long[] findDifferingMembers(MemberCourseTable other) {
+    long[] members = new long[16];
+    int count = 0;
+
+    for (int i = 0; i < userIds.length; i++) {
+      if (userIds[i] == EMPTY) continue;
+
+      int slot = other.find(userIds[i]);
+      if (slot >= 0
+          && Objects.equals(nicknames[i], other.nicknames[slot])
+          && Arrays.equals(classCodes[i], other.classCodes[slot])) continue;
+
+      if (count == members.length) members = Arrays.copyOf(members, count * 2);
+      members[count++] = userIds[i];
+    }
+
+    for (int i = 0; i < other.userIds.length; i++) {
+      if (other.userIds[i] == EMPTY || find(other.userIds[i]) >= 0) continue;
+
+      if (count == members.length) members = Arrays.copyOf(members, count * 2);
+      members[count++] = other.userIds[i];
+    }
+
+    return Arrays.copyOf(members, count);
+  }
+
+  /** @return The number of members stored. */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Finds the slot of a member.
+   *
+   * @param userId The user ID of the member.
+   * @return The slot of the member, or the bitwise complement of the empty slot where it belongs.
+   */
+  private int find(long userId) {
+    int mask = userIds.length - 1;
+    for (int i = hashUserId(userId) & mask; ; i = (i + 1) & mask) {
+      if (userIds[i] == userId) return i;
+      if (userIds[i] == EMPTY) return ~i;
+    }
+  }
+
+  private void grow() {
+    long[] oldUserIds = userIds;
+    int[][] oldClassCodes = classCodes;
+    String[] oldNicknames = nicknames;
+
+    allocate(oldUserIds.length * 2);
+
+    for (int i = 0; i < oldUserIds.length; i++) {
+      if (oldUserIds[i] == EMPTY) continue;
+
+      int slot = ~find(oldUserIds[i]);
+      userIds[slot] = oldUserIds[i];
+      classCodes[slot] = oldClassCodes[i];
+      nicknames[slot] = oldNicknames[i];
+    }
+  }
+
+  private void allocate(int capacity) {
+    userIds = new long[capacity];
+    classCodes = new int[capacity][];
+    nicknames = new String[capacity];
+  }
+
+  /**
+   * Spreads the bits of a user ID. The low bits of a snowflake are a per-process counter, so they
+   * are mixed with the timestamp in the high bits.
+   */
+  private static int hashUserId(long userId) {
+    long hash = userId * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32));
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    MemberCourseTable that = (MemberCourseTable) o;
+    if (size != that.size) return false;
+
+    for (int i = 0; i < userIds.length; i++) {
+      if (userIds[i] == EMPTY) continue;
+
+      int slot = that.find(userIds[i]);
+      if (slot < 0
+          || !Objects.equals(nicknames[i], that.nicknames[slot])
+          || !Arrays.equals(classCodes[i], that.classCodes[slot])) return false;
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int hashCode = 0;
+    for (int i = 0; i < userIds.length; i++) {
+      if (userIds[i] == EMPTY) continue;
+      hashCode += Long.hashCode(userIds[i]) ^ Arrays.hashCode(classCodes[i]);
+    }
+    return hashCode;
+  }
+}
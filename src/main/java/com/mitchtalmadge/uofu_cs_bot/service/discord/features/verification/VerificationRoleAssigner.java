@@ -1,7 +1,6 @@
 package com.mitchtalmadge.uofu_cs_bot.service.discord.features.verification;
 
-import com.mitchtalmadge.uofu_cs_bot.domain.entity.InternalUser;
-import com.mitchtalmadge.uofu_cs_bot.domain.entity.repository.InternalUserRepository;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.GuildNameIndexService;
 import com.mitchtalmadge.uofu_cs_bot.service.discord.role.RoleAssigner;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.Role;
@@ -11,11 +10,15 @@ import java.util.Set;
 
 public class VerificationRoleAssigner extends RoleAssigner {
 
-  private InternalUserRepository internalUserRepository;
+  private VerificationStatusCache verificationStatusCache;
+  private GuildNameIndexService guildNameIndexService;
 
   @Autowired
-  public VerificationRoleAssigner(InternalUserRepository internalUserRepository) {
-    this.internalUserRepository = internalUserRepository;
+  public VerificationRoleAssigner(
+      VerificationStatusCache verificationStatusCache,
+      GuildNameIndexService guildNameIndexService) {
+    this.verificationStatusCache = verificationStatusCache;
+    this.guildNameIndexService = guildNameIndexService;
   }
 
   @Override
@@ -31,22 +34,14 @@ public class VerificationRoleAssigner extends RoleAssigner {
     }
 
     // Check if should be verified.
-    boolean shouldBeVerified = false;
-    InternalUser iUser =
-            this.internalUserRepository
-                    .findDistinctByDiscordUserId(member.getUser().getIdLong())
-                    .orElse(null);
-    if(iUser != null && iUser.getVerificationStatus().equals(VerificationStatus.VERIFIED)) {
-      shouldBeVerified = true;
-    }
+    boolean shouldBeVerified =
+        verificationStatusCache.getStatus(member.getUser().getIdLong())
+            == VerificationStatus.VERIFIED;
 
     // Update accordingly.
     Role verifiedRole =
-        member
-            .getGuild()
-            .getRolesByName(VerificationRoleSynchronizer.VERIFIED_ROLE_NAME, false)
-            .get(0);
-    if (!isVerified && shouldBeVerified) {
+        guildNameIndexService.getRole(VerificationRoleSynchronizer.VERIFIED_ROLE_NAME);
+    if (verifiedRole != null && !isVerified && shouldBeVerified) {
       rolesToAdd.add(verifiedRole);
     }
   }
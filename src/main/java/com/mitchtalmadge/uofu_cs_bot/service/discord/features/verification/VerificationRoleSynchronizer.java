@@ -1,17 +1,16 @@
 package com.mitchtalmadge.uofu_cs_bot.service.discord.features.verification;
 
+import com.mitchtalmadge.uofu_cs_bot.service.discord.role.RoleSettings;
 import com.mitchtalmadge.uofu_cs_bot.service.discord.role.RoleSynchronizer;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.entities.Role;
-import net.dv8tion.jda.api.managers.RoleManager;
 import net.dv8tion.jda.api.requests.restaction.RoleAction;
 import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.awt.*;
-import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
+import java.util.*;
 
 /** Implementation of {@link RoleSynchronizer} for verification of users. */
 public class VerificationRoleSynchronizer extends RoleSynchronizer {
@@ -64,32 +63,29 @@ public class VerificationRoleSynchronizer extends RoleSynchronizer {
   }
 
   @Override
-  public Collection<RoleManager> updateRoleSettings(List<Role> filteredRoles) {
+  public Map<Role, RoleSettings> updateRoleSettings(List<Role> filteredRoles) {
 
-    // Create collection to return.
-    Collection<RoleManager> roleManagers = new HashSet<>();
+    // Create map to return.
+    Map<Role, RoleSettings> roleSettings = new HashMap<>();
 
     filteredRoles.forEach(
-        role -> {
-          RoleManager updatable =
-              role.getManager()
-                  .setColor(Color.decode("0x3498DB"))
-                  .setHoisted(true)
-                  .setMentionable(false)
-                  .setPermissions(
-                      Permission.NICKNAME_CHANGE,
-                      Permission.MESSAGE_WRITE,
-                      Permission.MESSAGE_EMBED_LINKS,
-                      Permission.MESSAGE_ATTACH_FILES,
-                      Permission.MESSAGE_HISTORY,
-                      Permission.MESSAGE_ADD_REACTION,
-                      Permission.MESSAGE_EXT_EMOJI);
-
-          // Add for queue later.
-          roleManagers.add(updatable);
-        });
-
-    return roleManagers;
+        role ->
+            roleSettings.put(
+                role,
+                new RoleSettings(
+                    null,
+                    Color.decode("0x3498DB"),
+                    true,
+                    false,
+                    Permission.NICKNAME_CHANGE,
+                    Permission.MESSAGE_WRITE,
+                    Permission.MESSAGE_EMBED_LINKS,
+                    Permission.MESSAGE_ATTACH_FILES,
+                    Permission.MESSAGE_HISTORY,
+                    Permission.MESSAGE_ADD_REACTION,
+                    Permission.MESSAGE_EXT_EMOJI)));
+
+    return roleSettings;
   }
 
   @Override
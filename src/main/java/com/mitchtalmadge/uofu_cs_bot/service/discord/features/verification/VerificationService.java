@@ -1,7 +1,10 @@
 package com.mitchtalmadge.uofu_cs_bot.service.discord.features.verification;
 
 import com.mitchtalmadge.uofu_cs_bot.domain.entity.InternalUser;
+import com.mitchtalmadge.uofu_cs_bot.domain.entity.OutboxEmail;
 import com.mitchtalmadge.uofu_cs_bot.domain.entity.repository.InternalUserRepository;
+import com.mitchtalmadge.uofu_cs_bot.domain.entity.repository.InternalUserRepository.VerificationSummary;
+import com.mitchtalmadge.uofu_cs_bot.service.AbandonedEmailHandler;
 import com.mitchtalmadge.uofu_cs_bot.service.EmailService;
 import com.mitchtalmadge.uofu_cs_bot.service.LogService;
 import com.mitchtalmadge.uofu_cs_bot.service.discord.DiscordService;
@@ -9,8 +12,10 @@ import com.mitchtalmadge.uofu_cs_bot.service.discord.role.RoleAssignmentService;
 import net.dv8tion.jda.api.entities.Member;
 import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.MailException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.security.SecureRandom;
@@ -20,10 +25,14 @@ import java.util.List;
 import java.util.Map;
 
 @Service
-public class VerificationService {
+public class VerificationService implements AbandonedEmailHandler {
+
+  /** The domain of the u-mail addresses to which verification links are sent. */
+  private static final String UMAIL_DOMAIN = "@umail.utah.edu";
 
   private DiscordService discordService;
   private InternalUserRepository internalUserRepository;
+  private VerificationStatusCache verificationStatusCache;
   private RoleAssignmentService roleAssignmentService;
   private EmailService emailService;
   private LogService logService;
@@ -35,11 +44,13 @@ public class VerificationService {
   public VerificationService(
       DiscordService discordService,
       InternalUserRepository internalUserRepository,
+      VerificationStatusCache verificationStatusCache,
       RoleAssignmentService roleAssignmentService,
       EmailService emailService,
       LogService logService) {
     this.discordService = discordService;
     this.internalUserRepository = internalUserRepository;
+    this.verificationStatusCache = verificationStatusCache;
     this.roleAssignmentService = roleAssignmentService;
     this.emailService = emailService;
     this.logService = logService;
@@ -52,15 +63,7 @@ public class VerificationService {
    * @return The current status.
    */
   public VerificationStatus getVerificationStatus(Member member) {
-    InternalUser iUser =
-        this.internalUserRepository
-            .findDistinctByDiscordUserId(member.getUser().getIdLong())
-            .orElse(null);
-    if (iUser == null) {
-      return VerificationStatus.UNVERIFIED;
-    }
-
-    return iUser.getVerificationStatus();
+    return this.verificationStatusCache.getStatus(member.getUser().getIdLong());
   }
 
   /**
@@ -71,7 +74,7 @@ public class VerificationService {
    */
   private Map<Long, Member> getVerifiedMembersByUnidAndStatus(
       String unid, VerificationStatus status) {
-    Iterable<InternalUser> iUsers = this.internalUserRepository.findAllByUnid(unid);
+    Iterable<VerificationSummary> iUsers = this.internalUserRepository.findSummariesByUnid(unid);
     Map<Long, Member> members = new HashMap<>();
     iUsers.forEach(
         iUser -> {
@@ -113,9 +116,9 @@ public class VerificationService {
    */
   public Pair<String, VerificationStatus> getUnidAndStatusByMember(Member member) {
     var iUser =
-        this.internalUserRepository.findDistinctByDiscordUserId(member.getUser().getIdLong());
+        this.internalUserRepository.findSummaryByDiscordUserId(member.getUser().getIdLong());
     return iUser
-        .map(internalUser -> Pair.of(internalUser.getUnid(), internalUser.getVerificationStatus()))
+        .map(summary -> Pair.of(summary.getUnid(), summary.getVerificationStatus()))
         .orElse(Pair.of(null, VerificationStatus.UNVERIFIED));
   }
 
@@ -153,20 +156,23 @@ public class VerificationService {
     }
 
     iUser.markVerified();
-    this.internalUserRepository.save(iUser);
+    iUser = this.internalUserRepository.save(iUser);
+    this.verificationStatusCache.put(iUser);
+    this.roleAssignmentService.markDirty(member.getIdLong());
     this.roleAssignmentService.assignRoles(member);
     this.logService.logInfo(getClass(), "Verification successful.");
   }
 
   /**
    * As long as the member has not already started verification, generates a verification code for
-   * the member and emails it to their u-mail address.
+   * the member and queues an email of it to their u-mail address. The email is sent in the
+   * background, and only if the verification is saved.
    *
    * @param member The member of the guild.
    * @param unid The uNID of the member.
-   * @throws VerificationBeginException If the member has already started verification, or the email
-   *     fails to send.
+   * @throws VerificationBeginException If the member has already started verification.
    */
+  @Transactional(rollbackFor = VerificationBeginException.class)
   public void beginVerification(Member member, String unid) throws VerificationBeginException {
     this.logService.logInfo(
         getClass(),
@@ -197,24 +203,68 @@ public class VerificationService {
     this.logService.logDebug(
         getClass(), "InternalUser created for verification. Code: " + iUser.getVerificationCode());
 
-    try {
-      String verifyUrl =
-          UriComponentsBuilder.fromHttpUrl(System.getenv("EXTERNAL_URL_ROOT"))
-              .path("/verify")
-              .queryParam("memberId", member.getUser().getIdLong())
-              .queryParam("code", iUser.getVerificationCode())
-              .toUriString();
-      this.emailService.sendEmail(
-          unid + "@umail.utah.edu",
-          "<CS @ The U /> Discord Verification",
-          "Hi there!\n\n"
-              + "If you requested verification for the <CS @ The U /> Discord server, you will find a link below. "
-              + "If not, please delete this email and have a great day :)\n\n"
-              + verifyUrl);
-    } catch (MailException e) {
-      this.internalUserRepository.delete(iUser);
-      throw new VerificationBeginException("Could not send verification email.", e);
+    String verifyUrl =
+        UriComponentsBuilder.fromHttpUrl(System.getenv("EXTERNAL_URL_ROOT"))
+            .path("/verify")
+            .queryParam("memberId", member.getUser().getIdLong())
+            .queryParam("code", iUser.getVerificationCode())
+            .toUriString();
+    this.emailService.enqueueEmail(
+        unid + UMAIL_DOMAIN,
+        "<CS @ The U /> Discord Verification",
+        "Hi there!\n\n"
+            + "If you requested verification for the <CS @ The U /> Discord server, you will find a link below. "
+            + "If not, please delete this email and have a great day :)\n\n"
+            + verifyUrl);
+
+    InternalUser savedUser = iUser;
+    afterCommit(() -> this.verificationStatusCache.put(savedUser));
+  }
+
+  /**
+   * Cancels the verifications waiting on an email which could not be sent, so that the members can
+   * begin verification again.
+   *
+   * @param email The email which was given up on.
+   */
+  @Override
+  @Transactional
+  public void onEmailAbandoned(OutboxEmail email) {
+    String recipient = email.getRecipient();
+    if (!recipient.endsWith(UMAIL_DOMAIN)) return;
+    String unid = recipient.substring(0, recipient.length() - UMAIL_DOMAIN.length());
+
+    List<InternalUser> iUsers =
+        this.internalUserRepository.findByUnidAndVerificationStatus(
+            unid, VerificationStatus.CODE_SENT);
+    if (iUsers.isEmpty()) return;
+
+    this.internalUserRepository.deleteAll(iUsers);
+    afterCommit(() -> iUsers.forEach(this.verificationStatusCache::remove));
+    this.logService.logInfo(
+        getClass(),
+        "Cancelled " + iUsers.size() + " verifications for uNID " + unid + " as the email failed.");
+  }
+
+  /**
+   * Runs an action once the current transaction commits, or immediately if there is none, so that
+   * the cache never holds a change which was rolled back.
+   *
+   * @param action The action.
+   */
+  private void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
     }
+
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronizationAdapter() {
+          @Override
+          public void afterCommit() {
+            action.run();
+          }
+        });
   }
 
   private String generateVerificationCode() {
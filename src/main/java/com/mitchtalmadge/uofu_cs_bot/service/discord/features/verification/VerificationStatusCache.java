@@ -0,0 +1,138 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord.features.verification;
+
+import com.mitchtalmadge.uofu_cs_bot.domain.entity.InternalUser;
+import com.mitchtalmadge.uofu_cs_bot.domain.entity.repository.InternalUserRepository;
+import com.mitchtalmadge.uofu_cs_bot.domain.entity.repository.InternalUserRepository.VerificationSummary;
+import com.mitchtalmadge.uofu_cs_bot.service.LogService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds the verification status of every user, by Discord user ID, so that assigning roles to the
+ * whole guild does not query the database once per member.
+ *
+ * <p>Every user is loaded with one query at startup. After that, the cache is kept up to date by
+ * writing through it whenever a user is saved or deleted, so a user missing from the cache is known
+ * to be unverified.
+ */
+@Service
+public class VerificationStatusCache {
+
+  private final LogService logService;
+  private final InternalUserRepository internalUserRepository;
+
+  /** The verification status of each user with an {@link InternalUser}, by Discord user ID. */
+  private final Map<Long, VerificationStatus> statuses = new ConcurrentHashMap<>();
+
+  /** How long loading the cache took, in milliseconds, or -1 if it has not been loaded. */
+  private volatile long loadMillis = -1;
+
+  /** The number of lookups for users in the cache. */
+  private final LongAdder hits = new LongAdder();
+
+  /** The number of lookups for users not in the cache, which are unverified. */
+  private final LongAdder misses = new LongAdder();
+
+  @Autowired
+  public VerificationStatusCache(
+      LogService logService, InternalUserRepository internalUserRepository) {
+    this.logService = logService;
+    this.internalUserRepository = internalUserRepository;
+  }
+
+  /** Loads the status of every user with one query, which selects only the columns needed. */
+  @PostConstruct
+  public void load() {
+    long start = System.nanoTime();
+
+    statuses.clear();
+    for (VerificationSummary iUser : internalUserRepository.findSummariesBy()) {
+      statuses.put(iUser.getDiscordUserId(), iUser.getVerificationStatus());
+    }
+
+    loadMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    logService.logInfo(
+        getClass(),
+        "Loaded the verification status of " + statuses.size() + " users in " + loadMillis + "ms.");
+  }
+
+  /**
+   * @param discordUserId The Discord user ID.
+   * @return The verification status of the user.
+   */
+  public VerificationStatus getStatus(long discordUserId) {
+    VerificationStatus status = statuses.get(discordUserId);
+    if (status == null) {
+      misses.increment();
+      return VerificationStatus.UNVERIFIED;
+    }
+
+    hits.increment();
+    return status;
+  }
+
+  /**
+   * Records the status of a user who has just been saved.
+   *
+   * @param iUser The saved user.
+   */
+  public void put(InternalUser iUser) {
+    statuses.put(iUser.getDiscordUserId(), iUser.getVerificationStatus());
+  }
+
+  /**
+   * Forgets a user who has just been deleted.
+   *
+   * @param iUser The deleted user.
+   */
+  public void remove(InternalUser iUser) {
+    statuses.remove(iUser.getDiscordUserId());
+  }
+
+  /** @return How long loading the cache took, in milliseconds, or -1 if it has not been loaded. */
+  public long getLoadMillis() {
+    return loadMillis;
+  }
+
+  /** @return The number of lookups for users in the cache. */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /** @return The number of lookups for users not in the cache. */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /** @return The fraction of lookups for users in the cache, or 0 if there have been none. */
+  public double getHitRate() {
+    long hits = this.hits.sum();
+    long lookups = hits + misses.sum();
+    return lookups == 0 ? 0 : (double) hits / lookups;
+  }
+
+  /** Logs the size and hit rate of the cache every minute. */
+  @Scheduled(fixedRate = 60_000, initialDelay = 60_000)
+  protected void reportMetrics() {
+    logService.logDebug(
+        getClass(),
+        "Users: "
+            + statuses.size()
+            + " | Load Time: "
+            + loadMillis
+            + "ms | Hits: "
+            + hits.sum()
+            + " | Misses: "
+            + misses.sum()
+            + " | Hit Rate: "
+            + String.format("%.2f", getHitRate() * 100)
+            + "%");
+  }
+}
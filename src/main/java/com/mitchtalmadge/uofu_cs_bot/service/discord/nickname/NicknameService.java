@@ -1,37 +1,77 @@
 package com.mitchtalmadge.uofu_cs_bot.service.discord.nickname;
 
 import com.mitchtalmadge.uofu_cs_bot.domain.cs.CSNickname;
+import com.mitchtalmadge.uofu_cs_bot.domain.entity.NicknameChange;
+import com.mitchtalmadge.uofu_cs_bot.domain.entity.repository.NicknameChangeRepository;
 import com.mitchtalmadge.uofu_cs_bot.service.LogService;
 import com.mitchtalmadge.uofu_cs_bot.service.discord.DiscordService;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.RestActionPipeline;
 import com.mitchtalmadge.uofu_cs_bot.util.DiscordUtils;
 import net.dv8tion.jda.api.audit.ActionType;
+import net.dv8tion.jda.api.audit.AuditLogEntry;
 import net.dv8tion.jda.api.audit.AuditLogKey;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.requests.restaction.pagination.AuditLogPaginationAction;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * This service is for working with user nicknames which are an integral part of the permission
  * system.
+ *
+ * <p>The time of each member's latest nickname change is kept in the database as nickname change
+ * events arrive, so that stale nicknames can be found without reading the audit log. Once the bot
+ * has started, changes missed while it was offline are filled in from the audit log in the
+ * background, going back no further than the oldest change that clearing nicknames looks at.
  */
 @Service
 public class NicknameService {
 
+  /** The number of days after which a nickname which has not been changed is stale. */
+  public static final int STALE_NICKNAME_DAYS = 30;
+
   private final LogService logService;
   private final DiscordService discordService;
+  private final RestActionPipeline restActionPipeline;
+  private final NicknameChangeRepository nicknameChangeRepository;
   private Set<NicknameValidator> nicknameValidators;
 
+  /** When the bot started, before any nickname change event could be recorded. */
+  private Instant backfillStart;
+
+  /** The time back to which the audit log is read by the backfill. */
+  private OffsetDateTime backfillCutoff;
+
+  /** The number of audit log pages fetched while looking for nickname changes. */
+  private final LongAdder auditLogPagesFetched = new LongAdder();
+
   @Autowired
   public NicknameService(
       LogService logService,
       DiscordService discordService,
+      RestActionPipeline restActionPipeline,
+      NicknameChangeRepository nicknameChangeRepository,
       Set<NicknameValidator> nicknameValidators) {
     this.logService = logService;
     this.discordService = discordService;
+    this.restActionPipeline = restActionPipeline;
+    this.nicknameChangeRepository = nicknameChangeRepository;
     this.nicknameValidators = nicknameValidators;
   }
 
@@ -46,42 +86,52 @@ public class NicknameService {
    * @param member The member.
    */
   public void validateNickname(Member member) {
+    String nickname = findNickname(member);
+    if (nickname == null) return;
+
+    logService.logInfo(
+        getClass(),
+        "Adjusted nickname for member "
+            + member.getUser().getName()
+            + " from '"
+            + member.getNickname()
+            + "' to '"
+            + nickname
+            + "'.");
+
+    // Submit change.
+    this.restActionPipeline.submit(
+        this.discordService.getGuild().modifyNickname(member, nickname),
+        (success) -> {},
+        (error) ->
+            logService.logError(
+                getClass(),
+                "Could not adjust nickname for member " + member.getUser().getName() + "."));
+  }
+
+  /**
+   * Works out the nickname that a member should have, without changing it.
+   *
+   * @param member The member.
+   * @return The nickname the member should have, or null if their nickname is already valid (or is
+   *     not ours to change).
+   */
+  public String findNickname(Member member) {
     if (DiscordUtils.hasEqualOrHigherRole(discordService.getGuild().getSelfMember(), member))
-      return;
+      return null;
 
     logService.logDebug(
         getClass(), "Validating nickname for member " + member.getUser().getName() + ".");
 
-    if (member.getNickname() == null) return;
+    if (member.getNickname() == null) return null;
 
+    String validNickname = null;
     for (NicknameValidator nicknameValidator : nicknameValidators) {
       String nickname = nicknameValidator.assignNickname(member);
-
-      // Submit change.
-      if (!member.getNickname().equals(nickname)) {
-        logService.logInfo(
-            getClass(),
-            "Adjusted nickname for member "
-                + member.getUser().getName()
-                + " from '"
-                + member.getNickname()
-                + "' to '"
-                + nickname
-                + "'.");
-        this.discordService
-            .getGuild()
-            .modifyNickname(member, nickname)
-            .queue(
-                (success) -> {},
-                (error) ->
-                    logService.logException(
-                        getClass(),
-                        error,
-                        "Could not adjust nickname for member "
-                            + member.getUser().getName()
-                            + "."));
-      }
+      if (!member.getNickname().equals(nickname)) validNickname = nickname;
     }
+
+    return validNickname;
   }
 
   /** Clears the nicknames (leaves the name but removes course numbers) of all members. */
@@ -99,8 +149,10 @@ public class NicknameService {
   public void clearNicknamesOlderThanDays(int days) {
     this.logService.logInfo(getClass(), "Clearing nicknames older than " + days + " days.");
 
-    AuditLogPaginationAction updateLogs =
-        this.discordService.getGuild().retrieveAuditLogs().type(ActionType.MEMBER_UPDATE);
+    Set<Long> recentlyUpdatedIds = new HashSet<>();
+    this.nicknameChangeRepository
+        .findAllByChangedAtAfter(Instant.now().minus(days, ChronoUnit.DAYS))
+        .forEach(change -> recentlyUpdatedIds.add(change.getDiscordUserId()));
 
     this.discordService
         .getGuild()
@@ -110,24 +162,7 @@ public class NicknameService {
               this.logService.logDebug(
                   getClass(), "Checking nickname age for " + member.getEffectiveName());
 
-              boolean recentlyUpdated =
-                  updateLogs.stream()
-                      .anyMatch(
-                          (log) -> {
-                            // Make sure the change was targeted on this user.
-                            if (!log.getTargetId().equals(member.getUser().getId())) {
-                              return false;
-                            }
-
-                            // Make sure the change was a nickname change.
-                            if (!log.getChanges().containsKey(AuditLogKey.MEMBER_NICK.getKey())) {
-                              return false;
-                            }
-
-                            // Check age.
-                            return log.getTimeCreated()
-                                .isAfter(OffsetDateTime.now().minusDays(days));
-                          });
+              boolean recentlyUpdated = recentlyUpdatedIds.contains(member.getUser().getIdLong());
 
               if (!recentlyUpdated) {
                 this.logService.logDebug(
@@ -148,6 +183,122 @@ public class NicknameService {
             });
   }
 
+  /**
+   * Records that a member has just changed their nickname.
+   *
+   * @param userId The ID of the member.
+   */
+  public synchronized void recordNicknameChange(long userId) {
+    this.nicknameChangeRepository.save(new NicknameChange(userId, Instant.now()));
+  }
+
+  /**
+   * Works out how far back the backfill must read: to the latest change recorded before the bot
+   * started, but no further than {@link #STALE_NICKNAME_DAYS}, as older changes make no difference
+   * to which nicknames are stale. This runs before the event listeners are registered, so no change
+   * recorded from an event can move the cutoff past the changes missed while offline.
+   */
+  @PostConstruct
+  public void prepareBackfill() {
+    backfillStart = Instant.now();
+    OffsetDateTime oldestNeeded =
+        backfillStart.minus(STALE_NICKNAME_DAYS, ChronoUnit.DAYS).atOffset(ZoneOffset.UTC);
+    backfillCutoff =
+        this.nicknameChangeRepository
+            .findTopByOrderByChangedAtDesc()
+            .map(change -> change.getChangedAt().atOffset(ZoneOffset.UTC))
+            .filter(latest -> latest.isAfter(oldestNeeded))
+            .orElse(oldestNeeded);
+  }
+
+  /**
+   * Fills in the nickname changes made since the cutoff found by {@link #prepareBackfill()} (such
+   * as while the bot was offline) from the audit log, in the background once the bot has started.
+   * Changes recorded from events since the bot started are newer, and are kept.
+   */
+  @Async
+  @EventListener(ApplicationReadyEvent.class)
+  public void backfillNicknameChanges() {
+    try {
+      AuditLogPaginationAction updateLogs =
+          this.discordService.getGuild().retrieveAuditLogs().type(ActionType.MEMBER_UPDATE);
+      Map<Long, OffsetDateTime> nicknameChanges =
+          findNicknameChangesSince(updateLogs, backfillCutoff);
+
+      // Hold off recording events until the backfill is saved, so that none is overwritten.
+      synchronized (this) {
+        this.nicknameChangeRepository
+            .findAllByChangedAtAfter(backfillStart)
+            .forEach(change -> nicknameChanges.remove(change.getDiscordUserId()));
+
+        List<NicknameChange> changes = new ArrayList<>();
+        nicknameChanges.forEach(
+            (userId, time) -> changes.add(new NicknameChange(userId, time.toInstant())));
+        this.nicknameChangeRepository.saveAll(changes);
+      }
+    } catch (RuntimeException e) {
+      // The events will still be recorded, so this is not fatal.
+      this.logService.logException(getClass(), e, "Could not backfill nickname changes.");
+    }
+  }
+
+  /**
+   * Reads the audit log once, newest entries first, until the cutoff, and finds when each member
+   * last changed their nickname.
+   *
+   * @param updateLogs The member update entries of the audit log.
+   * @param cutoff The time before which changes are not needed.
+   * @return The time of the latest nickname change of each member who changed it after the cutoff,
+   *     by user ID.
+   */
+  Map<Long, OffsetDateTime> findNicknameChangesSince(
+      AuditLogPaginationAction updateLogs, OffsetDateTime cutoff) {
+    Map<Long, OffsetDateTime> nicknameChanges = new HashMap<>();
+    int pageSize = updateLogs.getMaxLimit();
+    updateLogs = updateLogs.limit(pageSize);
+
+    int pages = 0;
+    int entries = 0;
+    boolean reachedCutoff = false;
+    while (!reachedCutoff) {
+      // Each completion retrieves the page after the last one retrieved.
+      List<AuditLogEntry> page = updateLogs.complete();
+      pages++;
+      auditLogPagesFetched.increment();
+
+      for (AuditLogEntry entry : page) {
+        if (!entry.getTimeCreated().isAfter(cutoff)) {
+          reachedCutoff = true;
+          break;
+        }
+        entries++;
+
+        // Entries are newest first, so the first nickname change found is the latest.
+        if (entry.getChanges().containsKey(AuditLogKey.MEMBER_NICK.getKey()))
+          nicknameChanges.putIfAbsent(entry.getTargetIdLong(), entry.getTimeCreated());
+      }
+
+      // A short page is the end of the audit log.
+      if (page.size() < pageSize) break;
+    }
+
+    this.logService.logInfo(
+        getClass(),
+        "Read "
+            + entries
+            + " audit log entries in "
+            + pages
+            + " pages, finding "
+            + nicknameChanges.size()
+            + " members with recent nickname changes.");
+    return nicknameChanges;
+  }
+
+  /** @return The number of audit log pages fetched while looking for nickname changes. */
+  public long getAuditLogPagesFetched() {
+    return auditLogPagesFetched.sum();
+  }
+
   /**
    * Clears the nickname (leaves the name but removes course numbers) of one member.
    *
@@ -172,16 +323,13 @@ public class NicknameService {
     if (!member.getNickname().equals(nickname)) {
       logService.logInfo(
           getClass(), "Cleared nickname for member " + member.getUser().getName() + ".");
-      this.discordService
-          .getGuild()
-          .modifyNickname(member, nickname)
-          .queue(
-              (success) -> {},
-              (error) ->
-                  logService.logException(
-                      getClass(),
-                      error,
-                      "Could not clear nickname for member " + member.getUser().getName() + "."));
+      this.restActionPipeline.submit(
+          this.discordService.getGuild().modifyNickname(member, nickname),
+          (success) -> {},
+          (error) ->
+              logService.logError(
+                  getClass(),
+                  "Could not clear nickname for member " + member.getUser().getName() + "."));
     }
   }
 }
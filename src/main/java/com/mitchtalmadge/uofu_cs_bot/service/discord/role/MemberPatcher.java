@@ -0,0 +1,95 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord.role;
+
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.exceptions.HierarchyException;
+import net.dv8tion.jda.api.exceptions.InsufficientPermissionException;
+import net.dv8tion.jda.api.requests.restaction.AuditableRestAction;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.internal.requests.Route;
+import net.dv8tion.jda.internal.requests.restaction.AuditableRestActionImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Changes the nickname and the Roles of a member in one request. JDA only offers a separate action
+ * for each, but both are fields of the same member resource, so they can be sent together.
+ *
+ * <p>Since the request is built directly, the checks which JDA's own actions make before sending
+ * are made here instead, so that a request which is bound to be refused is never sent.
+ */
+@Component
+public class MemberPatcher {
+
+  /**
+   * Creates the request which changes both the nickname and the Roles of a member.
+   *
+   * @param guild The Guild of the member.
+   * @param member The member.
+   * @param nickname The new nickname.
+   * @param rolesToAdd The Roles to add.
+   * @param rolesToRemove The Roles to remove.
+   * @return The request, which will be queued later.
+   * @throws InsufficientPermissionException If the bot may not manage Roles or nicknames.
+   * @throws HierarchyException If the member or one of the Roles is not below the bot's highest
+   *     Role.
+   * @throws IllegalArgumentException If one of the Roles is managed or is the public Role.
+   */
+  public AuditableRestAction<Void> modifyMember(
+      Guild guild,
+      Member member,
+      String nickname,
+      Set<Role> rolesToAdd,
+      Set<Role> rolesToRemove) {
+    Member selfMember = guild.getSelfMember();
+    if (!selfMember.hasPermission(Permission.MANAGE_ROLES))
+      throw new InsufficientPermissionException(guild, Permission.MANAGE_ROLES);
+    if (!selfMember.hasPermission(Permission.NICKNAME_MANAGE))
+      throw new InsufficientPermissionException(guild, Permission.NICKNAME_MANAGE);
+    if (!selfMember.canInteract(member))
+      throw new HierarchyException(
+          "Cannot modify a member with a higher or equal highest role than yourself!");
+
+    Set<Role> changedRoles = new LinkedHashSet<>(rolesToAdd);
+    changedRoles.addAll(rolesToRemove);
+    for (Role role : changedRoles) {
+      if (!selfMember.canInteract(role))
+        throw new HierarchyException(
+            "Cannot modify a role with higher or equal highest role than yourself! Role: "
+                + role.getName());
+      if (role.isManaged() || role.isPublicRole())
+        throw new IllegalArgumentException(
+            "Cannot add or remove a managed role or the public role. Role: " + role.getName());
+    }
+
+    Set<Role> roles = new LinkedHashSet<>(member.getRoles());
+    roles.removeAll(rolesToRemove);
+    roles.addAll(rolesToAdd);
+
+    DataObject body =
+        DataObject.empty()
+            .put("nick", nickname)
+            .put("roles", roles.stream().map(Role::getId).collect(Collectors.toList()));
+    return createRequest(guild, member, body);
+  }
+
+  /**
+   * Creates the PATCH request for a member.
+   *
+   * @param guild The Guild of the member.
+   * @param member The member.
+   * @param body The fields of the member to change.
+   * @return The request.
+   */
+  protected AuditableRestAction<Void> createRequest(Guild guild, Member member, DataObject body) {
+    return new AuditableRestActionImpl<>(
+        guild.getJDA(),
+        Route.Guilds.MODIFY_MEMBER.compile(guild.getId(), member.getUser().getId()),
+        body);
+  }
+}
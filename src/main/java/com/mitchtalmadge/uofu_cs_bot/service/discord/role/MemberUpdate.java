@@ -0,0 +1,81 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord.role;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.requests.RestAction;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * The changes to make to one member: a new nickname, and Roles to add and remove. When both change,
+ * they are sent as one request, since both are fields of the same member resource.
+ */
+final class MemberUpdate {
+
+  private final Member member;
+
+  /** The new nickname, or null to leave the nickname alone. */
+  private final String nickname;
+
+  private final Set<Role> rolesToAdd;
+  private final Set<Role> rolesToRemove;
+
+  /**
+   * @param member The member.
+   * @param nickname The new nickname, or null to leave the nickname alone.
+   * @param rolesToAdd The Roles to add.
+   * @param rolesToRemove The Roles to remove.
+   */
+  MemberUpdate(Member member, String nickname, Set<Role> rolesToAdd, Set<Role> rolesToRemove) {
+    this.member = member;
+    this.nickname = nickname;
+    this.rolesToAdd = Collections.unmodifiableSet(rolesToAdd);
+    this.rolesToRemove = Collections.unmodifiableSet(rolesToRemove);
+  }
+
+  /** @return True if the update changes nothing. */
+  boolean isEmpty() {
+    return !changesNickname() && !changesRoles();
+  }
+
+  boolean changesNickname() {
+    return nickname != null;
+  }
+
+  boolean changesRoles() {
+    return !rolesToAdd.isEmpty() || !rolesToRemove.isEmpty();
+  }
+
+  /**
+   * Creates the request which makes the changes. Only one request is made, even when both the Roles
+   * and the nickname change.
+   *
+   * @param guild The Guild of the member.
+   * @param memberPatcher Creates the request when both the Roles and the nickname change.
+   * @return The request, which will be queued later.
+   */
+  RestAction<Void> createAction(Guild guild, MemberPatcher memberPatcher) {
+    if (!changesNickname()) return guild.modifyMemberRoles(member, rolesToAdd, rolesToRemove);
+    if (!changesRoles()) return guild.modifyNickname(member, nickname);
+
+    return memberPatcher.modifyMember(guild, member, nickname, rolesToAdd, rolesToRemove);
+  }
+
+  public Member getMember() {
+    return member;
+  }
+
+  public String getNickname() {
+    return nickname;
+  }
+
+  public Set<Role> getRolesToAdd() {
+    return rolesToAdd;
+  }
+
+  public Set<Role> getRolesToRemove() {
+    return rolesToRemove;
+  }
+}
@@ -1,10 +1,12 @@
 package com.mitchtalmadge.uofu_cs_bot.service.discord.role;
 
+import com.mitchtalmadge.uofu_cs_bot.service.discord.SynchronizationScope;
 import com.mitchtalmadge.uofu_cs_bot.util.InheritedComponent;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.Role;
 
 import java.util.Set;
+import java.util.function.LongConsumer;
 
 /** Provides the structure for assigning roles to users. */
 @InheritedComponent
@@ -21,4 +23,13 @@ public abstract class RoleAssigner {
    */
   public abstract void updateRoleAssignments(
       Member member, Set<Role> rolesToAdd, Set<Role> rolesToRemove);
+
+  /**
+   * Finds the members whose assignments may have changed within a limited scope, such as the
+   * members of Courses which were just enabled. By default, there are none.
+   *
+   * @param scope A scope which is limited to particular Courses and Clubs.
+   * @param memberIds Accepts the ID of each member found.
+   */
+  public void findMembersInScope(SynchronizationScope scope, LongConsumer memberIds) {}
 }
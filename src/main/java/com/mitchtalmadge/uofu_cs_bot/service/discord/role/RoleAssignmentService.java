@@ -2,47 +2,390 @@ package com.mitchtalmadge.uofu_cs_bot.service.discord.role;
 
 import com.mitchtalmadge.uofu_cs_bot.service.LogService;
 import com.mitchtalmadge.uofu_cs_bot.service.discord.DiscordService;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.RestActionPipeline;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.SynchronizationScope;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.nickname.NicknameService;
+import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.exceptions.PermissionException;
+import net.dv8tion.jda.api.requests.RestAction;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 /**
  * This service provides the ability to trigger the functionality of assigning or un-assigning
  * various roles of users.
+ *
+ * <p>Members whose roles may be out of date are tracked as dirty, so that synchronization only
+ * needs to visit those members. A background sweep visits the rest of the members a slice at a
+ * time, to catch anything that was missed. The sweep runs on its own thread, since it waits on the
+ * pipeline. A member left dirty by a pass which validated nicknames has their nickname validated
+ * when they are next visited.
+ *
+ * <p>Only members whose roles actually need to change cost a request. The updates of a pass are
+ * drained through the {@link RestActionPipeline}, whose window and JDA's route rate limits pace
+ * them, and each pass sends at most a configured number of updates. Members beyond that budget stay
+ * dirty and are picked up by the next sweep.
+ *
+ * <p>When a member's nickname is validated at the same time, the member is only visited once, and
+ * their new nickname and Roles are sent in one request, which is retried as a whole if it fails.
  */
 @Service
-public class RoleAssignmentService {
+public class RoleAssignmentService implements DisposableBean {
 
   private LogService logService;
   private DiscordService discordService;
+  private RestActionPipeline restActionPipeline;
+  private NicknameService nicknameService;
+  private MemberPatcher memberPatcher;
   private Set<RoleAssigner> roleAssigners;
 
+  /** The maximum number of role updates sent by each pass over the members. */
+  private final int updateBudget;
+
+  /** The number of members visited by each run of the background sweep. */
+  private final int sweepSliceSize;
+
+  /** How long to wait between runs of the background sweep, in milliseconds. */
+  private final long sweepIntervalMillis;
+
+  private final ScheduledExecutorService sweeper =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "role-sweep");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  /**
+   * The IDs of the members whose roles may be out of date, mapped to whether their nicknames should
+   * be validated too.
+   */
+  private final Map<Long, Boolean> dirtyMembers = new ConcurrentHashMap<>();
+
+  /** The index in the member list at which the next sweep slice starts. */
+  private int sweepPosition = 0;
+
+  /** The number of members whose roles were already correct, so no update was sent. */
+  private final LongAdder skippedUpdates = new LongAdder();
+
+  /** The number of role updates which succeeded. */
+  private final LongAdder completedUpdates = new LongAdder();
+
+  /** The number of role updates which also changed the nickname, in the same request. */
+  private final LongAdder combinedUpdates = new LongAdder();
+
+  /** The number of role updates which failed. */
+  private final LongAdder failedUpdates = new LongAdder();
+
+  /** The number of role updates left for a later pass because a pass ran out of budget. */
+  private final LongAdder deferredUpdates = new LongAdder();
+
   @Autowired
   public RoleAssignmentService(
-      LogService logService, DiscordService discordService, Set<RoleAssigner> roleAssigners) {
+      LogService logService,
+      DiscordService discordService,
+      RestActionPipeline restActionPipeline,
+      NicknameService nicknameService,
+      MemberPatcher memberPatcher,
+      Set<RoleAssigner> roleAssigners,
+      @Value("${discord.sync.sweep-slice-size}") int sweepSliceSize,
+      @Value("${discord.sync.sweep-interval-ms}") long sweepIntervalMillis,
+      @Value("${discord.sync.role-update-budget}") int updateBudget) {
     this.logService = logService;
     this.discordService = discordService;
+    this.restActionPipeline = restActionPipeline;
+    this.nicknameService = nicknameService;
+    this.memberPatcher = memberPatcher;
     this.roleAssigners = roleAssigners;
+    this.sweepSliceSize = sweepSliceSize;
+    this.sweepIntervalMillis = sweepIntervalMillis;
+    this.updateBudget = updateBudget;
+  }
+
+  /** Starts the background sweep. */
+  @PostConstruct
+  public void startSweep() {
+    sweeper.scheduleWithFixedDelay(
+        () -> {
+          // An exception would cancel every later run.
+          try {
+            sweepMembers();
+          } catch (RuntimeException e) {
+            logService.logException(getClass(), e, "The member sweep failed.");
+          }
+        },
+        sweepIntervalMillis,
+        sweepIntervalMillis,
+        TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void destroy() {
+    sweeper.shutdownNow();
+  }
+
+  /**
+   * Marks a member's roles as possibly out of date, until their roles are next assigned.
+   *
+   * @param memberId The ID of the member.
+   */
+  public void markDirty(long memberId) {
+    markDirty(memberId, false);
+  }
+
+  /**
+   * Marks a member's roles as possibly out of date, until their roles are next assigned.
+   *
+   * @param memberId The ID of the member.
+   * @param withNickname Whether their nickname should be validated too when they are next visited.
+   */
+  private void markDirty(long memberId, boolean withNickname) {
+    dirtyMembers.merge(memberId, withNickname, Boolean::logicalOr);
+  }
+
+  /**
+   * Clears the dirty mark of a member.
+   *
+   * @param memberId The ID of the member.
+   * @param withNickname Whether the nickname of the member is to be validated on this visit.
+   * @return Whether the nickname of the member should be validated on this visit, which is also the
+   *     case if they were left dirty by a pass which validated nicknames.
+   */
+  private boolean clearDirtyMark(long memberId, boolean withNickname) {
+    Boolean dirtyWithNickname = dirtyMembers.remove(memberId);
+    return withNickname || Boolean.TRUE.equals(dirtyWithNickname);
+  }
+
+  /** @return The number of members whose roles may be out of date. */
+  public int getDirtyMemberCount() {
+    return dirtyMembers.size();
   }
 
   /** Updates the role assignments for all members. */
   public void assignRoles() {
-    for (Member member : discordService.getGuild().getMembers()) {
-      assignRoles(member);
+    int sentUpdates = drainUpdates(discordService.getGuild().getMembers(), false);
+    logService.logInfo(getClass(), "Sent role updates for " + sentUpdates + " members.");
+  }
+
+  /** Validates the nicknames and updates the role assignments of all members. */
+  public void reconcileMembers() {
+    int sentUpdates = drainUpdates(discordService.getGuild().getMembers(), true);
+    logService.logInfo(getClass(), "Sent member updates for " + sentUpdates + " members.");
+  }
+
+  /**
+   * Updates the role assignments for the members affected by a synchronization. When the scope is
+   * not limited, this is every member. Otherwise, it is the dirty members and the members which the
+   * {@link RoleAssigner}s find within the scope.
+   *
+   * @param scope The scope of the synchronization.
+   */
+  public void assignRoles(SynchronizationScope scope) {
+    if (!scope.isLimited()) {
+      assignRoles();
+      return;
+    }
+
+    for (RoleAssigner roleAssigner : roleAssigners) {
+      roleAssigner.findMembersInScope(scope, this::markDirty);
+    }
+
+    int sentUpdates = assignDirtyMembers();
+    logService.logInfo(getClass(), "Sent role updates for " + sentUpdates + " dirty members.");
+  }
+
+  /**
+   * Updates the role assignments of every dirty member.
+   *
+   * @return The number of updates sent.
+   */
+  private int assignDirtyMembers() {
+    Guild guild = discordService.getGuild();
+
+    List<Member> members = new ArrayList<>();
+    for (Long memberId : new ArrayList<>(dirtyMembers.keySet())) {
+      Member member = guild.getMemberById(memberId);
+      if (member == null) {
+        // The member has left.
+        dirtyMembers.remove(memberId);
+        continue;
+      }
+
+      members.add(member);
+    }
+
+    return drainUpdates(members, false);
+  }
+
+  /**
+   * Works out the changes to some members, and sends an update for each member that needs one, up
+   * to the update budget. Members beyond the budget are marked dirty, remembering whether their
+   * nicknames are to be validated.
+   *
+   * @param members The members.
+   * @param withNicknames Whether to validate the nicknames of the members too.
+   * @return The number of updates sent.
+   */
+  private int drainUpdates(Iterable<Member> members, boolean withNicknames) {
+    Guild guild = discordService.getGuild();
+
+    int sentUpdates = 0;
+    for (Member member : members) {
+      boolean withNickname = clearDirtyMark(member.getIdLong(), withNicknames);
+      MemberUpdate update = findUpdate(member, withNickname);
+      if (update == null) continue;
+
+      if (sentUpdates >= updateBudget) {
+        deferredUpdates.increment();
+        markDirty(member.getIdLong(), withNickname);
+        continue;
+      }
+
+      RestAction<Void> action = createAction(guild, update);
+      if (action == null) continue;
+
+      logUpdate(update);
+      restActionPipeline.submit(
+          action,
+          success -> countCompletedUpdate(update),
+          failure -> {
+            // Try again on the next pass.
+            failedUpdates.increment();
+            markDirty(member.getIdLong(), withNickname);
+          });
+      sentUpdates++;
     }
+
+    return sentUpdates;
+  }
+
+  /**
+   * Sweeps through the members in the background. Each run updates the dirty members, and then the
+   * next slice of all members, so that every member is eventually checked even if nothing marked
+   * them as dirty.
+   */
+  protected void sweepMembers() {
+    int dirtyUpdates = assignDirtyMembers();
+
+    List<Member> members = discordService.getGuild().getMembers();
+    if (members.isEmpty()) return;
+
+    int sliceSize = Math.min(sweepSliceSize, members.size());
+    if (sweepPosition >= members.size()) sweepPosition = 0;
+    List<Member> slice = new ArrayList<>(sliceSize);
+    for (int i = 0; i < sliceSize; i++) {
+      slice.add(members.get((sweepPosition + i) % members.size()));
+    }
+    sweepPosition = (sweepPosition + sliceSize) % members.size();
+    int sliceUpdates = drainUpdates(slice, false);
+
+    logService.logDebug(
+        getClass(),
+        "Swept "
+            + sliceSize
+            + " of "
+            + members.size()
+            + " members | Updates for dirty members: "
+            + dirtyUpdates
+            + " | Updates for the slice: "
+            + sliceUpdates);
   }
 
   /**
-   * Updates the role assignments for one member.
+   * Updates the role assignments for one member. Nothing is sent if their roles are correct.
    *
    * @param member The member to update.
    */
   public void assignRoles(Member member) {
+    sendUpdate(findUpdate(member, clearDirtyMark(member.getIdLong(), false)));
+  }
+
+  /**
+   * Validates the nickname and updates the role assignments of one member, in one update. Nothing
+   * is sent if both are correct.
+   *
+   * @param member The member to update.
+   */
+  public void reconcileMember(Member member) {
+    sendUpdate(findUpdate(member, clearDirtyMark(member.getIdLong(), true)));
+  }
+
+  /**
+   * Sends an update for one member immediately.
+   *
+   * @param update The update, or null if there is nothing to send.
+   */
+  private void sendUpdate(MemberUpdate update) {
+    if (update == null) return;
+
+    RestAction<Void> action = createAction(discordService.getGuild(), update);
+    if (action == null) return;
+
+    Member member = update.getMember();
+    boolean withNickname = update.changesNickname();
+    logUpdate(update);
+
+    action.queue(
+        (success) -> countCompletedUpdate(update),
+        (error) -> {
+          // Try again on the next pass.
+          failedUpdates.increment();
+          markDirty(member.getIdLong(), withNickname);
+          logService.logException(
+              getClass(),
+              error,
+              "Could not modify roles for member " + member.getUser().getName() + ".");
+        });
+  }
+
+  /**
+   * Creates the request for an update. An update which the bot is not allowed to make is counted as
+   * failed instead, so that it does not stop the rest of the pass. The member is not marked dirty,
+   * since trying again cannot help until their Roles change.
+   *
+   * @param guild The Guild of the member.
+   * @param update The update.
+   * @return The request, or null if the bot is not allowed to make the update.
+   */
+  private RestAction<Void> createAction(Guild guild, MemberUpdate update) {
+    try {
+      return update.createAction(guild, memberPatcher);
+    } catch (PermissionException | IllegalArgumentException e) {
+      failedUpdates.increment();
+      logService.logException(
+          getClass(),
+          e,
+          "Not allowed to modify member " + update.getMember().getUser().getName() + ".");
+      return null;
+    }
+  }
+
+  /**
+   * Works out the changes to make to a member.
+   *
+   * @param member The member.
+   * @param withNickname Whether to validate the nickname of the member too.
+   * @return The changes, or null if the member is already correct.
+   */
+  private MemberUpdate findUpdate(Member member, boolean withNickname) {
     logService.logDebug(getClass(), "Assigning roles for member " + member.getUser().getName());
 
     Set<Role> rolesToAdd = new HashSet<>();
@@ -52,32 +395,107 @@ public class RoleAssignmentService {
       roleAssigner.updateRoleAssignments(member, rolesToAdd, rolesToRemove);
     }
 
+    String nickname = withNickname ? nicknameService.findNickname(member) : null;
+
+    MemberUpdate update = new MemberUpdate(member, nickname, rolesToAdd, rolesToRemove);
+    if (update.isEmpty()) {
+      skippedUpdates.increment();
+      return null;
+    }
+
+    return update;
+  }
+
+  /**
+   * Counts an update which succeeded.
+   *
+   * @param update The update.
+   */
+  private void countCompletedUpdate(MemberUpdate update) {
+    completedUpdates.increment();
+    if (update.changesNickname() && update.changesRoles()) combinedUpdates.increment();
+  }
+
+  /**
+   * Logs the changes being made to a member.
+   *
+   * @param update The changes.
+   */
+  private void logUpdate(MemberUpdate update) {
+    Member member = update.getMember();
+
+    // Log the new nickname.
+    if (update.changesNickname()) {
+      logService.logInfo(
+          getClass(),
+          "Adjusting nickname for member "
+              + member.getUser().getName()
+              + " from '"
+              + member.getNickname()
+              + "' to '"
+              + update.getNickname()
+              + "'.");
+    }
+
     // Log the added roles.
-    if (!rolesToAdd.isEmpty()) {
-      Set<String> addRoleNames = rolesToAdd.stream().map(Role::getName).collect(Collectors.toSet());
+    if (!update.getRolesToAdd().isEmpty()) {
+      Set<String> addRoleNames =
+          update.getRolesToAdd().stream().map(Role::getName).collect(Collectors.toSet());
       logService.logInfo(
           getClass(), "Adding roles " + addRoleNames + " to member " + member.getUser().getName());
     }
 
     // Log the removed roles.
-    if (!rolesToRemove.isEmpty()) {
+    if (!update.getRolesToRemove().isEmpty()) {
       Set<String> removeRoleNames =
-          rolesToRemove.stream().map(Role::getName).collect(Collectors.toSet());
+          update.getRolesToRemove().stream().map(Role::getName).collect(Collectors.toSet());
       logService.logInfo(
           getClass(),
           "Removing roles " + removeRoleNames + " from member " + member.getUser().getName());
     }
+  }
+
+  /** @return The number of members whose roles were already correct, so no update was sent. */
+  public long getSkippedUpdateCount() {
+    return skippedUpdates.sum();
+  }
+
+  /** @return The number of role updates which succeeded. */
+  public long getCompletedUpdateCount() {
+    return completedUpdates.sum();
+  }
+
+  /** @return The number of role updates which also changed the nickname. */
+  public long getCombinedUpdateCount() {
+    return combinedUpdates.sum();
+  }
+
+  /** @return The number of role updates which failed. */
+  public long getFailedUpdateCount() {
+    return failedUpdates.sum();
+  }
+
+  /** @return The number of role updates left for a later pass because a pass ran out of budget. */
+  public long getDeferredUpdateCount() {
+    return deferredUpdates.sum();
+  }
 
-    // Modify the roles.
-    discordService
-        .getGuild()
-        .modifyMemberRoles(member, rolesToAdd, rolesToRemove)
-        .queue(
-            (success) -> {},
-            (error) ->
-                logService.logException(
-                    getClass(),
-                    error,
-                    "Could not modify roles for member " + member.getUser().getName() + "."));
+  /** Logs the role update counts every minute. */
+  @Scheduled(fixedRate = 60_000, initialDelay = 60_000)
+  protected void reportMetrics() {
+    logService.logDebug(
+        getClass(),
+        "Skipped: "
+            + skippedUpdates.sum()
+            + " | Completed: "
+            + completedUpdates.sum()
+            + " | Combined: "
+            + combinedUpdates.sum()
+            + " | Failed: "
+            + failedUpdates.sum()
+            + " | Deferred: "
+            + deferredUpdates.sum()
+            + " | Dirty: "
+            + dirtyMembers.size());
   }
 }
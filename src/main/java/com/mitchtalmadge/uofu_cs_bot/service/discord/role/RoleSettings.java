@@ -0,0 +1,127 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord.role;
+
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.managers.RoleManager;
+
+import java.awt.*;
+import java.util.Objects;
+
+/**
+ * The desired settings of a Role. Comparing these with the cached Role lets synchronization send a
+ * {@link RoleManager} only for the fields which actually differ.
+ */
+public final class RoleSettings {
+
+  /** Field bit: the name differs. */
+  static final int NAME = 1;
+  /** Field bit: the color differs. */
+  static final int COLOR = 1 << 1;
+  /** Field bit: whether the role is hoisted differs. */
+  static final int HOISTED = 1 << 2;
+  /** Field bit: whether the role is mentionable differs. */
+  static final int MENTIONABLE = 1 << 3;
+  /** Field bit: the permissions differ. */
+  static final int PERMISSIONS = 1 << 4;
+
+  /** The name, or null to leave the name alone. */
+  private final String name;
+
+  /** The 24 bit RGB color. 0 means no color, as it does for Discord. */
+  private final int color;
+
+  private final boolean hoisted;
+  private final boolean mentionable;
+
+  /** The raw permission bitmask. */
+  private final long permissions;
+
+  /**
+   * @param name The name, or null to leave the name alone.
+   * @param color The color, or null for no color.
+   * @param hoisted True if the role should be displayed separately in the user list.
+   * @param mentionable True if the role can be mentioned.
+   * @param permissions The permissions of the role.
+   */
+  public RoleSettings(
+      String name, Color color, boolean hoisted, boolean mentionable, Permission... permissions) {
+    this.name = name;
+    this.color = color == null ? 0 : color.getRGB() & 0xFFFFFF;
+    this.hoisted = hoisted;
+    this.mentionable = mentionable;
+    this.permissions = Permission.getRaw(permissions);
+  }
+
+  /**
+   * Compares these settings with the cached state of a role.
+   *
+   * @param role The role.
+   * @return A manager which changes only the differing fields, or null if the role already has
+   *     these settings.
+   */
+  public RoleManager createManager(Role role) {
+    int differences =
+        getDifferences(
+            role.getName(),
+            role.getColorRaw(),
+            role.isHoisted(),
+            role.isMentionable(),
+            role.getPermissionsRaw());
+    if (differences == 0) return null;
+
+    RoleManager manager = role.getManager();
+    if ((differences & NAME) != 0) manager = manager.setName(name);
+    if ((differences & COLOR) != 0)
+      manager = manager.setColor(color == 0 ? Role.DEFAULT_COLOR_RAW : color);
+    if ((differences & HOISTED) != 0) manager = manager.setHoisted(hoisted);
+    if ((differences & MENTIONABLE) != 0) manager = manager.setMentionable(mentionable);
+    if ((differences & PERMISSIONS) != 0) manager = manager.setPermissions(permissions);
+
+    return manager;
+  }
+
+  /**
+   * Compares these settings with the state of a role.
+   *
+   * @param roleName The name of the role.
+   * @param roleColorRaw The raw color of the role, as given by {@link Role#getColorRaw()}.
+   * @param roleHoisted Whether the role is hoisted.
+   * @param roleMentionable Whether the role is mentionable.
+   * @param rolePermissions The raw permissions of the role.
+   * @return The field bits of the settings which differ. 0 if none do.
+   */
+  int getDifferences(
+      String roleName,
+      int roleColorRaw,
+      boolean roleHoisted,
+      boolean roleMentionable,
+      long rolePermissions) {
+    int differences = 0;
+
+    if (name != null && !name.equals(roleName)) differences |= NAME;
+    if (color != (roleColorRaw == Role.DEFAULT_COLOR_RAW ? 0 : roleColorRaw & 0xFFFFFF))
+      differences |= COLOR;
+    if (hoisted != roleHoisted) differences |= HOISTED;
+    if (mentionable != roleMentionable) differences |= MENTIONABLE;
+    if (permissions != rolePermissions) differences |= PERMISSIONS;
+
+    return differences;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    RoleSettings that = (RoleSettings) o;
+    return color == that.color
+        && hoisted == that.hoisted
+        && mentionable == that.mentionable
+        && permissions == that.permissions
+        && Objects.equals(name, that.name);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(name, color, hoisted, mentionable, permissions);
+  }
+}
@@ -2,11 +2,14 @@ package com.mitchtalmadge.uofu_cs_bot.service.discord.role;
 
 import com.mitchtalmadge.uofu_cs_bot.service.LogService;
 import com.mitchtalmadge.uofu_cs_bot.service.discord.DiscordService;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.GuildSnapshot;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.RestActionPipeline;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.SynchronizationScope;
 import com.mitchtalmadge.uofu_cs_bot.util.DiscordUtils;
 import net.dv8tion.jda.api.entities.Role;
 import net.dv8tion.jda.api.managers.RoleManager;
-import net.dv8tion.jda.api.requests.RestAction;
 import net.dv8tion.jda.api.requests.restaction.RoleAction;
+import net.dv8tion.jda.api.requests.restaction.order.RoleOrderAction;
 import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -20,42 +23,70 @@ public class RoleSynchronizationService {
 
   private final LogService logService;
   private final DiscordService discordService;
+  private final RestActionPipeline restActionPipeline;
   private Set<RoleSynchronizer> roleSynchronizers;
 
+  /** The prefixes of the synchronizers, by which each snapshot partitions the Roles. */
+  private final Set<String> rolePrefixes;
+
   @Autowired
   public RoleSynchronizationService(
       LogService logService,
       DiscordService discordService,
+      RestActionPipeline restActionPipeline,
       Set<RoleSynchronizer> roleSynchronizers) {
     this.logService = logService;
     this.discordService = discordService;
+    this.restActionPipeline = restActionPipeline;
     this.roleSynchronizers = roleSynchronizers;
+    this.rolePrefixes =
+        roleSynchronizers.stream().map(RoleSynchronizer::getRolePrefix).collect(Collectors.toSet());
   }
 
   /**
    * Begins synchronization of Roles. <br>
    * This may involve creating, deleting, modifying, or moving Roles as needed.
+   *
+   * @param scope The scope of the synchronization. Only synchronizers within the scope create,
+   *     delete or update Roles, and only Roles within the scope are updated. Ordering always
+   *     considers every Role.
    */
-  public void synchronize() {
+  public void synchronize(SynchronizationScope scope) {
+    // Each phase sees the Roles as the previous phase left them.
+
     // Creation and Deletion
-    synchronizeRoles();
+    restActionPipeline.runPhase(
+        "Role Creation and Deletion", () -> synchronizeRoles(takeSnapshot(), scope));
 
     // Settings
-    updateRoleSettings();
+    restActionPipeline.runPhase("Role Settings", () -> updateRoleSettings(takeSnapshot(), scope));
 
     // Ordering
-    updateRoleOrdering();
+    restActionPipeline.runPhase("Role Ordering", () -> updateRoleOrdering(takeSnapshot()));
   }
 
-  /** Creates and/or deletes Roles as necessary. */
-  private void synchronizeRoles() {
+  /** @return A snapshot of the Guild, with the Roles partitioned by synchronizer. */
+  private GuildSnapshot takeSnapshot() {
+    return GuildSnapshot.of(discordService.getGuild(), rolePrefixes, Collections.emptySet());
+  }
+
+  /**
+   * Creates and/or deletes Roles as necessary.
+   *
+   * @param snapshot The Guild at the start of the phase.
+   * @param scope The scope of the synchronization.
+   */
+  private void synchronizeRoles(GuildSnapshot snapshot, SynchronizationScope scope) {
     logService.logInfo(getClass(), "Creating and Deleting Roles...");
 
     roleSynchronizers.forEach(
         roleSynchronizer -> {
+          if (!roleSynchronizer.isInScope(scope)) return;
+
           // Perform synchronization
           Pair<Collection<Role>, Collection<RoleAction>> synchronizationResult =
-              roleSynchronizer.synchronizeRoles(getFilteredRolesForSynchronizer(roleSynchronizer));
+              roleSynchronizer.synchronizeRoles(
+                  snapshot.getRolesWithPrefix(roleSynchronizer.getRolePrefix()));
 
           if (synchronizationResult != null) {
 
@@ -66,7 +97,7 @@ public class RoleSynchronizationService {
                   .forEach(
                       role -> {
                         logService.logInfo(getClass(), "--> Deleting Role: " + role.getName());
-                        role.delete().complete();
+                        restActionPipeline.submit(role.delete());
                       });
             }
 
@@ -88,33 +119,65 @@ public class RoleSynchronizationService {
                           logService.logInfo(getClass(), "--> Creating Role (Name Unknown)");
                         }
 
-                        roleAction.complete();
+                        restActionPipeline.submit(roleAction);
                       });
             }
           }
         });
   }
 
-  /** Ensures that all Roles have the correct settings. */
-  private void updateRoleSettings() {
+  /**
+   * Ensures that all Roles within the scope have the correct settings.
+   *
+   * @param snapshot The Guild at the start of the phase.
+   * @param scope The scope of the synchronization.
+   */
+  private void updateRoleSettings(GuildSnapshot snapshot, SynchronizationScope scope) {
     logService.logInfo(getClass(), "Updating Role Settings...");
 
-    roleSynchronizers.forEach(
-        roleSynchronizer -> {
-          // Perform Update
-          Collection<RoleManager> updateResult =
-              roleSynchronizer.updateRoleSettings(
-                  getFilteredRolesForSynchronizer(roleSynchronizer));
-
-          // Queue any requested Updatable instances.
-          if (updateResult != null) {
-            updateResult.forEach(RestAction::queue);
-          }
-        });
+    int updatedRoles = 0;
+    int skippedRoles = 0;
+
+    for (RoleSynchronizer roleSynchronizer : roleSynchronizers) {
+      if (!roleSynchronizer.isInScope(scope)) continue;
+
+      // Determine the correct settings.
+      List<Role> rolesInScope =
+          snapshot.getRolesWithPrefix(roleSynchronizer.getRolePrefix()).stream()
+              .filter(role -> roleSynchronizer.isInScope(scope, role.getName()))
+              .collect(Collectors.toList());
+      Map<Role, RoleSettings> updateResult = roleSynchronizer.updateRoleSettings(rolesInScope);
+      if (updateResult == null) continue;
+
+      // Queue updates only for the roles whose settings differ.
+      for (Map.Entry<Role, RoleSettings> entry : updateResult.entrySet()) {
+        RoleManager manager = entry.getValue().createManager(entry.getKey());
+        if (manager == null) {
+          skippedRoles++;
+          continue;
+        }
+
+        logService.logInfo(getClass(), "--> Updating Role: " + entry.getKey().getName());
+        restActionPipeline.submit(manager);
+        updatedRoles++;
+      }
+    }
+
+    logService.logInfo(
+        getClass(),
+        "Updated the settings of "
+            + updatedRoles
+            + " Roles. Skipped "
+            + skippedRoles
+            + " Roles which were already correct.");
   }
 
-  /** Updates the order of Roles in the Guild. */
-  private void updateRoleOrdering() {
+  /**
+   * Updates the order of Roles in the Guild.
+   *
+   * @param snapshot The Guild at the start of the phase.
+   */
+  private void updateRoleOrdering(GuildSnapshot snapshot) {
     logService.logInfo(getClass(), "Updating Role Ordering...");
 
     // Will contain all the roles in their sorted order.
@@ -130,7 +193,7 @@ public class RoleSynchronizationService {
               // Perform Update
               List<Role> updateResult =
                   roleSynchronizer.updateRoleOrdering(
-                      getFilteredRolesForSynchronizer(roleSynchronizer));
+                      snapshot.getRolesWithPrefix(roleSynchronizer.getRolePrefix()));
 
               // Store results
               if (updateResult != null) {
@@ -139,34 +202,20 @@ public class RoleSynchronizationService {
             });
 
     // Find any un-sorted roles and place them at the beginning of the sorted roles list.
+    Set<Role> sortedRoleSet = new HashSet<>(sortedRoles);
     sortedRoles.addAll(
         0,
-        discordService.getGuild().getRoles().stream()
-            .filter(role -> !sortedRoles.contains(role))
+        snapshot.getRoles().stream()
+            .filter(role -> !sortedRoleSet.contains(role))
             .collect(Collectors.toList()));
 
     // Remove @everyone role since it cannot be sorted.
     sortedRoles.removeIf(Role::isPublicRole);
 
     // Perform ordering.
-    DiscordUtils.orderEntities(
-        discordService.getGuild().modifyRolePositions(false), sortedRoles);
-  }
-
-  /**
-   * Filters and returns the roles that are requested by the given synchronizer.
-   *
-   * @param roleSynchronizer The synchronizer.
-   * @return The filtered roles.
-   */
-  private List<Role> getFilteredRolesForSynchronizer(RoleSynchronizer roleSynchronizer) {
-    return discordService.getGuild().getRoles().stream()
-        // Ignore case when filtering.
-        .filter(
-            role ->
-                role.getName()
-                    .toLowerCase()
-                    .startsWith(roleSynchronizer.getRolePrefix().toLowerCase()))
-        .collect(Collectors.toList());
+    RoleOrderAction orderAction = discordService.getGuild().modifyRolePositions(false);
+    int movedRoles = DiscordUtils.orderEntities(orderAction, sortedRoles);
+    if (movedRoles > 0) restActionPipeline.submit(orderAction);
+    logService.logInfo(getClass(), "Moved " + movedRoles + " Roles.");
   }
 }
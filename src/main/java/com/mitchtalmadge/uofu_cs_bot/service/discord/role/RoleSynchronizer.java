@@ -1,19 +1,25 @@
 package com.mitchtalmadge.uofu_cs_bot.service.discord.role;
 
 import com.mitchtalmadge.uofu_cs_bot.service.discord.DiscordService;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.GuildNameIndexService;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.GuildSnapshot;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.SynchronizationScope;
 import com.mitchtalmadge.uofu_cs_bot.util.InheritedComponent;
 import net.dv8tion.jda.api.entities.Role;
-import net.dv8tion.jda.api.managers.RoleManager;
 import net.dv8tion.jda.api.requests.restaction.RoleAction;
 import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Role Synchronizers listen for and act upon Role synchronization lifecycle events. Roles must be
  * added, removed, and organized in a specific order to prevent collisions.
+ *
+ * <p>The lists given to each method are unmodifiable slices of a {@link GuildSnapshot} taken at the
+ * start of the phase.
  */
 @SuppressWarnings("SpringJavaAutowiredFieldsWarningInspection")
 @InheritedComponent
@@ -33,6 +39,8 @@ public abstract class RoleSynchronizer {
 
   @Autowired protected DiscordService discordService;
 
+  @Autowired protected GuildNameIndexService guildNameIndexService;
+
   /**
    * Constructs the Role Synchronizer.
    *
@@ -63,13 +71,13 @@ public abstract class RoleSynchronizer {
       List<Role> filteredRoles);
 
   /**
-   * Ensures that all Roles have the correct settings.
+   * Determines the correct settings of Roles. Only Roles whose settings differ will be updated.
    *
    * @param filteredRoles A list of roles beginning with the rolePrefix given in the constructor.
-   * @return A Collection of {@link RoleManager} instances with updated settings, which will be
-   *     queued later.
+   * @return A Map of Roles to their correct settings. Roles which are not present will not be
+   *     updated. May be null.
    */
-  public abstract Collection<RoleManager> updateRoleSettings(List<Role> filteredRoles);
+  public abstract Map<Role, RoleSettings> updateRoleSettings(List<Role> filteredRoles);
 
   /**
    * Updates the order of Roles in the Guild.
@@ -79,6 +87,30 @@ public abstract class RoleSynchronizer {
    */
   public abstract List<Role> updateRoleOrdering(List<Role> filteredRoles);
 
+  /**
+   * Determines if this synchronizer has any work within a scope. Synchronizers outside of the scope
+   * are skipped, except when ordering. By default, only scopes which are not limited to particular
+   * Courses and Clubs are included.
+   *
+   * @param scope The scope of the synchronization.
+   * @return True if this synchronizer should run.
+   */
+  public boolean isInScope(SynchronizationScope scope) {
+    return !scope.isLimited();
+  }
+
+  /**
+   * Determines if one of the Roles of this synchronizer is within a scope. Only Roles within the
+   * scope are given to {@link #updateRoleSettings(List)}.
+   *
+   * @param scope The scope of the synchronization.
+   * @param name The name of the entity.
+   * @return True if the entity should be synchronized.
+   */
+  public boolean isInScope(SynchronizationScope scope, String name) {
+    return isInScope(scope);
+  }
+
   public String getRolePrefix() {
     return rolePrefix;
   }
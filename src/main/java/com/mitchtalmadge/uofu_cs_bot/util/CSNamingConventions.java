@@ -1,5 +1,6 @@
 package com.mitchtalmadge.uofu_cs_bot.util;
 
+import com.mitchtalmadge.uofu_cs_bot.domain.cs.CSClassCode;
 import com.mitchtalmadge.uofu_cs_bot.domain.cs.CSConstants;
 import com.mitchtalmadge.uofu_cs_bot.domain.cs.CSSuffix;
 import com.mitchtalmadge.uofu_cs_bot.domain.cs.Course;
@@ -74,6 +75,29 @@ public class CSNamingConventions {
     return output.toString();
   }
 
+  /**
+   * From packed classes, creates a properly formatted nickname class group. Equivalent to {@link
+   * #toNicknameClassGroup(Map)} with the same classes.
+   *
+   * @param classCodes The {@link CSClassCode}s of the classes, sorted by course number.
+   * @return The nickname class group.
+   */
+  public static String toNicknameClassGroup(int[] classCodes) {
+    StringBuilder output = new StringBuilder();
+    output.append('[');
+
+    for (int i = 0; i < classCodes.length; i++) {
+      if (i > 0) output.append(',');
+      output.append(
+          toNicknameClass(
+              CSClassCode.getCourse(classCodes[i]), CSClassCode.getSuffix(classCodes[i])));
+    }
+
+    output.append(']');
+
+    return output.toString();
+  }
+
   /**
    * Combines a Course and CSSuffix into a properly formatted class name for a guild member's
    * nickname.
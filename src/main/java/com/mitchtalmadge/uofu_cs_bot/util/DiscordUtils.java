@@ -11,26 +11,31 @@ public class DiscordUtils {
 
   /**
    * Orders the entities, with the provided order action, to their order in the provided list.
-   * Submits the order to Discord.
+   * Only the entities which are out of order are moved. The order action is not submitted; the
+   * caller should submit it if at least one entity moved.
    *
    * @param orderAction The order action to use.
    * @param order The desired order of the entities.
    * @param <E> The entity type.
    * @param <O> The OrderAction type.
+   * @return The number of entities which were moved.
    */
-  public static <E, O extends OrderAction<? extends E, ? extends O>> void orderEntities(
+  public static <E, O extends OrderAction<? extends E, ? extends O>> int orderEntities(
       O orderAction, List<? extends E> order) {
-    // Order the channels.
-    for (int i = 0; i < order.size(); i++) {
-      // Find and select the current item being sorted.
-      orderAction.selectPosition(orderAction.getCurrentOrder().indexOf(order.get(i)));
-
-      // Move the item to its new location.
-      orderAction.moveTo(i);
-    }
-
-    // Submit the changes to order.
-    orderAction.queue();
+    List<? extends E> currentOrder = orderAction.getCurrentOrder();
+
+    // Plan the moves.
+    List<E> targetOrder = OrderingPlanner.getTargetOrder(currentOrder, order);
+    List<E> entitiesToMove = OrderingPlanner.getEntitiesToMove(currentOrder, targetOrder);
+    if (entitiesToMove.isEmpty()) return 0;
+
+    // Move the entities.
+    OrderingPlanner.applyMoves(
+        currentOrder,
+        targetOrder,
+        entitiesToMove,
+        (from, to) -> orderAction.selectPosition(from).moveTo(to));
+    return entitiesToMove.size();
   }
 
   /**
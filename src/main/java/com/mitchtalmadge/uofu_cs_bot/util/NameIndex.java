@@ -0,0 +1,171 @@
+package com.mitchtalmadge.uofu_cs_bot.util;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * A case insensitive index from name to entity (such as a Role or TextChannel), kept up to date by
+ * calling {@link #add}, {@link #remove} and {@link #rename} as entities change. Where several
+ * entities share a name, one of them is indexed.
+ *
+ * <p>Entries are validated when looked up, so an event which is missed or not yet processed can
+ * never return a deleted or renamed entity. Likewise, a miss is only trusted once a lookup by name
+ * confirms that no entity has the name, since an entity may have been renamed to it without an
+ * event yet. A miss (such as the name of an entity which is yet to be created) never rebuilds the
+ * index by itself. On a stale entry, a miss which the lookup by name contradicts, a miss on a name
+ * which several entities shared, or when the number of entities has changed without an event, the
+ * whole index is rebuilt once. Changes to the index are serialized with rebuilding. Thread-safe.
+ *
+ * @param <T> The type of entity.
+ */
+public class NameIndex<T> {
+
+  private final Map<String, T> entities = new ConcurrentHashMap<>();
+
+  /** The IDs of the indexed entities, including any whose name is indexed for another entity. */
+  private final Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+  /** The names which were indexed for more than one entity, so a miss may hide another entity. */
+  private final Set<String> sharedNames = ConcurrentHashMap.newKeySet();
+
+  private final ToLongFunction<T> idFunction;
+  private final Function<T, String> nameFunction;
+  private final LongFunction<T> findById;
+  private final Function<String, List<T>> findByName;
+  private final Supplier<List<T>> findAll;
+  private final LongSupplier countFunction;
+
+  /** The number of times the index has been rebuilt. */
+  private final LongAdder rebuildCount = new LongAdder();
+
+  /**
+   * Creates an empty index.
+   *
+   * @param idFunction Gets the ID of an entity.
+   * @param nameFunction Gets the current name of an entity.
+   * @param findById Finds a current entity by its ID, or returns null if it no longer exists.
+   * @param findByName Finds the current entities with a name, ignoring case.
+   * @param findAll Finds every current entity.
+   * @param countFunction Counts the current entities, without copying them.
+   */
+  public NameIndex(
+      ToLongFunction<T> idFunction,
+      Function<T, String> nameFunction,
+      LongFunction<T> findById,
+      Function<String, List<T>> findByName,
+      Supplier<List<T>> findAll,
+      LongSupplier countFunction) {
+    this.idFunction = idFunction;
+    this.nameFunction = nameFunction;
+    this.findById = findById;
+    this.findByName = findByName;
+    this.findAll = findAll;
+    this.countFunction = countFunction;
+  }
+
+  /** Replaces the contents of the index with every current entity. */
+  public synchronized void rebuild() {
+    List<T> allEntities = findAll.get();
+
+    entities.clear();
+    ids.clear();
+    sharedNames.clear();
+    allEntities.forEach(this::add);
+    rebuildCount.increment();
+  }
+
+  /**
+   * Finds an entity by name.
+   *
+   * @param name The name, in any case.
+   * @return The entity, or null if none has the name.
+   */
+  public T get(String name) {
+    String key = toKey(name);
+
+    T indexed = entities.get(key);
+    if (indexed != null) {
+      // Make sure the entity still exists and still has the name.
+      T current = findById.apply(idFunction.applyAsLong(indexed));
+      if (current != null && nameFunction.apply(current).equalsIgnoreCase(name)) return current;
+    } else if (!sharedNames.contains(key) && ids.size() == countFunction.getAsLong()) {
+      // Every entity is indexed, but one may have been renamed to the name without an event yet.
+      if (findByName.apply(name).isEmpty()) return null;
+    }
+
+    // Stale, or entities were created, deleted or renamed without an event yet.
+    rebuild();
+    return entities.get(key);
+  }
+
+  /**
+   * Indexes a new entity.
+   *
+   * @param entity The entity which was created.
+   */
+  public synchronized void add(T entity) {
+    long id = idFunction.applyAsLong(entity);
+    ids.add(id);
+
+    String key = toKey(nameFunction.apply(entity));
+    T indexed = entities.putIfAbsent(key, entity);
+    if (indexed != null && idFunction.applyAsLong(indexed) != id) sharedNames.add(key);
+  }
+
+  /**
+   * Removes an entity from the index.
+   *
+   * @param entity The entity which was deleted.
+   */
+  public synchronized void remove(T entity) {
+    ids.remove(idFunction.applyAsLong(entity));
+    remove(entity, nameFunction.apply(entity));
+  }
+
+  /**
+   * Moves an entity to its new name.
+   *
+   * @param entity The entity which was renamed.
+   * @param oldName The name of the entity before it was renamed.
+   */
+  public synchronized void rename(T entity, String oldName) {
+    remove(entity, oldName);
+    add(entity);
+  }
+
+  /** @return The number of names in the index. */
+  public int size() {
+    return entities.size();
+  }
+
+  /** @return The number of times the index has been rebuilt. */
+  public long getRebuildCount() {
+    return rebuildCount.sum();
+  }
+
+  /**
+   * Removes the entry for a name if it belongs to the given entity.
+   *
+   * @param entity The entity.
+   * @param name The name the entity was indexed under.
+   */
+  private void remove(T entity, String name) {
+    entities.computeIfPresent(
+        toKey(name),
+        (key, indexed) ->
+            idFunction.applyAsLong(indexed) == idFunction.applyAsLong(entity) ? null : indexed);
+  }
+
+  private static String toKey(String name) {
+    return name.toLowerCase(Locale.ROOT);
+  }
+}
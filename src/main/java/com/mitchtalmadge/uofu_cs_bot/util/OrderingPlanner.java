@@ -0,0 +1,207 @@
+package com.mitchtalmadge.uofu_cs_bot.util;
+
+import java.util.*;
+
+/**
+ * Plans the fewest moves which turn the current order of some entities into a desired order. The
+ * entities which are already in the right order relative to each other (the longest increasing
+ * subsequence of their desired positions) stay where they are, and only the rest are moved.
+ */
+public class OrderingPlanner {
+
+  private OrderingPlanner() {}
+
+  /**
+   * Determines the complete desired order. Entities which are not in the given order keep their
+   * relative current order after all of the ordered entities, which is where repeatedly moving
+   * each ordered entity to its index would leave them. Entities which do not currently exist are
+   * ignored.
+   *
+   * @param currentOrder The current order of all entities.
+   * @param order The desired order of some or all of the entities.
+   * @param <E> The entity type.
+   * @return The desired order of all entities.
+   */
+  public static <E> List<E> getTargetOrder(
+      List<? extends E> currentOrder, List<? extends E> order) {
+    Set<E> current = new HashSet<>(currentOrder);
+    Set<E> ordered = new LinkedHashSet<>();
+    for (E entity : order) {
+      if (current.contains(entity)) ordered.add(entity);
+    }
+
+    List<E> targetOrder = new ArrayList<>(currentOrder.size());
+    targetOrder.addAll(ordered);
+    for (E entity : currentOrder) {
+      if (!ordered.contains(entity)) targetOrder.add(entity);
+    }
+
+    return targetOrder;
+  }
+
+  /**
+   * Finds the entities which must move to reach the target order.
+   *
+   * @param currentOrder The current order of all entities.
+   * @param targetOrder The desired order of all of the same entities, from {@link
+   *     #getTargetOrder}.
+   * @param <E> The entity type.
+   * @return The entities to move, sorted by their target position. Empty if the entities are
+   *     already in order.
+   */
+  public static <E> List<E> getEntitiesToMove(
+      List<? extends E> currentOrder, List<E> targetOrder) {
+    // The target position of each entity, in current order.
+    Map<E, Integer> targetPositions = new HashMap<>(targetOrder.size() * 2);
+    for (int i = 0; i < targetOrder.size(); i++) targetPositions.put(targetOrder.get(i), i);
+
+    int n = currentOrder.size();
+    int[] positions = new int[n];
+    for (int i = 0; i < n; i++) positions[i] = targetPositions.get(currentOrder.get(i));
+
+    // Find the longest increasing subsequence of target positions (patience sorting).
+    // tails[k] is the index (in current order) of the smallest tail of an increasing subsequence
+    // of length k + 1, and previous[i] links each index to its predecessor in its subsequence.
+    int[] tails = new int[n];
+    int[] previous = new int[n];
+    int length = 0;
+    for (int i = 0; i < n; i++) {
+      int low = 0;
+      int high = length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (positions[tails[middle]] < positions[i]) low = middle + 1;
+        else high = middle;
+      }
+
+      previous[i] = low > 0 ? tails[low - 1] : -1;
+      tails[low] = i;
+      if (low == length) length++;
+    }
+
+    if (length == n) return Collections.emptyList();
+
+    // Everything outside of the subsequence moves.
+    boolean[] staying = new boolean[targetOrder.size()];
+    for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+      staying[positions[i]] = true;
+    }
+
+    List<E> entitiesToMove = new ArrayList<>(n - length);
+    for (int position = 0; position < targetOrder.size(); position++) {
+      if (!staying[position]) entitiesToMove.add(targetOrder.get(position));
+    }
+
+    return entitiesToMove;
+  }
+
+  /**
+   * Moves entities within a list to reach the target order, in the same way as an OrderAction:
+   * each entity is removed, then inserted directly after the entity before it in the target order.
+   *
+   * <p>The index of each entity is found without searching the list. Every entity which stays has a
+   * slot, and each moving entity has a slot after the closest entity before it in the target order
+   * which stays (or at the start), since the moving entities between them are inserted after each
+   * other. A Fenwick tree counts the occupied slots, so each index takes O(log n) to find.
+   *
+   * @param list The list to reorder, in current order.
+   * @param targetOrder The desired order of the entities in the list.
+   * @param entitiesToMove The entities to move, from {@link #getEntitiesToMove}.
+   * @param mover Performs each move, given the current index of an entity and its new index.
+   * @param <E> The entity type.
+   */
+  public static <E> void applyMoves(
+      List<? extends E> list, List<E> targetOrder, List<E> entitiesToMove, Mover mover) {
+    int n = list.size();
+    Map<E, Integer> currentPositions = new HashMap<>(n * 2);
+    for (int i = 0; i < n; i++) currentPositions.put(list.get(i), i);
+    Set<E> moving = new HashSet<>(entitiesToMove);
+
+    // For each moving entity, in target order: the current position of the entity it is inserted
+    // after (-1 for the start), and its rank among the entities inserted there.
+    int[] anchors = new int[entitiesToMove.size()];
+    int[] ranks = new int[entitiesToMove.size()];
+    int[] insertedAfter = new int[n + 1];
+    int anchor = -1;
+    int moveCount = 0;
+    for (E entity : targetOrder) {
+      int position = currentPositions.get(entity);
+      if (!moving.contains(entity)) {
+        anchor = position;
+        continue;
+      }
+
+      anchors[moveCount] = anchor;
+      ranks[moveCount] = insertedAfter[anchor + 1]++;
+      moveCount++;
+    }
+
+    // Lay out the slots: those inserted at the start, then each current position followed by those
+    // inserted after it.
+    int[] slots = new int[n];
+    int slotCount = insertedAfter[0];
+    for (int i = 0; i < n; i++) {
+      slots[i] = slotCount;
+      slotCount += 1 + insertedAfter[i + 1];
+    }
+
+    FenwickTree occupied = new FenwickTree(slotCount);
+    for (int slot : slots) occupied.add(slot, 1);
+
+    int move = 0;
+    for (E entity : targetOrder) {
+      if (!moving.contains(entity)) continue;
+
+      int from = slots[currentPositions.get(entity)];
+      int to = (anchors[move] < 0 ? 0 : slots[anchors[move]] + 1) + ranks[move];
+      move++;
+
+      int fromIndex = occupied.countBefore(from);
+      occupied.add(from, -1);
+      // Counted once this entity is removed, as the mover expects.
+      int toIndex = occupied.countBefore(to);
+      occupied.add(to, 1);
+
+      if (fromIndex != toIndex) mover.move(fromIndex, toIndex);
+    }
+  }
+
+  /** Counts the values in a range of slots in O(log n). */
+  private static class FenwickTree {
+
+    private final int[] tree;
+
+    FenwickTree(int size) {
+      tree = new int[size + 1];
+    }
+
+    /**
+     * @param slot The slot.
+     * @param delta The amount to add to its value.
+     */
+    void add(int slot, int delta) {
+      for (int i = slot + 1; i < tree.length; i += i & -i) tree[i] += delta;
+    }
+
+    /**
+     * @param slot The slot.
+     * @return The sum of the values of the slots before it.
+     */
+    int countBefore(int slot) {
+      int count = 0;
+      for (int i = slot; i > 0; i -= i & -i) count += tree[i];
+      return count;
+    }
+  }
+
+  /** Moves one entity within a list. */
+  @FunctionalInterface
+  public interface Mover {
+
+    /**
+     * @param from The current index of the entity.
+     * @param to The index of the entity after the move, counted after it is removed.
+     */
+    void move(int from, int to);
+  }
+}
@@ -0,0 +1,57 @@
+package com.mitchtalmadge.uofu_cs_bot.domain.cs;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link CSNicknameParser} with the original regex parsing over a corpus of 50k generated
+ * nicknames, which is roughly one full pass over the members of a large server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CSNicknameParserBenchmark {
+
+  private static final int NICKNAME_COUNT = 50_000;
+
+  private String[] nicknames;
+
+  @Setup
+  public void setUp() {
+    nicknames = NicknameCorpus.generate(NICKNAME_COUNT, 42);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NICKNAME_COUNT)
+  public void scanner(Blackhole blackhole) {
+    for (String nickname : nicknames) {
+      Map<Course, CSSuffix> classMap = new TreeMap<>();
+      CSNicknameParser.parse(nickname, classMap);
+      blackhole.consume(classMap);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NICKNAME_COUNT)
+  public void regex(Blackhole blackhole) {
+    for (String nickname : nicknames) {
+      blackhole.consume(LegacyCSNicknameParser.parse(nickname));
+    }
+  }
+
+  public static void main(String... args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder().include(CSNicknameParserBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
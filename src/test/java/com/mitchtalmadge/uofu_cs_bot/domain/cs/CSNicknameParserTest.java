@@ -0,0 +1,92 @@
+package com.mitchtalmadge.uofu_cs_bot.domain.cs;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/** Checks that {@link CSNicknameParser} gives the same results as the original regex parsing. */
+public class CSNicknameParserTest {
+
+  /** Characters which exercise every part of the class group pattern. */
+  private static final String FUZZ_ALPHABET = "[]()[(cCsS-, \t\n0123456789taTAprofPROFxyZé";
+
+  private static final String REPLACEMENT = "[1410TA,3500]";
+
+  private static void assertSameAsLegacy(String nickname) {
+    Map<Course, CSSuffix> classMap = new TreeMap<>();
+    CSNicknameParser.parse(nickname, classMap);
+
+    Assert.assertEquals(nickname, LegacyCSNicknameParser.parse(nickname), classMap);
+    Assert.assertEquals(
+        nickname,
+        LegacyCSNicknameParser.replaceClassGroups(nickname, REPLACEMENT),
+        CSNicknameParser.replaceClassGroups(nickname, REPLACEMENT));
+  }
+
+  /** Tests realistic nicknames. */
+  @Test
+  public void TestRealisticNicknames() {
+    for (String nickname : NicknameCorpus.generate(20_000, 1)) {
+      assertSameAsLegacy(nickname);
+    }
+  }
+
+  /** Tests random strings made of the characters the pattern cares about. */
+  @Test
+  public void TestRandomNicknames() {
+    Random random = new Random(7);
+    StringBuilder nickname = new StringBuilder();
+
+    for (int i = 0; i < 200_000; i++) {
+      nickname.setLength(0);
+      int length = random.nextInt(24);
+      for (int c = 0; c < length; c++) {
+        nickname.append(FUZZ_ALPHABET.charAt(random.nextInt(FUZZ_ALPHABET.length())));
+      }
+
+      assertSameAsLegacy(nickname.toString());
+    }
+  }
+
+  /** Tests edge cases of the pattern and of the course number parsing. */
+  @Test
+  public void TestEdgeCases() {
+    String[] nicknames = {
+      "",
+      "[",
+      "[]",
+      "[ ]",
+      "[3500",
+      "[3500 2420]",
+      "[cs3500cs2420]",
+      "[3500cs-2420]",
+      "[3500 cs 2420]",
+      "[3500 ta ]",
+      "[3500 TA PROF]",
+      "[3500PROFTA]",
+      "[3500TAPROF]",
+      "[cs-ta]",
+      "[cs 3500 - ta]",
+      "[3500-]",
+      "[3500,,, ,2420 ,]",
+      "[0003500]",
+      "[2147483647]",
+      "[2147483648]",
+      "[99999999999999999999]",
+      "[[3500]",
+      "(3500)(2420)",
+      "[3500] [2420]",
+      "[USD] [3500-ta] [2420]",
+      "[c3500]",
+      "[ccs3500]",
+      "[\u000B3500\f]",
+    };
+
+    for (String nickname : nicknames) {
+      assertSameAsLegacy(nickname);
+    }
+  }
+}
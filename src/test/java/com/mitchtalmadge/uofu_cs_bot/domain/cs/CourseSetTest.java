@@ -0,0 +1,55 @@
+package com.mitchtalmadge.uofu_cs_bot.domain.cs;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+public class CourseSetTest {
+
+  private static final Course cs1410 = new Course(1410);
+  private static final Course cs2420 = new Course(2420);
+  private static final Course cs3500 = new Course(3500);
+
+  /** Tests that courses are sorted, deduplicated and indexed. */
+  @Test
+  public void TestIndexing() {
+    CourseSet courses = CourseSet.fromNumbers(new int[] {3500, 1410, 3500, 2420});
+
+    Assert.assertEquals(3, courses.size());
+    Assert.assertEquals(0, courses.indexOf(cs1410));
+    Assert.assertEquals(1, courses.indexOf(cs2420));
+    Assert.assertEquals(2, courses.indexOf(3500));
+    Assert.assertTrue(courses.indexOf(3810) < 0);
+    Assert.assertEquals(cs2420, courses.get(1));
+    Assert.assertArrayEquals(new Course[] {cs1410, cs2420, cs3500}, courses.toArray());
+  }
+
+  /** Tests that a CourseSet is interchangeable with other sets of courses. */
+  @Test
+  public void TestSetContract() {
+    Set<Course> hashSet = new HashSet<>(Arrays.asList(cs3500, cs1410));
+    CourseSet courses = CourseSet.of(hashSet);
+
+    Assert.assertEquals(hashSet, courses);
+    Assert.assertEquals(courses, hashSet);
+    Assert.assertEquals(hashSet.hashCode(), courses.hashCode());
+    Assert.assertTrue(courses.contains(cs1410));
+    Assert.assertFalse(courses.contains(cs2420));
+    Assert.assertFalse(courses.contains("1410"));
+  }
+
+  /** Tests removing courses. */
+  @Test
+  public void TestWithout() {
+    CourseSet courses = CourseSet.fromNumbers(new int[] {1410, 2420, 3500});
+
+    Assert.assertEquals(
+        CourseSet.fromNumbers(new int[] {1410, 3500}),
+        courses.without(CourseSet.fromNumbers(new int[] {2420, 3810})));
+    Assert.assertSame(courses, courses.without(CourseSet.EMPTY));
+    Assert.assertSame(CourseSet.EMPTY, courses.without(courses));
+  }
+}
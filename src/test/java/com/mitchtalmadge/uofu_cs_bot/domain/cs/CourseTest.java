@@ -67,4 +67,13 @@ public class CourseTest {
   public void TestTooManyClasses() throws Exception {
     new Course("cs3500, 1410");
   }
+
+  /** Tests that Course.of returns shared instances for known course numbers. */
+  @Test
+  public void TestOfIsInterned() throws Exception {
+    Assert.assertSame(Course.of(3500), Course.of(3500));
+    Assert.assertSame(Course.of(3500), Course.of("CS-3500-TA"));
+    Assert.assertEquals(cs3500, Course.of(3500));
+    Assert.assertEquals(new Course(123456), Course.of(123456));
+  }
 }
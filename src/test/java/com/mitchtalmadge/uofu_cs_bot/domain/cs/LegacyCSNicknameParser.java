@@ -0,0 +1,37 @@
+package com.mitchtalmadge.uofu_cs_bot.domain.cs;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/** The original, regex based nickname parsing, kept as a reference for {@link CSNicknameParser}. */
+class LegacyCSNicknameParser {
+
+  private static final Pattern CLASS_GROUP_PARSE_PATTERN =
+      Pattern.compile(
+          "[\\[\\(]\\s*(((cs-?\\s*)?\\d+\\s*(-?[a-z]+)?(,\\s*)*)+)\\s*[\\]\\)]",
+          Pattern.CASE_INSENSITIVE);
+
+  private static final Pattern CLASS_SPLIT_PATTERN = Pattern.compile("(,\\s*)+");
+
+  static Map<Course, CSSuffix> parse(String nickname) {
+    Map<Course, CSSuffix> classMap = new TreeMap<>();
+
+    Matcher groupMatcher = CLASS_GROUP_PARSE_PATTERN.matcher(nickname);
+    if (!groupMatcher.find()) return classMap;
+
+    for (String classNumber : CLASS_SPLIT_PATTERN.split(groupMatcher.group(1))) {
+      try {
+        classMap.put(new Course(classNumber), CSSuffix.fromCourseName(classNumber));
+      } catch (Course.InvalidCourseNameException ignored) {
+      }
+    }
+
+    return classMap;
+  }
+
+  static String replaceClassGroups(String nickname, String replacement) {
+    return CLASS_GROUP_PARSE_PATTERN.matcher(nickname).replaceAll(replacement);
+  }
+}
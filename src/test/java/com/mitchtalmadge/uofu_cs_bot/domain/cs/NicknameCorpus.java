@@ -0,0 +1,61 @@
+package com.mitchtalmadge.uofu_cs_bot.domain.cs;
+
+import java.util.Random;
+
+/** Generates nicknames resembling those of the members of the server. */
+public class NicknameCorpus {
+
+  private static final String[] FIRST_NAMES = {
+    "John", "Jane", "Alex", "Sam", "Priya", "Wei", "Maria", "José", "Mohammed", "Emily", "Chris",
+  };
+
+  private static final String[] LAST_NAMES = {
+    "Doe", "Smith", "Nguyen", "García", "Johnson", "Lee", "Patel", "Kim", "O'Brien", "Müller",
+  };
+
+  private static final String[] TAGS = {"[UofU]", "(he/him)", "[Supreme Overlord]", "🎮", "| TA"};
+
+  private static final String[] PREFIXES = {"", "", "", "cs", "CS-", "Cs ", "cs-"};
+
+  private static final String[] SUFFIXES = {"", "", "", "", "", "-TA", " ta", "TA", " PROF", "-x"};
+
+  private static final String[] SEPARATORS = {", ", ",", ",  ", " , ", " "};
+
+  public static String[] generate(int count, long seed) {
+    Random random = new Random(seed);
+    String[] nicknames = new String[count];
+
+    for (int i = 0; i < count; i++) {
+      StringBuilder nickname = new StringBuilder();
+
+      if (random.nextInt(10) == 0) nickname.append(pick(random, TAGS)).append(' ');
+      nickname.append(pick(random, FIRST_NAMES)).append(' ').append(pick(random, LAST_NAMES));
+
+      // Most members list their courses.
+      if (random.nextInt(10) < 7) {
+        nickname.append(' ').append(random.nextInt(10) == 0 ? '(' : '[');
+
+        int courses = 1 + random.nextInt(4);
+        for (int c = 0; c < courses; c++) {
+          if (c > 0) nickname.append(pick(random, SEPARATORS));
+          nickname
+              .append(pick(random, PREFIXES))
+              .append(1000 + random.nextInt(6000))
+              .append(pick(random, SUFFIXES));
+        }
+
+        nickname.append(random.nextInt(10) == 0 ? ')' : ']');
+      }
+
+      if (random.nextInt(20) == 0) nickname.append(' ').append(pick(random, TAGS));
+
+      nicknames[i] = nickname.toString();
+    }
+
+    return nicknames;
+  }
+
+  private static String pick(Random random, String[] values) {
+    return values[random.nextInt(values.length)];
+  }
+}
@@ -0,0 +1,162 @@
+package com.mitchtalmadge.uofu_cs_bot.domain.entity.repository;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.*;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the queries behind {@link InternalUserRepository} on an in-memory HSQLDB table of 100k
+ * users, with and without the indexes added by db.changelog-2.xml. Each query is run as Hibernate
+ * runs it: selecting the whole entity, or only the columns of a {@link
+ * InternalUserRepository.VerificationSummary}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InternalUserRepositoryBenchmark {
+
+  private static final int USER_COUNT = 100_000;
+
+  /** The number of Discord users sharing each uNID. */
+  private static final int USERS_PER_UNID = 2;
+
+  private static final String ENTITY_COLUMNS =
+      "id, discord_user_id, unid, verification_status, verification_code";
+
+  private static final String SUMMARY_COLUMNS = "discord_user_id, unid, verification_status";
+
+  @Param({"false", "true"})
+  public boolean indexed;
+
+  private Connection connection;
+  private PreparedStatement entityByDiscordUserId;
+  private PreparedStatement summaryByDiscordUserId;
+  private PreparedStatement entitiesByUnid;
+  private PreparedStatement summariesByUnid;
+
+  private Random random;
+
+  @Setup
+  public void setUp() throws SQLException {
+    connection = DriverManager.getConnection("jdbc:hsqldb:mem:users" + indexed, "SA", "");
+
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(
+          "CREATE TABLE internal_users ("
+              + "id BIGINT NOT NULL PRIMARY KEY, "
+              + "discord_user_id BIGINT NOT NULL, "
+              + "unid VARCHAR(8), "
+              + "verification_status VARCHAR(32) NOT NULL, "
+              + "verification_code VARCHAR(6))");
+    }
+
+    try (PreparedStatement insert =
+        connection.prepareStatement("INSERT INTO internal_users VALUES (?, ?, ?, ?, ?)")) {
+      for (int i = 0; i < USER_COUNT; i++) {
+        insert.setLong(1, i);
+        insert.setLong(2, discordUserId(i));
+        insert.setString(3, unid(i / USERS_PER_UNID));
+        insert.setString(4, i % 3 == 0 ? "CODE_SENT" : "VERIFIED");
+        insert.setString(5, String.format("%05d", i % 100_000));
+        insert.addBatch();
+      }
+      insert.executeBatch();
+    }
+
+    if (indexed) {
+      try (Statement statement = connection.createStatement()) {
+        statement.execute(
+            "ALTER TABLE internal_users ADD CONSTRAINT uq_internal_users_discord_user_id "
+                + "UNIQUE (discord_user_id)");
+        statement.execute("CREATE INDEX ix_internal_users_unid ON internal_users (unid)");
+      }
+    }
+
+    entityByDiscordUserId =
+        connection.prepareStatement(
+            "SELECT " + ENTITY_COLUMNS + " FROM internal_users WHERE discord_user_id = ?");
+    summaryByDiscordUserId =
+        connection.prepareStatement(
+            "SELECT " + SUMMARY_COLUMNS + " FROM internal_users WHERE discord_user_id = ?");
+    entitiesByUnid =
+        connection.prepareStatement(
+            "SELECT " + ENTITY_COLUMNS + " FROM internal_users WHERE unid = ?");
+    summariesByUnid =
+        connection.prepareStatement(
+            "SELECT " + SUMMARY_COLUMNS + " FROM internal_users WHERE unid = ?");
+
+    random = new Random(42);
+  }
+
+  @TearDown
+  public void tearDown() throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("SHUTDOWN");
+    }
+  }
+
+  @Benchmark
+  public int entityByDiscordUserId() throws SQLException {
+    entityByDiscordUserId.setLong(1, discordUserId(random.nextInt(USER_COUNT)));
+    return count(entityByDiscordUserId);
+  }
+
+  @Benchmark
+  public int summaryByDiscordUserId() throws SQLException {
+    summaryByDiscordUserId.setLong(1, discordUserId(random.nextInt(USER_COUNT)));
+    return count(summaryByDiscordUserId);
+  }
+
+  @Benchmark
+  public int entitiesByUnid() throws SQLException {
+    entitiesByUnid.setString(1, unid(random.nextInt(USER_COUNT / USERS_PER_UNID)));
+    return count(entitiesByUnid);
+  }
+
+  @Benchmark
+  public int summariesByUnid() throws SQLException {
+    summariesByUnid.setString(1, unid(random.nextInt(USER_COUNT / USERS_PER_UNID)));
+    return count(summariesByUnid);
+  }
+
+  /**
+   * Reads every column of every row, as Hibernate does when building the results.
+   *
+   * @return The number of rows.
+   */
+  private static int count(PreparedStatement query) throws SQLException {
+    int rows = 0;
+    try (ResultSet resultSet = query.executeQuery()) {
+      int columns = resultSet.getMetaData().getColumnCount();
+      while (resultSet.next()) {
+        for (int i = 1; i <= columns; i++) resultSet.getObject(i);
+        rows++;
+      }
+    }
+    return rows;
+  }
+
+  private static long discordUserId(int i) {
+    return 100_000_000_000_000_000L + i * 4_194_304L;
+  }
+
+  private static String unid(int i) {
+    return String.format("u%07d", i);
+  }
+
+  public static void main(String... args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder()
+                .include(InternalUserRepositoryBenchmark.class.getSimpleName())
+                .build())
+        .run();
+  }
+}
@@ -0,0 +1,109 @@
+package com.mitchtalmadge.uofu_cs_bot.event;
+
+import com.mitchtalmadge.uofu_cs_bot.service.LogService;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class EventCoalescerTest {
+
+  private EventExecutor eventExecutor;
+  private EventCoalescer eventCoalescer;
+
+  @Before
+  public void setUp() {
+    eventExecutor = new EventExecutor(new LogService(null, null), 2, 100, "block", 1000);
+    eventCoalescer = new EventCoalescer(null, eventExecutor, 100);
+  }
+
+  @After
+  public void tearDown() {
+    eventCoalescer.destroy();
+    eventExecutor.destroy();
+  }
+
+  /** Tests that a burst for one key only runs the latest work, once. */
+  @Test
+  public void TestBurstRunsLatestOnce() throws InterruptedException {
+    List<Integer> runs = new CopyOnWriteArrayList<>();
+    CountDownLatch ran = new CountDownLatch(1);
+
+    for (int i = 0; i < 10; i++) {
+      int value = i;
+      eventCoalescer.coalesce(
+          1,
+          () -> {
+            runs.add(value);
+            ran.countDown();
+          });
+    }
+
+    Assert.assertTrue(ran.await(5, TimeUnit.SECONDS));
+    Thread.sleep(200);
+
+    Assert.assertEquals(1, runs.size());
+    Assert.assertEquals(9, (int) runs.get(0));
+    Assert.assertEquals(10, eventCoalescer.getReceivedCount());
+    Assert.assertEquals(9, eventCoalescer.getMergedCount());
+  }
+
+  /** Tests that different keys are not merged together. */
+  @Test
+  public void TestDifferentKeysNotMerged() throws InterruptedException {
+    CountDownLatch ran = new CountDownLatch(3);
+
+    eventCoalescer.coalesce(1, ran::countDown);
+    eventCoalescer.coalesce(2, ran::countDown);
+    eventCoalescer.coalesce(3, ran::countDown);
+
+    Assert.assertTrue(ran.await(5, TimeUnit.SECONDS));
+    Assert.assertEquals(0, eventCoalescer.getMergedCount());
+  }
+
+  /** Tests that work submitted after a window closes starts a new window. */
+  @Test
+  public void TestNewWindowAfterFlush() throws InterruptedException {
+    CountDownLatch first = new CountDownLatch(1);
+    CountDownLatch second = new CountDownLatch(1);
+
+    eventCoalescer.coalesce(1, first::countDown);
+    Assert.assertTrue(first.await(5, TimeUnit.SECONDS));
+
+    eventCoalescer.coalesce(1, second::countDown);
+    Assert.assertTrue(second.await(5, TimeUnit.SECONDS));
+    Assert.assertEquals(0, eventCoalescer.getMergedCount());
+  }
+
+  /** Tests that a key is pending from its first submission until its work has finished running. */
+  @Test
+  public void TestPendingUntilRun() throws InterruptedException {
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    eventCoalescer.coalesce(
+        1,
+        () -> {
+          running.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException ignored) {
+          }
+        });
+    Assert.assertTrue(eventCoalescer.isPending(1));
+    Assert.assertFalse(eventCoalescer.isPending(2));
+
+    Assert.assertTrue(running.await(5, TimeUnit.SECONDS));
+    Assert.assertTrue(eventCoalescer.isPending(1));
+
+    release.countDown();
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (eventCoalescer.isPending(1) && System.nanoTime() < deadline) Thread.sleep(10);
+    Assert.assertFalse(eventCoalescer.isPending(1));
+  }
+}
@@ -0,0 +1,200 @@
+package com.mitchtalmadge.uofu_cs_bot.event;
+
+import com.mitchtalmadge.uofu_cs_bot.event.listeners.EventListenerAbstract;
+import net.dv8tion.jda.api.events.Event;
+import net.dv8tion.jda.api.events.GenericEvent;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Compares the dispatch table of {@link EventDistributor} with the previous linear scan over every
+ * listener, using a gateway event mix similar to what the bot receives with the presence and
+ * message intents enabled. The stand-in events mirror the shape of the JDA event hierarchy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventDistributorBenchmark {
+
+  private static final int EVENT_COUNT = 4096;
+
+  private EventDistributor eventDistributor;
+  private Map<Class<?>, EventListenerAbstract> legacyListenerMap;
+  private GenericEvent[] events;
+
+  @Setup
+  public void setUp() {
+    List<CountingListener<?>> listeners =
+        Arrays.asList(
+            new MessageListener(),
+            new NicknameListener(),
+            new RoleAddListener(),
+            new RoleRemoveListener(),
+            new RoleListener(),
+            new TextChannelListener(),
+            new CategoryListener());
+
+    eventDistributor =
+        new EventDistributor(
+            null, null, new LinkedHashSet<EventListenerAbstract>(listeners));
+
+    legacyListenerMap = new HashMap<>();
+    listeners.forEach(listener -> legacyListenerMap.put(listener.getEventType(), listener));
+
+    // Out of every 100 events: 60 presence updates, 30 message events (JDA fires both the generic
+    // and the guild-specific variant for each message), and 10 member updates.
+    List<Supplier<GenericEvent>> mix = new ArrayList<>();
+    addToMix(mix, 30, OnlineStatusEvent::new);
+    addToMix(mix, 20, ActivityStartEvent::new);
+    addToMix(mix, 10, ActivityOrderEvent::new);
+    addToMix(mix, 15, MessageReceivedEvent::new);
+    addToMix(mix, 15, GuildMessageReceivedEvent::new);
+    addToMix(mix, 4, NicknameEvent::new);
+    addToMix(mix, 3, RoleAddEvent::new);
+    addToMix(mix, 3, RoleRemoveEvent::new);
+
+    Random random = new Random(42);
+    events = new GenericEvent[EVENT_COUNT];
+    for (int i = 0; i < EVENT_COUNT; i++) {
+      events[i] = mix.get(random.nextInt(mix.size())).get();
+    }
+  }
+
+  private static void addToMix(
+      List<Supplier<GenericEvent>> mix, int weight, Supplier<GenericEvent> supplier) {
+    for (int i = 0; i < weight; i++) mix.add(supplier);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(EVENT_COUNT)
+  public void dispatchTable() {
+    for (GenericEvent event : events) {
+      eventDistributor.dispatch(event);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(EVENT_COUNT)
+  public void linearScan() {
+    for (GenericEvent event : events) {
+      legacyListenerMap.forEach(
+          (aClass, listener) -> {
+            if (aClass.isAssignableFrom(event.getClass()))
+              //noinspection unchecked
+              listener.onEvent(event);
+          });
+    }
+  }
+
+  public static void main(String... args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder().include(EventDistributorBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+
+  // Stand-in events.
+
+  private abstract static class StandInEvent extends Event {
+    StandInEvent() {
+      super(null, 0);
+    }
+  }
+
+  private abstract static class UserEvent extends StandInEvent {}
+
+  private static class OnlineStatusEvent extends UserEvent {}
+
+  private static class ActivityStartEvent extends UserEvent {}
+
+  private static class ActivityOrderEvent extends UserEvent {}
+
+  private static class MessageReceivedEvent extends StandInEvent {}
+
+  private static class GuildMessageReceivedEvent extends StandInEvent {}
+
+  private abstract static class MemberEvent extends StandInEvent {}
+
+  private static class NicknameEvent extends MemberEvent {}
+
+  private static class RoleAddEvent extends MemberEvent {}
+
+  private static class RoleRemoveEvent extends MemberEvent {}
+
+  private abstract static class RoleEvent extends StandInEvent {}
+
+  private abstract static class TextChannelEvent extends StandInEvent {}
+
+  private abstract static class CategoryEvent extends StandInEvent {}
+
+  // Stand-in listeners, one per listener in the bot.
+
+  private abstract static class CountingListener<E extends GenericEvent>
+      extends EventListenerAbstract<E> {
+    private final Class<E> eventType;
+    long received;
+
+    CountingListener(Class<E> eventType) {
+      this.eventType = eventType;
+    }
+
+    Class<E> getEventType() {
+      return eventType;
+    }
+
+    @Override
+    public void onEvent(E event) {
+      received++;
+    }
+  }
+
+  private static class MessageListener extends CountingListener<MessageReceivedEvent> {
+    MessageListener() {
+      super(MessageReceivedEvent.class);
+    }
+  }
+
+  private static class NicknameListener extends CountingListener<NicknameEvent> {
+    NicknameListener() {
+      super(NicknameEvent.class);
+    }
+  }
+
+  private static class RoleAddListener extends CountingListener<RoleAddEvent> {
+    RoleAddListener() {
+      super(RoleAddEvent.class);
+    }
+  }
+
+  private static class RoleRemoveListener extends CountingListener<RoleRemoveEvent> {
+    RoleRemoveListener() {
+      super(RoleRemoveEvent.class);
+    }
+  }
+
+  private static class RoleListener extends CountingListener<RoleEvent> {
+    RoleListener() {
+      super(RoleEvent.class);
+    }
+  }
+
+  private static class TextChannelListener extends CountingListener<TextChannelEvent> {
+    TextChannelListener() {
+      super(TextChannelEvent.class);
+    }
+  }
+
+  private static class CategoryListener extends CountingListener<CategoryEvent> {
+    CategoryListener() {
+      super(CategoryEvent.class);
+    }
+  }
+}
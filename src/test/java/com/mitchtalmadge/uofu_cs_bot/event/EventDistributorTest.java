@@ -0,0 +1,132 @@
+package com.mitchtalmadge.uofu_cs_bot.event;
+
+import com.mitchtalmadge.uofu_cs_bot.event.listeners.EventListenerAbstract;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.events.Event;
+import net.dv8tion.jda.api.events.channel.text.TextChannelDeleteEvent;
+import net.dv8tion.jda.api.events.role.RoleCreateEvent;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+public class EventDistributorTest {
+
+  private MemberListener memberListener;
+  private NicknameListener firstNicknameListener;
+  private NicknameListener secondNicknameListener;
+  private EventDistributor eventDistributor;
+
+  @Before
+  public void setUp() {
+    memberListener = new MemberListener();
+    firstNicknameListener = new NicknameListener();
+    secondNicknameListener = new NicknameListener();
+
+    Set<EventListenerAbstract> listeners = new LinkedHashSet<>();
+    listeners.add(memberListener);
+    listeners.add(firstNicknameListener);
+    listeners.add(secondNicknameListener);
+
+    eventDistributor = new EventDistributor(null, null, listeners);
+  }
+
+  /** Tests that every listener of a type receives the event, including supertype listeners. */
+  @Test
+  public void TestDispatchToSeveralListeners() {
+    eventDistributor.dispatch(new NicknameEvent());
+
+    Assert.assertEquals(1, memberListener.received);
+    Assert.assertEquals(1, firstNicknameListener.received);
+    Assert.assertEquals(1, secondNicknameListener.received);
+  }
+
+  /** Tests that subtype listeners do not receive events of their supertype. */
+  @Test
+  public void TestDispatchToSupertypeOnly() {
+    eventDistributor.dispatch(new MemberEvent());
+
+    Assert.assertEquals(1, memberListener.received);
+    Assert.assertEquals(0, firstNicknameListener.received);
+    Assert.assertEquals(0, secondNicknameListener.received);
+  }
+
+  /** Tests that events without listeners are dropped. */
+  @Test
+  public void TestDropUnwantedEvents() {
+    eventDistributor.onEvent(new PresenceEvent());
+
+    Assert.assertEquals(0, eventDistributor.getListenersForEventClass(PresenceEvent.class).length);
+    Assert.assertEquals(0, memberListener.received);
+    Assert.assertEquals(0, firstNicknameListener.received);
+  }
+
+  /** Tests that the computed listeners are cached per event class. */
+  @Test
+  public void TestDispatchTableIsCached() {
+    Assert.assertSame(
+        eventDistributor.getListenersForEventClass(NicknameEvent.class),
+        eventDistributor.getListenersForEventClass(NicknameEvent.class));
+    Assert.assertEquals(3, eventDistributor.getListenersForEventClass(NicknameEvent.class).length);
+  }
+
+  /** Tests that role and text channel events are ordered by the entity they are about. */
+  @Test
+  public void TestEntityEventsKeyedById() {
+    Role role = withId(Role.class, 1234L);
+    TextChannel channel = withId(TextChannel.class, 5678L);
+
+    Assert.assertEquals(1234L, EventDistributor.getOrderingKey(new RoleCreateEvent(null, 0, role)));
+    Assert.assertEquals(
+        5678L, EventDistributor.getOrderingKey(new TextChannelDeleteEvent(null, 0, channel)));
+    Assert.assertEquals(0L, EventDistributor.getOrderingKey(new PresenceEvent()));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T withId(Class<T> type, long id) {
+    return (T)
+        Proxy.newProxyInstance(
+            EventDistributorTest.class.getClassLoader(),
+            new Class<?>[] {type},
+            (proxy, method, args) -> {
+              if (method.getName().equals("getIdLong")) return id;
+              throw new UnsupportedOperationException(method.getName());
+            });
+  }
+
+  private static class PresenceEvent extends Event {
+    PresenceEvent() {
+      super(null, 0);
+    }
+  }
+
+  private static class MemberEvent extends Event {
+    MemberEvent() {
+      super(null, 0);
+    }
+  }
+
+  private static class NicknameEvent extends MemberEvent {}
+
+  private static class MemberListener extends EventListenerAbstract<MemberEvent> {
+    int received;
+
+    @Override
+    public void onEvent(MemberEvent event) {
+      received++;
+    }
+  }
+
+  private static class NicknameListener extends EventListenerAbstract<NicknameEvent> {
+    int received;
+
+    @Override
+    public void onEvent(NicknameEvent event) {
+      received++;
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package com.mitchtalmadge.uofu_cs_bot.event;
+
+import com.mitchtalmadge.uofu_cs_bot.service.LogService;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class EventExecutorTest {
+
+  private EventExecutor eventExecutor;
+
+  @Before
+  public void setUp() {
+    eventExecutor = new EventExecutor(new LogService(null, null), 4, 10_000, "block", 1000);
+  }
+
+  @After
+  public void tearDown() {
+    eventExecutor.destroy();
+  }
+
+  /** Tests that work for the same key runs in submission order. */
+  @Test
+  public void TestSameKeyRunsInOrder() throws InterruptedException {
+    List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch done = new CountDownLatch(1000);
+
+    for (int i = 0; i < 1000; i++) {
+      int value = i;
+      eventExecutor.execute(
+          123456789012345678L,
+          () -> {
+            order.add(value);
+            done.countDown();
+          });
+    }
+
+    Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+    for (int i = 0; i < 1000; i++) {
+      Assert.assertEquals(i, (int) order.get(i));
+    }
+  }
+
+  /** Tests that work for a different key is not held up by a busy lane. */
+  @Test
+  public void TestDifferentKeysRunInParallel() throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch otherRan = new CountDownLatch(1);
+
+    // Find a key on a different lane than key 1.
+    long otherKey = 2;
+    while (Math.floorMod(Long.hashCode(otherKey), 4) == Math.floorMod(Long.hashCode(1L), 4))
+      otherKey++;
+
+    eventExecutor.execute(
+        1,
+        () -> {
+          try {
+            release.await();
+          } catch (InterruptedException ignored) {
+          }
+        });
+    eventExecutor.execute(otherKey, otherRan::countDown);
+
+    Assert.assertTrue(otherRan.await(10, TimeUnit.SECONDS));
+    release.countDown();
+  }
+
+  /** Tests that an exception thrown by one task does not stop the tasks after it. */
+  @Test
+  public void TestExceptionDoesNotStopLane() throws InterruptedException {
+    CountDownLatch ran = new CountDownLatch(1);
+
+    eventExecutor.execute(
+        1,
+        () -> {
+          throw new IllegalStateException();
+        });
+    eventExecutor.execute(1, ran::countDown);
+
+    Assert.assertTrue(ran.await(10, TimeUnit.SECONDS));
+    Assert.assertEquals(0, eventExecutor.getDroppedTaskCount());
+  }
+
+  /**
+   * Tests that blocking on a full lane gives up after the block timeout and drops the work, rather
+   * than holding up the submitting thread until the lane has room.
+   */
+  @Test
+  public void TestBlockTimesOut() throws InterruptedException {
+    EventExecutor smallExecutor = new EventExecutor(new LogService(null, null), 1, 1, "block", 50);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch queuedRan = new CountDownLatch(1);
+
+    try {
+      // Occupy the lane's thread, then fill its queue.
+      smallExecutor.execute(
+          1,
+          () -> {
+            try {
+              release.await();
+            } catch (InterruptedException ignored) {
+            }
+          });
+      Assert.assertTrue(smallExecutor.execute(1, queuedRan::countDown));
+
+      long start = System.nanoTime();
+      Assert.assertFalse(smallExecutor.execute(1, () -> {}));
+      long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+      Assert.assertTrue(waitedMillis >= 40);
+      Assert.assertTrue(waitedMillis < 5_000);
+      Assert.assertEquals(1, smallExecutor.getDroppedTaskCount());
+
+      // The work which was queued still runs.
+      release.countDown();
+      Assert.assertTrue(queuedRan.await(10, TimeUnit.SECONDS));
+    } finally {
+      release.countDown();
+      smallExecutor.destroy();
+    }
+  }
+}
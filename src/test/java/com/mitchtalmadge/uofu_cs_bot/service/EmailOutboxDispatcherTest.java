@@ -0,0 +1,220 @@
+package com.mitchtalmadge.uofu_cs_bot.service;
+
+import com.mitchtalmadge.uofu_cs_bot.domain.entity.OutboxEmail;
+import com.mitchtalmadge.uofu_cs_bot.domain.entity.repository.OutboxEmailRepository;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.*;
+import java.lang.reflect.Proxy;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Dispatches emails from a stand-in outbox to a fake SMTP server on a local port. The fake server
+ * accepts every recipient except those in {@link #rejectedRecipients}, and counts its connections
+ * and the messages it receives. The stand-in outbox is a dynamic proxy over a list.
+ */
+public class EmailOutboxDispatcherTest {
+
+  private static final int BATCH_SIZE = 20;
+
+  private List<OutboxEmail> outbox;
+  private OutboxEmailRepository outboxEmailRepository;
+
+  private ServerSocket serverSocket;
+  private Thread server;
+  private final AtomicInteger connections = new AtomicInteger();
+  private final List<String> deliveredRecipients = Collections.synchronizedList(new ArrayList<>());
+  private final Set<String> rejectedRecipients = Collections.synchronizedSet(new HashSet<>());
+  private final List<OutboxEmail> abandonedEmails = new ArrayList<>();
+
+  @Before
+  public void setUp() throws IOException {
+    outbox = new ArrayList<>();
+    outboxEmailRepository =
+        (OutboxEmailRepository)
+            Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[] {OutboxEmailRepository.class},
+                (proxy, method, args) -> {
+                  switch (method.getName()) {
+                    case "findByNextAttemptAtLessThanEqualOrderByNextAttemptAt":
+                      return outbox.stream()
+                          .filter(email -> !email.getNextAttemptAt().isAfter((Instant) args[0]))
+                          .sorted(Comparator.comparing(OutboxEmail::getNextAttemptAt))
+                          .limit(((Pageable) args[1]).getPageSize())
+                          .collect(Collectors.toList());
+                    case "save":
+                      outbox.add((OutboxEmail) args[0]);
+                      return args[0];
+                    case "deleteAll":
+                      ((Iterable<?>) args[0]).forEach(outbox::remove);
+                      return null;
+                    case "saveAll":
+                      // The emails were changed in place.
+                      return args[0];
+                    default:
+                      throw new UnsupportedOperationException(method.getName());
+                  }
+                });
+
+    serverSocket = new ServerSocket(0);
+    server = new Thread(this::serve);
+    server.start();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    serverSocket.close();
+    server.join();
+  }
+
+  /** Tests that a batch of emails is sent over one connection and removed from the outbox. */
+  @Test
+  public void TestBatchUsesOneConnection() {
+    for (int i = 0; i < 5; i++) outboxEmailRepository.save(email("u000000" + i));
+
+    EmailOutboxDispatcher dispatcher = createDispatcher(serverSocket.getLocalPort(), 10);
+    dispatcher.dispatch();
+
+    Assert.assertEquals(1, connections.get());
+    Assert.assertEquals(5, deliveredRecipients.size());
+    Assert.assertEquals(5, dispatcher.getSentEmailCount());
+    Assert.assertTrue(outbox.isEmpty());
+  }
+
+  /** Tests that a rejected email is kept for a later attempt, while the rest are sent. */
+  @Test
+  public void TestRejectedEmailRetriedLater() {
+    rejectedRecipients.add("u0000002@umail.utah.edu");
+    for (int i = 0; i < 5; i++) outboxEmailRepository.save(email("u000000" + i));
+
+    EmailOutboxDispatcher dispatcher = createDispatcher(serverSocket.getLocalPort(), 10);
+    dispatcher.dispatch();
+
+    Assert.assertEquals(4, deliveredRecipients.size());
+    Assert.assertEquals(1, dispatcher.getFailedAttemptCount());
+    Assert.assertEquals(1, outbox.size());
+
+    OutboxEmail email = outbox.get(0);
+    Assert.assertEquals(1, email.getAttempts());
+    Assert.assertNotNull(email.getLastError());
+    Assert.assertTrue(email.getNextAttemptAt().isAfter(Instant.now()));
+
+    // It is not due yet.
+    dispatcher.dispatch();
+    Assert.assertEquals(1, dispatcher.getFailedAttemptCount());
+  }
+
+  /** Tests that emails are given up on once they run out of attempts. */
+  @Test
+  public void TestGivesUpAfterMaxAttempts() throws IOException {
+    int port = serverSocket.getLocalPort();
+    serverSocket.close();
+    outboxEmailRepository.save(email("u0000000"));
+
+    EmailOutboxDispatcher dispatcher = createDispatcher(port, 1);
+    dispatcher.dispatch();
+
+    Assert.assertEquals(1, dispatcher.getAbandonedEmailCount());
+    Assert.assertTrue(outbox.isEmpty());
+    Assert.assertEquals(1, abandonedEmails.size());
+    Assert.assertEquals("u0000000@umail.utah.edu", abandonedEmails.get(0).getRecipient());
+  }
+
+  /** Tests that the backoff doubles with each attempt, up to the maximum. */
+  @Test
+  public void TestBackoff() {
+    EmailOutboxDispatcher dispatcher = createDispatcher(serverSocket.getLocalPort(), 10);
+
+    Assert.assertEquals(Duration.ofSeconds(30), dispatcher.getBackoff(1));
+    Assert.assertEquals(Duration.ofSeconds(60), dispatcher.getBackoff(2));
+    Assert.assertEquals(Duration.ofSeconds(240), dispatcher.getBackoff(4));
+    Assert.assertEquals(Duration.ofHours(1), dispatcher.getBackoff(20));
+  }
+
+  private EmailOutboxDispatcher createDispatcher(int port, int maxAttempts) {
+    JavaMailSenderImpl javaMailSender = new JavaMailSenderImpl();
+    javaMailSender.setHost("localhost");
+    javaMailSender.setPort(port);
+    javaMailSender.setProtocol("smtp");
+    Properties properties = new Properties();
+    properties.setProperty("mail.smtp.from", "bot@localhost");
+    properties.setProperty("mail.smtp.connectiontimeout", "3000");
+    properties.setProperty("mail.smtp.timeout", "3000");
+    javaMailSender.setJavaMailProperties(properties);
+
+    return new EmailOutboxDispatcher(
+        new LogService(null, null),
+        outboxEmailRepository,
+        javaMailSender,
+        Collections.singleton(abandonedEmails::add),
+        BATCH_SIZE,
+        30_000,
+        3_600_000,
+        maxAttempts);
+  }
+
+  private static OutboxEmail email(String unid) {
+    return new OutboxEmail(unid + "@umail.utah.edu", "Test", "Hi there!");
+  }
+
+  // The fake SMTP server.
+
+  private void serve() {
+    while (!serverSocket.isClosed()) {
+      try (Socket socket = serverSocket.accept()) {
+        connections.incrementAndGet();
+        converse(socket);
+      } catch (IOException e) {
+        // The server was closed.
+      }
+    }
+  }
+
+  /** Answers the commands of one connection until the client quits. */
+  private void converse(Socket socket) throws IOException {
+    BufferedReader in =
+        new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+    reply(out, "220 localhost");
+
+    String recipient = null;
+    String line;
+    while ((line = in.readLine()) != null) {
+      String command = line.toUpperCase();
+      if (command.startsWith("RCPT TO:")) {
+        recipient = line.substring(line.indexOf('<') + 1, line.indexOf('>'));
+        reply(out, rejectedRecipients.contains(recipient) ? "550 No such user" : "250 OK");
+      } else if (command.startsWith("DATA")) {
+        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+        while (!".".equals(in.readLine())) {
+          // Skip the message.
+        }
+        deliveredRecipients.add(recipient);
+        reply(out, "250 OK");
+      } else if (command.startsWith("QUIT")) {
+        reply(out, "221 Bye");
+        return;
+      } else {
+        reply(out, "250 OK");
+      }
+    }
+  }
+
+  private static void reply(Writer out, String reply) throws IOException {
+    out.write(reply + "\r\n");
+    out.flush();
+  }
+}
@@ -0,0 +1,205 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord;
+
+import com.mitchtalmadge.uofu_cs_bot.domain.cs.Course;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.SynchronizationScope.Phase;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DiscordSynchronizationRequestSurrogateTest {
+
+  private static final long DEBOUNCE_MILLIS = 50;
+  private static final long MAX_DELAY_MILLIS = 1_000;
+
+  private DiscordSynchronizationRequestSurrogate requestSurrogate;
+
+  @Before
+  public void setUp() {
+    requestSurrogate = new DiscordSynchronizationRequestSurrogate();
+  }
+
+  /** Tests that a burst of requests is merged into one scope. */
+  @Test
+  public void TestBurstIsCoalesced() throws Exception {
+    for (int number = 1000; number < 1010; number++)
+      requestSurrogate.requestSynchronization(
+          SynchronizationScope.ofCourses(Collections.singleton(Course.of(number))));
+
+    SynchronizationScope scope =
+        requestSurrogate.awaitSynchronizationRequest(DEBOUNCE_MILLIS, MAX_DELAY_MILLIS);
+
+    for (int number = 1000; number < 1010; number++)
+      Assert.assertTrue(scope.includes(Course.of(number)));
+    Assert.assertFalse(scope.includes(Course.of(1010)));
+    Assert.assertFalse(requestSurrogate.isSynchronizationRequested());
+    Assert.assertEquals(10, requestSurrogate.getGeneration());
+  }
+
+  /** Tests that a waiting worker is woken by a request, and returns after the debounce period. */
+  @Test
+  public void TestWorkerIsWoken() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<SynchronizationScope> request =
+          executor.submit(
+              () ->
+                  requestSurrogate.awaitSynchronizationRequest(DEBOUNCE_MILLIS, MAX_DELAY_MILLIS));
+
+      // Give the worker time to start waiting.
+      Thread.sleep(50);
+      Assert.assertFalse(request.isDone());
+
+      long start = System.nanoTime();
+      requestSurrogate.requestSynchronization(SynchronizationScope.of(Phase.NICKNAMES));
+      SynchronizationScope scope = request.get(1, TimeUnit.SECONDS);
+      long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+      Assert.assertEquals(SynchronizationScope.of(Phase.NICKNAMES), scope);
+      Assert.assertTrue(elapsedMillis >= DEBOUNCE_MILLIS);
+      Assert.assertTrue(elapsedMillis < MAX_DELAY_MILLIS);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /** Tests that a tracked request completes only once a synchronization including it finishes. */
+  @Test
+  public void TestTrackedRequestCompletes() throws Exception {
+    CompletableFuture<Void> first =
+        requestSurrogate.requestTrackedSynchronization(SynchronizationScope.EVERYTHING);
+    requestSurrogate.awaitSynchronizationRequest(DEBOUNCE_MILLIS, MAX_DELAY_MILLIS);
+    Assert.assertFalse(first.isDone());
+
+    // Made after the scope was taken, so not included in this synchronization.
+    CompletableFuture<Void> second =
+        requestSurrogate.requestTrackedSynchronization(SynchronizationScope.of(Phase.ROLES));
+
+    requestSurrogate.finishSynchronization(null);
+    Assert.assertTrue(first.isDone());
+    Assert.assertFalse(first.isCompletedExceptionally());
+    Assert.assertFalse(second.isDone());
+
+    SynchronizationScope scope =
+        requestSurrogate.awaitSynchronizationRequest(DEBOUNCE_MILLIS, MAX_DELAY_MILLIS);
+    Assert.assertEquals(SynchronizationScope.of(Phase.ROLES), scope);
+    requestSurrogate.finishSynchronization(new IllegalStateException("Failed"));
+    Assert.assertTrue(second.isCompletedExceptionally());
+  }
+
+  /** Tests that no request is lost while several threads request and a worker takes requests. */
+  @Test
+  public void TestNoRequestIsLost() throws Exception {
+    int threads = 4;
+    int requestsPerThread = 250;
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<Future<?>> requesters = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      int first = 1000 + t * requestsPerThread;
+      requesters.add(
+          executor.submit(
+              () -> {
+                for (int number = first; number < first + requestsPerThread; number++) {
+                  requestSurrogate.requestSynchronization(
+                      SynchronizationScope.ofCourses(Collections.singleton(Course.of(number))));
+                  if (number % 50 == 0) Thread.yield();
+                }
+              }));
+    }
+
+    // Take requests until every requester has finished and nothing is pending.
+    boolean[] seen = new boolean[threads * requestsPerThread];
+    while (true) {
+      boolean finished = requesters.stream().allMatch(Future::isDone);
+      if (finished && !requestSurrogate.isSynchronizationRequested()) break;
+      if (!requestSurrogate.isSynchronizationRequested()) {
+        Thread.yield();
+        continue;
+      }
+
+      SynchronizationScope scope = requestSurrogate.awaitSynchronizationRequest(1, 10);
+      for (int i = 0; i < seen.length; i++) {
+        if (scope.includes(Course.of(1000 + i))) seen[i] = true;
+      }
+    }
+    executor.shutdown();
+
+    for (boolean wasSeen : seen) Assert.assertTrue(wasSeen);
+    Assert.assertEquals(threads * requestsPerThread, requestSurrogate.getGeneration());
+  }
+
+  /**
+   * Tests that tracked requests made while the worker takes and finishes synchronizations complete
+   * when the synchronization whose scope included them finishes, and not before.
+   */
+  @Test
+  public void TestTrackedRequestsRaceWithWorker() throws Exception {
+    int threads = 4;
+    int requestsPerThread = 250;
+
+    Map<Integer, CompletableFuture<Void>> completions = new ConcurrentHashMap<>();
+    Set<Integer> synchronizedNumbers = ConcurrentHashMap.newKeySet();
+    AtomicInteger completedEarly = new AtomicInteger();
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<Future<?>> requesters = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      int first = 1000 + t * requestsPerThread;
+      requesters.add(
+          executor.submit(
+              () -> {
+                for (int number = first; number < first + requestsPerThread; number++) {
+                  int requested = number;
+                  CompletableFuture<Void> completion =
+                      requestSurrogate.requestTrackedSynchronization(
+                          SynchronizationScope.ofCourses(
+                              Collections.singleton(Course.of(requested))));
+                  completion.thenRun(
+                      () -> {
+                        if (!synchronizedNumbers.contains(requested))
+                          completedEarly.incrementAndGet();
+                      });
+                  completions.put(requested, completion);
+                }
+              }));
+    }
+
+    // Take and finish synchronizations with no debounce, so that requests land while taking.
+    int lateCompletions = 0;
+    while (true) {
+      boolean finished = requesters.stream().allMatch(Future::isDone);
+      if (finished && !requestSurrogate.isSynchronizationRequested()) break;
+      if (!requestSurrogate.isSynchronizationRequested()) {
+        Thread.yield();
+        continue;
+      }
+
+      SynchronizationScope scope = requestSurrogate.awaitSynchronizationRequest(0, 0);
+      List<Integer> included = new ArrayList<>();
+      for (int number = 1000; number < 1000 + threads * requestsPerThread; number++) {
+        if (scope.includes(Course.of(number)) && synchronizedNumbers.add(number))
+          included.add(number);
+      }
+      requestSurrogate.finishSynchronization(null);
+
+      // Every request in the scope taken is complete, once its requester has stored it.
+      for (int number : included) {
+        while (!completions.containsKey(number)) Thread.yield();
+        if (!completions.get(number).isDone()) lateCompletions++;
+      }
+    }
+    executor.shutdown();
+
+    Assert.assertEquals(0, lateCompletions);
+    Assert.assertEquals(0, completedEarly.get());
+    Assert.assertEquals(threads * requestsPerThread, completions.size());
+  }
+}
@@ -0,0 +1,117 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord;
+
+import net.dv8tion.jda.api.entities.Category;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.entities.TextChannel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares taking a {@link GuildSnapshot} for a synchronization phase with the previous approach
+ * of copying and filtering the Guild's lists once for every synchronizer. The Guild has 250 roles,
+ * for the course, club and verified synchronizers, and 300 text channels, for the course and club
+ * synchronizers. Like JDA, the stand-in Guild copies its lists each time they are requested.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GuildSnapshotBenchmark {
+
+  private static final List<String> ROLE_PREFIXES = Arrays.asList("cs-", "club-", "verified");
+  private static final List<String> TEXT_CHANNEL_PREFIXES = Arrays.asList("cs-", "club-");
+
+  private Guild guild;
+
+  @Setup
+  public void setUp() {
+    List<Role> roles = new ArrayList<>();
+    for (int i = 0; i < 200; i++) roles.add(named(Role.class, String.format("CS-%04d", 1000 + i)));
+    for (int i = 0; i < 45; i++) roles.add(named(Role.class, "club-" + i));
+    for (String name : new String[] {"@everyone", "Verified", "Admin", "Moderator", "Bot"})
+      roles.add(named(Role.class, name));
+
+    List<TextChannel> textChannels = new ArrayList<>();
+    for (int i = 0; i < 250; i++)
+      textChannels.add(named(TextChannel.class, String.format("cs-%04d", 1000 + i)));
+    for (int i = 0; i < 45; i++) textChannels.add(named(TextChannel.class, "club-" + i));
+    for (int i = 0; i < 5; i++) textChannels.add(named(TextChannel.class, "general-" + i));
+
+    List<Category> categories = Collections.singletonList(named(Category.class, "Courses"));
+    guild =
+        standIn(
+            Guild.class,
+            method -> {
+              switch (method) {
+                case "getRoles":
+                  return new ArrayList<>(roles);
+                case "getCategories":
+                  return new ArrayList<>(categories);
+                case "getTextChannels":
+                  return new ArrayList<>(textChannels);
+                default:
+                  throw new UnsupportedOperationException(method);
+              }
+            });
+  }
+
+  @Benchmark
+  public void snapshot(Blackhole blackhole) {
+    GuildSnapshot snapshot = GuildSnapshot.of(guild, ROLE_PREFIXES, TEXT_CHANNEL_PREFIXES);
+    for (String prefix : ROLE_PREFIXES) blackhole.consume(snapshot.getRolesWithPrefix(prefix));
+    for (String prefix : TEXT_CHANNEL_PREFIXES)
+      blackhole.consume(snapshot.getTextChannelsWithPrefix(prefix));
+  }
+
+  @Benchmark
+  public void filterPerSynchronizer(Blackhole blackhole) {
+    for (String prefix : ROLE_PREFIXES)
+      blackhole.consume(
+          guild.getRoles().stream()
+              .filter(role -> role.getName().toLowerCase().startsWith(prefix.toLowerCase()))
+              .collect(Collectors.toList()));
+    for (String prefix : TEXT_CHANNEL_PREFIXES)
+      blackhole.consume(
+          guild.getTextChannels().stream()
+              .filter(channel -> channel.getName().toLowerCase().startsWith(prefix.toLowerCase()))
+              .collect(Collectors.toList()));
+  }
+
+  private static <T> T named(Class<T> type, String name) {
+    return standIn(
+        type,
+        method -> {
+          if (method.equals("getName")) return name;
+          throw new UnsupportedOperationException(method);
+        });
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T standIn(Class<T> type, java.util.function.Function<String, Object> handler) {
+    return (T)
+        Proxy.newProxyInstance(
+            GuildSnapshotBenchmark.class.getClassLoader(),
+            new Class<?>[] {type},
+            (proxy, method, args) -> handler.apply(method.getName()));
+  }
+
+  public static void main(String... args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder()
+                .include(GuildSnapshotBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build())
+        .run();
+  }
+}
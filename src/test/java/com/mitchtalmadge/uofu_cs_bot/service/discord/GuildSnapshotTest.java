@@ -0,0 +1,140 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord;
+
+import net.dv8tion.jda.api.entities.Category;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.entities.TextChannel;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Takes snapshots of a stand-in Guild. The stand-in entities are dynamic proxies which answer only
+ * their names.
+ */
+public class GuildSnapshotTest {
+
+  private List<Role> roles;
+  private List<TextChannel> textChannels;
+  private Guild guild;
+
+  @Before
+  public void setUp() {
+    roles = new ArrayList<>();
+    for (String name :
+        new String[] {"@everyone", "CS-1410", "cs-3500-TA", "club-chess", "Verified"})
+      roles.add(named(Role.class, name));
+
+    textChannels = new ArrayList<>();
+    for (String name : new String[] {"general", "cs-1410", "club-chess", "CLUB-go", "cs-3500"})
+      textChannels.add(named(TextChannel.class, name));
+
+    guild =
+        standIn(
+            Guild.class,
+            method -> {
+              switch (method) {
+                case "getRoles":
+                  return new ArrayList<>(roles);
+                case "getCategories":
+                  return Collections.singletonList(named(Category.class, "Courses"));
+                case "getTextChannels":
+                  return new ArrayList<>(textChannels);
+                default:
+                  throw new UnsupportedOperationException(method);
+              }
+            });
+  }
+
+  /** Tests that each prefix has the entities whose names begin with it, ignoring case, in order. */
+  @Test
+  public void TestPartitionsByPrefix() {
+    GuildSnapshot snapshot =
+        GuildSnapshot.of(
+            guild, Arrays.asList("cs-", "club-", "verified"), Arrays.asList("CS-", "club-"));
+
+    Assert.assertEquals(
+        Arrays.asList("CS-1410", "cs-3500-TA"), roleNames(snapshot.getRolesWithPrefix("cs-")));
+    Assert.assertEquals(
+        Collections.singletonList("Verified"), roleNames(snapshot.getRolesWithPrefix("VERIFIED")));
+    Assert.assertEquals(
+        Arrays.asList("cs-1410", "cs-3500"),
+        channelNames(snapshot.getTextChannelsWithPrefix("cs-")));
+    Assert.assertEquals(
+        Arrays.asList("club-chess", "CLUB-go"),
+        channelNames(snapshot.getTextChannelsWithPrefix("club-")));
+
+    Assert.assertEquals(5, snapshot.getRoles().size());
+    Assert.assertEquals(1, snapshot.getCategories().size());
+    Assert.assertEquals(5, snapshot.getTextChannels().size());
+  }
+
+  /** Tests that a snapshot is not changed by later changes to the Guild. */
+  @Test
+  public void TestSnapshotIsConsistent() {
+    GuildSnapshot snapshot =
+        GuildSnapshot.of(guild, Collections.singleton("cs-"), Collections.singleton("cs-"));
+    roles.add(named(Role.class, "cs-4400"));
+    textChannels.remove(1);
+
+    Assert.assertEquals(2, snapshot.getRolesWithPrefix("cs-").size());
+    Assert.assertEquals(2, snapshot.getTextChannelsWithPrefix("cs-").size());
+    Assert.assertEquals(5, snapshot.getTextChannels().size());
+  }
+
+  /** Tests that the slices cannot be changed, as they are shared by every synchronizer. */
+  @Test(expected = UnsupportedOperationException.class)
+  public void TestSlicesAreUnmodifiable() {
+    GuildSnapshot snapshot =
+        GuildSnapshot.of(guild, Collections.singleton("cs-"), Collections.emptySet());
+    snapshot.getRolesWithPrefix("cs-").remove(0);
+  }
+
+  /** Tests that a prefix the snapshot was not taken with is rejected. */
+  @Test(expected = IllegalArgumentException.class)
+  public void TestUnknownPrefix() {
+    GuildSnapshot.of(guild, Collections.singleton("cs-"), Collections.emptySet())
+        .getRolesWithPrefix("club-");
+  }
+
+  private static List<String> roleNames(List<Role> roles) {
+    return roles.stream().map(Role::getName).collect(Collectors.toList());
+  }
+
+  private static List<String> channelNames(List<TextChannel> channels) {
+    return channels.stream().map(TextChannel::getName).collect(Collectors.toList());
+  }
+
+  private static <T> T named(Class<T> type, String name) {
+    return standIn(
+        type,
+        method -> {
+          if (method.equals("getName")) return name;
+          throw new UnsupportedOperationException(method);
+        });
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T standIn(Class<T> type, java.util.function.Function<String, Object> handler) {
+    return (T)
+        Proxy.newProxyInstance(
+            GuildSnapshotTest.class.getClassLoader(),
+            new Class<?>[] {type},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "hashCode":
+                  return System.identityHashCode(proxy);
+                case "equals":
+                  return proxy == args[0];
+                case "toString":
+                  return type.getSimpleName();
+                default:
+                  return handler.apply(method.getName());
+              }
+            });
+  }
+}
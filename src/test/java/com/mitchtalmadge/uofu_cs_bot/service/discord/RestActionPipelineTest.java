@@ -0,0 +1,161 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord;
+
+import com.mitchtalmadge.uofu_cs_bot.service.LogService;
+import net.dv8tion.jda.api.requests.RestAction;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+public class RestActionPipelineTest {
+
+  private static final int MAX_IN_FLIGHT = 4;
+
+  /** How long each stand-in request takes to finish, in milliseconds. */
+  private static final int REQUEST_MILLIS = 20;
+
+  private ScheduledExecutorService requester;
+  private RestActionPipeline restActionPipeline;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger maxInFlight = new AtomicInteger();
+  private final AtomicInteger finished = new AtomicInteger();
+
+  @Before
+  public void setUp() {
+    requester = Executors.newScheduledThreadPool(8);
+    restActionPipeline = new RestActionPipeline(new LogService(null, null), MAX_IN_FLIGHT);
+  }
+
+  @After
+  public void tearDown() {
+    requester.shutdownNow();
+  }
+
+  /** Tests that the barrier waits for every request, and that the window is never exceeded. */
+  @Test
+  public void TestWindowAndBarrier() {
+    restActionPipeline.runPhase(
+        "Test",
+        () -> {
+          for (int i = 0; i < 20; i++) restActionPipeline.submit(createAction(false));
+        });
+
+    Assert.assertEquals(20, finished.get());
+    Assert.assertEquals(0, inFlight.get());
+    Assert.assertTrue(maxInFlight.get() <= MAX_IN_FLIGHT);
+    Assert.assertEquals(20, restActionPipeline.getSubmittedRequestCount());
+    Assert.assertEquals(0, restActionPipeline.getFailedRequestCount());
+  }
+
+  /** Tests that requests run together: 20 requests in a window of 4 take about 5 rounds. */
+  @Test
+  public void TestRequestsRunTogether() {
+    restActionPipeline.runPhase(
+        "Test",
+        () -> {
+          for (int i = 0; i < 20; i++) restActionPipeline.submit(createAction(false));
+        });
+
+    Assert.assertEquals(MAX_IN_FLIGHT, maxInFlight.get());
+    Assert.assertTrue(restActionPipeline.getPhaseMillis("Test") < 20 * REQUEST_MILLIS);
+  }
+
+  /** Tests that failed requests are counted and still release their place in the window. */
+  @Test
+  public void TestFailedRequests() {
+    restActionPipeline.runPhase(
+        "Test",
+        () -> {
+          for (int i = 0; i < 10; i++) restActionPipeline.submit(createAction(i % 2 == 0));
+        });
+
+    Assert.assertEquals(10, finished.get());
+    Assert.assertEquals(5, restActionPipeline.getFailedRequestCount());
+
+    // The window is whole again.
+    restActionPipeline.runPhase("Next", () -> restActionPipeline.submit(createAction(false)));
+    Assert.assertEquals(11, finished.get());
+  }
+
+  /** Tests that a phase does not wait for requests submitted outside of it. */
+  @Test
+  public void TestPhaseIgnoresOtherRequests() {
+    restActionPipeline.submit(createAction(false, 50 * REQUEST_MILLIS));
+    restActionPipeline.runPhase("Test", () -> restActionPipeline.submit(createAction(false)));
+
+    Assert.assertEquals(1, finished.get());
+    Assert.assertTrue(restActionPipeline.getPhaseMillis("Test") < 50 * REQUEST_MILLIS);
+  }
+
+  /** Tests that a nested phase waits only for its own requests, and the outer phase for both. */
+  @Test
+  public void TestNestedPhases() {
+    restActionPipeline.runPhase(
+        "Outer",
+        () -> {
+          restActionPipeline.submit(createAction(false, 50 * REQUEST_MILLIS));
+          restActionPipeline.runPhase(
+              "Inner", () -> restActionPipeline.submit(createAction(false)));
+          Assert.assertEquals(1, finished.get());
+        });
+
+    Assert.assertEquals(2, finished.get());
+    Assert.assertTrue(restActionPipeline.getPhaseMillis("Inner") < 50 * REQUEST_MILLIS);
+    Assert.assertTrue(restActionPipeline.getPhaseMillis("Outer") >= 50 * REQUEST_MILLIS);
+  }
+
+  /** Tests that phases which have not run have no duration. */
+  @Test
+  public void TestPhaseMillisBeforeRun() {
+    Assert.assertEquals(-1, restActionPipeline.getPhaseMillis("Test"));
+  }
+
+  /**
+   * Creates a stand-in request which finishes on another thread after {@link #REQUEST_MILLIS}.
+   *
+   * @param fail Whether the request fails.
+   * @return The request.
+   */
+  private RestAction<Object> createAction(boolean fail) {
+    return createAction(fail, REQUEST_MILLIS);
+  }
+
+  /**
+   * Creates a stand-in request which finishes on another thread after a delay.
+   *
+   * @param fail Whether the request fails.
+   * @param millis How long the request takes to finish, in milliseconds.
+   * @return The request.
+   */
+  @SuppressWarnings("unchecked")
+  private RestAction<Object> createAction(boolean fail, int millis) {
+    return (RestAction<Object>)
+        Proxy.newProxyInstance(
+            getClass().getClassLoader(),
+            new Class<?>[] {RestAction.class},
+            (proxy, method, args) -> {
+              if (!method.getName().equals("queue") || args == null || args.length != 2)
+                throw new UnsupportedOperationException(method.getName());
+
+              maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+              requester.schedule(
+                  () -> {
+                    inFlight.decrementAndGet();
+                    finished.incrementAndGet();
+                    if (fail) ((Consumer<Throwable>) args[1]).accept(new RuntimeException("Test"));
+                    else ((Consumer<Object>) args[0]).accept(null);
+                  },
+                  millis,
+                  TimeUnit.MILLISECONDS);
+              return null;
+            });
+  }
+}
@@ -0,0 +1,290 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord;
+
+import com.mitchtalmadge.uofu_cs_bot.domain.entity.SemesterReset;
+import com.mitchtalmadge.uofu_cs_bot.domain.entity.SemesterReset.Step;
+import com.mitchtalmadge.uofu_cs_bot.domain.entity.repository.SemesterResetRepository;
+import com.mitchtalmadge.uofu_cs_bot.service.LogService;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.nickname.NicknameService;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.requests.restaction.AuditableRestAction;
+import net.dv8tion.jda.api.requests.restaction.MessageAction;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+/**
+ * Runs semester resets against a stand-in guild with two course channels and one other channel. A
+ * worker thread takes synchronization requests as the real one does, and each step records an
+ * event, so that the order of the steps can be checked. The stand-in entities and repository are
+ * dynamic proxies which answer only the methods used.
+ */
+public class SemesterResetServiceTest {
+
+  private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+  private final Set<String> failingChannels = Collections.synchronizedSet(new HashSet<>());
+  private final List<Step> checkpoints = new ArrayList<>();
+
+  /** If set, clearing the nicknames waits for this latch, after counting down {@link #clearing}. */
+  private CountDownLatch clearingMayFinish;
+
+  private final CountDownLatch clearing = new CountDownLatch(1);
+
+  private SemesterReset reset;
+  private DiscordSynchronizationRequestSurrogate requestSurrogate;
+  private Thread worker;
+  private SemesterResetService semesterResetService;
+
+  @Before
+  public void setUp() {
+    LogService logService = new LogService(null, null);
+
+    List<TextChannel> channels = new ArrayList<>();
+    for (String name : new String[] {"cs-1410", "general", "cs-3500"}) channels.add(channel(name));
+    TextChannel announcements =
+        standIn(
+            TextChannel.class,
+            (method, args) -> {
+              switch (method) {
+                case "canTalk":
+                  return true;
+                case "sendMessage":
+                  return standIn(
+                      MessageAction.class,
+                      (messageMethod, messageArgs) -> {
+                        if (!messageMethod.equals("complete"))
+                          throw new UnsupportedOperationException(messageMethod);
+                        events.add("announce");
+                        return null;
+                      });
+                default:
+                  throw new UnsupportedOperationException(method);
+              }
+            });
+    Guild guild =
+        standIn(
+            Guild.class,
+            (method, args) -> {
+              switch (method) {
+                case "getTextChannels":
+                  return channels;
+                case "getTextChannelsByName":
+                  return Collections.singletonList(announcements);
+                default:
+                  throw new UnsupportedOperationException(method);
+              }
+            });
+    DiscordService discordService =
+        new DiscordService(logService) {
+          @Override
+          public Guild getGuild() {
+            return guild;
+          }
+        };
+
+    NicknameService nicknameService =
+        new NicknameService(logService, discordService, null, null, Collections.emptySet()) {
+          @Override
+          public void clearNicknamesOlderThanDays(int days) {
+            events.add("clear");
+            clearing.countDown();
+            if (clearingMayFinish != null) {
+              try {
+                clearingMayFinish.await();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            }
+          }
+        };
+
+    SemesterResetRepository semesterResetRepository =
+        standIn(
+            SemesterResetRepository.class,
+            (method, args) -> {
+              switch (method) {
+                case "findFirstByStepNotOrderByStartedAt":
+                  return Optional.ofNullable(reset).filter(r -> r.getStep() != args[0]);
+                case "save":
+                  reset = (SemesterReset) args[0];
+                  checkpoints.add(reset.getStep());
+                  return reset;
+                default:
+                  throw new UnsupportedOperationException(method);
+              }
+            });
+
+    // Takes synchronization requests, as the synchronization service does.
+    requestSurrogate = new DiscordSynchronizationRequestSurrogate();
+    worker =
+        new Thread(
+            () -> {
+              while (true) {
+                try {
+                  requestSurrogate.awaitSynchronizationRequest(1, 10);
+                } catch (InterruptedException e) {
+                  return;
+                }
+                events.add("sync");
+                requestSurrogate.finishSynchronization(null);
+              }
+            });
+    worker.start();
+
+    semesterResetService =
+        new SemesterResetService(
+            logService,
+            discordService,
+            requestSurrogate,
+            nicknameService,
+            new RestActionPipeline(logService, 10),
+            semesterResetRepository,
+            null,
+            5_000,
+            false,
+            "archive");
+  }
+
+  @After
+  public void tearDown() throws InterruptedException {
+    worker.interrupt();
+    worker.join();
+  }
+
+  /** Tests that every step runs in order, with a checkpoint after each. */
+  @Test
+  public void TestFullReset() {
+    reset = new SemesterReset(LocalDate.now());
+    semesterResetService.resumeReset();
+
+    Assert.assertEquals("clear", events.get(0));
+    Assert.assertEquals(
+        new HashSet<>(Arrays.asList("delete cs-1410", "delete cs-3500")),
+        new HashSet<>(events.subList(1, 3)));
+    // The announcement follows the synchronization having finished.
+    Assert.assertEquals(Arrays.asList("sync", "announce"), events.subList(3, 5));
+    Assert.assertEquals(5, events.size());
+
+    Assert.assertEquals(
+        Arrays.asList(
+            Step.ARCHIVE_CHANNELS,
+            Step.DELETE_CHANNELS,
+            Step.SYNCHRONIZE,
+            Step.ANNOUNCE,
+            Step.FINISHED),
+        checkpoints);
+  }
+
+  /** Tests that a failed step stops the reset, which later resumes from that step. */
+  @Test
+  public void TestResumesFailedStep() {
+    failingChannels.add("cs-3500");
+    reset = new SemesterReset(LocalDate.now());
+    semesterResetService.resumeReset();
+
+    Assert.assertEquals(Step.DELETE_CHANNELS, reset.getStep());
+    Assert.assertEquals(Arrays.asList(Step.ARCHIVE_CHANNELS, Step.DELETE_CHANNELS), checkpoints);
+    Assert.assertFalse(events.contains("sync"));
+
+    failingChannels.clear();
+    events.clear();
+    semesterResetService.resumeReset();
+
+    // The nicknames are not cleared again.
+    Assert.assertEquals(Step.FINISHED, reset.getStep());
+    Assert.assertFalse(events.contains("clear"));
+    Assert.assertTrue(events.contains("delete cs-3500"));
+    Assert.assertEquals(Arrays.asList("sync", "announce"), events.subList(2, 4));
+  }
+
+  /** Tests that nothing runs once the reset has finished. */
+  @Test
+  public void TestFinishedResetIsNotRepeated() {
+    reset = new SemesterReset(LocalDate.now());
+    semesterResetService.resumeReset();
+    events.clear();
+
+    semesterResetService.resumeReset();
+    Assert.assertTrue(events.isEmpty());
+  }
+
+  /** Tests that a resume while the reset is already running returns without running any step. */
+  @Test
+  public void TestConcurrentResumeSkipped() throws Exception {
+    clearingMayFinish = new CountDownLatch(1);
+    reset = new SemesterReset(LocalDate.now());
+    Thread first = new Thread(semesterResetService::resumeReset);
+    first.start();
+
+    // The second resume finds the first one running its first step.
+    clearing.await();
+    semesterResetService.resumeReset();
+    Assert.assertEquals(Collections.singletonList("clear"), events);
+    Assert.assertTrue(checkpoints.isEmpty());
+
+    clearingMayFinish.countDown();
+    first.join();
+    Assert.assertEquals(Step.FINISHED, reset.getStep());
+    Assert.assertEquals(1, Collections.frequency(events, "clear"));
+  }
+
+  /** @return A text channel whose deletion is recorded, or fails if in {@link #failingChannels}. */
+  @SuppressWarnings("unchecked")
+  private TextChannel channel(String name) {
+    return standIn(
+        TextChannel.class,
+        (method, args) -> {
+          switch (method) {
+            case "getName":
+              return name;
+            case "delete":
+              return standIn(
+                  AuditableRestAction.class,
+                  (actionMethod, actionArgs) -> {
+                    if (!actionMethod.equals("queue") || actionArgs.length != 2)
+                      throw new UnsupportedOperationException(actionMethod);
+                    if (failingChannels.contains(name)) {
+                      ((Consumer<Throwable>) actionArgs[1]).accept(new RuntimeException(name));
+                    } else {
+                      events.add("delete " + name);
+                      ((Consumer<Object>) actionArgs[0]).accept(null);
+                    }
+                    return null;
+                  });
+            default:
+              throw new UnsupportedOperationException(method);
+          }
+        });
+  }
+
+  private interface Handler {
+    Object invoke(String method, Object[] args);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T standIn(Class<T> type, Handler handler) {
+    return (T)
+        Proxy.newProxyInstance(
+            SemesterResetServiceTest.class.getClassLoader(),
+            new Class<?>[] {type},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "hashCode":
+                  return System.identityHashCode(proxy);
+                case "equals":
+                  return proxy == args[0];
+                case "toString":
+                  return type.getSimpleName();
+                default:
+                  return handler.invoke(method.getName(), args == null ? new Object[0] : args);
+              }
+            });
+  }
+}
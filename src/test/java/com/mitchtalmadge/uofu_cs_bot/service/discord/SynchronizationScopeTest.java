@@ -0,0 +1,76 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord;
+
+import com.mitchtalmadge.uofu_cs_bot.domain.cs.Club;
+import com.mitchtalmadge.uofu_cs_bot.domain.cs.Course;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.SynchronizationScope.Phase;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class SynchronizationScopeTest {
+
+  /** Tests that the scope of a course entity is limited to its course. */
+  @Test
+  public void TestCourseEntity() {
+    SynchronizationScope scope = SynchronizationScope.ofEntity("cs-3500-ta", Phase.CHANNELS);
+
+    Assert.assertTrue(scope.isLimited());
+    Assert.assertTrue(scope.includes(Phase.CHANNELS));
+    Assert.assertFalse(scope.includes(Phase.ROLES));
+    Assert.assertTrue(scope.includes(Course.of(3500)));
+    Assert.assertFalse(scope.includes(Course.of(2420)));
+    Assert.assertFalse(scope.includesClubs());
+  }
+
+  /** Tests that the scope of a club entity is limited to its club, including admin entities. */
+  @Test
+  public void TestClubEntity() {
+    SynchronizationScope scope = SynchronizationScope.ofEntity("club-ACM-admin", Phase.ROLES);
+
+    Assert.assertTrue(scope.includes(new Club("acm")));
+    Assert.assertFalse(scope.includes(new Club("WiC")));
+    Assert.assertFalse(scope.includesCourses());
+  }
+
+  /** Tests that entities which belong to no course or club are not limited. */
+  @Test
+  public void TestOtherEntity() {
+    SynchronizationScope scope = SynchronizationScope.ofEntity("Verified", Phase.ROLES);
+
+    Assert.assertFalse(scope.isLimited());
+    Assert.assertTrue(scope.includes(Course.of(1410)));
+    Assert.assertTrue(scope.includes(new Club("ACM")));
+  }
+
+  /** Tests that merging limited scopes unites their phases, courses and clubs. */
+  @Test
+  public void TestMergeLimited() {
+    SynchronizationScope merged =
+        SynchronizationScope.ofCourses(Collections.singleton(Course.of(3500)))
+            .merge(SynchronizationScope.ofEntity("cs-2420", Phase.CHANNELS))
+            .merge(SynchronizationScope.ofEntity("club-acm", Phase.NICKNAMES));
+
+    Assert.assertTrue(merged.isLimited());
+    for (Phase phase : Phase.values()) Assert.assertTrue(merged.includes(phase));
+    Assert.assertTrue(merged.includes(Course.of(3500)));
+    Assert.assertTrue(merged.includes(Course.of(2420)));
+    Assert.assertFalse(merged.includes(Course.of(4400)));
+    Assert.assertTrue(merged.includes(new Club("ACM")));
+  }
+
+  /** Tests that merging with a scope which is not limited removes the limit. */
+  @Test
+  public void TestMergeUnlimited() {
+    SynchronizationScope merged =
+        SynchronizationScope.ofCourses(Arrays.asList(Course.of(3500), Course.of(2420)))
+            .merge(SynchronizationScope.of(Phase.NICKNAMES));
+
+    Assert.assertFalse(merged.isLimited());
+    Assert.assertTrue(merged.includes(Phase.ROLES));
+    Assert.assertTrue(merged.includes(Phase.NICKNAMES));
+    Assert.assertEquals(
+        SynchronizationScope.EVERYTHING, merged.merge(SynchronizationScope.EVERYTHING));
+  }
+}
@@ -0,0 +1,131 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord.channel;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.mitchtalmadge.uofu_cs_bot.service.LogService;
+import net.dv8tion.jda.api.entities.TextChannel;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/** Archives channels from a {@link MessageHistoryStandIn} to a temporary directory. */
+public class ChannelArchiveServiceTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  /** Tests that every message is archived, one JSON object per line, newest first. */
+  @Test
+  public void TestArchiveRoundTrip() throws Exception {
+    MessageHistoryStandIn history = new MessageHistoryStandIn(0);
+    ChannelArchiveService archiveService = new ChannelArchiveService(new LogService(null, null), 2);
+    Path directory = temporaryFolder.getRoot().toPath().resolve("2020-08-15");
+
+    archiveService.archive(
+        Arrays.asList(
+            history.channel("cs-1410", 250),
+            history.channel("cs-3500", 100),
+            history.channel("cs-4400", 0)),
+        directory);
+
+    List<String> lines = readArchive(directory.resolve("cs-1410.ndjson.gz"));
+    Assert.assertEquals(250, lines.size());
+    Assert.assertEquals(100, readArchive(directory.resolve("cs-3500.ndjson.gz")).size());
+    Assert.assertEquals(0, readArchive(directory.resolve("cs-4400.ndjson.gz")).size());
+
+    JsonObject newest = new JsonParser().parse(lines.get(0)).getAsJsonObject();
+    Assert.assertEquals("700000000000000000", newest.get("id").getAsString());
+    Assert.assertEquals("Student 0", newest.get("author").getAsString());
+    Assert.assertEquals(1, newest.get("attachments").getAsJsonArray().size());
+    JsonObject next = new JsonParser().parse(lines.get(1)).getAsJsonObject();
+    Assert.assertEquals("699999999999999999", next.get("id").getAsString());
+    Assert.assertEquals(0, next.get("attachments").getAsJsonArray().size());
+
+    Assert.assertEquals(350, archiveService.getArchivedMessageCount());
+    // 3 pages of cs-1410, 2 of cs-3500 (the second empty), and 1 of cs-4400.
+    Assert.assertEquals(6, archiveService.getPagesFetched());
+    try (Stream<Path> files = Files.list(directory)) {
+      Assert.assertEquals(3, files.count());
+    }
+  }
+
+  /** Tests that no more channels are archived at once than the configured parallelism. */
+  @Test
+  public void TestParallelismIsBounded() throws Exception {
+    MessageHistoryStandIn history = new MessageHistoryStandIn(5);
+    ChannelArchiveService archiveService = new ChannelArchiveService(new LogService(null, null), 3);
+
+    List<TextChannel> channels = new ArrayList<>();
+    for (int i = 0; i < 8; i++) channels.add(history.channel("cs-" + (1000 + i), 450));
+    archiveService.archive(channels, temporaryFolder.getRoot().toPath());
+
+    Assert.assertEquals(3, history.getMaxFetchesInFlight());
+    Assert.assertEquals(8 * 450, archiveService.getArchivedMessageCount());
+  }
+
+  /** Tests that a channel which fails leaves no archive, while the others are still archived. */
+  @Test
+  public void TestFailedChannelLeavesNoArchive() throws Exception {
+    MessageHistoryStandIn history = new MessageHistoryStandIn(0);
+    ChannelArchiveService archiveService = new ChannelArchiveService(new LogService(null, null), 2);
+    Path directory = temporaryFolder.getRoot().toPath();
+
+    try {
+      archiveService.archive(
+          Arrays.asList(history.channel("cs-1410", 500, 2), history.channel("cs-3500", 500)),
+          directory);
+      Assert.fail("The failed channel was not reported.");
+    } catch (IOException e) {
+      Assert.assertEquals(1, e.getSuppressed().length);
+    }
+
+    Assert.assertFalse(Files.exists(directory.resolve("cs-1410.ndjson.gz")));
+    Assert.assertFalse(Files.exists(directory.resolve("cs-1410.ndjson.gz.part")));
+    Assert.assertEquals(500, readArchive(directory.resolve("cs-3500.ndjson.gz")).size());
+  }
+
+  /**
+   * Tests that a channel whose history the bot cannot read is skipped without failing the others,
+   * and without fetching its history.
+   */
+  @Test
+  public void TestUnreadableChannelSkipped() throws Exception {
+    MessageHistoryStandIn history = new MessageHistoryStandIn(0);
+    ChannelArchiveService archiveService = new ChannelArchiveService(new LogService(null, null), 2);
+    Path directory = temporaryFolder.getRoot().toPath();
+
+    archiveService.archive(
+        Arrays.asList(history.unreadableChannel("cs-1410", 500), history.channel("cs-3500", 50)),
+        directory);
+
+    Assert.assertEquals(1, archiveService.getSkippedChannelCount());
+    Assert.assertFalse(Files.exists(directory.resolve("cs-1410.ndjson.gz")));
+    Assert.assertFalse(Files.exists(directory.resolve("cs-1410.ndjson.gz.part")));
+    Assert.assertEquals(50, readArchive(directory.resolve("cs-3500.ndjson.gz")).size());
+    Assert.assertEquals(1, archiveService.getPagesFetched());
+  }
+
+  private static List<String> readArchive(Path file) throws IOException {
+    List<String> lines = new ArrayList<>();
+    try (BufferedReader reader =
+        new BufferedReader(
+            new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) lines.add(line);
+    }
+    return lines;
+  }
+}
@@ -0,0 +1,108 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord.channel;
+
+import com.mitchtalmadge.uofu_cs_bot.service.LogService;
+import net.dv8tion.jda.api.entities.TextChannel;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Reports the throughput and peak heap of archiving 1M messages, across 10 channels of a {@link
+ * MessageHistoryStandIn}, with and without a simulated page latency and at several parallelisms.
+ * The heap in use is sampled every millisecond while archiving. Run with a small heap (such as
+ * -Xmx64m) to show that the history is never held in memory.
+ */
+public class ChannelArchiveThroughput {
+
+  private static final int CHANNEL_COUNT = 10;
+  private static final int MESSAGES_PER_CHANNEL = 100_000;
+
+  public static void main(String... args) throws Exception {
+    System.out.printf(
+        "%,d messages in %d channels, max heap %,d MB%n",
+        CHANNEL_COUNT * MESSAGES_PER_CHANNEL,
+        CHANNEL_COUNT,
+        Runtime.getRuntime().maxMemory() / (1024 * 1024));
+
+    // Warm up.
+    run(0, 4);
+
+    for (long latency : new long[] {0, 1}) {
+      for (int parallelism : new int[] {1, 4, 8}) run(latency, parallelism);
+    }
+  }
+
+  private static void run(long pageLatencyMillis, int parallelism) throws Exception {
+    MessageHistoryStandIn history = new MessageHistoryStandIn(pageLatencyMillis);
+    List<TextChannel> channels = new ArrayList<>();
+    for (int i = 0; i < CHANNEL_COUNT; i++)
+      channels.add(history.channel("cs-" + (1000 + i), MESSAGES_PER_CHANNEL));
+
+    ChannelArchiveService archiveService =
+        new ChannelArchiveService(new LogService(null, null), parallelism);
+    Path directory = Files.createTempDirectory("archive");
+
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    System.gc();
+    AtomicLong peakHeap = new AtomicLong(memory.getHeapMemoryUsage().getUsed());
+    Thread sampler =
+        new Thread(
+            () -> {
+              while (!Thread.currentThread().isInterrupted()) {
+                peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                  Thread.sleep(1);
+                } catch (InterruptedException e) {
+                  return;
+                }
+              }
+            });
+    sampler.start();
+
+    long start = System.nanoTime();
+    archiveService.archive(channels, directory);
+    long elapsedNanos = System.nanoTime() - start;
+
+    sampler.interrupt();
+    sampler.join();
+
+    long messages = archiveService.getArchivedMessageCount();
+    long bytes = size(directory);
+    System.out.printf(
+        "latency %dms, parallelism %d: %,10.0f messages/s | %6.2fs | archive %,6.1f MB "
+            + "(%.1f bytes/message) | peak heap %,6.1f MB%n",
+        pageLatencyMillis,
+        parallelism,
+        messages / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1)),
+        elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1),
+        bytes / (1024.0 * 1024),
+        bytes / (double) messages,
+        peakHeap.get() / (1024.0 * 1024));
+
+    delete(directory);
+  }
+
+  private static long size(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      long size = 0;
+      for (Path file : (Iterable<Path>) files::iterator) size += Files.size(file);
+      return size;
+    }
+  }
+
+  private static void delete(Path directory) throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator)
+        Files.delete(file);
+    }
+  }
+}
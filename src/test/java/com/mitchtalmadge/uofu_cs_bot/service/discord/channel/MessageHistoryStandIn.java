@@ -0,0 +1,251 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord.channel;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.requests.restaction.pagination.MessagePaginationAction;
+
+import java.lang.reflect.Proxy;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A local stand-in for the message history API. Each page of a channel's history is generated when
+ * it is fetched, after a simulated latency, so that a history of any length can be read without
+ * holding it in memory. Messages are numbered from 0, newest first, and every tenth message has an
+ * attachment. The bot may read the history of every channel, unless the channel is unreadable. The
+ * stand-in entities are dynamic proxies which answer only the methods used.
+ */
+public class MessageHistoryStandIn {
+
+  public static final int PAGE_SIZE = 100;
+
+  private static final int AUTHOR_COUNT = 50;
+
+  private static final OffsetDateTime NEWEST_TIME =
+      OffsetDateTime.of(2020, 8, 14, 12, 0, 0, 0, ZoneOffset.UTC);
+
+  /** The simulated latency of each page fetch, in milliseconds. */
+  private final long pageLatencyMillis;
+
+  private final List<User> authors = new ArrayList<>();
+
+  /** A Guild in which the bot may read the history of every channel. */
+  private final Guild readableGuild = guild(true);
+
+  /** A Guild in which the bot may not read the history of any channel. */
+  private final Guild unreadableGuild = guild(false);
+
+  private final AtomicInteger fetchesInFlight = new AtomicInteger();
+  private final AtomicInteger maxFetchesInFlight = new AtomicInteger();
+
+  /** @param pageLatencyMillis The simulated latency of each page fetch, in milliseconds. */
+  public MessageHistoryStandIn(long pageLatencyMillis) {
+    this.pageLatencyMillis = pageLatencyMillis;
+    for (int i = 0; i < AUTHOR_COUNT; i++) {
+      long id = 200_000_000_000_000_000L + i;
+      String name = "Student " + i;
+      authors.add(
+          standIn(
+              User.class,
+              (method, args) -> {
+                switch (method) {
+                  case "getIdLong":
+                    return id;
+                  case "getId":
+                    return Long.toUnsignedString(id);
+                  case "getName":
+                    return name;
+                  default:
+                    throw new UnsupportedOperationException(method);
+                }
+              }));
+    }
+  }
+
+  /**
+   * @param name The name of the channel.
+   * @param messageCount The number of messages in its history.
+   * @return A channel whose history can be read.
+   */
+  public TextChannel channel(String name, int messageCount) {
+    return channel(name, messageCount, -1);
+  }
+
+  /**
+   * @param name The name of the channel.
+   * @param messageCount The number of messages in its history.
+   * @param failingPage The number of the page (from 0) whose fetch fails, or -1 for none.
+   * @return A channel whose history can be read.
+   */
+  public TextChannel channel(String name, int messageCount, int failingPage) {
+    return channel(name, messageCount, failingPage, readableGuild);
+  }
+
+  /**
+   * @param name The name of the channel.
+   * @param messageCount The number of messages in its history.
+   * @return A channel whose history the bot lacks the permissions to read.
+   */
+  public TextChannel unreadableChannel(String name, int messageCount) {
+    return channel(name, messageCount, -1, unreadableGuild);
+  }
+
+  private TextChannel channel(String name, int messageCount, int failingPage, Guild guild) {
+    return standIn(
+        TextChannel.class,
+        (method, args) -> {
+          switch (method) {
+            case "getName":
+              return name;
+            case "getGuild":
+              return guild;
+            case "getIterableHistory":
+              return history(messageCount, failingPage);
+            default:
+              throw new UnsupportedOperationException(method);
+          }
+        });
+  }
+
+  /**
+   * @param readable Whether the bot has the permissions to read the history of the channels.
+   * @return A Guild whose self member has or lacks those permissions in every channel.
+   */
+  private static Guild guild(boolean readable) {
+    Member selfMember =
+        standIn(
+            Member.class,
+            (method, args) -> {
+              if (method.equals("hasPermission")) return readable;
+              throw new UnsupportedOperationException(method);
+            });
+    return standIn(
+        Guild.class,
+        (method, args) -> {
+          if (method.equals("getSelfMember")) return selfMember;
+          throw new UnsupportedOperationException(method);
+        });
+  }
+
+  /** @return The most page fetches which have been in flight at once. */
+  public int getMaxFetchesInFlight() {
+    return maxFetchesInFlight.get();
+  }
+
+  /** @return An action which returns the next page of the history each time it completes. */
+  private MessagePaginationAction history(int messageCount, int failingPage) {
+    int[] position = new int[1];
+    int[] pages = new int[1];
+    MessagePaginationAction[] self = new MessagePaginationAction[1];
+    self[0] =
+        standIn(
+            MessagePaginationAction.class,
+            (method, args) -> {
+              switch (method) {
+                case "getMaxLimit":
+                  return PAGE_SIZE;
+                case "cache":
+                case "limit":
+                  return self[0];
+                case "complete":
+                  if (pages[0]++ == failingPage) throw new IllegalStateException("Fetch failed");
+                  fetch();
+                  int from = position[0];
+                  int to = Math.min(from + PAGE_SIZE, messageCount);
+                  position[0] = to;
+
+                  List<Message> page = new ArrayList<>(to - from);
+                  for (int i = from; i < to; i++) page.add(message(i));
+                  return page;
+                default:
+                  throw new UnsupportedOperationException(method);
+              }
+            });
+    return self[0];
+  }
+
+  /** Waits out the latency of a fetch, tracking the fetches in flight. */
+  private void fetch() {
+    int inFlight = fetchesInFlight.incrementAndGet();
+    maxFetchesInFlight.accumulateAndGet(inFlight, Math::max);
+    try {
+      if (pageLatencyMillis > 0) Thread.sleep(pageLatencyMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      fetchesInFlight.decrementAndGet();
+    }
+  }
+
+  /**
+   * @param number The number of the message, from the newest.
+   * @return The message.
+   */
+  private Message message(int number) {
+    long id = 700_000_000_000_000_000L - number;
+    User author = authors.get(number % AUTHOR_COUNT);
+    List<Message.Attachment> attachments =
+        number % 10 == 0
+            ? Collections.singletonList(
+                standIn(
+                    Message.Attachment.class,
+                    (method, args) -> {
+                      if (method.equals("getUrl"))
+                        return "https://cdn.discordapp.com/attachments/" + id + "/notes.pdf";
+                      throw new UnsupportedOperationException(method);
+                    }))
+            : Collections.emptyList();
+
+    return standIn(
+        Message.class,
+        (method, args) -> {
+          switch (method) {
+            case "getIdLong":
+              return id;
+            case "getId":
+              return Long.toUnsignedString(id);
+            case "getTimeCreated":
+              return NEWEST_TIME.minusSeconds(number);
+            case "getAuthor":
+              return author;
+            case "getContentRaw":
+              return "Does anyone know when assignment " + number % 12 + " is due? #" + number;
+            case "getAttachments":
+              return attachments;
+            default:
+              throw new UnsupportedOperationException(method);
+          }
+        });
+  }
+
+  private interface Handler {
+    Object invoke(String method, Object[] args);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T standIn(Class<T> type, Handler handler) {
+    return (T)
+        Proxy.newProxyInstance(
+            MessageHistoryStandIn.class.getClassLoader(),
+            new Class<?>[] {type},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "hashCode":
+                  return System.identityHashCode(proxy);
+                case "equals":
+                  return proxy == args[0];
+                case "toString":
+                  return type.getSimpleName();
+                default:
+                  return handler.invoke(method.getName(), args);
+              }
+            });
+  }
+}
@@ -0,0 +1,215 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord.channel;
+
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.GuildChannel;
+import net.dv8tion.jda.api.entities.PermissionOverride;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.api.requests.restaction.AuditableRestAction;
+import net.dv8tion.jda.api.requests.restaction.PermissionOverrideAction;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+/**
+ * Runs the override diff over a stand-in guild shaped like the real one (150 course channels, each
+ * with @everyone and three suffix role overrides), and counts the REST calls it would make. The
+ * stand-in entities are dynamic proxies which answer only the methods the diff uses.
+ */
+public class PermissionOverrideSpecTest {
+
+  private static final int CHANNEL_COUNT = 150;
+
+  private static final long VIEW = Permission.getRaw(Permission.VIEW_CHANNEL);
+
+  /** The REST calls made, by kind. */
+  private Map<String, Integer> restCalls;
+
+  private Role publicRole;
+
+  /** The suffix roles of each channel. */
+  private Role[][] suffixRoles;
+
+  /** The current overrides of each channel. */
+  private List<List<PermissionOverride>> overrides;
+
+  private GuildChannel[] channels;
+
+  @Before
+  public void setUp() {
+    restCalls = new HashMap<>();
+    publicRole = role(1);
+    suffixRoles = new Role[CHANNEL_COUNT][3];
+    overrides = new ArrayList<>();
+    channels = new GuildChannel[CHANNEL_COUNT];
+
+    for (int i = 0; i < CHANNEL_COUNT; i++) {
+      for (int s = 0; s < 3; s++) suffixRoles[i][s] = role(1000 + i * 3 + s);
+
+      List<PermissionOverride> channelOverrides = new ArrayList<>();
+      channelOverrides.add(override(publicRole.getIdLong(), 0, VIEW));
+      for (Role role : suffixRoles[i]) channelOverrides.add(override(role.getIdLong(), VIEW, 0));
+
+      overrides.add(channelOverrides);
+      channels[i] = channel(channelOverrides);
+    }
+  }
+
+  /** Tests that a guild whose overrides are already correct needs no REST calls. */
+  @Test
+  public void TestNoCallsWhenInSync() {
+    synchronize();
+
+    Assert.assertEquals(Collections.emptyMap(), restCalls);
+  }
+
+  /** Tests that a new guild creates every override, and nothing else. */
+  @Test
+  public void TestCreatesMissingOverrides() {
+    overrides.forEach(List::clear);
+
+    synchronize();
+
+    Assert.assertEquals(Collections.singletonMap("create", CHANNEL_COUNT * 4), restCalls);
+  }
+
+  /** Tests that only the overrides which differ produce calls. */
+  @Test
+  public void TestOnlyDifferencesProduceCalls() {
+    // A suffix role which may also send messages.
+    long viewAndWrite = VIEW | Permission.getRaw(Permission.MESSAGE_WRITE);
+    overrides.get(3).set(1, override(suffixRoles[3][0].getIdLong(), viewAndWrite, 0));
+    // @everyone is allowed to view instead of denied.
+    overrides.get(7).set(0, override(publicRole.getIdLong(), VIEW, 0));
+    // A member override which should not exist.
+    overrides.get(11).add(override(999_999, VIEW, 0));
+    // A missing suffix role override.
+    overrides.get(42).remove(3);
+
+    synchronize();
+
+    Map<String, Integer> expected = new HashMap<>();
+    expected.put("update", 2);
+    expected.put("delete", 1);
+    expected.put("create", 1);
+    Assert.assertEquals(expected, restCalls);
+  }
+
+  /**
+   * Diffs every channel, then queues the results the same way {@link
+   * ChannelSynchronizationService} does.
+   */
+  private void synchronize() {
+    Collection<PermissionOverride> overridesToDelete = new HashSet<>();
+    Collection<PermissionOverrideAction> overridesToCreate = new HashSet<>();
+    Collection<PermissionOverrideAction> overridesToUpdate = new HashSet<>();
+
+    for (int i = 0; i < CHANNEL_COUNT; i++) {
+      List<PermissionOverrideSpec> specs = new ArrayList<>();
+      specs.add(PermissionOverrideSpec.deny(publicRole, Permission.VIEW_CHANNEL));
+      for (Role role : suffixRoles[i])
+        specs.add(PermissionOverrideSpec.allow(role, Permission.VIEW_CHANNEL));
+
+      PermissionOverrideSpec.diff(
+          channels[i], specs, overridesToDelete, overridesToCreate, overridesToUpdate);
+    }
+
+    overridesToDelete.forEach(override -> override.delete().queue());
+    overridesToCreate.forEach(RestAction::queue);
+    overridesToUpdate.forEach(RestAction::queue);
+  }
+
+  // Stand-in entities.
+
+  private Role role(long id) {
+    return standIn(Role.class, (method, args) -> method.equals("getIdLong") ? id : null);
+  }
+
+  private PermissionOverride override(long holderId, long allowed, long denied) {
+    return standIn(
+        PermissionOverride.class,
+        (method, args) -> {
+          switch (method) {
+            case "getIdLong":
+              return holderId;
+            case "getAllowedRaw":
+              return allowed;
+            case "getDeniedRaw":
+              return denied;
+            case "getManager":
+              return action("update");
+            case "delete":
+              return standIn(AuditableRestAction.class, queue("delete"));
+            default:
+              return null;
+          }
+        });
+  }
+
+  private GuildChannel channel(List<PermissionOverride> channelOverrides) {
+    return standIn(
+        GuildChannel.class,
+        (method, args) -> {
+          switch (method) {
+            case "getPermissionOverrides":
+              return new ArrayList<>(channelOverrides);
+            case "createPermissionOverride":
+              return action("create");
+            default:
+              return null;
+          }
+        });
+  }
+
+  /**
+   * @param kind The kind of REST call the action makes when queued.
+   * @return An override action which counts its call when queued.
+   */
+  private PermissionOverrideAction action(String kind) {
+    Handler queue = queue(kind);
+    PermissionOverrideAction[] self = new PermissionOverrideAction[1];
+    self[0] =
+        standIn(
+            PermissionOverrideAction.class,
+            (method, args) -> {
+              if (method.equals("setPermissions")) return self[0];
+              return queue.invoke(method, args);
+            });
+    return self[0];
+  }
+
+  /** @return A handler which counts a REST call of the given kind when queued. */
+  private Handler queue(String kind) {
+    return (method, args) -> {
+      if (method.equals("queue")) restCalls.merge(kind, 1, Integer::sum);
+      return null;
+    };
+  }
+
+  private interface Handler {
+    Object invoke(String method, Object[] args);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T standIn(Class<T> type, Handler handler) {
+    return (T)
+        Proxy.newProxyInstance(
+            PermissionOverrideSpecTest.class.getClassLoader(),
+            new Class<?>[] {type},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "hashCode":
+                  return System.identityHashCode(proxy);
+                case "equals":
+                  return proxy == args[0];
+                case "toString":
+                  return type.getSimpleName();
+                default:
+                  return handler.invoke(method.getName(), args);
+              }
+            });
+  }
+}
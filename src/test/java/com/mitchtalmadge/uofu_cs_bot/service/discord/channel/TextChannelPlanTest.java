@@ -0,0 +1,226 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord.channel;
+
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.*;
+import net.dv8tion.jda.api.managers.ChannelManager;
+import net.dv8tion.jda.api.requests.restaction.ChannelAction;
+import net.dv8tion.jda.api.requests.restaction.PermissionOverrideAction;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+/**
+ * Plans the channels of a fresh semester (150 course channels, each with @everyone and three suffix
+ * role overrides) against a stand-in guild, and counts the REST calls needed to create and then
+ * synchronize them. The stand-in entities are dynamic proxies which answer only the methods used.
+ */
+public class TextChannelPlanTest {
+
+  private static final int CHANNEL_COUNT = 150;
+
+  /** The REST calls made, by kind. */
+  private Map<String, Integer> restCalls;
+
+  /** The channels created so far, with the state they were created with. */
+  private List<TextChannel> createdChannels;
+
+  private Category category;
+  private Role publicRole;
+  private Guild guild;
+  private List<TextChannelPlan> plans;
+
+  @Before
+  public void setUp() {
+    restCalls = new HashMap<>();
+    createdChannels = new ArrayList<>();
+    category = standIn(Category.class, (method, args) -> method.equals("getIdLong") ? 7L : null);
+    publicRole = role(1);
+    guild =
+        standIn(
+            Guild.class,
+            (method, args) ->
+                method.equals("createTextChannel") ? channelAction((String) args[0]) : null);
+
+    plans = new ArrayList<>();
+    for (int i = 0; i < CHANNEL_COUNT; i++) {
+      List<PermissionOverrideSpec> overrides = new ArrayList<>();
+      overrides.add(PermissionOverrideSpec.deny(publicRole, Permission.VIEW_CHANNEL));
+      for (int s = 0; s < 3; s++) {
+        Role suffixRole = role(1000 + i * 3 + s);
+        overrides.add(PermissionOverrideSpec.allow(suffixRole, Permission.VIEW_CHANNEL));
+      }
+
+      plans.add(new TextChannelPlan("cs-" + (1000 + i), category, false, overrides));
+    }
+  }
+
+  /**
+   * Tests that each channel is created with one request, after which the settings and overrides
+   * phases have nothing left to do. Previously each channel took a bare create, a settings update,
+   * and one request per override: 6 requests per channel, or 900 in total.
+   */
+  @Test
+  public void TestFreshSemesterNeedsOneRequestPerChannel() {
+    plans.forEach(plan -> plan.createAction(guild).queue());
+    Assert.assertEquals(Collections.singletonMap("create", CHANNEL_COUNT), restCalls);
+
+    // The later phases, run against the channels as they were created.
+    for (int i = 0; i < CHANNEL_COUNT; i++) {
+      TextChannelPlan plan = plans.get(i);
+      TextChannel channel = createdChannels.get(i);
+
+      Assert.assertNull(plan.createManager(channel));
+
+      Collection<PermissionOverride> overridesToDelete = new ArrayList<>();
+      Collection<PermissionOverrideAction> overridesToCreate = new ArrayList<>();
+      Collection<PermissionOverrideAction> overridesToUpdate = new ArrayList<>();
+      PermissionOverrideSpec.diff(
+          channel, plan.getOverrides(), overridesToDelete, overridesToCreate, overridesToUpdate);
+
+      Assert.assertTrue(overridesToDelete.isEmpty());
+      Assert.assertTrue(overridesToCreate.isEmpty());
+      Assert.assertTrue(overridesToUpdate.isEmpty());
+    }
+
+    Assert.assertEquals(Collections.singletonMap("create", CHANNEL_COUNT), restCalls);
+  }
+
+  /** Tests that a manager is created only for a channel whose settings differ. */
+  @Test
+  public void TestManagerOnlyForDifferences() {
+    TextChannelPlan plan = plans.get(0);
+
+    Set<String> changes = new HashSet<>();
+    TextChannel channel = channel(plan.getName(), null, true, new ArrayList<>(), changes);
+
+    Assert.assertNotNull(plan.createManager(channel));
+    Assert.assertEquals(new HashSet<>(Arrays.asList("setParent", "setNSFW")), changes);
+  }
+
+  // Stand-in entities.
+
+  private Role role(long id) {
+    return standIn(Role.class, (method, args) -> method.equals("getIdLong") ? id : null);
+  }
+
+  /**
+   * @param name The name of the channel to create.
+   * @return A channel action which records the state it is given, and creates a matching channel
+   *     when queued.
+   */
+  @SuppressWarnings("unchecked")
+  private ChannelAction<TextChannel> channelAction(String name) {
+    Category[] parent = new Category[1];
+    boolean[] nsfw = new boolean[1];
+    List<PermissionOverride> overrides = new ArrayList<>();
+
+    ChannelAction<TextChannel>[] self = new ChannelAction[1];
+    self[0] =
+        standIn(
+            ChannelAction.class,
+            (method, args) -> {
+              switch (method) {
+                case "setParent":
+                  parent[0] = (Category) args[0];
+                  return self[0];
+                case "setNSFW":
+                  nsfw[0] = (boolean) args[0];
+                  return self[0];
+                case "addPermissionOverride":
+                  long holderId = ((IPermissionHolder) args[0]).getIdLong();
+                  overrides.add(override(holderId, (long) args[1], (long) args[2]));
+                  return self[0];
+                case "queue":
+                  restCalls.merge("create", 1, Integer::sum);
+                  createdChannels.add(channel(name, parent[0], nsfw[0], overrides, null));
+                  return null;
+                default:
+                  return null;
+              }
+            });
+    return self[0];
+  }
+
+  /**
+   * @param changes Records the setters called on the channel's manager, if not null.
+   * @return A channel with the given state.
+   */
+  private TextChannel channel(
+      String name,
+      Category parent,
+      boolean nsfw,
+      List<PermissionOverride> overrides,
+      Set<String> changes) {
+    ChannelManager[] manager = new ChannelManager[1];
+    manager[0] =
+        standIn(
+            ChannelManager.class,
+            (method, args) -> {
+              if (changes != null) changes.add(method);
+              return manager[0];
+            });
+
+    return standIn(
+        TextChannel.class,
+        (method, args) -> {
+          switch (method) {
+            case "getName":
+              return name;
+            case "getParent":
+              return parent;
+            case "isNSFW":
+              return nsfw;
+            case "getPermissionOverrides":
+              return new ArrayList<>(overrides);
+            case "getManager":
+              return manager[0];
+            default:
+              return null;
+          }
+        });
+  }
+
+  private PermissionOverride override(long holderId, long allowed, long denied) {
+    return standIn(
+        PermissionOverride.class,
+        (method, args) -> {
+          switch (method) {
+            case "getIdLong":
+              return holderId;
+            case "getAllowedRaw":
+              return allowed;
+            case "getDeniedRaw":
+              return denied;
+            default:
+              return null;
+          }
+        });
+  }
+
+  private interface Handler {
+    Object invoke(String method, Object[] args);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T standIn(Class<T> type, Handler handler) {
+    return (T)
+        Proxy.newProxyInstance(
+            TextChannelPlanTest.class.getClassLoader(),
+            new Class<?>[] {type},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "hashCode":
+                  return System.identityHashCode(proxy);
+                case "equals":
+                  return proxy == args[0];
+                case "toString":
+                  return type.getSimpleName();
+                default:
+                  return handler.invoke(method.getName(), args);
+              }
+            });
+  }
+}
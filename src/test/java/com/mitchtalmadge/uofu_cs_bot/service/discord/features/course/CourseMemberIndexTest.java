@@ -0,0 +1,118 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord.features.course;
+
+import com.mitchtalmadge.uofu_cs_bot.domain.cs.CSClassCode;
+import com.mitchtalmadge.uofu_cs_bot.domain.cs.CSSuffix;
+import com.mitchtalmadge.uofu_cs_bot.domain.cs.Course;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+public class CourseMemberIndexTest {
+
+  private static final Course cs2420 = new Course(2420);
+  private static final Course cs3500 = new Course(3500);
+  private static final Course cs3810 = new Course(3810);
+
+  private CourseMemberIndex index;
+
+  @Before
+  public void setUp() {
+    index = new CourseMemberIndex();
+  }
+
+  private static Set<Course> courses(Course... courses) {
+    return new HashSet<>(Arrays.asList(courses));
+  }
+
+  /** Tests that adding the first member of a course is reported as a change. */
+  @Test
+  public void TestFirstMemberCrossesZero() {
+    Assert.assertTrue(index.setMemberNickname(1, "John Doe [2420]"));
+    Assert.assertFalse(index.setMemberNickname(2, "Jane Doe [2420 TA]"));
+
+    Assert.assertEquals(2, index.getMemberCount(cs2420));
+    Assert.assertEquals(courses(cs2420), index.getCourses());
+  }
+
+  /** Tests that only the difference between the old and new courses is applied. */
+  @Test
+  public void TestOnlyDifferenceApplied() {
+    index.setMemberNickname(1, "John Doe [2420, 3500]");
+    index.setMemberNickname(2, "Jane Doe [3500]");
+
+    // Member 1 drops 2420 and adds 3810; 3500 is untouched.
+    Assert.assertTrue(index.setMemberNickname(1, "John Doe [3500, 3810]"));
+
+    Assert.assertEquals(0, index.getMemberCount(cs2420));
+    Assert.assertEquals(2, index.getMemberCount(cs3500));
+    Assert.assertEquals(1, index.getMemberCount(cs3810));
+    Assert.assertEquals(courses(cs3500, cs3810), index.getCourses());
+  }
+
+  /** Tests that changes which keep every course in use are not reported. */
+  @Test
+  public void TestNoCrossingNotReported() {
+    index.setMemberNickname(1, "John Doe [3500]");
+    index.setMemberNickname(2, "Jane Doe [3500]");
+
+    Assert.assertFalse(index.setMemberNickname(1, "John Doe [3500 TA]"));
+    Assert.assertFalse(index.setMemberNickname(1, null));
+    Assert.assertTrue(index.removeMember(2));
+    Assert.assertTrue(index.getCourses().isEmpty());
+  }
+
+  /** Tests that the classes of a member are kept, along with the nickname they came from. */
+  @Test
+  public void TestClassCodes() {
+    index.setMemberNickname(1, "John Doe [3810, cs-3500 TA]");
+
+    Assert.assertArrayEquals(
+        new int[] {CSClassCode.of(cs3500, CSSuffix.TA), CSClassCode.of(cs3810, CSSuffix.NONE)},
+        index.getClassCodes(1));
+    Assert.assertSame(
+        index.getClassCodes(1), index.getCurrentClassCodes(1, "John Doe [3810, cs-3500 TA]"));
+    Assert.assertNull(index.getCurrentClassCodes(1, "John Doe [3810]"));
+
+    Assert.assertEquals(0, index.getClassCodes(2).length);
+    Assert.assertNull(index.getCurrentClassCodes(2, "Jane Doe"));
+  }
+
+  /** Tests that indexes built in different orders are equal, so drift can be detected. */
+  @Test
+  public void TestEquality() {
+    CourseMemberIndex other = new CourseMemberIndex();
+
+    index.setMemberNickname(1, "John Doe [2420]");
+    index.setMemberNickname(1, "John Doe [3500]");
+    index.setMemberNickname(2, "Jane Doe [3500, 3810]");
+
+    other.setMemberNickname(2, "Jane Doe [3500, 3810]");
+    other.setMemberNickname(1, "John Doe [3500]");
+    Assert.assertEquals(index, other);
+
+    other.setMemberNickname(3, "Sam Lee [3810]");
+    Assert.assertNotEquals(index, other);
+  }
+
+  /** Tests that the members which differ between two indexes are found, whichever holds them. */
+  @Test
+  public void TestFindDifferingMembers() {
+    CourseMemberIndex other = new CourseMemberIndex();
+
+    index.setMemberNickname(1, "John Doe [2420]");
+    index.setMemberNickname(2, "Jane Doe [3500]");
+    index.setMemberNickname(3, "Sam Lee [3810]");
+    other.setMemberNickname(1, "John Doe [2420]");
+    other.setMemberNickname(2, "Jane Doe [3500 TA]");
+    other.setMemberNickname(4, "Alex Kim [3810]");
+
+    long[] members = index.findDifferingMembers(other);
+    Arrays.sort(members);
+    Assert.assertArrayEquals(new long[] {2, 3, 4}, members);
+    Assert.assertEquals(0, index.findDifferingMembers(index).length);
+  }
+}
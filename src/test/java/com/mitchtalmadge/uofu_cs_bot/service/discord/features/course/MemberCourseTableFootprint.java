@@ -0,0 +1,53 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord.features.course;
+
+import com.mitchtalmadge.uofu_cs_bot.domain.cs.CSNickname;
+import com.mitchtalmadge.uofu_cs_bot.domain.cs.NicknameCorpus;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reports the retained heap of the classes of every member of a large guild, stored in a {@link
+ * MemberCourseTable} and in the previous object-based representation (a CSNickname per member, for
+ * members with classes). The shared Course and CSSuffix instances are counted once for both. The
+ * table also refers to every nickname, but those Strings are held by JDA anyway, so they are not
+ * counted.
+ */
+public class MemberCourseTableFootprint {
+
+  private static final int MEMBER_COUNT = 30_000;
+
+  public static void main(String... args) {
+    String[] nicknames = NicknameCorpus.generate(MEMBER_COUNT, 42);
+
+    MemberCourseTable table = new MemberCourseTable();
+    Map<Long, CSNickname> objects = new HashMap<>();
+
+    int membersWithClasses = 0;
+    for (int i = 0; i < nicknames.length; i++) {
+      long userId = 100_000_000_000_000_000L + i * 4_194_304L;
+      CSNickname csNickname = new CSNickname(nicknames[i]);
+      table.put(userId, nicknames[i], csNickname.getClassCodes());
+      if (csNickname.getClasses().isEmpty()) continue;
+
+      objects.put(userId, csNickname);
+      membersWithClasses++;
+    }
+
+    GraphLayout tableLayout =
+        GraphLayout.parseInstance(table).subtract(GraphLayout.parseInstance((Object) nicknames));
+    GraphLayout objectLayout = GraphLayout.parseInstance(objects);
+
+    System.out.println(membersWithClasses + " of " + MEMBER_COUNT + " members have classes.");
+    report("MemberCourseTable", tableLayout, MEMBER_COUNT);
+    report("HashMap<Long, CSNickname>", objectLayout, membersWithClasses);
+    System.out.println(objectLayout.toFootprint());
+  }
+
+  private static void report(String name, GraphLayout layout, int members) {
+    System.out.printf(
+        "%-26s %,12d bytes %,8.1f bytes/member%n",
+        name, layout.totalSize(), layout.totalSize() / (double) members);
+  }
+}
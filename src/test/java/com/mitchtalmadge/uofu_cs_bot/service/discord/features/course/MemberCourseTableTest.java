@@ -0,0 +1,139 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord.features.course;
+
+import com.mitchtalmadge.uofu_cs_bot.domain.cs.CSClassCode;
+import com.mitchtalmadge.uofu_cs_bot.domain.cs.CSSuffix;
+import com.mitchtalmadge.uofu_cs_bot.domain.cs.Course;
+import com.mitchtalmadge.uofu_cs_bot.domain.cs.CourseSet;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class MemberCourseTableTest {
+
+  private MemberCourseTable table;
+
+  @Before
+  public void setUp() {
+    table = new MemberCourseTable();
+  }
+
+  /** Tests storing, replacing, and removing the classes of a member. */
+  @Test
+  public void TestPutAndRemove() {
+    int[] codes = {1, 2};
+    int[] newCodes = {3};
+
+    Assert.assertEquals(0, table.put(42, "John Doe [0, 0 TA]", codes).length);
+    Assert.assertSame(codes, table.get(42));
+    Assert.assertSame(codes, table.put(42, "John Doe [0 PROF]", newCodes));
+    Assert.assertSame(newCodes, table.get(42));
+    Assert.assertEquals(1, table.size());
+
+    Assert.assertSame(newCodes, table.remove(42));
+    Assert.assertEquals(0, table.get(42).length);
+    Assert.assertEquals(0, table.remove(42).length);
+    Assert.assertEquals(0, table.size());
+  }
+
+  /** Tests that members without classes are stored, so that their nickname is not parsed again. */
+  @Test
+  public void TestEmptyCodesStored() {
+    table.put(42, "John Doe [0]", new int[] {0});
+    Assert.assertEquals(1, table.put(42, "John Doe", new int[0]).length);
+    table.put(43, null, new int[0]);
+
+    Assert.assertEquals(2, table.size());
+    Assert.assertEquals(0, table.getIfCurrent(42, "John Doe").length);
+    Assert.assertEquals(0, table.getIfCurrent(43, null).length);
+    Assert.assertEquals(0, table.findMembers(CourseSet.fromNumbers(new int[] {0})).length);
+  }
+
+  /** Tests finding the members with any of a set of courses. */
+  @Test
+  public void TestFindMembers() {
+    CourseSet courses = CourseSet.fromNumbers(new int[] {2420, 3500});
+    for (long userId = 1; userId <= 100; userId++) {
+      int number = userId % 3 == 0 ? 3500 : 1410;
+      int[] codes = {
+        CSClassCode.of(Course.of(1030), CSSuffix.NONE),
+        CSClassCode.of(Course.of(number), CSSuffix.TA)
+      };
+      table.put(userId, "", codes);
+    }
+
+    long[] members = table.findMembers(courses);
+    Arrays.sort(members);
+
+    Assert.assertEquals(33, members.length);
+    for (int i = 0; i < members.length; i++) Assert.assertEquals(3 * (i + 1), members[i]);
+    Assert.assertEquals(0, table.findMembers(CourseSet.EMPTY).length);
+  }
+
+  /** Tests that stored classes are only current for the nickname they were stored with. */
+  @Test
+  public void TestGetIfCurrent() {
+    int[] codes = {4};
+    table.put(42, "John Doe [1]", codes);
+
+    Assert.assertSame(codes, table.getIfCurrent(42, "John Doe [1]"));
+    Assert.assertNull(table.getIfCurrent(42, "John Doe [2]"));
+    Assert.assertNull(table.getIfCurrent(42, null));
+    Assert.assertNull(table.getIfCurrent(43, "John Doe [1]"));
+
+    // The nickname itself is compared, not its hash code.
+    Assert.assertEquals("Aa".hashCode(), "BB".hashCode());
+    table.put(44, "Aa", codes);
+    Assert.assertNull(table.getIfCurrent(44, "BB"));
+  }
+
+  /**
+   * Tests random operations against a HashMap, using IDs from a small range so that probe
+   * sequences collide often, and enough members to grow the table several times.
+   */
+  @Test
+  public void TestRandomOperations() {
+    Random random = new Random(7);
+    Map<Long, int[]> expected = new HashMap<>();
+
+    for (int i = 0; i < 200_000; i++) {
+      long userId = 1 + random.nextInt(5_000);
+
+      if (random.nextInt(3) == 0) {
+        int[] previous = expected.remove(userId);
+        Assert.assertArrayEquals(previous == null ? new int[0] : previous, table.remove(userId));
+      } else {
+        int[] codes = random.nextInt(8) == 0 ? new int[0] : new int[] {random.nextInt(1 << 20)};
+        int[] previous = expected.put(userId, codes);
+        Assert.assertArrayEquals(
+            previous == null ? new int[0] : previous, table.put(userId, "", codes));
+      }
+
+      Assert.assertEquals(expected.size(), table.size());
+    }
+
+    for (long userId = 1; userId <= 5_000; userId++) {
+      int[] codes = expected.get(userId);
+      Assert.assertArrayEquals(codes == null ? new int[0] : codes, table.get(userId));
+    }
+  }
+
+  /** Tests that tables with the same members are equal, regardless of insertion order. */
+  @Test
+  public void TestEquality() {
+    MemberCourseTable other = new MemberCourseTable();
+    for (long userId = 1; userId <= 100; userId++) {
+      table.put(userId, "Member " + userId, new int[] {(int) userId});
+      other.put(101 - userId, "Member " + (101 - userId), new int[] {(int) (101 - userId)});
+    }
+    Assert.assertEquals(table, other);
+    Assert.assertEquals(table.hashCode(), other.hashCode());
+
+    other.put(1, "Member 1 [1]", new int[] {1});
+    Assert.assertNotEquals(table, other);
+  }
+}
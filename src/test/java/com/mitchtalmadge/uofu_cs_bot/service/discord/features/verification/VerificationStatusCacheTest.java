@@ -0,0 +1,110 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord.features.verification;
+
+import com.mitchtalmadge.uofu_cs_bot.domain.entity.InternalUser;
+import com.mitchtalmadge.uofu_cs_bot.domain.entity.repository.InternalUserRepository;
+import com.mitchtalmadge.uofu_cs_bot.domain.entity.repository.InternalUserRepository.VerificationSummary;
+import com.mitchtalmadge.uofu_cs_bot.service.LogService;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads the cache from a stand-in repository of 1000 users, half of them verified, and counts the
+ * queries made. The stand-in repository is a dynamic proxy which answers only findSummariesBy.
+ */
+public class VerificationStatusCacheTest {
+
+  private static final int USER_COUNT = 1000;
+
+  /** The queries made, by repository method. */
+  private Map<String, Integer> queries;
+
+  private VerificationStatusCache verificationStatusCache;
+
+  @Before
+  public void setUp() {
+    List<VerificationSummary> iUsers = new ArrayList<>();
+    for (long id = 0; id < USER_COUNT; id++) {
+      InternalUser iUser = new InternalUser(id, "u" + id, "00000");
+      if (id % 2 == 0) iUser.markVerified();
+      iUsers.add(summary(iUser));
+    }
+
+    queries = new HashMap<>();
+    InternalUserRepository internalUserRepository =
+        (InternalUserRepository)
+            Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[] {InternalUserRepository.class},
+                (proxy, method, args) -> {
+                  queries.merge(method.getName(), 1, Integer::sum);
+                  if (method.getName().equals("findSummariesBy")) return iUsers;
+                  throw new UnsupportedOperationException(method.getName());
+                });
+
+    verificationStatusCache =
+        new VerificationStatusCache(new LogService(null, null), internalUserRepository);
+    verificationStatusCache.load();
+  }
+
+  /** Tests that looking up every user after loading makes no further queries. */
+  @Test
+  public void TestOneQueryForAllLookups() {
+    for (long id = 0; id < USER_COUNT * 2; id++) {
+      VerificationStatus expected =
+          id >= USER_COUNT
+              ? VerificationStatus.UNVERIFIED
+              : id % 2 == 0 ? VerificationStatus.VERIFIED : VerificationStatus.CODE_SENT;
+      Assert.assertEquals(expected, verificationStatusCache.getStatus(id));
+    }
+
+    Assert.assertEquals(Map.of("findSummariesBy", 1), queries);
+    Assert.assertEquals(USER_COUNT, verificationStatusCache.getHitCount());
+    Assert.assertEquals(USER_COUNT, verificationStatusCache.getMissCount());
+    Assert.assertEquals(0.5, verificationStatusCache.getHitRate(), 0);
+    Assert.assertTrue(verificationStatusCache.getLoadMillis() >= 0);
+  }
+
+  /** Tests that saved and deleted users are written through the cache. */
+  @Test
+  public void TestWriteThrough() {
+    long id = USER_COUNT;
+    InternalUser iUser = new InternalUser(id, "u", "00000");
+    verificationStatusCache.put(iUser);
+    Assert.assertEquals(VerificationStatus.CODE_SENT, verificationStatusCache.getStatus(id));
+
+    iUser.markVerified();
+    verificationStatusCache.put(iUser);
+    Assert.assertEquals(VerificationStatus.VERIFIED, verificationStatusCache.getStatus(id));
+
+    verificationStatusCache.remove(iUser);
+    Assert.assertEquals(VerificationStatus.UNVERIFIED, verificationStatusCache.getStatus(id));
+
+    Assert.assertEquals(Map.of("findSummariesBy", 1), queries);
+  }
+
+  private static VerificationSummary summary(InternalUser iUser) {
+    return new VerificationSummary() {
+      @Override
+      public Long getDiscordUserId() {
+        return iUser.getDiscordUserId();
+      }
+
+      @Override
+      public String getUnid() {
+        return iUser.getUnid();
+      }
+
+      @Override
+      public VerificationStatus getVerificationStatus() {
+        return iUser.getVerificationStatus();
+      }
+    };
+  }
+}
@@ -0,0 +1,245 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord.nickname;
+
+import com.mitchtalmadge.uofu_cs_bot.domain.entity.NicknameChange;
+import com.mitchtalmadge.uofu_cs_bot.domain.entity.repository.NicknameChangeRepository;
+import com.mitchtalmadge.uofu_cs_bot.service.LogService;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.DiscordService;
+import net.dv8tion.jda.api.audit.AuditLogEntry;
+import net.dv8tion.jda.api.audit.AuditLogKey;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.requests.restaction.pagination.AuditLogPaginationAction;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Reads a stand-in audit log of 1000 member updates, one per hour, made by 50 members. Members with
+ * even IDs change their nickname in every update, and the others only change their roles. The
+ * recorded nickname changes are kept in a map. The stand-in entities and repository are dynamic
+ * proxies which answer only the methods used.
+ */
+public class NicknameServiceTest {
+
+  private static final int ENTRY_COUNT = 1000;
+  private static final int MEMBER_COUNT = 50;
+  private static final int PAGE_SIZE = 100;
+
+  private OffsetDateTime now;
+  private List<AuditLogEntry> entries;
+  private Map<Long, NicknameChange> recordedChanges;
+  private NicknameService nicknameService;
+
+  @Before
+  public void setUp() {
+    now = OffsetDateTime.now();
+    entries = new ArrayList<>();
+    for (int i = 0; i < ENTRY_COUNT; i++) {
+      long targetId = i % MEMBER_COUNT;
+      OffsetDateTime time = now.minusMinutes(i * 60 + 30);
+      Map<String, Object> changes =
+          Collections.singletonMap(
+              targetId % 2 == 0 ? AuditLogKey.MEMBER_NICK.getKey() : "$add", null);
+      entries.add(
+          standIn(
+              AuditLogEntry.class,
+              (method, args) -> {
+                switch (method) {
+                  case "getTargetIdLong":
+                    return targetId;
+                  case "getTimeCreated":
+                    return time;
+                  case "getChanges":
+                    return changes;
+                  default:
+                    return null;
+                }
+              }));
+    }
+
+    recordedChanges = new HashMap<>();
+    NicknameChangeRepository nicknameChangeRepository =
+        standIn(
+            NicknameChangeRepository.class,
+            (method, args) -> {
+              switch (method) {
+                case "save":
+                  NicknameChange change = (NicknameChange) args[0];
+                  recordedChanges.put(change.getDiscordUserId(), change);
+                  return change;
+                case "saveAll":
+                  ((Iterable<?>) args[0])
+                      .forEach(
+                          c ->
+                              recordedChanges.put(
+                                  ((NicknameChange) c).getDiscordUserId(), (NicknameChange) c));
+                  return args[0];
+                case "findAllByChangedAtAfter":
+                  return recordedChanges.values().stream()
+                      .filter(c -> c.getChangedAt().isAfter((Instant) args[0]))
+                      .collect(Collectors.toList());
+                case "findTopByOrderByChangedAtDesc":
+                  return recordedChanges.values().stream()
+                      .max(Comparator.comparing(NicknameChange::getChangedAt));
+                default:
+                  throw new UnsupportedOperationException(method);
+              }
+            });
+
+    Guild guild =
+        standIn(
+            Guild.class,
+            (method, args) -> {
+              if (method.equals("retrieveAuditLogs")) return auditLog();
+              throw new UnsupportedOperationException(method);
+            });
+    DiscordService discordService =
+        new DiscordService(null) {
+          @Override
+          public Guild getGuild() {
+            return guild;
+          }
+        };
+
+    nicknameService =
+        new NicknameService(
+            new LogService(null, null),
+            discordService,
+            null,
+            nicknameChangeRepository,
+            Collections.emptySet());
+  }
+
+  /** Tests that the audit log is read once, and only as far as the cutoff. */
+  @Test
+  public void TestOnePassToCutoff() {
+    Map<Long, OffsetDateTime> nicknameChanges =
+        nicknameService.findNicknameChangesSince(auditLog(), now.minusHours(300));
+
+    // Entries 0 to 299 are within the cutoff, and entry 300 starts the fourth page.
+    Assert.assertEquals(4, nicknameService.getAuditLogPagesFetched());
+
+    Assert.assertEquals(MEMBER_COUNT / 2, nicknameChanges.size());
+    for (long id = 0; id < MEMBER_COUNT; id += 2) {
+      // The latest change of each member is their first entry.
+      Assert.assertEquals(entries.get((int) id).getTimeCreated(), nicknameChanges.get(id));
+    }
+  }
+
+  /** Tests that reading stops at the end of an audit log which is newer than the cutoff. */
+  @Test
+  public void TestStopsAtEnd() {
+    nicknameService.findNicknameChangesSince(auditLog(), now.minusYears(1));
+    Assert.assertEquals(ENTRY_COUNT / PAGE_SIZE + 1, nicknameService.getAuditLogPagesFetched());
+  }
+
+  /**
+   * Tests that the latest change of each member is recorded from the audit log at startup, reading
+   * back only as far as stale nicknames are looked for.
+   */
+  @Test
+  public void TestBackfillFromEmpty() {
+    nicknameService.prepareBackfill();
+    nicknameService.backfillNicknameChanges();
+
+    // Entries 0 to 719 are within 30 days, and entry 720 is on the eighth page.
+    Assert.assertEquals(8, nicknameService.getAuditLogPagesFetched());
+    Assert.assertEquals(MEMBER_COUNT / 2, recordedChanges.size());
+    for (long id = 0; id < MEMBER_COUNT; id += 2) {
+      Assert.assertEquals(
+          entries.get((int) id).getTimeCreated().toInstant(),
+          recordedChanges.get(id).getChangedAt());
+    }
+  }
+
+  /** Tests that the audit log is only read back to the latest recorded change. */
+  @Test
+  public void TestBackfillSinceLatestRecorded() {
+    // A change recorded before a 150 hour outage.
+    Instant recorded = now.minusHours(150).toInstant();
+    recordedChanges.put(1L, new NicknameChange(1L, recorded));
+
+    nicknameService.prepareBackfill();
+    nicknameService.backfillNicknameChanges();
+
+    // Entries 0 to 149 are newer than the recorded change, and entry 150 is on the second page.
+    Assert.assertEquals(2, nicknameService.getAuditLogPagesFetched());
+    Assert.assertEquals(MEMBER_COUNT / 2 + 1, recordedChanges.size());
+    Assert.assertEquals(recorded, recordedChanges.get(1L).getChangedAt());
+  }
+
+  /**
+   * Tests that changes recorded from events after the bot started are not overwritten by the older
+   * changes read from the audit log, and that they do not move the cutoff of the backfill.
+   */
+  @Test
+  public void TestBackfillKeepsChangesRecordedSinceStart() throws InterruptedException {
+    nicknameService.prepareBackfill();
+    Thread.sleep(5);
+    nicknameService.recordNicknameChange(0L);
+    Instant recorded = recordedChanges.get(0L).getChangedAt();
+
+    nicknameService.backfillNicknameChanges();
+
+    Assert.assertEquals(8, nicknameService.getAuditLogPagesFetched());
+    Assert.assertEquals(MEMBER_COUNT / 2, recordedChanges.size());
+    Assert.assertEquals(recorded, recordedChanges.get(0L).getChangedAt());
+    Assert.assertEquals(
+        entries.get(2).getTimeCreated().toInstant(), recordedChanges.get(2L).getChangedAt());
+  }
+
+  /** @return An audit log action which returns the next page of entries each time it completes. */
+  private AuditLogPaginationAction auditLog() {
+    int[] position = new int[1];
+    AuditLogPaginationAction[] self = new AuditLogPaginationAction[1];
+    self[0] =
+        standIn(
+            AuditLogPaginationAction.class,
+            (method, args) -> {
+              switch (method) {
+                case "getMaxLimit":
+                  return PAGE_SIZE;
+                case "type":
+                case "limit":
+                  return self[0];
+                case "complete":
+                  int from = position[0];
+                  int to = Math.min(from + PAGE_SIZE, entries.size());
+                  position[0] = to;
+                  return new ArrayList<>(entries.subList(from, to));
+                default:
+                  throw new UnsupportedOperationException(method);
+              }
+            });
+    return self[0];
+  }
+
+  private interface Handler {
+    Object invoke(String method, Object[] args);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T standIn(Class<T> type, Handler handler) {
+    return (T)
+        Proxy.newProxyInstance(
+            NicknameServiceTest.class.getClassLoader(),
+            new Class<?>[] {type},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "hashCode":
+                  return System.identityHashCode(proxy);
+                case "equals":
+                  return proxy == args[0];
+                case "toString":
+                  return type.getSimpleName();
+                default:
+                  return handler.invoke(method.getName(), args);
+              }
+            });
+  }
+}
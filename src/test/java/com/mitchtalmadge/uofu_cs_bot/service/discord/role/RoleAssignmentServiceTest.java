@@ -0,0 +1,349 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord.role;
+
+import com.mitchtalmadge.uofu_cs_bot.service.LogService;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.DiscordService;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.RestActionPipeline;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.SynchronizationScope;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.nickname.NicknameService;
+import com.mitchtalmadge.uofu_cs_bot.service.discord.nickname.NicknameValidator;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.requests.restaction.AuditableRestAction;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Runs full role assignment passes over a stand-in guild of 1000 members, of which only every tenth
+ * member needs a role change (and, when nicknames are validated, every tenth member needs a
+ * different nickname, as does every hundredth member whose role also changes), and counts the
+ * updates sent. The stand-in entities are dynamic proxies which
+ * answer only the methods used, and requests finish as soon as they are queued.
+ */
+public class RoleAssignmentServiceTest {
+
+  private static final int MEMBER_COUNT = 1000;
+
+  /** The members whose roles are updated, in order. */
+  private List<Long> updatedMemberIds;
+
+  /** The members whose nicknames are updated, in order. */
+  private List<Long> renamedMemberIds;
+
+  /** The members whose nicknames and roles are updated together, in order. */
+  private List<Long> patchedMemberIds;
+
+  /** The IDs of the members whose updates should fail. */
+  private Set<Long> failingMemberIds;
+
+  /** The IDs of the members which are above the bot's highest role. */
+  private Set<Long> higherMemberIds;
+
+  private List<Member> members;
+  private Guild guild;
+  private RoleAssigner roleAssigner;
+
+  @Before
+  public void setUp() {
+    updatedMemberIds = new ArrayList<>();
+    renamedMemberIds = new ArrayList<>();
+    patchedMemberIds = new ArrayList<>();
+    failingMemberIds = new HashSet<>();
+    higherMemberIds = new HashSet<>();
+
+    User user = standIn(User.class, (method, args) -> method.equals("getName") ? "Test" : null);
+    members = new ArrayList<>();
+    for (long id = 0; id < MEMBER_COUNT; id++) {
+      long memberId = id;
+      members.add(
+          standIn(
+              Member.class,
+              (method, args) -> {
+                switch (method) {
+                  case "getIdLong":
+                    return memberId;
+                  case "getUser":
+                    return user;
+                  case "getNickname":
+                    return "Test [3500]";
+                  case "getRoles":
+                    return Collections.emptyList();
+                  case "isOwner":
+                    return false;
+                  default:
+                    return null;
+                }
+              }));
+    }
+
+    Member selfMember =
+        standIn(
+            Member.class,
+            (method, args) -> {
+              switch (method) {
+                case "isOwner":
+                case "hasPermission":
+                  return true;
+                case "canInteract":
+                  return !(args[0] instanceof Member)
+                      || !higherMemberIds.contains(((Member) args[0]).getIdLong());
+                default:
+                  return null;
+              }
+            });
+    guild =
+        standIn(
+            Guild.class,
+            (method, args) -> {
+              switch (method) {
+                case "getMembers":
+                  return members;
+                case "getMemberById":
+                  return members.get((int) (long) args[0]);
+                case "getSelfMember":
+                  return selfMember;
+                case "modifyMemberRoles":
+                  return modifyAction(updatedMemberIds, ((Member) args[0]).getIdLong());
+                case "modifyNickname":
+                  return modifyAction(renamedMemberIds, ((Member) args[0]).getIdLong());
+                default:
+                  return null;
+              }
+            });
+
+    Role role =
+        standIn(
+            Role.class,
+            (method, args) -> {
+              switch (method) {
+                case "getName":
+                  return "cs-3500";
+                case "isManaged":
+                case "isPublicRole":
+                  return false;
+                default:
+                  return null;
+              }
+            });
+    roleAssigner =
+        new RoleAssigner() {
+          @Override
+          public void updateRoleAssignments(
+              Member member, Set<Role> rolesToAdd, Set<Role> rolesToRemove) {
+            if (member.getIdLong() % 10 == 0) rolesToAdd.add(role);
+          }
+        };
+  }
+
+  /** Tests that members whose roles are already correct cost no request. */
+  @Test
+  public void TestNoOpUpdatesSkipped() {
+    RoleAssignmentService service = createService(MEMBER_COUNT);
+    service.assignRoles();
+
+    Assert.assertEquals(MEMBER_COUNT / 10, updatedMemberIds.size());
+    Assert.assertEquals(MEMBER_COUNT / 10, service.getCompletedUpdateCount());
+    Assert.assertEquals(MEMBER_COUNT - MEMBER_COUNT / 10, service.getSkippedUpdateCount());
+    Assert.assertEquals(0, service.getDirtyMemberCount());
+  }
+
+  /**
+   * Tests that a pass sends no more than its budget, and that the members beyond it are left dirty
+   * for the next pass.
+   */
+  @Test
+  public void TestBudgetDefersUpdates() {
+    RoleAssignmentService service = createService(30);
+    service.assignRoles();
+
+    Assert.assertEquals(30, updatedMemberIds.size());
+    Assert.assertEquals(70, service.getDeferredUpdateCount());
+    Assert.assertEquals(70, service.getDirtyMemberCount());
+
+    // The next passes pick up where the budget ran out.
+    SynchronizationScope scope = SynchronizationScope.ofCourses(Collections.emptySet());
+    service.assignRoles(scope);
+    service.assignRoles(scope);
+    service.assignRoles(scope);
+
+    Assert.assertEquals(MEMBER_COUNT / 10, new HashSet<>(updatedMemberIds).size());
+    Assert.assertEquals(0, service.getDirtyMemberCount());
+  }
+
+  /** Tests that failed updates are counted and leave their member dirty. */
+  @Test
+  public void TestFailedUpdatesMarkDirty() {
+    failingMemberIds.add(0L);
+    failingMemberIds.add(10L);
+
+    RoleAssignmentService service = createService(MEMBER_COUNT);
+    service.assignRoles();
+
+    Assert.assertEquals(2, service.getFailedUpdateCount());
+    Assert.assertEquals(MEMBER_COUNT / 10 - 2, service.getCompletedUpdateCount());
+    Assert.assertEquals(2, service.getDirtyMemberCount());
+  }
+
+  /**
+   * Tests that every member who needs an update costs one request: whether their nickname alone,
+   * their roles alone, or both are changed.
+   */
+  @Test
+  public void TestReconcileSendsOneRequestPerMember() {
+    RoleAssignmentService service = createService(MEMBER_COUNT);
+    service.reconcileMembers();
+
+    Assert.assertEquals(MEMBER_COUNT / 10 - MEMBER_COUNT / 100, updatedMemberIds.size());
+    Assert.assertEquals(MEMBER_COUNT / 10, renamedMemberIds.size());
+    Assert.assertEquals(MEMBER_COUNT / 100, patchedMemberIds.size());
+    Assert.assertEquals(MEMBER_COUNT / 100, service.getCombinedUpdateCount());
+    Assert.assertEquals(MEMBER_COUNT - 2 * MEMBER_COUNT / 10, service.getSkippedUpdateCount());
+
+    // The members whose nicknames and roles both change cost one request each.
+    for (long id = 0; id < MEMBER_COUNT; id += 100) {
+      int requests =
+          Collections.frequency(updatedMemberIds, id)
+              + Collections.frequency(renamedMemberIds, id)
+              + Collections.frequency(patchedMemberIds, id);
+      Assert.assertEquals(1, requests);
+    }
+  }
+
+  /**
+   * Tests that an update which the bot is not allowed to make is counted as failed without being
+   * sent, and does not stop the rest of the pass.
+   */
+  @Test
+  public void TestRefusedUpdateNotSent() {
+    higherMemberIds.add(0L);
+
+    RoleAssignmentService service = createService(MEMBER_COUNT);
+    service.reconcileMembers();
+
+    Assert.assertEquals(1, service.getFailedUpdateCount());
+    Assert.assertFalse(patchedMemberIds.contains(0L));
+    Assert.assertEquals(MEMBER_COUNT / 100 - 1, patchedMemberIds.size());
+    Assert.assertEquals(2 * MEMBER_COUNT / 10 - 1, service.getCompletedUpdateCount());
+  }
+
+  /**
+   * Tests that members deferred by a pass which validated nicknames have their nicknames validated
+   * by the later passes which pick them up, even though those passes do not validate nicknames.
+   */
+  @Test
+  public void TestDeferredMembersKeepNicknameValidation() {
+    RoleAssignmentService service = createService(30);
+    service.reconcileMembers();
+
+    Assert.assertEquals(2 * MEMBER_COUNT / 10 - 30, service.getDirtyMemberCount());
+
+    SynchronizationScope scope = SynchronizationScope.ofCourses(Collections.emptySet());
+    for (int pass = 0; pass < 10 && service.getDirtyMemberCount() > 0; pass++)
+      service.assignRoles(scope);
+
+    Assert.assertEquals(0, service.getDirtyMemberCount());
+    Set<Long> roleUpdates = new HashSet<>(updatedMemberIds);
+    roleUpdates.addAll(patchedMemberIds);
+    Set<Long> nicknameUpdates = new HashSet<>(renamedMemberIds);
+    nicknameUpdates.addAll(patchedMemberIds);
+    Assert.assertEquals(MEMBER_COUNT / 10, roleUpdates.size());
+    Assert.assertEquals(MEMBER_COUNT / 10 + MEMBER_COUNT / 100, nicknameUpdates.size());
+  }
+
+  private RoleAssignmentService createService(int updateBudget) {
+    LogService logService = new LogService(null, null);
+    DiscordService discordService =
+        new DiscordService(logService) {
+          @Override
+          public Guild getGuild() {
+            return guild;
+          }
+        };
+
+    NicknameValidator nicknameValidator =
+        new NicknameValidator() {
+          @Override
+          public String assignNickname(Member member) {
+            long id = member.getIdLong();
+            return id % 10 == 5 || id % 100 == 0 ? "Test [3500, 4400]" : member.getNickname();
+          }
+        };
+
+    MemberPatcher memberPatcher =
+        new MemberPatcher() {
+          @Override
+          protected AuditableRestAction<Void> createRequest(
+              Guild guild, Member member, DataObject body) {
+            return modifyAction(patchedMemberIds, member.getIdLong());
+          }
+        };
+
+    RestActionPipeline restActionPipeline = new RestActionPipeline(logService, 10);
+    return new RoleAssignmentService(
+        logService,
+        discordService,
+        restActionPipeline,
+        new NicknameService(
+            logService,
+            discordService,
+            restActionPipeline,
+            null,
+            Collections.singleton(nicknameValidator)),
+        memberPatcher,
+        Collections.singleton(roleAssigner),
+        250,
+        30_000,
+        updateBudget);
+  }
+
+  /**
+   * @param updates Records the ID of the member when the request is queued.
+   * @param memberId The ID of the member being updated.
+   * @return An update request which finishes as soon as it is queued.
+   */
+  @SuppressWarnings("unchecked")
+  private AuditableRestAction<Void> modifyAction(List<Long> updates, long memberId) {
+    return standIn(
+        AuditableRestAction.class,
+        (method, args) -> {
+          if (method.equals("queue") && args != null && args.length == 2) {
+            updates.add(memberId);
+            if (failingMemberIds.contains(memberId))
+              ((Consumer<Throwable>) args[1]).accept(new RuntimeException("Test"));
+            else ((Consumer<Void>) args[0]).accept(null);
+          }
+          return null;
+        });
+  }
+
+  private interface Handler {
+    Object invoke(String method, Object[] args);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T standIn(Class<T> type, Handler handler) {
+    return (T)
+        Proxy.newProxyInstance(
+            RoleAssignmentServiceTest.class.getClassLoader(),
+            new Class<?>[] {type},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "hashCode":
+                  return System.identityHashCode(proxy);
+                case "equals":
+                  return proxy == args[0];
+                case "toString":
+                  return type.getSimpleName();
+                default:
+                  return handler.invoke(method.getName(), args);
+              }
+            });
+  }
+}
@@ -0,0 +1,73 @@
+package com.mitchtalmadge.uofu_cs_bot.service.discord.role;
+
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.Role;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.awt.*;
+
+public class RoleSettingsTest {
+
+  private static final Permission[] PERMISSIONS = {
+    Permission.NICKNAME_CHANGE, Permission.MESSAGE_HISTORY
+  };
+
+  private static final long PERMISSIONS_RAW = Permission.getRaw(PERMISSIONS);
+
+  /** Tests that a role which already has the settings needs no update. */
+  @Test
+  public void TestNoDifferences() {
+    RoleSettings settings =
+        new RoleSettings("cs-3500-ta", Color.decode("0x2ECC71"), true, true, PERMISSIONS);
+
+    Assert.assertEquals(
+        0, settings.getDifferences("cs-3500-ta", 0x2ECC71, true, true, PERMISSIONS_RAW));
+  }
+
+  /** Tests that each differing field is detected on its own. */
+  @Test
+  public void TestEachDifference() {
+    RoleSettings settings =
+        new RoleSettings("cs-3500-ta", Color.decode("0x2ECC71"), true, true, PERMISSIONS);
+
+    Assert.assertEquals(
+        RoleSettings.NAME,
+        settings.getDifferences("cs-3500-TA", 0x2ECC71, true, true, PERMISSIONS_RAW));
+    Assert.assertEquals(
+        RoleSettings.COLOR,
+        settings.getDifferences("cs-3500-ta", 0xE91E63, true, true, PERMISSIONS_RAW));
+    Assert.assertEquals(
+        RoleSettings.HOISTED,
+        settings.getDifferences("cs-3500-ta", 0x2ECC71, false, true, PERMISSIONS_RAW));
+    Assert.assertEquals(
+        RoleSettings.MENTIONABLE,
+        settings.getDifferences("cs-3500-ta", 0x2ECC71, true, false, PERMISSIONS_RAW));
+    Assert.assertEquals(
+        RoleSettings.PERMISSIONS,
+        settings.getDifferences(
+            "cs-3500-ta", 0x2ECC71, true, true, Permission.getRaw(Permission.NICKNAME_CHANGE)));
+  }
+
+  /** Tests that no color matches the default color of a role. */
+  @Test
+  public void TestNoColor() {
+    RoleSettings settings = new RoleSettings("cs-3500", null, false, true, PERMISSIONS);
+
+    Assert.assertEquals(
+        0,
+        settings.getDifferences("cs-3500", Role.DEFAULT_COLOR_RAW, false, true, PERMISSIONS_RAW));
+    Assert.assertEquals(
+        RoleSettings.COLOR,
+        settings.getDifferences("cs-3500", 0xFFFFFF, false, true, PERMISSIONS_RAW));
+  }
+
+  /** Tests that a null name leaves the name alone. */
+  @Test
+  public void TestNullNameIgnored() {
+    RoleSettings settings = new RoleSettings(null, Color.WHITE, true, false, PERMISSIONS);
+
+    Assert.assertEquals(
+        0, settings.getDifferences("Verified", 0xFFFFFF, true, false, PERMISSIONS_RAW));
+  }
+}
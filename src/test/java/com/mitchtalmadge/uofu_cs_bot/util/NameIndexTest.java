@@ -0,0 +1,163 @@
+package com.mitchtalmadge.uofu_cs_bot.util;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class NameIndexTest {
+
+  private static final Comparator<Entity> byId = Comparator.comparingLong(entity -> entity.id);
+
+  /** The current entities, by ID, standing in for the Guild cache. */
+  private Map<Long, Entity> guild;
+
+
+  private NameIndex<Entity> index;
+
+  @Before
+  public void setUp() {
+    guild = new HashMap<>();
+    index =
+        new NameIndex<>(
+            entity -> entity.id,
+            entity -> entity.name,
+            guild::get,
+            name ->
+                guild.values().stream()
+                    .filter(entity -> entity.name.equalsIgnoreCase(name))
+                    .collect(Collectors.toList()),
+            () -> guild.values().stream().sorted(byId).collect(Collectors.toList()),
+            () -> guild.size());
+  }
+
+  private Entity create(long id, String name) {
+    Entity entity = new Entity(id, name);
+    guild.put(id, entity);
+    return entity;
+  }
+
+  /** Tests that indexed entities are found by name in any case, without rebuilding. */
+  @Test
+  public void TestLookupIgnoresCase() {
+    Entity cs3500 = create(1, "cs-3500");
+    Entity cs3500Ta = create(2, "CS-3500-TA");
+    index.rebuild();
+
+    Assert.assertSame(cs3500, index.get("CS-3500"));
+    Assert.assertSame(cs3500Ta, index.get("cs-3500-ta"));
+    Assert.assertEquals(1, index.getRebuildCount());
+  }
+
+  /** Tests that names which do not exist are answered without rebuilding, until one is created. */
+  @Test
+  public void TestMissesAreCached() {
+    create(1, "cs-3500");
+    index.rebuild();
+
+    for (int i = 0; i < 10; i++) {
+      Assert.assertNull(index.get("cs-3500-ta"));
+      Assert.assertNull(index.get("cs-3500-prof"));
+    }
+    Assert.assertEquals(1, index.getRebuildCount());
+
+    Entity ta = create(2, "cs-3500-TA");
+    index.add(ta);
+    Assert.assertSame(ta, index.get("cs-3500-ta"));
+    Assert.assertNull(index.get("cs-3500-prof"));
+    Assert.assertEquals(1, index.getRebuildCount());
+  }
+
+  /** Tests that created, deleted, and renamed entities are reflected in the index. */
+  @Test
+  public void TestEvents() {
+    Entity role = create(1, "cs-3500");
+    index.add(role);
+    Assert.assertSame(role, index.get("cs-3500"));
+
+    role.name = "cs-3505";
+    index.rename(role, "cs-3500");
+    Assert.assertSame(role, index.get("cs-3505"));
+    Assert.assertNull(index.get("cs-3500"));
+    Assert.assertEquals(0, index.getRebuildCount());
+
+    guild.remove(1L);
+    index.remove(role);
+    Assert.assertEquals(0, index.size());
+  }
+
+  /** Tests that entries are validated, in case an event was missed or not yet processed. */
+  @Test
+  public void TestStaleEntriesAreNotReturned() {
+    Entity role = create(1, "cs-3500");
+    index.add(role);
+
+    // Renamed without an event.
+    role.name = "cs-3505";
+    Assert.assertNull(index.get("cs-3500"));
+    Assert.assertSame(role, index.get("cs-3505"));
+
+    // Deleted without an event.
+    guild.remove(1L);
+    Assert.assertNull(index.get("cs-3505"));
+
+    // Created without an event, such as by a request whose event has not been processed yet.
+    Entity created = create(2, "cs-4150");
+    Assert.assertSame(created, index.get("cs-4150"));
+    Assert.assertEquals(1, index.size());
+
+    // The late create event changes nothing.
+    long rebuilds = index.getRebuildCount();
+    index.add(created);
+    Assert.assertNull(index.get("cs-4400"));
+    Assert.assertEquals(rebuilds, index.getRebuildCount());
+  }
+
+  /**
+   * Tests that a name is found when an entity was renamed to it without an event, even though the
+   * number of entities is unchanged.
+   */
+  @Test
+  public void TestMissOnUnprocessedRename() {
+    Entity role = create(1, "cs-3500");
+    create(2, "cs-4150");
+    index.rebuild();
+
+    // Renamed without an event, such as one still queued or dropped.
+    role.name = "cs-3505";
+    Assert.assertSame(role, index.get("cs-3505"));
+    Assert.assertNull(index.get("cs-3500"));
+    Assert.assertNull(index.get("cs-4400"));
+  }
+
+  /** Tests that deleting one of two entities with the same name keeps the other one findable. */
+  @Test
+  public void TestDuplicateNames() {
+    Entity first = create(1, "general");
+    Entity second = create(2, "General");
+    index.rebuild();
+    Assert.assertSame(first, index.get("general"));
+
+    guild.remove(1L);
+    index.remove(first);
+    Assert.assertSame(second, index.get("general"));
+
+    // Removing an entity which is not the indexed one leaves the entry alone.
+    index.remove(new Entity(3, "general"));
+    Assert.assertEquals(1, index.size());
+  }
+
+  private static class Entity {
+    final long id;
+    String name;
+
+    Entity(long id, String name) {
+      this.id = id;
+      this.name = name;
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package com.mitchtalmadge.uofu_cs_bot.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link DiscordUtils#orderEntities}, which plans the fewest moves, with the previous
+ * approach of selecting every entity by index and moving it into place. Guilds have 250 roles or
+ * 300 channels, which are either already in order or have a few entities out of place. A list
+ * stands in for the current order of an OrderAction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderingPlannerBenchmark {
+
+  @Param({"250", "300"})
+  public int size;
+
+  /** The number of entities moved out of place before ordering. */
+  @Param({"0", "3"})
+  public int displaced;
+
+  private List<String> order;
+  private List<String> currentOrder;
+
+  @Setup
+  public void setUp() {
+    order = new ArrayList<>();
+    for (int i = 0; i < size; i++) order.add(String.format("cs-%04d", i));
+
+    currentOrder = new ArrayList<>(order);
+    Random random = new Random(42);
+    for (int i = 0; i < displaced; i++)
+      currentOrder.add(random.nextInt(size), currentOrder.remove(random.nextInt(size)));
+  }
+
+  @Benchmark
+  public int planner() {
+    List<String> list = new ArrayList<>(currentOrder);
+
+    List<String> targetOrder = OrderingPlanner.getTargetOrder(list, order);
+    List<String> entitiesToMove = OrderingPlanner.getEntitiesToMove(list, targetOrder);
+    OrderingPlanner.applyMoves(
+        list, targetOrder, entitiesToMove, (from, to) -> list.add(to, list.remove(from)));
+
+    return entitiesToMove.size();
+  }
+
+  @Benchmark
+  public int moveEveryEntity() {
+    List<String> list = new ArrayList<>(currentOrder);
+
+    for (int i = 0; i < order.size(); i++) {
+      int from = list.indexOf(order.get(i));
+      list.add(i, list.remove(from));
+    }
+
+    return list.size();
+  }
+
+  public static void main(String... args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder().include(OrderingPlannerBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
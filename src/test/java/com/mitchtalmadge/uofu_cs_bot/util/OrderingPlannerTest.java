@@ -0,0 +1,113 @@
+package com.mitchtalmadge.uofu_cs_bot.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class OrderingPlannerTest {
+
+  /**
+   * Reorders a list the same way an OrderAction would, by moving only the planned entities.
+   *
+   * @return The number of moves made.
+   */
+  private static int reorder(List<Integer> list, List<Integer> order) {
+    List<Integer> targetOrder = OrderingPlanner.getTargetOrder(list, order);
+    List<Integer> entitiesToMove = OrderingPlanner.getEntitiesToMove(list, targetOrder);
+
+    int[] moves = new int[1];
+    OrderingPlanner.applyMoves(
+        list,
+        targetOrder,
+        entitiesToMove,
+        (from, to) -> {
+          list.add(to, list.remove(from));
+          moves[0]++;
+        });
+
+    Assert.assertEquals(targetOrder, list);
+    return moves[0];
+  }
+
+  private static List<Integer> range(int size) {
+    List<Integer> list = new ArrayList<>();
+    for (int i = 0; i < size; i++) list.add(i);
+    return list;
+  }
+
+  /** Tests that nothing moves when the entities are already in order. */
+  @Test
+  public void TestAlreadyOrdered() {
+    List<Integer> list = range(250);
+
+    Assert.assertTrue(OrderingPlanner.getEntitiesToMove(list, range(250)).isEmpty());
+    Assert.assertEquals(0, reorder(list, range(250)));
+  }
+
+  /** Tests that only the displaced entity moves. */
+  @Test
+  public void TestSingleDisplacedEntity() {
+    List<Integer> list = range(10);
+    list.add(2, list.remove(7));
+
+    Assert.assertEquals(
+        Collections.singletonList(7), OrderingPlanner.getEntitiesToMove(list, range(10)));
+    Assert.assertEquals(1, reorder(list, range(10)));
+  }
+
+  /** Tests that a reversed list keeps one entity in place and moves the rest. */
+  @Test
+  public void TestReversed() {
+    List<Integer> list = range(20);
+    Collections.reverse(list);
+
+    Assert.assertEquals(19, reorder(list, range(20)));
+  }
+
+  /** Tests that entities missing from the order end up after the ordered entities. */
+  @Test
+  public void TestPartialOrder() {
+    List<Integer> list = new ArrayList<>(Arrays.asList(5, 1, 4, 2, 3));
+
+    reorder(list, Arrays.asList(3, 2, 1, 99));
+
+    Assert.assertEquals(Arrays.asList(3, 2, 1, 5, 4), list);
+  }
+
+  /** Tests random shuffles, checking that the number of moves is minimal. */
+  @Test
+  public void TestRandomShuffles() {
+    Random random = new Random(11);
+
+    for (int trial = 0; trial < 500; trial++) {
+      int size = 1 + random.nextInt(300);
+      List<Integer> list = range(size);
+
+      // Displace a few entities, or shuffle everything.
+      if (random.nextBoolean()) {
+        for (int i = random.nextInt(5); i >= 0; i--)
+          list.add(random.nextInt(size), list.remove(random.nextInt(size)));
+      } else {
+        Collections.shuffle(list, random);
+      }
+
+      int expectedMoves = size - longestIncreasingSubsequence(list);
+      Assert.assertEquals(expectedMoves, reorder(list, range(size)));
+    }
+  }
+
+  /** A quadratic reference implementation. */
+  private static int longestIncreasingSubsequence(List<Integer> list) {
+    int[] lengths = new int[list.size()];
+    int longest = 0;
+    for (int i = 0; i < list.size(); i++) {
+      lengths[i] = 1;
+      for (int j = 0; j < i; j++) {
+        if (list.get(j) < list.get(i)) lengths[i] = Math.max(lengths[i], lengths[j] + 1);
+      }
+      longest = Math.max(longest, lengths[i]);
+    }
+    return longest;
+  }
+}